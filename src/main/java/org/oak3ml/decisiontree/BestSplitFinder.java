@@ -1,29 +1,60 @@
 package org.oak3ml.decisiontree;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.data.SparseDataset;
 import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.SparseFeature;
 import org.oak3ml.decisiontree.impurity.ImpurityCalculationMethod;
 
 /**
  * Best split finder class.
  * 
+ * Split search can be pre-pruned: splits which would create a child with less than minimumNumberOfInstancesPerLeaf
+ * data samples are rejected while they are evaluated, and the best split is accepted only if it decreases impurity of
+ * the node by at least minimumImpurityDecrease. If no split is accepted no feature is returned and node becomes a leaf.
+ * 
  * @author Ignas
  *
  */
 public class BestSplitFinder {
     
     private ImpurityCalculationMethod impurityCalculationMethod;
+
+    /** Minimum number of data samples of each non empty branch of accepted split. */
+    private final long minimumNumberOfInstancesPerLeaf;
+
+    /** Minimum decrease of impurity of accepted split. */
+    private final double minimumImpurityDecrease;
+
+    /** Sparse features of training data. Set on split finder of a single training (see {@link DecisionTreeSettings}). */
+    private SparseFeatureIndex sparseFeatureIndex;
     
     /**
      * @param impurityCalculationMethod
      */
     public BestSplitFinder(ImpurityCalculationMethod impurityCalculationMethod) {
+        this(impurityCalculationMethod, 0, 0.0);
+    }
+
+    /**
+     * @param impurityCalculationMethod Impurity calculation method.
+     * @param minimumNumberOfInstancesPerLeaf Minimum number of data samples (see {@link DataView#getCount(int)}) of
+     *            each non empty branch. Splits with smaller branches are rejected.
+     * @param minimumImpurityDecrease Minimum difference between impurity of the node and total impurity of its split.
+     *            0 accepts any split.
+     */
+    public BestSplitFinder(ImpurityCalculationMethod impurityCalculationMethod, long minimumNumberOfInstancesPerLeaf, double minimumImpurityDecrease) {
         super();
         this.impurityCalculationMethod = impurityCalculationMethod;
+        this.minimumNumberOfInstancesPerLeaf = minimumNumberOfInstancesPerLeaf;
+        this.minimumImpurityDecrease = minimumImpurityDecrease;
     }
 
     /**
@@ -44,6 +75,292 @@ public class BestSplitFinder {
 
         return bestSplitFeature;
     }
+
+    /**
+     * Finds best feature to split rows of shared data on. Each row is weighted by number of times it is drawn into the
+     * {@link DataView}, so no data samples are copied for bootstrap samples.
+     */
+    public Feature findBestSplitFeature(DataView data, int[] rows, List<Feature> features) {
+        return findBestSplitFeature(data, rows, features, false);
+    }
+
+    /**
+     * Same as {@link #findBestSplitFeature(DataView, int[], List)} but features can be evaluated in parallel (used for
+     * large nodes). Result is the same as of sequential search.
+     */
+    public Feature findBestSplitFeature(DataView data, int[] rows, List<Feature> features, boolean parallel) {
+        TrainingArenas arenas = TrainingArenas.newTrainingArenas(rows.length, data.getLabelDictionary().size());
+        return findBestSplitFeature(data, rows, 0, rows.length, features, arenas, parallel);
+    }
+
+    /**
+     * Same as {@link #findBestSplitFeature(DataView, int[], List, boolean)} but for rows in range of shared index
+     * buffer. Binary features are evaluated with label histograms of thread arenas, so evaluation does not allocate
+     * memory proportional to number of rows.
+     * 
+     * @param data Shared data.
+     * @param rows Index buffer.
+     * @param from First position of rows of the node.
+     * @param to Position after last row of the node.
+     * @param features Candidate features.
+     * @param arenas Working memory of training threads.
+     * @param parallel If true features are evaluated in parallel.
+     * @return Best split feature.
+     */
+    public Feature findBestSplitFeature(DataView data, int[] rows, int from, int to, List<Feature> features, TrainingArenas arenas, boolean parallel) {
+        return selectBestFeature(data, rows, from, to, features, arenas, parallel);
+    }
+
+    /**
+     * Resolves sparse features of training data once for all nodes of a training.
+     */
+    void setSparseFeatureIndex(SparseFeatureIndex sparseFeatureIndex) {
+        this.sparseFeatureIndex = sparseFeatureIndex;
+    }
+
+    /**
+     * Evaluates all features and returns the one with lowest impurity. If impurities are equal the first feature wins.
+     * Rejected splits have infinite impurity.
+     */
+    protected Feature selectBestFeature(DataView data, int[] rows, int from, int to, List<Feature> features, TrainingArenas arenas, boolean parallel) {
+        double[] impurities = new double[features.size()];
+        boolean[] evaluated = calculateHistogramSplitImpurities(data, rows, from, to, features, impurities, arenas.get());
+        IntStream indexes = IntStream.range(0, features.size()).filter(i -> !evaluated[i]);
+        (parallel ? indexes.parallel() : indexes).forEach(i -> 
+            impurities[i] = calculateSplitImpurity(data, rows, from, to, features.get(i), arenas.get()));
+
+        double[] nodeCounts = minimumImpurityDecrease > 0 ? data.countLabels(rows, from, to, arenas.get().getFirstBranchCounts()) : null;
+        return selectBestFeature(features, impurities, nodeCounts);
+    }
+
+    /**
+     * Selects feature with the lowest split impurity. If impurities are equal the first feature wins.
+     * 
+     * @param features Evaluated features.
+     * @param impurities Split impurity of each feature.
+     * @param nodeCounts Label counts of the node. They are needed only if minimumImpurityDecrease is set.
+     * @return Best feature or null if no split is accepted.
+     */
+    protected Feature selectBestFeature(List<Feature> features, double[] impurities, double[] nodeCounts) {
+        double currentImpurity = Double.MAX_VALUE;
+        if (minimumImpurityDecrease > 0) {
+            // split which decreases impurity exactly by minimum is still accepted
+            currentImpurity = Math.nextUp(impurityCalculationMethod.calculateImpurity(nodeCounts) - minimumImpurityDecrease);
+        }
+        Feature bestSplitFeature = null;
+        for (int i = 0; i < impurities.length; i++) {
+            if (impurities[i] < currentImpurity) {
+                currentImpurity = impurities[i];
+                bestSplitFeature = features.get(i);
+            }
+        }
+        return bestSplitFeature;
+    }
+
+    /**
+     * Total impurity of split of rows by a feature. Rows of binary feature are counted into two label histograms of
+     * arena - branch of the first row is added last, the same order as split map has. Other features are split.
+     * 
+     * @return Total impurity or infinity if split has a non empty branch with less than minimumNumberOfInstancesPerLeaf
+     *         data samples.
+     */
+    protected double calculateSplitImpurity(DataView data, int[] rows, int from, int to, Feature feature, TrainingArena arena) {
+        if (!feature.isBinary()) {
+            Collection<int[]> splitRows = feature.split(data, Arrays.copyOfRange(rows, from, to)).values();
+            for (int[] branchRows : splitRows) {
+                if (branchRows.length > 0 && isUndersized(countInstances(data, branchRows))) {
+                    return Double.POSITIVE_INFINITY;
+                }
+            }
+            return calculateTotalSplitImpurity(data, splitRows);
+        }
+        double[] firstCounts = arena.getFirstBranchCounts();
+        double[] lastCounts = arena.getSecondBranchCounts();
+        Arrays.fill(firstCounts, 0.0);
+        Arrays.fill(lastCounts, 0.0);
+        boolean lastBranch = feature.belongsTo(data.get(rows[from]));
+        int nbOfFirst = 0;
+        double firstInstances = 0;
+        double lastInstances = 0;
+        for (int i = from; i < to; i++) {
+            int row = rows[i];
+            if (feature.belongsTo(data.get(row)) == lastBranch) {
+                lastCounts[data.getLabelId(row)] += data.getWeight(row);
+                lastInstances += data.getCount(row);
+            } else {
+                firstCounts[data.getLabelId(row)] += data.getWeight(row);
+                firstInstances += data.getCount(row);
+                nbOfFirst++;
+            }
+        }
+        return calculateBinarySplitImpurity(firstCounts, nbOfFirst, firstInstances, lastCounts, lastInstances);
+    }
+
+    /**
+     * Evaluates features whose split histograms can be counted together for all of them, before the rest are evaluated
+     * one by one. By default these are sparse features (see
+     * {@link #calculateSparseSplitImpurities(DataView, int[], int, int, List, double[], TrainingArena)}).
+     * 
+     * @param impurities Output - total impurity of each evaluated feature.
+     * @param arena Working memory of current thread.
+     * @return Which features are evaluated.
+     */
+    protected boolean[] calculateHistogramSplitImpurities(DataView data, int[] rows, int from, int to, List<Feature> features, double[] impurities,
+            TrainingArena arena) {
+        return calculateSparseSplitImpurities(data, rows, from, to, features, impurities, arena);
+    }
+
+    /**
+     * Evaluates {@link SparseFeature}s of {@link SparseDataset} in one pass over non zero values of node rows. "True"
+     * branch of each feature is counted from non zero values, "false" branch (which has all implicit zeros) is node
+     * counts minus "true" branch, so cost grows with number of non zero values of the node, not with rows * features.
+     * Column ids of features are taken from {@link SparseFeatureIndex} of training data, so they are not looked up
+     * and sorted by name for each node.
+     * 
+     * @param impurities Output - total impurity of each evaluated feature.
+     * @param arena Working memory of current thread.
+     * @return Which features are evaluated. None are if data is not sparse.
+     */
+    protected boolean[] calculateSparseSplitImpurities(DataView data, int[] rows, int from, int to, List<Feature> features, double[] impurities,
+            TrainingArena arena) {
+        boolean[] evaluated = new boolean[features.size()];
+        if (!(data.getData() instanceof SparseDataset)) {
+            return evaluated;
+        }
+        SparseDataset sparseData = (SparseDataset) data.getData();
+        SparseFeatureIndex index = sparseFeatureIndex != null && sparseFeatureIndex.isFor(data) ? sparseFeatureIndex
+                : SparseFeatureIndex.newSparseFeatureIndex(data, features);
+        // sparse features ordered by column id (position in index) and then by candidate, packed into long
+        long[] order = new long[features.size()];
+        int nbOfSparse = 0;
+        boolean sorted = true;
+        for (int i = 0; i < features.size(); i++) {
+            int position = index.getPosition(features.get(i));
+            if (position >= 0) {
+                order[nbOfSparse] = ((long) position << 32) | i;
+                sorted &= nbOfSparse == 0 || order[nbOfSparse - 1] < order[nbOfSparse];
+                nbOfSparse++;
+            }
+        }
+        if (nbOfSparse == 0) {
+            return evaluated;
+        }
+        if (!sorted) {
+            Arrays.sort(order, 0, nbOfSparse);
+        }
+        int[] columnIds = new int[nbOfSparse];
+        double[] thresholds = new double[nbOfSparse];
+        for (int k = 0; k < nbOfSparse; k++) {
+            int position = (int) (order[k] >>> 32);
+            columnIds[k] = index.getColumnId(position);
+            thresholds[k] = index.getThreshold(position);
+        }
+
+        int nbOfLabels = data.getLabelDictionary().size();
+        double[] nodeCounts = new double[nbOfLabels];
+        double nodeInstances = 0;
+        double[] trueCounts = arena.getFeatureCounts(nbOfSparse * nbOfLabels);
+        int[] trueRows = arena.getFeatureRows(nbOfSparse);
+        double[] trueInstances = arena.getFeatureInstances(nbOfSparse);
+        boolean[] firstRowHasFeature = new boolean[nbOfSparse];
+        for (int i = from; i < to; i++) {
+            int row = rows[i];
+            int labelId = data.getLabelId(row);
+            double weight = data.getWeight(row);
+            double count = data.getCount(row);
+            boolean firstRow = i == from;
+            nodeCounts[labelId] += weight;
+            nodeInstances += count;
+            for (int position = sparseData.getRowStart(row); position < sparseData.getRowEnd(row); position++) {
+                int columnId = sparseData.getColumnAt(position);
+                double value = sparseData.getValueAt(position);
+                for (int k = lowerBound(columnIds, columnId); k < nbOfSparse && columnIds[k] == columnId; k++) {
+                    if (value > thresholds[k]) {
+                        trueCounts[k * nbOfLabels + labelId] += weight;
+                        trueRows[k]++;
+                        trueInstances[k] += count;
+                        firstRowHasFeature[k] |= firstRow;
+                    }
+                }
+            }
+        }
+
+        BranchCounts branchCounts = new BranchCounts(nodeCounts, to - from, nodeInstances);
+        for (int k = 0; k < nbOfSparse; k++) {
+            int i = (int) order[k];
+            impurities[i] = branchCounts.calculateSplitImpurity(trueCounts, k * nbOfLabels, trueRows[k], trueInstances[k], firstRowHasFeature[k]);
+            evaluated[i] = true;
+        }
+        return evaluated;
+    }
+
+    /**
+     * Index of the first value which is not smaller than provided value.
+     */
+    private static int lowerBound(int[] values, int value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Total impurity of binary split from label counts of its branches.
+     * 
+     * @param firstCounts Label counts of branch which does not have the first row of the node.
+     * @param nbOfFirst Number of rows of the first branch.
+     * @param firstInstances Number of data samples of the first branch.
+     * @param lastCounts Label counts of branch of the first row.
+     * @param lastInstances Number of data samples of the last branch.
+     * @return Total impurity or infinity if a non empty branch is undersized.
+     */
+    protected double calculateBinarySplitImpurity(double[] firstCounts, int nbOfFirst, double firstInstances, double[] lastCounts, double lastInstances) {
+        if (nbOfFirst > 0 && isUndersized(firstInstances) || isUndersized(lastInstances)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double totalNb = 0;
+        double totalImpurity = 0;
+        if (nbOfFirst > 0) {
+            double firstNb = sum(firstCounts);
+            totalNb += firstNb;
+            totalImpurity += firstNb * impurityCalculationMethod.calculateImpurity(firstCounts);
+        }
+        double lastNb = sum(lastCounts);
+        totalNb += lastNb;
+        totalImpurity += lastNb * impurityCalculationMethod.calculateImpurity(lastCounts);
+        return totalNb > 0 ? totalImpurity / totalNb : 0.0;
+    }
+
+    /**
+     * Checks if branch with this number of data samples is too small to be a child.
+     */
+    protected boolean isUndersized(double nbOfInstances) {
+        return nbOfInstances < minimumNumberOfInstancesPerLeaf;
+    }
+
+    private static double countInstances(DataView data, int[] rows) {
+        double nbOfInstances = 0;
+        for (int row : rows) {
+            nbOfInstances += data.getCount(row);
+        }
+        return nbOfInstances;
+    }
+
+    private static double sum(double[] counts) {
+        double sum = 0;
+        for (double count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
     
     /**
      * Calculate total impurity of a split by weight averaging all impurities.
@@ -63,4 +380,77 @@ public class BestSplitFinder {
                 .mapToDouble(list -> ((double)list.size() / totalNb) * impurityCalculationMethod.calculateImpurity(list)).sum();
     }
 
+    /**
+     * Same as {@link #calculateTotalSplitImpurity(Collection)} but for split rows of {@link DataView} where each row
+     * is weighted by its multiplicity.
+     * 
+     * @param data Shared data.
+     * @param splitRows Rows of each split leaf.
+     * @return Total impurity
+     */
+    protected double calculateTotalSplitImpurity(DataView data, Collection<int[]> splitRows) {
+        double totalNb = 0;
+        double totalImpurity = 0;
+        for (int[] rows : splitRows) {
+            if (rows.length > 0) {
+                double[] labelCounts = data.countLabels(rows);
+                double leafNb = Arrays.stream(labelCounts).sum();
+                totalNb += leafNb;
+                totalImpurity += leafNb * impurityCalculationMethod.calculateImpurity(labelCounts);
+            }
+        }
+        return totalNb > 0 ? totalImpurity / totalNb : 0.0;
+    }
+
+    /**
+     * Label counts of a node from which split impurity of binary feature is calculated when only label counts of its
+     * "true" branch are counted - "false" branch is node minus "true" branch.
+     */
+    protected class BranchCounts {
+
+        private final double[] nodeCounts;
+
+        private final int nodeRows;
+
+        private final double nodeInstances;
+
+        private final double[] firstCounts;
+
+        private final double[] lastCounts;
+
+        /**
+         * @param nodeCounts Label counts of the node.
+         * @param nodeRows Number of rows of the node.
+         * @param nodeInstances Number of data samples of the node.
+         */
+        protected BranchCounts(double[] nodeCounts, int nodeRows, double nodeInstances) {
+            this.nodeCounts = nodeCounts;
+            this.nodeRows = nodeRows;
+            this.nodeInstances = nodeInstances;
+            this.firstCounts = new double[nodeCounts.length];
+            this.lastCounts = new double[nodeCounts.length];
+        }
+
+        /**
+         * @param trueCounts Array with label counts of "true" branch.
+         * @param offset Position of label counts of "true" branch in the array.
+         * @param trueRows Number of rows of "true" branch.
+         * @param trueInstances Number of data samples of "true" branch.
+         * @param firstRowHasFeature If first row of the node has feature. Its branch is the last one, the same as in
+         *            {@link BestSplitFinder#calculateSplitImpurity(DataView, int[], int, int, Feature, TrainingArena)}.
+         * @return Total impurity or infinity if a non empty branch is undersized.
+         */
+        protected double calculateSplitImpurity(double[] trueCounts, int offset, int trueRows, double trueInstances, boolean firstRowHasFeature) {
+            double[] trueBranch = firstRowHasFeature ? lastCounts : firstCounts;
+            double[] falseBranch = firstRowHasFeature ? firstCounts : lastCounts;
+            for (int labelId = 0; labelId < nodeCounts.length; labelId++) {
+                trueBranch[labelId] = trueCounts[offset + labelId];
+                falseBranch[labelId] = nodeCounts[labelId] - trueBranch[labelId];
+            }
+            int nbOfFirst = firstRowHasFeature ? nodeRows - trueRows : trueRows;
+            double firstInstances = firstRowHasFeature ? nodeInstances - trueInstances : trueInstances;
+            return calculateBinarySplitImpurity(firstCounts, nbOfFirst, firstInstances, lastCounts, nodeInstances - firstInstances);
+        }
+    }
+
 }
@@ -0,0 +1,109 @@
+package org.oak3ml.decisiontree;
+
+import java.util.List;
+
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.impurity.ImpurityCalculationMethod;
+
+/**
+ * Best split finder which evaluates bundled features (see {@link FeatureBundles}) from bins of their bundle. Rows of a
+ * node are scanned once per bundle of candidate features - label counts of each bin are counts of "true" branch of its
+ * feature, "false" branch is node minus "true" branch. Features which are not bundled are evaluated the same way as by
+ * {@link BestSplitFinder}. If training data is not the data bundles were made for, no feature is evaluated from bins.
+ *
+ * @author Ignas
+ *
+ */
+public class BundledSplitFinder extends BestSplitFinder {
+
+    /** Feature bundles of training data. */
+    private final FeatureBundles featureBundles;
+
+    /**
+     * @param impurityCalculationMethod Impurity calculation method.
+     * @param minimumNumberOfInstancesPerLeaf Minimum number of data samples of each non empty branch.
+     * @param minimumImpurityDecrease Minimum difference between impurity of the node and total impurity of its split.
+     * @param featureBundles Feature bundles of training data.
+     */
+    public BundledSplitFinder(ImpurityCalculationMethod impurityCalculationMethod, long minimumNumberOfInstancesPerLeaf, double minimumImpurityDecrease,
+            FeatureBundles featureBundles) {
+        super(impurityCalculationMethod, minimumNumberOfInstancesPerLeaf, minimumImpurityDecrease);
+        this.featureBundles = featureBundles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean[] calculateHistogramSplitImpurities(DataView data, int[] rows, int from, int to, List<Feature> features, double[] impurities,
+            TrainingArena arena) {
+        boolean[] evaluated = super.calculateHistogramSplitImpurities(data, rows, from, to, features, impurities, arena);
+        if (!featureBundles.isFor(data)) {
+            return evaluated;
+        }
+        int nbOfBundles = featureBundles.getBundles().size();
+        boolean[] candidateBundles = new boolean[nbOfBundles];
+        boolean anyBundle = false;
+        for (int i = 0; i < features.size(); i++) {
+            int bundle = evaluated[i] ? -1 : featureBundles.getBundle(features.get(i));
+            if (bundle >= 0) {
+                candidateBundles[bundle] = true;
+                anyBundle = true;
+            }
+        }
+        if (!anyBundle) {
+            return evaluated;
+        }
+
+        int nbOfLabels = data.getLabelDictionary().size();
+        double[] nodeCounts = new double[nbOfLabels];
+        double nodeInstances = 0;
+        for (int i = from; i < to; i++) {
+            nodeCounts[data.getLabelId(rows[i])] += data.getWeight(rows[i]);
+            nodeInstances += data.getCount(rows[i]);
+        }
+        BranchCounts branchCounts = new BranchCounts(nodeCounts, to - from, nodeInstances);
+
+        // label counts, rows and data samples of each bin of candidate bundles
+        double[][] binCounts = new double[nbOfBundles][];
+        int[][] binRows = new int[nbOfBundles][];
+        double[][] binInstances = new double[nbOfBundles][];
+        for (int bundle = 0; bundle < nbOfBundles; bundle++) {
+            if (!candidateBundles[bundle]) {
+                continue;
+            }
+            int nbOfBins = featureBundles.getBundles().get(bundle).size() + 1;
+            binCounts[bundle] = new double[nbOfBins * nbOfLabels];
+            binRows[bundle] = new int[nbOfBins];
+            binInstances[bundle] = new double[nbOfBins];
+            for (int i = from; i < to; i++) {
+                int row = rows[i];
+                int bin = featureBundles.getBin(bundle, row);
+                binCounts[bundle][bin * nbOfLabels + data.getLabelId(row)] += data.getWeight(row);
+                binRows[bundle][bin]++;
+                binInstances[bundle][bin] += data.getCount(row);
+            }
+        }
+
+        for (int i = 0; i < features.size(); i++) {
+            int bundle = evaluated[i] ? -1 : featureBundles.getBundle(features.get(i));
+            if (bundle >= 0) {
+                int bin = featureBundles.getPosition(features.get(i)) + 1;
+                boolean firstRowHasFeature = featureBundles.getBin(bundle, rows[from]) == bin;
+                impurities[i] = branchCounts.calculateSplitImpurity(binCounts[bundle], bin * nbOfLabels, binRows[bundle][bin], binInstances[bundle][bin],
+                        firstRowHasFeature);
+                evaluated[i] = true;
+            }
+        }
+        return evaluated;
+    }
+
+    /**
+     * @return Feature bundles of training data.
+     */
+    public FeatureBundles getFeatureBundles() {
+        return featureBundles;
+    }
+
+}
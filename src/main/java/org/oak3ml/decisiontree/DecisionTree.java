@@ -1,40 +1,61 @@
 package org.oak3ml.decisiontree;
 
-import static java.util.stream.Collectors.counting;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.summingDouble;
 import static java.util.stream.Collectors.toList;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.apache.ignite.IgniteCompute;
 import org.oak3ml.decisiontree.data.DataSample;
-import org.oak3ml.decisiontree.feature.CategoricalFeature;
+import org.oak3ml.decisiontree.data.DataView;
 import org.oak3ml.decisiontree.feature.Feature;
-import org.oak3ml.decisiontree.feature.GroupedPredicatesFeature;
-import org.oak3ml.decisiontree.feature.PredicateFeature;
 import org.oak3ml.decisiontree.impurity.ImpurityCalculationMethod;
+import org.oak3ml.decisiontree.impurity.TargetStatistics;
 import org.oak3ml.decisiontree.label.Label;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+import org.oak3ml.decisiontree.pruning.PruningMethod;
+import org.oak3ml.ensemble.BaseLearner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Maps;
-
 /**
  * Decision tree implementation.
  * 
  * @author Ignas
  *
  */
-public class DecisionTree {
+public class DecisionTree implements BaseLearner {
 
     /** Logger. */
     private Logger log = LoggerFactory.getLogger(DecisionTree.class);
 
+    /** Random number generator used to pick candidate features of a split. */
+    private Random random = new Random(System.nanoTime());
+
     /** Root node. */
     private Node root;
+
+    /** Dictionary of labels of training data. Nodes keep label ids of this dictionary. */
+    private LabelDictionary labelDictionary;
+
+    /** Label counts of all nodes. */
+    private NodeStatistics nodeStatistics;
     
     /** Various settings. */
     private DecisionTreeSettings settings;
@@ -59,6 +80,44 @@ public class DecisionTree {
             settings.setMaxDepth(builder.maxDepth);
         if (builder.useParalelStreamIfMoreThan != null)
             settings.setUseParalelStreamIfMoreThan(builder.useParalelStreamIfMoreThan);
+        if (builder.randomFeaturesPerSplit != null) {
+            checkArgument(builder.randomFeaturesPerSplit > 0);
+            settings.setRandomFeaturesPerSplit(builder.randomFeaturesPerSplit);
+        }
+        if (builder.randomFeaturesPerSplitPercentage != null) {
+            checkArgument(builder.randomFeaturesPerSplitPercentage > 0 && builder.randomFeaturesPerSplitPercentage <= 1.0);
+            settings.setRandomFeaturesPerSplitPercentage(builder.randomFeaturesPerSplitPercentage);
+        }
+        if (builder.extraTrees != null)
+            settings.setExtraTrees(builder.extraTrees);
+        if (builder.targetColumn != null)
+            settings.setTargetColumn(builder.targetColumn);
+        if (builder.nodeSchedulerFactory != null)
+            settings.setNodeSchedulerFactory(builder.nodeSchedulerFactory);
+        if (builder.workStealingScheduler != null)
+            settings.setWorkStealingScheduler(builder.workStealingScheduler);
+        if (builder.minimumNumberOfInstancesPerLeaf != null) {
+            checkArgument(builder.minimumNumberOfInstancesPerLeaf >= 0);
+            settings.setMinimumNumberOfInstancesPerLeaf(builder.minimumNumberOfInstancesPerLeaf);
+        }
+        if (builder.impurityThreshold != null) {
+            checkArgument(builder.impurityThreshold >= 0);
+            settings.setImpurityThreshold(builder.impurityThreshold);
+        }
+        if (builder.minimumImpurityDecrease != null) {
+            checkArgument(builder.minimumImpurityDecrease >= 0);
+            settings.setMinimumImpurityDecrease(builder.minimumImpurityDecrease);
+        }
+        if (builder.outOfCoreMemoryBudget != null) {
+            checkArgument(builder.outOfCoreMemoryBudget > 0);
+            settings.setOutOfCoreMemoryBudget(builder.outOfCoreMemoryBudget);
+        }
+        if (builder.scratchDirectory != null)
+            settings.setScratchDirectory(builder.scratchDirectory);
+        if (builder.featureBundlingConflictRate != null) {
+            checkArgument(builder.featureBundlingConflictRate >= 0 && builder.featureBundlingConflictRate < 1);
+            settings.setFeatureBundlingConflictRate(builder.featureBundlingConflictRate);
+        }
     }
 
     /**
@@ -69,7 +128,22 @@ public class DecisionTree {
     }
 
     /**
-     * Trains tree on training data for provided features.
+     * @return Dictionary of labels of training data or null if tree is not trained.
+     */
+    public LabelDictionary getLabelDictionary() {
+        return labelDictionary;
+    }
+
+    /**
+     * @return true if tree predicts numeric target value instead of a label.
+     */
+    public boolean isRegression() {
+        return settings.isRegression();
+    }
+
+    /**
+     * Trains tree on training data for provided features. If out-of-core training is set training data is read only
+     * by sequential scans, so it can be larger than heap (for example {@link org.oak3ml.decisiontree.data.MappedDataset}).
      * 
      * @param trainingData
      *            List of training data samples.
@@ -77,11 +151,55 @@ public class DecisionTree {
      *            List of possible features.
      */
     public void train(List<DataSample> trainingData, List<Feature> features) {
-        root = growTree(trainingData, features, 1, "root");
+        if (settings.getOutOfCoreMemoryBudget() != null) {
+            trainOutOfCore(trainingData, features);
+        } else {
+            train(DataView.newDataView(trainingData), features);
+        }
+    }
+
+    /**
+     * Grows classification tree level by level over scratch file of training data (see {@link OutOfCoreTreeGrower}).
+     */
+    private void trainOutOfCore(List<DataSample> trainingData, List<Feature> features) {
+        checkState(!settings.isRegression() && !settings.isExtraTrees(), "Out-of-core training grows classification trees with best split finder only");
+        OutOfCoreTreeGrower grower = new OutOfCoreTreeGrower(this, settings);
+        try {
+            root = grower.grow(trainingData, features);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        labelDictionary = grower.getLabelDictionary();
+        nodeStatistics = grower.getNodeStatistics();
+        nodeStatistics.trim();
+    }
+
+    /**
+     * Trains tree on a view of shared training data. Data samples are weighted by their multiplicity in the view (for
+     * example bootstrap sample drawn with replacement) so they are never copied.
+     * 
+     * @param trainingData
+     *            View of shared training data.
+     * @param features
+     *            List of possible features.
+     */
+    @Override
+    public void train(DataView trainingData, List<Feature> features) {
+        labelDictionary = trainingData.getLabelDictionary();
+        if (settings.isRegression()) {
+            nodeStatistics = null;
+            root = growRegressionTree(trainingData, getTargets(trainingData), trainingData.getRows(), features, 1, "root");
+        } else {
+            nodeStatistics = NodeStatistics.newNodeStatistics(labelDictionary);
+            root = growTree(trainingData, trainingData.getRows(), features, 1, "root", settings.newTrainingSplitFinder(trainingData, features));
+            nodeStatistics.trim();
+        }
     }
     
     /**
-     * Grow tree during training by splitting data recusively on best feature.
+     * Grow tree during training by splitting data recusively on best feature. Recursion is replaced by explicit work
+     * queue of pending nodes ({@link NodeScheduler}), so tree depth is not limited by thread stack size and scheduler
+     * decides in which order nodes are grown.
      * 
      * Pseudocode:
      * 
@@ -98,7 +216,10 @@ public class DecisionTree {
      *    return a tree whose root is labelled with S and whose children are Ti
      * 
      * @param trainingData
-     *            List of training data samples.
+     *            View of shared training data.
+     * @param rows
+     *            Rows of training data that reached this node. Array is used as index buffer of the whole subtree - rows
+     *            are partitioned into branches in place.
      * @param features
      *            List of possible features.
      * @param branchFromParent
@@ -106,58 +227,102 @@ public class DecisionTree {
      * 
      * @return Node after split. For a first invocation it returns tree root node.
      */
-    protected Node growTree(List<DataSample> trainingData, List<Feature> features, int currentDepth, Object branchFromParent) {
-        Map<Label, Long> countedSamples = countNbOfSamples(trainingData);
+    protected Node growTree(DataView trainingData, int[] rows, List<Feature> features, int currentDepth, Object branchFromParent) {
+        return growTree(trainingData, rows, features, currentDepth, branchFromParent, settings.newTrainingSplitFinder(trainingData, features));
+    }
+
+    /**
+     * Same as {@link #growTree(DataView, int[], List, int, Object)} but with split finder of this training (see
+     * {@link DecisionTreeSettings#newTrainingSplitFinder(DataView, List)}).
+     */
+    private Node growTree(DataView trainingData, int[] rows, List<Feature> features, int currentDepth, Object branchFromParent, BestSplitFinder splitFinder) {
+        TrainingArenas arenas = TrainingArenas.newTrainingArenas(rows.length, trainingData.getLabelDictionary().size());
+        return grow(new NodeTask(rows, features, currentDepth, branchFromParent, null, 0),
+                (task, children, parallel) -> expandNode(trainingData, splitFinder, arenas, task, children, parallel));
+    }
+
+    /**
+     * Grows tree from a root task - in parallel if {@link WorkStealingScheduler} is set, otherwise in a single thread in
+     * order of {@link NodeScheduler}.
+     */
+    private Node grow(NodeTask rootTask, NodeExpander expander) {
+        WorkStealingScheduler workStealingScheduler = settings.getWorkStealingScheduler();
+        if (workStealingScheduler != null) {
+            return workStealingScheduler.grow(rootTask, expander);
+        }
+        return expander.growSubtree(rootTask, settings.getNodeSchedulerFactory().get());
+    }
+
+    /**
+     * Creates classification tree node of a task. Same as a single step of recursive growth.
+     */
+    private Node expandNode(DataView trainingData, BestSplitFinder splitFinder, TrainingArenas arenas, NodeTask task, List<NodeTask> children,
+            boolean parallelSplitSearch) {
+        int[] rows = task.getRows();
+        List<Feature> features = task.getFeatures();
+        int currentDepth = task.getDepth();
+        Object branchFromParent = task.getBranchFromParent();
+        LabelDictionary labels = nodeStatistics.getLabelDictionary();
+        TrainingArena arena = arenas.get();
+        // counts are copied to node statistics, so arena buffer can be used
+        double[] countedSamples = trainingData.countLabels(rows, task.getFrom(), task.getTo(), arena.getNodeCounts());
 
-        Label currentNodeLabel = null;
+        int currentNodeLabel = getLabelId(countedSamples);
         // if dataset already homogeneous enough (has label assigned) make this node a leaf
-        if ((currentNodeLabel = getLabel(trainingData)) != null) {
-            log.debug("New leaf is created because data is homogeneous: {}", currentNodeLabel.getName());
-            return Node.newLeafNode(currentNodeLabel, branchFromParent, countedSamples);
+        if (currentNodeLabel != LabelDictionary.UNKNOWN_ID) {
+            log.debug("New leaf is created because data is homogeneous: {}", labels.getLabel(currentNodeLabel));
+            return Node.newLeafNode(currentNodeLabel, branchFromParent, countedSamples, nodeStatistics);
         }
         
-        // check if there are more features and tree is not too deep before splitting
-        boolean stoppingCriteriaReached = features.isEmpty() || currentDepth >= settings.getMaxDepth();
+        int majorityLabel = LabelDictionary.getMajorityId(countedSamples);
+        // check if there are more features, tree is not too deep and node is not pure enough before splitting
+        boolean stoppingCriteriaReached = features.isEmpty() || currentDepth >= settings.getMaxDepth() || isPureEnough(countedSamples);
         if (stoppingCriteriaReached) {
-            Label majorityLabel = getMajorityLabel(countedSamples);
-            log.debug("New leaf is created because stopping criteria reached: {}", majorityLabel.getName());
-            return Node.newLeafNode(majorityLabel, branchFromParent, countedSamples);
+            log.debug("New leaf is created because stopping criteria reached: {}", labels.getLabel(majorityLabel));
+            return Node.newLeafNode(majorityLabel, branchFromParent, countedSamples, nodeStatistics);
         }
 
-        Feature bestSplit = settings.getBestSplitFinder().findBestSplitFeature(trainingData, features);
+        List<Feature> candidateFeatures = drawCandidateFeatures(features);
+        Feature bestSplit = splitFinder.findBestSplitFeature(trainingData, rows, task.getFrom(), task.getTo(), candidateFeatures, arenas, parallelSplitSearch);
+        if (bestSplit == null) { // for example all numeric values are the same in random threshold mode
+            log.debug("New leaf is created because no split was found: {}", labels.getLabel(majorityLabel));
+            return Node.newLeafNode(majorityLabel, branchFromParent, countedSamples, nodeStatistics);
+        }
         log.debug("Best split found: {}", bestSplit.toString());
-        Map<String, List<DataSample>> splitData = bestSplit.split(trainingData);
+        Map<String, int[]> splitData = partitionRows(trainingData, bestSplit, task, arena);
 
         // remove best split from features (TODO check if it is not slow)
         List<Feature> featuresWithoutSplitFeature = features.stream().filter(f -> !f.equals(bestSplit)).collect(toList());
-        Node node = Node.newNode(bestSplit, branchFromParent, countedSamples);
+        Node node = Node.newNode(bestSplit, branchFromParent, countedSamples, nodeStatistics);
         
         // check for another stopping criteria after we calculated a split
         boolean stoppingCriteriaWithInformationFromSplitReached = splitData.keySet().size() < settings.getMinimumNumberOfSplits();
         if (stoppingCriteriaWithInformationFromSplitReached) {
-            Label majorityLabel = getMajorityLabel(countedSamples);
-            log.debug("New leaf is created because stopping criteria after split reached: {}", majorityLabel.getName());
-            return Node.newLeafNode(majorityLabel, branchFromParent, countedSamples);
+            log.debug("New leaf is created because stopping criteria after split reached: {}", labels.getLabel(majorityLabel));
+            return Node.newLeafNode(majorityLabel, branchFromParent, countedSamples, nodeStatistics);
         }
         
-        Set<Entry<String, List<DataSample>>> treeBranches = splitData.entrySet();
-        for (Entry<String, List<DataSample>> branch : treeBranches) {
+        Set<Entry<String, int[]>> treeBranches = splitData.entrySet();
+        for (Entry<String, int[]> branch : treeBranches) {
             // branch name passed to children is kept as a key of the split map
             Object branchName = branch.getKey();
-            // all data that belongs to that branch
-            List<DataSample> subsetTrainingData = branch.getValue();
+            // range of index buffer with all rows that belong to that branch
+            int[] range = branch.getValue();
             
-            if (subsetTrainingData == null || subsetTrainingData.isEmpty()) {
+            if (range[0] == range[1]) {
                 // if subset data is empty add a leaf with label calculated from initial data
-                // it has no counted data samples on the leaf, so empty map
-                node.addChild(Node.newLeafNode(getMajorityLabel(countedSamples), branchName, Maps.newHashMap()));
+                // it has no counted data samples on the leaf, so it has no counts
+                node.addChild(Node.newLeafNode(majorityLabel, branchName, null, nodeStatistics));
             } else {
                 // if we have clusters - calculate branches on other machines
                 if (settings.getCompute() != null) {
-                    // grow tree further recursively with cluster
-                    node.addChild(settings.getCompute().call(() -> growTree(subsetTrainingData, featuresWithoutSplitFeature, currentDepth + 1, branchName)));
+                    // grow whole subtree with cluster
+                    int[] subsetRows = Arrays.copyOfRange(rows, range[0], range[1]);
+                    node.addChild(settings.getCompute().call(() -> growTree(trainingData, subsetRows, featuresWithoutSplitFeature, currentDepth + 1, branchName, splitFinder)));
                 } else {
-                    node.addChild(growTree(subsetTrainingData, featuresWithoutSplitFeature, currentDepth + 1, branchName));
+                    // child is grown later, placeholder keeps order of branches
+                    children.add(new NodeTask(rows, range[0], range[1], featuresWithoutSplitFeature, currentDepth + 1, branchName, node, node.getChildren().size()));
+                    node.addChild(null);
                 }
             }
         }
@@ -165,6 +330,164 @@ public class DecisionTree {
         return node;
     }
 
+    /**
+     * Grow regression tree by splitting data recursively on feature which reduces sum of squared errors of target the
+     * most. It is the same as {@link #growTree(DataView, int[], List, int, Object)} except that every node keeps mean
+     * target value of its data samples instead of label counts and node becomes a leaf once its target values are all
+     * the same.
+     * 
+     * @param trainingData
+     *            View of shared training data.
+     * @param targets
+     *            Target value of each row of shared data.
+     * @param rows
+     *            Rows of training data that reached this node.
+     * @param features
+     *            List of possible features.
+     * @param branchFromParent
+     *            Branch name from parent so children nodes know on what condition their split was.
+     * 
+     * @return Node after split. For a first invocation it returns tree root node.
+     */
+    protected Node growRegressionTree(DataView trainingData, double[] targets, int[] rows, List<Feature> features, int currentDepth, Object branchFromParent) {
+        TrainingArenas arenas = TrainingArenas.newTrainingArenas(rows.length, 0);
+        return grow(new NodeTask(rows, features, currentDepth, branchFromParent, null, 0), (task, children, parallel) -> expandRegressionNode(trainingData, targets, arenas, task, children, parallel));
+    }
+
+    /**
+     * Creates regression tree node of a task.
+     */
+    private Node expandRegressionNode(DataView trainingData, double[] targets, TrainingArenas arenas, NodeTask task, List<NodeTask> children, boolean parallelSplitSearch) {
+        int[] rows = task.getRows();
+        List<Feature> features = task.getFeatures();
+        int currentDepth = task.getDepth();
+        Object branchFromParent = task.getBranchFromParent();
+        TargetStatistics statistics = new TargetStatistics();
+        for (int i = task.getFrom(); i < task.getTo(); i++) {
+            statistics.add(targets[rows[i]], trainingData.getWeight(rows[i]));
+        }
+        double mean = statistics.getMean();
+
+        boolean stoppingCriteriaReached = statistics.getSumOfSquaredErrors() <= 0 || features.isEmpty() || currentDepth >= settings.getMaxDepth();
+        if (stoppingCriteriaReached) {
+            log.debug("New regression leaf is created because stopping criteria reached: {}", mean);
+            return Node.newRegressionLeafNode(mean, branchFromParent);
+        }
+
+        List<Feature> candidateFeatures = drawCandidateFeatures(features);
+        Feature bestSplit = settings.getRegressionSplitFinder().findBestSplitFeature(trainingData, targets, rows, task.getFrom(), task.getTo(), candidateFeatures, arenas, parallelSplitSearch);
+        if (bestSplit == null) {
+            log.debug("New regression leaf is created because no split decreases error: {}", mean);
+            return Node.newRegressionLeafNode(mean, branchFromParent);
+        }
+        log.debug("Best split found: {}", bestSplit.toString());
+        Map<String, int[]> splitData = partitionRows(trainingData, bestSplit, task, arenas.get());
+
+        // numeric columns can be split again on other thresholds, only used features of other columns are removed
+        List<Feature> featuresWithoutSplitFeature = features.stream().filter(f -> !f.equals(bestSplit)).collect(toList());
+        Node node = Node.newRegressionNode(bestSplit, branchFromParent, mean);
+        for (Entry<String, int[]> branch : splitData.entrySet()) {
+            Object branchName = branch.getKey();
+            int[] range = branch.getValue();
+            if (range[0] == range[1]) {
+                node.addChild(Node.newRegressionLeafNode(mean, branchName));
+            } else if (settings.getCompute() != null) {
+                int[] subsetRows = Arrays.copyOfRange(rows, range[0], range[1]);
+                node.addChild(settings.getCompute().call(() -> growRegressionTree(trainingData, targets, subsetRows, featuresWithoutSplitFeature, currentDepth + 1, branchName)));
+            } else {
+                children.add(new NodeTask(rows, range[0], range[1], featuresWithoutSplitFeature, currentDepth + 1, branchName, node, node.getChildren().size()));
+                node.addChild(null);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Checks if impurity of node is not higher than impurity threshold (if it is set).
+     */
+    boolean isPureEnough(double[] labelCounts) {
+        Double impurityThreshold = settings.getImpurityThreshold();
+        return impurityThreshold != null && settings.getImpurityCalculationMethod().calculateImpurity(labelCounts) <= impurityThreshold;
+    }
+
+    /**
+     * Partitions rows of a task in place so rows of each branch of split feature are next to each other. Branches are
+     * in the same order as in split map of the feature - for binary feature branch of the first row goes last. Rows of
+     * binary feature are partitioned stably with partition buffer of arena without allocating, other features are
+     * split and their branches are copied back to index buffer.
+     * 
+     * @return Range [from, to) of index buffer of each branch. Empty branches have empty range.
+     */
+    private Map<String, int[]> partitionRows(DataView trainingData, Feature split, NodeTask task, TrainingArena arena) {
+        int[] rows = task.getRows();
+        int from = task.getFrom();
+        int to = task.getTo();
+        Map<String, int[]> ranges = new LinkedHashMap<>();
+        if (split.isBinary()) {
+            boolean lastBranch = split.belongsTo(trainingData.get(rows[from]));
+            int[] buffer = arena.getPartitionBuffer();
+            int end = from;
+            int nbOfLast = 0;
+            for (int i = from; i < to; i++) {
+                int row = rows[i];
+                if (split.belongsTo(trainingData.get(row)) == lastBranch) {
+                    buffer[nbOfLast++] = row;
+                } else {
+                    rows[end++] = row;
+                }
+            }
+            System.arraycopy(buffer, 0, rows, end, nbOfLast);
+            if (end > from) {
+                ranges.put(String.valueOf(!lastBranch), new int[] { from, end });
+            }
+            ranges.put(String.valueOf(lastBranch), new int[] { end, to });
+        } else {
+            int position = from;
+            for (Entry<String, int[]> branch : split.split(trainingData, Arrays.copyOfRange(rows, from, to)).entrySet()) {
+                int[] branchRows = branch.getValue();
+                System.arraycopy(branchRows, 0, rows, position, branchRows.length);
+                ranges.put(branch.getKey(), new int[] { position, position + branchRows.length });
+                position += branchRows.length;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Reads numeric target value of each row of shared data. Rows which are not part of the view are not read.
+     */
+    private double[] getTargets(DataView trainingData) {
+        String targetColumn = settings.getTargetColumn();
+        double[] targets = new double[trainingData.size()];
+        for (int row : trainingData.getRows()) {
+            Optional<Object> target = trainingData.get(row).getValue(targetColumn);
+            checkArgument(target.isPresent() && target.get() instanceof Number, "Target value must be numeric: %s", trainingData.get(row));
+            targets[row] = ((Number) target.get()).doubleValue();
+        }
+        return targets;
+    }
+
+    /**
+     * Randomly picks features which will be evaluated for a split (random feature subspace). If per split sampling is not
+     * configured all features are returned.
+     * 
+     * @param features
+     *            Features available at the node.
+     * @return Candidate features.
+     */
+    protected List<Feature> drawCandidateFeatures(List<Feature> features) {
+        int nbOfCandidates = settings.getNbOfFeaturesPerSplit(features.size());
+        if (nbOfCandidates >= features.size()) {
+            return features;
+        }
+        // partial Fisher-Yates shuffle - only first nbOfCandidates positions are needed
+        List<Feature> candidates = new ArrayList<>(features);
+        for (int i = 0; i < nbOfCandidates; i++) {
+            Collections.swap(candidates, i, i + random.nextInt(candidates.size() - i));
+        }
+        return candidates.subList(0, nbOfCandidates);
+    }
+
     /**
      * Classify dataSample.
      * 
@@ -172,40 +495,65 @@ public class DecisionTree {
      *            Data sample
      * @return Return label of class.
      */
+    @Override
     public Label classify(DataSample dataSample) {
+        int labelId = classifyId(dataSample);
+        return labelId != LabelDictionary.UNKNOWN_ID ? labelDictionary.getLabel(labelId) : null;
+    }
+
+    /**
+     * Same as {@link #classify(DataSample)} but returns label id. If tree was trained on data with the same label
+     * dictionary label id is returned without looking up label.
+     */
+    @Override
+    public int classifyId(DataSample dataSample, LabelDictionary labels) {
+        return labels == labelDictionary ? classifyId(dataSample) : BaseLearner.super.classifyId(dataSample, labels);
+    }
+
+    /**
+     * Label id of the leaf reached by data sample or majority label id of the last reached node.
+     */
+    private int classifyId(DataSample dataSample) {
+        checkState(!settings.isRegression(), "Regression tree predicts values, use predict()");
+        Node node = findNode(dataSample);
+        return node.getMajorityLabelId();
+    }
+
+    /**
+     * Predict target value of data sample with regression tree.
+     * 
+     * @param dataSample
+     *            Data sample
+     * @return Mean target value of training data samples in the leaf reached by data sample.
+     */
+    public double predict(DataSample dataSample) {
+        checkState(settings.isRegression(), "Only regression tree predicts values, use classify()");
+        return findNode(dataSample).getValue();
+    }
+
+    /**
+     * Go through tree until leaf is reached or data sample does not match any branch of a node.
+     */
+    private Node findNode(DataSample dataSample) {
         Node node = root;
-        boolean branchFound = true;
-        while (!node.isLeaf()) { // go through tree until leaf is reached
-            if (!branchFound) {
-                return getMajorityLabel(node.getCountedSamples());
-            }
-            branchFound = false;
-            for (Node child : node.getChildren()) {
-                Feature feature = node.getFeature(); // TODO refactor
-                if (feature instanceof PredicateFeature) { // moving through predicate binary splits and categorical multisplits are different
-                    if (dataSample.has(feature) && child.getBranchValue().equals("true") || 
-                            !dataSample.has(feature) && child.getBranchValue().equals("false")) {
-                        node = child;
-                        branchFound = true;
-                        break;
-                    }
-                } else if (feature instanceof CategoricalFeature) {
-                    if (child.getBranchValue().equals(dataSample.getValue(feature.getColumn()).get().toString())) {
-                        node = child;
-                        branchFound = true;
-                        break;
-                    }
-                } else if (feature instanceof GroupedPredicatesFeature) {
-                    Feature predicateFeature = ((GroupedPredicatesFeature)feature).findPredicateFeatureForDataSample(dataSample);
-                    if (predicateFeature != null && child.getBranchValue().equals(predicateFeature.toString())) {
-                        node = child;
-                        branchFound = true;
-                        break;
-                    }
-                }
-            }
+        Node child;
+        while (!node.isLeaf() && (child = node.findChild(dataSample)) != null) { // go through tree until leaf is reached
+            node = child;
         }
-        return node.getLabel();
+        return node;
+    }
+
+    /**
+     * Prunes trained tree in place.
+     * 
+     * @param pruningMethod
+     *            Pruning method.
+     * @param validationData
+     *            Data samples not used for training. Pruning methods which do not need them ignore them.
+     */
+    public void prune(PruningMethod pruningMethod, List<DataSample> validationData) {
+        checkState(root != null, "Tree must be trained before pruning");
+        pruningMethod.prune(this, validationData);
     }
 
     /**
@@ -213,32 +561,56 @@ public class DecisionTree {
      */
     protected Label getLabel(List<DataSample> data) {
         // group by to map <Label, count>
-        Map<Label, Long> labelCount = countNbOfSamples(data);
-        long totalCount = data.size();
+        return getLabel(countNbOfSamples(data));
+    }
+
+    /**
+     * Returns Label if already counted data samples are homogeneous. Counts are weighted, so label has to have
+     * homogenityPercentage of total weight.
+     */
+    protected Label getLabel(Map<Label, Double> labelCount) {
+        double totalCount = labelCount.values().stream().mapToDouble(Double::doubleValue).sum();
         for (Label label : labelCount.keySet()) {
-            long nbOfLabels = labelCount.get(label);
-            if (((double) nbOfLabels / (double) totalCount) >= settings.getHomogenityPercentage()) {
+            double nbOfLabels = labelCount.get(label);
+            if (nbOfLabels / totalCount >= settings.getHomogenityPercentage()) {
                 return label;
             }
         }
         return null;
     }
 
+    /**
+     * Returns label id if already counted data samples are homogeneous (label has homogenityPercentage of total weight)
+     * or {@link LabelDictionary#UNKNOWN_ID} otherwise.
+     */
+    protected int getLabelId(double[] labelCounts) {
+        double totalCount = 0;
+        for (double count : labelCounts) {
+            totalCount += count;
+        }
+        for (int labelId = 0; labelId < labelCounts.length; labelId++) {
+            if (labelCounts[labelId] > 0 && labelCounts[labelId] / totalCount >= settings.getHomogenityPercentage()) {
+                return labelId;
+            }
+        }
+        return LabelDictionary.UNKNOWN_ID;
+    }
+
     /**
      * Differs from getLabel() that it always return some label and does not look at homogenityPercentage parameter. It
      * is used when tree growth is stopped and everything what is left must be classified so it returns majority label for the data.
      */
-    protected Label getMajorityLabel(Map<Label, Long> countedSamples) {
+    protected Label getMajorityLabel(Map<Label, Double> countedSamples) {
         // group by to map <Label, count> like in getLabels() but return Label with most counts
         return countedSamples.entrySet().stream().max(Map.Entry.comparingByValue()).get().getKey();
     }
 
     /**
-     * Count number of datasamples for each Label.
+     * Count number of datasamples for each Label. Each data sample is counted with its weight.
      */
-    protected Map<Label, Long> countNbOfSamples(List<DataSample> data) {
-        // group by to map <Label, count>
-        return data.parallelStream().collect(groupingBy(DataSample::getLabel, counting()));
+    protected Map<Label, Double> countNbOfSamples(List<DataSample> data) {
+        // group by to map <Label, weighted count>
+        return data.parallelStream().collect(groupingBy(DataSample::getLabel, summingDouble(DataSample::getWeight)));
     }
     
     /**
@@ -287,6 +659,30 @@ public class DecisionTree {
         private Long maxDepth;
         
         private IgniteCompute computeGrid;
+
+        private Integer randomFeaturesPerSplit;
+
+        private Double randomFeaturesPerSplitPercentage;
+
+        private Boolean extraTrees;
+
+        private String targetColumn;
+
+        private Supplier<NodeScheduler> nodeSchedulerFactory;
+
+        private WorkStealingScheduler workStealingScheduler;
+
+        private Long minimumNumberOfInstancesPerLeaf;
+
+        private Double impurityThreshold;
+
+        private Double minimumImpurityDecrease;
+
+        private Long outOfCoreMemoryBudget;
+
+        private Path scratchDirectory;
+
+        private Double featureBundlingConflictRate;
         
         public Builder withImpurityCalculationMethod(ImpurityCalculationMethod calculationMethod) {
             this.calculationMethod = calculationMethod;
@@ -318,6 +714,110 @@ public class DecisionTree {
             return this;
         }
         
+        /**
+         * Evaluate only this number of randomly chosen features at each split (mtry).
+         */
+        public Builder withRandomFeaturesPerSplit(int randomFeaturesPerSplit) {
+            this.randomFeaturesPerSplit = randomFeaturesPerSplit;
+            return this;
+        }
+
+        /**
+         * Evaluate only this part of randomly chosen features at each split (mtry as a fraction of features).
+         */
+        public Builder withRandomFeaturesPerSplitPercentage(double randomFeaturesPerSplitPercentage) {
+            this.randomFeaturesPerSplitPercentage = randomFeaturesPerSplitPercentage;
+            return this;
+        }
+        
+        /**
+         * Extremely randomized trees mode - numeric columns are split on single random threshold.
+         */
+        public Builder withExtraTrees(boolean extraTrees) {
+            this.extraTrees = extraTrees;
+            return this;
+        }
+        
+        /**
+         * Order in which nodes are grown, for example {@code NodeScheduler::levelWise}. Default is depth first.
+         */
+        public Builder withNodeScheduler(Supplier<NodeScheduler> nodeSchedulerFactory) {
+            this.nodeSchedulerFactory = nodeSchedulerFactory;
+            return this;
+        }
+
+        /**
+         * Grow tree in parallel with work stealing scheduler. Node scheduler is then used only for small subtrees.
+         */
+        public Builder withWorkStealingScheduler(WorkStealingScheduler workStealingScheduler) {
+            this.workStealingScheduler = workStealingScheduler;
+            return this;
+        }
+
+        /**
+         * Reject splits which would create a child with less data samples (counted with their weight and multiplicity).
+         */
+        public Builder withMinimumNumberOfInstancesPerLeaf(long minimumNumberOfInstancesPerLeaf) {
+            this.minimumNumberOfInstancesPerLeaf = minimumNumberOfInstancesPerLeaf;
+            return this;
+        }
+
+        /**
+         * Stop growth at nodes whose impurity is not higher than this value.
+         */
+        public Builder withImpurityThreshold(double impurityThreshold) {
+            this.impurityThreshold = impurityThreshold;
+            return this;
+        }
+
+        /**
+         * Accept split only if it decreases impurity of the node at least by this value.
+         */
+        public Builder withMinimumImpurityDecrease(double minimumImpurityDecrease) {
+            this.minimumImpurityDecrease = minimumImpurityDecrease;
+            return this;
+        }
+
+        /**
+         * Train out of core - training data is copied to a scratch file once and tree is grown level by level by
+         * sequential scans of it. Only histograms of nodes being split are kept in heap, as many nodes are split per
+         * scan as histograms fit into the budget. Only binary features are supported.
+         * 
+         * @param memoryBudget Heap budget of histograms in bytes.
+         */
+        public Builder withOutOfCoreTraining(long memoryBudget) {
+            this.outOfCoreMemoryBudget = memoryBudget;
+            return this;
+        }
+
+        /**
+         * Directory of scratch file of out-of-core training.
+         */
+        public Builder withScratchDirectory(Path scratchDirectory) {
+            this.scratchDirectory = scratchDirectory;
+            return this;
+        }
+
+        /**
+         * Bundle mutually exclusive binary features (for example one-hot indicators) before training, so each bundle
+         * is scanned once per node instead of each of its features. See {@link FeatureBundles}.
+         * 
+         * @param maxConflictRate Part of rows for which bundled features may be true at the same time. 0 keeps splits
+         *            exact.
+         */
+        public Builder withFeatureBundling(double maxConflictRate) {
+            this.featureBundlingConflictRate = maxConflictRate;
+            return this;
+        }
+
+        /**
+         * Build regression tree which predicts numeric value of target column.
+         */
+        public Builder withRegressionTarget(String targetColumn) {
+            this.targetColumn = targetColumn;
+            return this;
+        }
+        
         public DecisionTree build() {
             return new DecisionTree(this);
         }
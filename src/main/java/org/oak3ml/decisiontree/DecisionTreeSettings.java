@@ -1,6 +1,12 @@
 package org.oak3ml.decisiontree;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
 import org.apache.ignite.IgniteCompute;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
 import org.oak3ml.decisiontree.impurity.GiniIndexCalculationMethod;
 import org.oak3ml.decisiontree.impurity.ImpurityCalculationMethod;
 
@@ -12,9 +18,11 @@ import org.oak3ml.decisiontree.impurity.ImpurityCalculationMethod;
  */
 public class DecisionTreeSettings {
     
-    // ***** Unimplemented stopping criterions
-    /** Minimum number of data samples that tree leaf must have. */
-    private long minimumNumberOfInstancesPerLeaf = 20; // TODO
+    /**
+     * Minimum number of data samples that tree leaf must have. Splits which would create a smaller child are rejected
+     * by split finder. Not limited by default.
+     */
+    private long minimumNumberOfInstancesPerLeaf = 0;
     
     /** If there are less than 2 branches on split then there is no point in further growing a tree. 
      * This parameter will probably rarely have to be changed.
@@ -22,11 +30,17 @@ public class DecisionTreeSettings {
     private int minimumNumberOfSplits = 2;
     
     /** 
-     * Tree growth stoppping parameter. If splitting criterion is not better than this parameter tree growth is stopped at that branch. 
+     * Tree growth stoppping parameter. If impurity of a node is not higher than this parameter tree growth is stopped at that branch. 
      * This parameter does not have default value, because different impurity methods have different max values so it must be different 
-     * for different {@link ImpurityCalculationMethod}s.
+     * for different {@link ImpurityCalculationMethod}s. Used by classification trees only.
+     */
+    private Double impurityThreshold = null;
+
+    /**
+     * Split is accepted only if it decreases impurity of the node at least by this value. 0 accepts any split. Used by
+     * classification trees only.
      */
-    private Long impurityThreshold = null; // TODO
+    private double minimumImpurityDecrease = 0.0;
     
     /** If decision tree runs on Apache Ignite cluster this must be set. */
     private IgniteCompute compute;
@@ -52,9 +66,57 @@ public class DecisionTreeSettings {
      */
     private long maxDepth = 100;
     
+    /**
+     * Number of randomly chosen candidate features evaluated at each split (also known as mtry). If it is not set (and
+     * {@link #randomFeaturesPerSplitPercentage} is not set either) all features are evaluated.
+     */
+    private Integer randomFeaturesPerSplit = null;
+
+    /**
+     * Same as {@link #randomFeaturesPerSplit} but set as a part of available features. At least one feature is always
+     * evaluated. Ignored if {@link #randomFeaturesPerSplit} is set.
+     */
+    private Double randomFeaturesPerSplitPercentage = null;
+    
+    /**
+     * Extremely randomized trees mode. Numeric columns are split on single random threshold instead of evaluating all
+     * their features. See {@link RandomThresholdSplitFinder} and {@link RandomThresholdRegressionSplitFinder}.
+     */
+    private boolean extraTrees = false;
+    
     /** Best split finder class. */
     private BestSplitFinder bestSplitFinder = new BestSplitFinder(impurityCalculationMethod);
     
+    /**
+     * Column with numeric target value. If it is set tree is a regression tree - it predicts mean target value of a leaf
+     * instead of a label and splits are chosen by variance reduction (see {@link RegressionSplitFinder}).
+     */
+    private String targetColumn = null;
+    
+    /** Split finder of regression trees. */
+    private RegressionSplitFinder regressionSplitFinder = new RegressionSplitFinder(minimumNumberOfInstancesPerLeaf);
+    
+    /** Creates work queue of nodes for each grown tree. It decides order in which nodes are grown. */
+    private Supplier<NodeScheduler> nodeSchedulerFactory = NodeScheduler::depthFirst;
+    
+    /** If set tree is grown in parallel by this scheduler. */
+    private WorkStealingScheduler workStealingScheduler = null;
+
+    /**
+     * Heap budget (in bytes) of histograms of out-of-core training. If it is set training data is copied to a scratch
+     * file and tree is grown level by level by scanning it (see {@link OutOfCoreTreeGrower}). Null trains in memory.
+     */
+    private Long outOfCoreMemoryBudget = null;
+
+    /** Directory of scratch files of out-of-core training. Default temporary directory is used if it is not set. */
+    private Path scratchDirectory = null;
+
+    /**
+     * Part of rows for which bundled features may conflict. If it is set mutually exclusive binary features are bundled
+     * before training and evaluated from bins of their bundles (see {@link FeatureBundles}). Null does not bundle.
+     */
+    private Double featureBundlingConflictRate = null;
+    
     public IgniteCompute getCompute() {
         return compute;
     }
@@ -85,7 +147,7 @@ public class DecisionTreeSettings {
 
     public void setImpurityCalculationMethod(ImpurityCalculationMethod impurityCalculationMethod) {
         this.impurityCalculationMethod = impurityCalculationMethod;
-        this.bestSplitFinder = new BestSplitFinder(impurityCalculationMethod);
+        this.bestSplitFinder = newBestSplitFinder();
     }
 
     public double getHomogenityPercentage() {
@@ -110,16 +172,27 @@ public class DecisionTreeSettings {
 
     public void setMinimumNumberOfInstancesPerLeaf(long minimumNumberOfInstancesPerLeaf) {
         this.minimumNumberOfInstancesPerLeaf = minimumNumberOfInstancesPerLeaf;
+        this.bestSplitFinder = newBestSplitFinder();
+        this.regressionSplitFinder = newRegressionSplitFinder();
     }
 
-    public Long getImpurityThreshold() {
+    public Double getImpurityThreshold() {
         return impurityThreshold;
     }
 
-    public void setImpurityThreshold(Long impurityThreshold) {
+    public void setImpurityThreshold(Double impurityThreshold) {
         this.impurityThreshold = impurityThreshold;
     }
 
+    public double getMinimumImpurityDecrease() {
+        return minimumImpurityDecrease;
+    }
+
+    public void setMinimumImpurityDecrease(double minimumImpurityDecrease) {
+        this.minimumImpurityDecrease = minimumImpurityDecrease;
+        this.bestSplitFinder = newBestSplitFinder();
+    }
+
     public int getMinimumNumberOfSplits() {
         return minimumNumberOfSplits;
     }
@@ -128,8 +201,138 @@ public class DecisionTreeSettings {
         this.minimumNumberOfSplits = minimumNumberOfSplits;
     }
 
+    public Integer getRandomFeaturesPerSplit() {
+        return randomFeaturesPerSplit;
+    }
+
+    public void setRandomFeaturesPerSplit(Integer randomFeaturesPerSplit) {
+        this.randomFeaturesPerSplit = randomFeaturesPerSplit;
+    }
+
+    public Double getRandomFeaturesPerSplitPercentage() {
+        return randomFeaturesPerSplitPercentage;
+    }
+
+    public void setRandomFeaturesPerSplitPercentage(Double randomFeaturesPerSplitPercentage) {
+        this.randomFeaturesPerSplitPercentage = randomFeaturesPerSplitPercentage;
+    }
+
+    /**
+     * Number of candidate features to evaluate at a split when there are nbOfFeatures available.
+     */
+    public int getNbOfFeaturesPerSplit(int nbOfFeatures) {
+        if (randomFeaturesPerSplit != null) {
+            return Math.min(randomFeaturesPerSplit, nbOfFeatures);
+        } else if (randomFeaturesPerSplitPercentage != null) {
+            return (int) Math.min(nbOfFeatures, Math.max(1, Math.round(nbOfFeatures * randomFeaturesPerSplitPercentage)));
+        }
+        return nbOfFeatures;
+    }
+
+    public boolean isExtraTrees() {
+        return extraTrees;
+    }
+
+    public void setExtraTrees(boolean extraTrees) {
+        this.extraTrees = extraTrees;
+        this.bestSplitFinder = newBestSplitFinder();
+        this.regressionSplitFinder = newRegressionSplitFinder();
+    }
+
+    /**
+     * Creates split finder for current impurity calculation method, mode and split limits.
+     */
+    private BestSplitFinder newBestSplitFinder() {
+        if (extraTrees) {
+            return new RandomThresholdSplitFinder(impurityCalculationMethod, minimumNumberOfInstancesPerLeaf, minimumImpurityDecrease);
+        }
+        return new BestSplitFinder(impurityCalculationMethod, minimumNumberOfInstancesPerLeaf, minimumImpurityDecrease);
+    }
+
+    /**
+     * Creates split finder of regression trees for current mode and split limits.
+     */
+    private RegressionSplitFinder newRegressionSplitFinder() {
+        return extraTrees ? new RandomThresholdRegressionSplitFinder(minimumNumberOfInstancesPerLeaf)
+                : new RegressionSplitFinder(minimumNumberOfInstancesPerLeaf);
+    }
+
     public BestSplitFinder getBestSplitFinder() {
         return bestSplitFinder;
     }
 
+    /**
+     * Creates split finder of a single training. Sparse features of training data are resolved once for all its nodes
+     * (see {@link SparseFeatureIndex}) and binary features are bundled if bundling is set (see {@link FeatureBundles}),
+     * so it keeps training data and should not outlive the training.
+     *
+     * @param trainingData Training data.
+     * @param features Features of training.
+     * @return Split finder for current impurity calculation method, mode and split limits.
+     */
+    BestSplitFinder newTrainingSplitFinder(DataView trainingData, List<Feature> features) {
+        BestSplitFinder splitFinder = featureBundlingConflictRate != null && !extraTrees
+                ? new BundledSplitFinder(impurityCalculationMethod, minimumNumberOfInstancesPerLeaf, minimumImpurityDecrease,
+                        FeatureBundles.newFeatureBundles(trainingData, features, featureBundlingConflictRate))
+                : newBestSplitFinder();
+        splitFinder.setSparseFeatureIndex(SparseFeatureIndex.newSparseFeatureIndex(trainingData, features));
+        return splitFinder;
+    }
+
+    public String getTargetColumn() {
+        return targetColumn;
+    }
+
+    public void setTargetColumn(String targetColumn) {
+        this.targetColumn = targetColumn;
+    }
+
+    public boolean isRegression() {
+        return targetColumn != null;
+    }
+
+    public RegressionSplitFinder getRegressionSplitFinder() {
+        return regressionSplitFinder;
+    }
+
+    public Supplier<NodeScheduler> getNodeSchedulerFactory() {
+        return nodeSchedulerFactory;
+    }
+
+    public void setNodeSchedulerFactory(Supplier<NodeScheduler> nodeSchedulerFactory) {
+        this.nodeSchedulerFactory = nodeSchedulerFactory;
+    }
+
+    public WorkStealingScheduler getWorkStealingScheduler() {
+        return workStealingScheduler;
+    }
+
+    public void setWorkStealingScheduler(WorkStealingScheduler workStealingScheduler) {
+        this.workStealingScheduler = workStealingScheduler;
+    }
+
+    public Long getOutOfCoreMemoryBudget() {
+        return outOfCoreMemoryBudget;
+    }
+
+    public void setOutOfCoreMemoryBudget(Long outOfCoreMemoryBudget) {
+        this.outOfCoreMemoryBudget = outOfCoreMemoryBudget;
+    }
+
+    public Path getScratchDirectory() {
+        return scratchDirectory;
+    }
+
+    public void setScratchDirectory(Path scratchDirectory) {
+        this.scratchDirectory = scratchDirectory;
+    }
+
+    public Double getFeatureBundlingConflictRate() {
+        return featureBundlingConflictRate;
+    }
+
+    public void setFeatureBundlingConflictRate(Double featureBundlingConflictRate) {
+        this.featureBundlingConflictRate = featureBundlingConflictRate;
+    }
+
 }
@@ -0,0 +1,278 @@
+package org.oak3ml.decisiontree;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.toList;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.data.SparseDataset;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.SparseFeature;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Exclusive feature bundles. Binary features which are (almost) never true for the same row, for example one-hot
+ * indicators of a category, are packed into a bundle with one binned column - bin of a row is 1 + position of its
+ * feature in the bundle or 0 if row has none of them. Split finder counts one label histogram per bin of a bundle
+ * and recovers split of each feature of the bundle from it (see {@link BundledSplitFinder}), so a node is scanned
+ * once per bundle instead of once per feature.
+ *
+ * Bundles are found by greedy graph colouring: features are taken by number of rows which have them (most first) and
+ * each is put into the first bundle where it conflicts (is true for the same row as another feature of the bundle)
+ * with at most maxConflictRate * rows, otherwise it starts a new bundle. If a row has more than one feature of a
+ * bundle its bin is the feature which was bundled first, so with conflicts split impurities of later features are
+ * approximate. Zero conflict rate keeps them exact. Bundles of a single feature are not kept.
+ *
+ * @author Ignas
+ *
+ */
+public class FeatureBundles {
+
+    /** Maximum number of features of a bundle, so bin of a row fits into a byte. */
+    static final int MAX_BUNDLE_SIZE = 255;
+
+    /** Data samples the bins are counted for. */
+    private final List<?> data;
+
+    /** Features of each bundle. */
+    private final List<List<Feature>> bundles;
+
+    /** Bins of each bundle (one per row of data). */
+    private final List<byte[]> bins;
+
+    /** Bundle and position in it of each bundled feature, packed into long. */
+    private final Map<Feature, Long> positions = new IdentityHashMap<>();
+
+    /**
+     * Private constructor.
+     */
+    private FeatureBundles(List<?> data, List<List<Feature>> bundles, List<byte[]> bins) {
+        super();
+        this.data = data;
+        this.bundles = bundles;
+        this.bins = bins;
+        for (int bundle = 0; bundle < bundles.size(); bundle++) {
+            for (int position = 0; position < bundles.get(bundle).size(); position++) {
+                positions.put(bundles.get(bundle).get(position), ((long) bundle << 32) | position);
+            }
+        }
+    }
+
+    /**
+     * Bundles binary features of data.
+     *
+     * @param data Training data. All rows of shared data are used (including rows not drawn into the view), so bundles
+     *            can be reused by every view over the same data.
+     * @param features Features to bundle. Features which are not binary are left out.
+     * @param maxConflictRate Part of rows for which features of a bundle may conflict.
+     * @return Feature bundles.
+     */
+    public static FeatureBundles newFeatureBundles(DataView data, List<Feature> features, double maxConflictRate) {
+        Preconditions.checkArgument(maxConflictRate >= 0 && maxConflictRate < 1, "Conflict rate must be in [0, 1)");
+        int nbOfRows = data.size();
+        long maxConflicts = (long) (maxConflictRate * nbOfRows);
+
+        List<Feature> binaryFeatures = features.stream().filter(Feature::isBinary).collect(toList());
+        List<int[]> featureRows = getFeatureRows(data, binaryFeatures);
+
+        List<Integer> order = Lists.newArrayList();
+        for (int i = 0; i < binaryFeatures.size(); i++) {
+            order.add(i);
+        }
+        // stable sort keeps feature order for equal number of rows
+        order.sort(comparingInt((Integer i) -> featureRows.get(i).length).reversed());
+
+        List<List<Integer>> bundles = Lists.newArrayList();
+        List<int[]> bundleRows = Lists.newArrayList();
+        List<Long> bundleConflicts = Lists.newArrayList();
+        for (int i : order) {
+            int[] rows = featureRows.get(i);
+            int bundle = 0;
+            long conflicts = 0;
+            for (; bundle < bundles.size(); bundle++) {
+                if (bundles.get(bundle).size() == MAX_BUNDLE_SIZE) {
+                    continue;
+                }
+                conflicts = countConflicts(bundleRows.get(bundle), rows, maxConflicts - bundleConflicts.get(bundle));
+                if (bundleConflicts.get(bundle) + conflicts <= maxConflicts) {
+                    break;
+                }
+            }
+            if (bundle == bundles.size()) {
+                bundles.add(Lists.newArrayList());
+                bundleRows.add(new int[0]);
+                bundleConflicts.add(0L);
+                conflicts = 0;
+            }
+            bundles.get(bundle).add(i);
+            bundleRows.set(bundle, union(bundleRows.get(bundle), rows));
+            bundleConflicts.set(bundle, bundleConflicts.get(bundle) + conflicts);
+        }
+
+        List<List<Feature>> bundledFeatures = Lists.newArrayList();
+        List<byte[]> bins = Lists.newArrayList();
+        for (List<Integer> bundle : bundles) {
+            if (bundle.size() < 2) {
+                continue;
+            }
+            byte[] bundleBins = new byte[nbOfRows];
+            List<Feature> bundleFeatures = Lists.newArrayList();
+            for (int position = 0; position < bundle.size(); position++) {
+                for (int row : featureRows.get(bundle.get(position))) {
+                    if (bundleBins[row] == 0) {
+                        bundleBins[row] = (byte) (position + 1);
+                    }
+                }
+                bundleFeatures.add(binaryFeatures.get(bundle.get(position)));
+            }
+            bundledFeatures.add(bundleFeatures);
+            bins.add(bundleBins);
+        }
+        return new FeatureBundles(data.getData(), bundledFeatures, bins);
+    }
+
+    /**
+     * Rows which have each feature in increasing order. Rows of {@link SparseFeature}s of {@link SparseDataset} are
+     * taken from its non zero values in one pass for all of them (zeros never have a sparse feature), rows of other
+     * features are found by checking every row.
+     */
+    private static List<int[]> getFeatureRows(DataView data, List<Feature> features) {
+        int nbOfRows = data.size();
+        IntStream.Builder[] rows = new IntStream.Builder[features.size()];
+        SparseDataset sparseData = data.getData() instanceof SparseDataset ? (SparseDataset) data.getData() : null;
+        // sparse features of each column id
+        Map<Integer, List<Integer>> columnFeatures = Maps.newHashMap();
+        for (int i = 0; i < features.size(); i++) {
+            Feature feature = features.get(i);
+            rows[i] = IntStream.builder();
+            if (sparseData != null && feature instanceof SparseFeature) {
+                columnFeatures.computeIfAbsent(sparseData.getColumnId(feature.getColumn()), columnId -> Lists.newArrayList()).add(i);
+            } else {
+                for (int row = 0; row < nbOfRows; row++) {
+                    if (feature.belongsTo(data.get(row))) {
+                        rows[i].add(row);
+                    }
+                }
+            }
+        }
+        if (!columnFeatures.isEmpty()) {
+            int[][] featuresOfColumn = new int[sparseData.getColumnNames().size()][];
+            columnFeatures.forEach((columnId, columnFeatureIds) -> {
+                // features of columns which are not in data have no rows
+                if (columnId >= 0) {
+                    featuresOfColumn[columnId] = columnFeatureIds.stream().mapToInt(Integer::intValue).toArray();
+                }
+            });
+            for (int row = 0; row < nbOfRows; row++) {
+                for (int position = sparseData.getRowStart(row); position < sparseData.getRowEnd(row); position++) {
+                    int[] columnFeatureIds = featuresOfColumn[sparseData.getColumnAt(position)];
+                    if (columnFeatureIds == null) {
+                        continue;
+                    }
+                    double value = sparseData.getValueAt(position);
+                    for (int i : columnFeatureIds) {
+                        if (value > ((SparseFeature) features.get(i)).getThreshold()) {
+                            rows[i].add(row);
+                        }
+                    }
+                }
+            }
+        }
+        return Arrays.stream(rows).map(builder -> builder.build().toArray()).collect(toList());
+    }
+
+    /**
+     * Number of rows which have both bundle and feature, counting stops once it is more than limit. Both rows are in
+     * increasing order, so they are merged.
+     */
+    private static long countConflicts(int[] bundleRows, int[] featureRows, long limit) {
+        long conflicts = 0;
+        int i = 0;
+        int j = 0;
+        while (i < bundleRows.length && j < featureRows.length && conflicts <= limit) {
+            if (bundleRows[i] < featureRows[j]) {
+                i++;
+            } else if (bundleRows[i] > featureRows[j]) {
+                j++;
+            } else {
+                conflicts++;
+                i++;
+                j++;
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Rows of either array in increasing order.
+     */
+    private static int[] union(int[] first, int[] second) {
+        int[] union = new int[first.length + second.length];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length || j < second.length) {
+            if (j == second.length || i < first.length && first[i] < second[j]) {
+                union[length++] = first[i++];
+            } else {
+                if (i < first.length && first[i] == second[j]) {
+                    i++;
+                }
+                union[length++] = second[j++];
+            }
+        }
+        return length == union.length ? union : Arrays.copyOf(union, length);
+    }
+
+    /**
+     * @return true if bins are counted for rows of this data.
+     */
+    public boolean isFor(DataView data) {
+        return this.data == data.getData();
+    }
+
+    /**
+     * @return Features of each bundle, position of feature in the bundle is its bin - 1.
+     */
+    public List<List<Feature>> getBundles() {
+        return bundles;
+    }
+
+    /**
+     * @return Total number of bundled features.
+     */
+    public int getNbOfBundledFeatures() {
+        return positions.size();
+    }
+
+    /**
+     * @return Bundle of feature or -1 if feature is not bundled.
+     */
+    public int getBundle(Feature feature) {
+        Long position = positions.get(feature);
+        return position == null ? -1 : (int) (position >>> 32);
+    }
+
+    /**
+     * @return Position of feature in its bundle.
+     */
+    public int getPosition(Feature feature) {
+        return (int) (long) positions.get(feature);
+    }
+
+    /**
+     * @return Bin of the row in the bundle - 1 + position of its feature or 0 if row has no feature of the bundle.
+     */
+    public int getBin(int bundle, int row) {
+        return bins.get(bundle)[row] & 0xFF;
+    }
+
+}
@@ -1,16 +1,25 @@
 package org.oak3ml.decisiontree;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.feature.CategoricalFeature;
 import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.GroupedPredicatesFeature;
+import org.oak3ml.decisiontree.feature.HashedCategoricalFeature;
 import org.oak3ml.decisiontree.label.Label;
+import org.oak3ml.decisiontree.label.LabelDictionary;
 
 import com.google.common.collect.Lists;
 
 /**
- * Node of the decision tree. Leaf nodes has {@link Label}s set. It can have list of children nodes. It also contains a
- * feature on which it will split futher if it is not leaf node.
+ * Node of the decision tree. Leaf nodes has {@link Label}s set (or mean target value in regression trees). It can
+ * have list of children nodes. It also contains a feature on which it will split futher if it is not leaf node.
+ * Labels are kept as ids of {@link LabelDictionary} and label counts are kept in {@link NodeStatistics} shared by all
+ * nodes of a tree, they are converted to {@link Label} objects only by getters. Majority label is found once when node
+ * is created.
  * 
  * @author Ignas
  *
@@ -25,11 +34,26 @@ public class Node {
     /** Value of parent node split. It is tree's branch (or edge). */
     private Object branchValue;
 
-    /** Label if it is leaf node. */
-    private Label label;
+    /** Label id if it is leaf node, otherwise {@link LabelDictionary#UNKNOWN_ID}. */
+    private int labelId = LabelDictionary.UNKNOWN_ID;
     
-    /** Number of datasamples for each label seen by this node. */
-    private Map<Label, Long> countedSamples;
+    /** Label id with the largest count - used to classify data samples which can not go further from this node. */
+    private int majorityLabelId = LabelDictionary.UNKNOWN_ID;
+
+    /** Label counts of all nodes of the tree. Null for regression tree nodes. */
+    private NodeStatistics statistics;
+
+    /** Offset of label counts (weighted number of datasamples for each label id) of this node in statistics. */
+    private int statisticsOffset = NodeStatistics.NO_COUNTS;
+
+    /** Mean target value of data samples seen by this node (regression trees only). */
+    private double value;
+
+    /**
+     * Cost complexity parameter at which subtree of this node is pruned to a leaf (see
+     * {@link org.oak3ml.decisiontree.pruning.CostComplexityPruning}). Infinity if it is not known or node is a leaf.
+     */
+    private double pruningAlpha = Double.POSITIVE_INFINITY;
 
     /** Node's children. */
     private List<Node> children = Lists.newArrayList();
@@ -37,50 +61,143 @@ public class Node {
     /**
      * Protected private constructor.
      */
-    private Node(Feature feature, Object branchValue, Map<Label, Long> countedSamples) {
+    private Node(Feature feature, Object branchValue, double[] labelCounts, NodeStatistics statistics) {
         this.feature = feature;
         this.branchValue = branchValue;
-        this.countedSamples = countedSamples;
+        this.statistics = statistics;
+        if (labelCounts != null) {
+            this.statisticsOffset = statistics.add(labelCounts);
+            this.majorityLabelId = LabelDictionary.getMajorityId(labelCounts);
+        }
     }
 
     /**
-     * Protected private constructor with Label.
+     * Static factory method.
+     * 
+     * @param labelCounts Weighted number of datasamples for each label id. They are copied to statistics.
      */
-    private Node(Feature feature, Label label, Object branchValue, Map<Label, Long> countedSamples) {
-        this.label = label;
-        this.feature = feature;
-        this.branchValue = branchValue;
-        this.countedSamples = countedSamples;
+    public static Node newNode(Feature feature, Object branchValue, double[] labelCounts, NodeStatistics statistics) {
+        return new Node(feature, branchValue, labelCounts, statistics);
     }
 
     /**
-     * Static factory method.
+     * Static factory method for a leaf node.
+     * 
+     * @param labelCounts Weighted number of datasamples for each label id or null if leaf saw no data samples.
      */
-    public static Node newNode(Feature feature, Object branchValue, Map<Label, Long> countedSamples) {
-        return new Node(feature, branchValue, countedSamples);
+    public static Node newLeafNode(int labelId, Object branchValue, double[] labelCounts, NodeStatistics statistics) {
+        Node node = new Node(null, branchValue, labelCounts, statistics);
+        node.labelId = labelId;
+        node.majorityLabelId = labelId;
+        return node;
     }
 
     /**
-     * Static factory method for a leaf node.
+     * Static factory method for a regression tree node.
      */
-    public static Node newLeafNode(Label label, Object branchValue, Map<Label, Long> countedSamples) {
-        return new Node(null, label, branchValue, countedSamples);
+    public static Node newRegressionNode(Feature feature, Object branchValue, double value) {
+        Node node = new Node(feature, branchValue, null, null);
+        node.value = value;
+        return node;
+    }
+
+    /**
+     * Static factory method for a regression tree leaf node.
+     */
+    public static Node newRegressionLeafNode(double value, Object branchValue) {
+        return newRegressionNode(null, branchValue, value);
     }
 
     public void addChild(Node child) {
         children.add(child);
     }
 
+    /**
+     * Replaces child at position (placeholder of child which was not grown yet).
+     */
+    public void setChild(int index, Node child) {
+        children.set(index, child);
+    }
+
     public List<Node> getChildren() {
         return children;
     }
 
+    /**
+     * Finds child whose branch data sample follows.
+     * 
+     * @param dataSample Data sample.
+     * @return Child node or null if node is a leaf or data sample does not match any branch.
+     */
+    public Node findChild(DataSample dataSample) {
+        // bucket is hashed once, not for every child
+        String bucket = feature instanceof HashedCategoricalFeature ? String.valueOf(((HashedCategoricalFeature) feature).getBucket(dataSample)) : null;
+        for (Node child : children) {
+            if (feature.isBinary()) { // moving through binary splits and categorical multisplits are different
+                if (dataSample.has(feature) && child.getBranchValue().equals("true") || 
+                        !dataSample.has(feature) && child.getBranchValue().equals("false")) {
+                    return child;
+                }
+            } else if (feature instanceof CategoricalFeature) {
+                if (child.getBranchValue().equals(dataSample.getValue(feature.getColumn()).get().toString())) {
+                    return child;
+                }
+            } else if (feature instanceof HashedCategoricalFeature) {
+                if (child.getBranchValue().equals(bucket)) {
+                    return child;
+                }
+            } else if (feature instanceof GroupedPredicatesFeature) {
+                Feature predicateFeature = ((GroupedPredicatesFeature)feature).findPredicateFeatureForDataSample(dataSample);
+                if (predicateFeature != null && child.getBranchValue().equals(predicateFeature.toString())) {
+                    return child;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Turns node into a leaf labeled with its majority label. Children (and their subtrees) are removed.
+     */
+    public void prune() {
+        feature = null;
+        labelId = majorityLabelId;
+        children = Lists.newArrayList();
+    }
+
+    public double getPruningAlpha() {
+        return pruningAlpha;
+    }
+
+    public void setPruningAlpha(double pruningAlpha) {
+        this.pruningAlpha = pruningAlpha;
+    }
+
     public Label getLabel() {
-        return label;
+        return labelId != LabelDictionary.UNKNOWN_ID ? statistics.getLabelDictionary().getLabel(labelId) : null;
+    }
+
+    public int getLabelId() {
+        return labelId;
+    }
+
+    /**
+     * @return Id of label with the largest count (label id of leaf node) or {@link LabelDictionary#UNKNOWN_ID} if
+     *         node saw no data samples.
+     */
+    public int getMajorityLabelId() {
+        return majorityLabelId;
+    }
+
+    /**
+     * @return Label with the largest count (label of leaf node).
+     */
+    public Label getMajorityLabel() {
+        return majorityLabelId != LabelDictionary.UNKNOWN_ID ? statistics.getLabelDictionary().getLabel(majorityLabelId) : null;
     }
 
     public boolean isLeaf() {
-        return label != null;
+        return feature == null;
     }
 
     public Object getBranchValue() {
@@ -95,8 +212,22 @@ public class Node {
         return feature != null ? feature.toString() : LEAF_NODE_NAME;
     }
 
-    public Map<Label, Long> getCountedSamples() {
-        return countedSamples;
+    /**
+     * @return Number (weighted) of datasamples for each label seen by this node.
+     */
+    public Map<Label, Double> getCountedSamples() {
+        return statistics == null ? Collections.emptyMap() : statistics.getLabelDictionary().toLabelCounts(getLabelCounts());
+    }
+
+    /**
+     * @return Number (weighted) of datasamples for each label id seen by this node (copy).
+     */
+    public double[] getLabelCounts() {
+        return statistics == null ? new double[0] : statistics.getLabelCounts(statisticsOffset);
+    }
+
+    public double getValue() {
+        return value;
     }
 
 }
@@ -0,0 +1,57 @@
+package org.oak3ml.decisiontree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates node of a task - leaf or split node. Split node gets placeholders for children which are not grown yet and
+ * their tasks are added to children list.
+ * 
+ * @author Ignas
+ *
+ */
+@FunctionalInterface
+interface NodeExpander {
+
+    /**
+     * Creates node of a task.
+     * 
+     * @param task Task of a node.
+     * @param children Output - tasks of children which are not grown yet.
+     * @param parallelSplitSearch If true candidate features are evaluated in parallel.
+     * @return Created node.
+     */
+    Node expand(NodeTask task, List<NodeTask> children, boolean parallelSplitSearch);
+
+    /**
+     * Grows whole subtree of a task in a single thread. Each task is expanded into a node and tasks of its children,
+     * which are added to scheduler, until there are no tasks left.
+     * 
+     * @param rootTask Task of subtree root.
+     * @param scheduler Decides order in which nodes are grown.
+     * @return Subtree root node.
+     */
+    default Node growSubtree(NodeTask rootTask, NodeScheduler scheduler) {
+        scheduler.addAll(Collections.singletonList(rootTask));
+        Node root = null;
+        long nbOfTasks = 1;
+        List<NodeTask> children = new ArrayList<>();
+        NodeTask task;
+        while ((task = scheduler.poll()) != null) {
+            Node node = expand(task, children, false);
+            if (task == rootTask) {
+                root = node;
+            } else {
+                task.getParent().setChild(task.getChildIndex(), node);
+            }
+            for (NodeTask child : children) {
+                child.setSequence(nbOfTasks++);
+            }
+            scheduler.addAll(children);
+            children.clear();
+        }
+        return root;
+    }
+
+}
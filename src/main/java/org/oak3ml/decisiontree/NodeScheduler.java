@@ -0,0 +1,101 @@
+package org.oak3ml.decisiontree;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * Work queue of nodes waiting to be grown (see {@link NodeTask}). Tree growth does not recurse, so its depth is not
+ * limited by thread stack size, and scheduler decides in which order nodes are grown:
+ * <ul>
+ * <li>{@link #depthFirst()} - explicit stack, grows nodes in the same order as recursion would (default).</li>
+ * <li>{@link #levelWise()} - queue, grows all nodes of a level before the next level.</li>
+ * <li>{@link #largestFirst()} - grows node with most rows first.</li>
+ * <li>{@link #byPriority(Comparator)} - grows nodes in any other order.</li>
+ * </ul>
+ * Single tree is grown by one thread, so schedulers are not thread safe.
+ *
+ * @author Ignas
+ *
+ */
+public interface NodeScheduler {
+
+    /**
+     * Adds children of a node. Children are given in order of branches.
+     *
+     * @param tasks Tasks of children.
+     */
+    void addAll(List<NodeTask> tasks);
+
+    /**
+     * @return Next task to grow or null if there are no tasks.
+     */
+    NodeTask poll();
+
+    /**
+     * Explicit stack. Children are pushed in reverse order, so first branch is grown first like in recursion.
+     */
+    static NodeScheduler depthFirst() {
+        Deque<NodeTask> stack = new ArrayDeque<>();
+        return new NodeScheduler() {
+
+            @Override
+            public void addAll(List<NodeTask> tasks) {
+                for (int i = tasks.size() - 1; i >= 0; i--) {
+                    stack.push(tasks.get(i));
+                }
+            }
+
+            @Override
+            public NodeTask poll() {
+                return stack.poll();
+            }
+        };
+    }
+
+    /**
+     * FIFO queue - tree is grown level by level.
+     */
+    static NodeScheduler levelWise() {
+        return fromQueue(new ArrayDeque<>());
+    }
+
+    /**
+     * Node with the largest number of rows is grown first. Ties are grown in order tasks were created.
+     */
+    static NodeScheduler largestFirst() {
+        return byPriority(Comparator.comparingInt(NodeTask::size).reversed());
+    }
+
+    /**
+     * Node with the highest priority (lowest by comparator) is grown first. Ties are grown in order tasks were
+     * created.
+     *
+     * @param priority Comparator of tasks.
+     */
+    static NodeScheduler byPriority(Comparator<NodeTask> priority) {
+        return fromQueue(new PriorityQueue<>(priority.thenComparingLong(NodeTask::getSequence)));
+    }
+
+    /**
+     * Scheduler which polls tasks from a queue.
+     */
+    static NodeScheduler fromQueue(Queue<NodeTask> queue) {
+        return new NodeScheduler() {
+
+            @Override
+            public void addAll(List<NodeTask> tasks) {
+                queue.addAll(tasks);
+            }
+
+            @Override
+            public NodeTask poll() {
+                return queue.poll();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.oak3ml.decisiontree;
+
+import java.util.Arrays;
+
+import org.oak3ml.decisiontree.label.LabelDictionary;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Label counts of all nodes of a tree kept in one shared primitive array. Each node stores only offset of its counts
+ * (nbOfLabels values indexed by label id), so trees with millions of nodes do not allocate a map or an array per node.
+ * Nodes which saw no data samples (empty leaves) take no space at all.
+ *
+ * Counts are weighted, so they are doubles.
+ *
+ * @author Ignas
+ *
+ */
+public class NodeStatistics {
+
+    /** Offset of node without counts. */
+    public static final int NO_COUNTS = -1;
+
+    /** Initial capacity in number of nodes. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Dictionary of label ids. */
+    private final LabelDictionary labelDictionary;
+
+    /** Number of counts of each node. */
+    private final int nbOfLabels;
+
+    /** Counts of all nodes one after another. */
+    private double[] counts;
+
+    /** Number of used elements of counts. */
+    private int size;
+
+    /**
+     * Private constructor.
+     */
+    private NodeStatistics(LabelDictionary labelDictionary) {
+        super();
+        this.labelDictionary = labelDictionary;
+        this.nbOfLabels = labelDictionary.size();
+        this.counts = new double[INITIAL_CAPACITY * nbOfLabels];
+    }
+
+    /**
+     * Static factory method.
+     *
+     * @param labelDictionary Dictionary of label ids of training data.
+     * @return Empty statistics.
+     */
+    public static NodeStatistics newNodeStatistics(LabelDictionary labelDictionary) {
+        Preconditions.checkNotNull(labelDictionary);
+        return new NodeStatistics(labelDictionary);
+    }
+
+    /**
+     * Stores label counts of a node. Nodes can be grown by several threads, so adding is synchronized.
+     *
+     * @param labelCounts Count of each label id.
+     * @return Offset of stored counts.
+     */
+    public synchronized int add(double[] labelCounts) {
+        Preconditions.checkArgument(labelCounts.length == nbOfLabels);
+        if (size + nbOfLabels > counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(counts.length * 2, size + nbOfLabels));
+        }
+        int offset = size;
+        System.arraycopy(labelCounts, 0, counts, offset, nbOfLabels);
+        size += nbOfLabels;
+        return offset;
+    }
+
+    /**
+     * Count of label of a node.
+     *
+     * @param offset Offset of node counts or {@link #NO_COUNTS}.
+     * @param labelId Label id.
+     * @return Count (weighted).
+     */
+    public synchronized double getCount(int offset, int labelId) {
+        return offset == NO_COUNTS ? 0.0 : counts[offset + labelId];
+    }
+
+    /**
+     * Copy of label counts of a node.
+     *
+     * @param offset Offset of node counts or {@link #NO_COUNTS}.
+     * @return Count of each label id.
+     */
+    public synchronized double[] getLabelCounts(int offset) {
+        return offset == NO_COUNTS ? new double[nbOfLabels] : Arrays.copyOfRange(counts, offset, offset + nbOfLabels);
+    }
+
+    /**
+     * Releases unused capacity once tree is grown.
+     */
+    public synchronized void trim() {
+        counts = Arrays.copyOf(counts, size);
+    }
+
+    /**
+     * @return Dictionary of label ids.
+     */
+    public LabelDictionary getLabelDictionary() {
+        return labelDictionary;
+    }
+
+    /**
+     * @return Number of labels counted by each node.
+     */
+    public int getNbOfLabels() {
+        return nbOfLabels;
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.oak3ml.decisiontree;
+
+import java.util.List;
+
+import org.oak3ml.decisiontree.feature.Feature;
+
+/**
+ * Node of a decision tree which is waiting to be grown. Tree is grown without recursion - instead of calling itself for
+ * each branch, growth engine creates a task for each child and {@link NodeScheduler} decides which task is processed
+ * next. Grown node is put in place of the task in its parent children list.
+ *
+ * Rows of all nodes of a tree are kept in one shared index buffer - task owns range [from, to) of it. Rows of a node are
+ * partitioned into branches in place, so ranges of children are disjoint parts of the range of their parent.
+ *
+ * @author Ignas
+ *
+ */
+public class NodeTask {
+
+    /** Shared index buffer with rows of training data. */
+    private final int[] rows;
+
+    /** First position of rows of this node in the buffer. */
+    private final int from;
+
+    /** Position after last row of this node in the buffer. */
+    private final int to;
+
+    /** Features which can still be used to split. */
+    private final List<Feature> features;
+
+    /** Depth of the node (root is 1). */
+    private final int depth;
+
+    /** Branch name from parent. */
+    private final Object branchFromParent;
+
+    /** Parent node or null for root. */
+    private final Node parent;
+
+    /** Position of the node in parent children list. */
+    private final int childIndex;
+
+    /** Order in which task was created. */
+    private long sequence;
+
+    /**
+     * Constructor of task which owns all rows of the buffer.
+     */
+    NodeTask(int[] rows, List<Feature> features, int depth, Object branchFromParent, Node parent, int childIndex) {
+        this(rows, 0, rows.length, features, depth, branchFromParent, parent, childIndex);
+    }
+
+    /**
+     * Constructor.
+     */
+    NodeTask(int[] rows, int from, int to, List<Feature> features, int depth, Object branchFromParent, Node parent, int childIndex) {
+        super();
+        this.rows = rows;
+        this.from = from;
+        this.to = to;
+        this.features = features;
+        this.depth = depth;
+        this.branchFromParent = branchFromParent;
+        this.parent = parent;
+        this.childIndex = childIndex;
+    }
+
+    /**
+     * @return Shared index buffer. Rows of this node are in range [{@link #getFrom()}, {@link #getTo()}).
+     */
+    public int[] getRows() {
+        return rows;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    /**
+     * @return Number of rows of training data that reached this node.
+     */
+    public int size() {
+        return to - from;
+    }
+
+    public List<Feature> getFeatures() {
+        return features;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public Object getBranchFromParent() {
+        return branchFromParent;
+    }
+
+    public Node getParent() {
+        return parent;
+    }
+
+    public int getChildIndex() {
+        return childIndex;
+    }
+
+    /**
+     * @return Order in which task was created - can be used to break ties of priorities.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+}
@@ -0,0 +1,165 @@
+package org.oak3ml.decisiontree;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+
+/**
+ * Out-of-bag (OOB) error estimate of an ensemble. Each tree is trained on a bootstrap sample and data samples which were
+ * not drawn into that sample can be used to validate the tree. Votes of trees for the data samples they did not see are
+ * accumulated while forest is trained, so error estimate is available right after training without separate
+ * validation data or scoring pass.
+ *
+ * @author Ignas
+ *
+ */
+public class OutOfBagEstimate {
+
+    /** Label ids. */
+    private final LabelDictionary labelIds;
+
+    /** Label id of each data sample. */
+    private final int[] labels;
+
+    /** Number of votes for each label of each data sample (row * nbOfLabels + labelId). */
+    private final int[] votes;
+
+    /** Label id with most out-of-bag votes for each data sample or -1 if data sample has no votes yet. */
+    private final int[] votedLabels;
+
+    /** Number of data samples which have at least one out-of-bag vote. */
+    private int nbOfVotedSamples;
+
+    /** Number of data samples which are correctly classified by out-of-bag votes. */
+    private int nbOfCorrectSamples;
+
+    /** Out-of-bag error after each added tree. */
+    private double[] errors = new double[16];
+
+    /** Number of added trees. */
+    private int nbOfTrees;
+
+    /**
+     * Constructor.
+     *
+     * @param trainingData Training data of the ensemble.
+     */
+    public OutOfBagEstimate(List<DataSample> trainingData) {
+        this(DataView.newDataView(trainingData));
+    }
+
+    /**
+     * Constructor. Trees trained on views derived from the same view vote with label ids without label lookup.
+     *
+     * @param trainingData View of training data of the ensemble.
+     */
+    public OutOfBagEstimate(DataView trainingData) {
+        super();
+        labelIds = trainingData.getLabelDictionary();
+        labels = new int[trainingData.size()];
+        for (int row = 0; row < labels.length; row++) {
+            labels[row] = trainingData.getLabelId(row);
+        }
+        votes = new int[labels.length * labelIds.size()];
+        votedLabels = new int[labels.length];
+        Arrays.fill(votedLabels, -1);
+    }
+
+    /**
+     * Adds votes of trained tree for data samples which were not part of its training sample.
+     *
+     * @param tree Trained tree.
+     * @param trainingSample Sample which was used to train the tree.
+     */
+    public void addTree(DecisionTree tree, DataView trainingSample) {
+        for (int row = 0; row < labels.length; row++) {
+            if (trainingSample.getMultiplicity(row) == 0) {
+                int labelId = tree.classifyId(trainingSample.get(row), labelIds);
+                if (labelId != LabelDictionary.UNKNOWN_ID) {
+                    vote(row, labelId);
+                }
+            }
+        }
+        if (nbOfTrees == errors.length) {
+            errors = Arrays.copyOf(errors, errors.length * 2);
+        }
+        errors[nbOfTrees++] = getError();
+    }
+
+    /**
+     * Adds a vote and updates majority label of data sample.
+     */
+    private void vote(int row, int labelId) {
+        int nbOfLabels = labelIds.size();
+        int nbOfVotes = ++votes[row * nbOfLabels + labelId];
+        int votedLabel = votedLabels[row];
+        if (votedLabel == -1) {
+            nbOfVotedSamples++;
+        } else if (votedLabel == labelId || nbOfVotes <= votes[row * nbOfLabels + votedLabel]) {
+            return; // majority has not changed
+        } else if (votedLabel == labels[row]) {
+            nbOfCorrectSamples--;
+        }
+        votedLabels[row] = labelId;
+        if (labelId == labels[row]) {
+            nbOfCorrectSamples++;
+        }
+    }
+
+    /**
+     * @return Current out-of-bag error - part of data samples misclassified by trees which did not see them.
+     */
+    public double getError() {
+        return nbOfVotedSamples == 0 ? 0.0 : 1.0 - (double) nbOfCorrectSamples / nbOfVotedSamples;
+    }
+
+    /**
+     * @return Current out-of-bag accuracy.
+     */
+    public double getAccuracy() {
+        return 1.0 - getError();
+    }
+
+    /**
+     * @return Out-of-bag error after each added tree. First element is the error of single tree and the last one is the
+     *         error of whole ensemble.
+     */
+    public double[] getErrorCurve() {
+        return Arrays.copyOf(errors, nbOfTrees);
+    }
+
+    /**
+     * Checks if out-of-bag error stopped improving. Error is considered converged if the best error reached during last
+     * window trees is not better than the best error before them by more than tolerance.
+     * 
+     * @param window Number of last trees.
+     * @param tolerance Minimum improvement of error.
+     * @return True if adding more trees does not improve error anymore.
+     */
+    public boolean hasConverged(int window, double tolerance) {
+        if (nbOfTrees <= window) {
+            return false;
+        }
+        double bestErrorBefore = Arrays.stream(errors, 0, nbOfTrees - window).min().getAsDouble();
+        double bestErrorInWindow = Arrays.stream(errors, nbOfTrees - window, nbOfTrees).min().getAsDouble();
+        return bestErrorBefore - bestErrorInWindow < tolerance;
+    }
+
+    /**
+     * @return Number of trees which voted.
+     */
+    public int getNbOfTrees() {
+        return nbOfTrees;
+    }
+
+    /**
+     * @return Number of data samples which were left out of at least one bootstrap sample.
+     */
+    public int getNbOfVotedSamples() {
+        return nbOfVotedSamples;
+    }
+
+}
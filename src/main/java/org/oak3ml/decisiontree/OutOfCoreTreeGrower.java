@@ -0,0 +1,467 @@
+package org.oak3ml.decisiontree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * Grows classification tree over data which does not fit in heap. Training data is read once and each row is written
+ * to a scratch file as a fixed size record - node the row is in, label id, weight and a bit of each feature. Tree is
+ * then grown level by level: each scan of the scratch file builds label histograms (label counts of node and of
+ * "true" branch of each feature) of as many nodes of the level as fit into memory budget, nodes are split from their
+ * histograms and one more scan moves rows to the nodes of the next level. Scratch file is mapped in chunks, so heap
+ * holds only histograms and tree nodes whatever the number of rows is.
+ *
+ * Splits are chosen by {@link BestSplitFinder} from histograms with the same stopping criteria as in memory growth,
+ * so the same tree is grown. Only binary features are supported.
+ *
+ * @author Ignas
+ *
+ */
+class OutOfCoreTreeGrower {
+
+    /** Logger. */
+    private Logger log = LoggerFactory.getLogger(OutOfCoreTreeGrower.class);
+
+    /** Bytes of scratch file mapped at once. */
+    private static final long CHUNK_SIZE = 1L << 26;
+
+    /** Offset of node id in row record. Rows of finished leaves have node -1. */
+    private static final int NODE_OFFSET = 0;
+
+    /** Offset of label id in row record. */
+    private static final int LABEL_OFFSET = 4;
+
+    /** Offset of weight in row record. */
+    private static final int WEIGHT_OFFSET = 8;
+
+    /** Offset of feature bits in row record. */
+    private static final int FEATURES_OFFSET = 16;
+
+    /** Maximum length of an array which virtual machines allocate. */
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /** Tree being trained. */
+    private final DecisionTree tree;
+
+    /** Settings of the tree. */
+    private final DecisionTreeSettings settings;
+
+    /** Labels of training data. */
+    private final LabelDictionary labels = LabelDictionary.newLabelDictionary();
+
+    /** Label counts of nodes. Created once labels are known. */
+    private NodeStatistics nodeStatistics;
+
+    /** Features. */
+    private List<Feature> features;
+
+    /** Index of each feature. */
+    private final Map<Feature, Integer> featureIndexes = new IdentityHashMap<>();
+
+    /** Scratch file. */
+    private FileChannel scratch;
+
+    /** Number of rows. */
+    private int nbOfRows;
+
+    /** Bytes of row record. */
+    private int recordSize;
+
+    /** Rows of a chunk. */
+    private int rowsPerChunk;
+
+    /**
+     * Constructor.
+     */
+    OutOfCoreTreeGrower(DecisionTree tree, DecisionTreeSettings settings) {
+        super();
+        this.tree = tree;
+        this.settings = settings;
+    }
+
+    /**
+     * Grows tree.
+     *
+     * @param data
+     *            Training data. It is read once, row by row.
+     * @param features
+     *            Binary features.
+     * @return Root of the tree.
+     * @throws IOException
+     *             If scratch file can not be written.
+     */
+    Node grow(List<DataSample> data, List<Feature> features) throws IOException {
+        Preconditions.checkArgument(!data.isEmpty(), "Training data is empty");
+        Preconditions.checkArgument(features.stream().allMatch(Feature::isBinary), "Out-of-core training supports only binary features");
+        this.features = features;
+        for (int f = 0; f < features.size(); f++) {
+            featureIndexes.put(features.get(f), f);
+        }
+        nbOfRows = data.size();
+        recordSize = (FEATURES_OFFSET + (features.size() + 7) / 8 + 7) & ~7;
+        rowsPerChunk = (int) Math.max(1, CHUNK_SIZE / recordSize);
+
+        Path directory = settings.getScratchDirectory() != null ? settings.getScratchDirectory() : Paths.get(System.getProperty("java.io.tmpdir"));
+        Path file = Files.createTempFile(directory, "oak3ml-", ".rows");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+            scratch = channel;
+            writeRows(data);
+            nodeStatistics = NodeStatistics.newNodeStatistics(labels);
+            return growLevels();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Writes record of each row. All rows start in the root (node 0).
+     */
+    private void writeRows(List<DataSample> data) throws IOException {
+        for (int chunkStart = 0; chunkStart < nbOfRows; chunkStart += rowsPerChunk) {
+            int chunkEnd = Math.min(nbOfRows, chunkStart + rowsPerChunk);
+            ByteBuffer chunk = mapChunk(chunkStart, chunkEnd);
+            for (int row = chunkStart; row < chunkEnd; row++) {
+                DataSample dataSample = data.get(row);
+                int record = (row - chunkStart) * recordSize;
+                chunk.putInt(record + NODE_OFFSET, 0);
+                chunk.putInt(record + LABEL_OFFSET, labels.add(dataSample.getLabel()));
+                chunk.putDouble(record + WEIGHT_OFFSET, dataSample.getWeight());
+                for (int f = 0; f < features.size(); f++) {
+                    if (features.get(f).belongsTo(dataSample)) {
+                        int index = record + FEATURES_OFFSET + (f >>> 3);
+                        chunk.put(index, (byte) (chunk.get(index) | (1 << (f & 7))));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits nodes level by level until no node is left to split.
+     */
+    private Node growLevels() throws IOException {
+        int nbOfLabels = labels.size();
+        int nbOfFeatures = features.size();
+        int nodesPerScan = getNodesPerScan(settings.getOutOfCoreMemoryBudget(), nbOfFeatures, nbOfLabels);
+
+        PendingNode rootNode = new PendingNode(1, "root", new BitSet(), null, 0);
+        Node[] root = new Node[1];
+        List<PendingNode> level = Lists.newArrayList(rootNode);
+        while (!level.isEmpty()) {
+            int batchSize = Math.min(nodesPerScan, level.size());
+            Histograms histograms = new Histograms(batchSize, nbOfLabels, nbOfFeatures);
+            List<PendingNode> nextLevel = Lists.newArrayList();
+            for (int batchStart = 0; batchStart < level.size(); batchStart += batchSize) {
+                int batchEnd = Math.min(level.size(), batchStart + batchSize);
+                histograms.clear();
+                scan(histograms, batchStart, batchEnd);
+                for (int node = batchStart; node < batchEnd; node++) {
+                    PendingNode pending = level.get(node);
+                    Node treeNode = expand(pending, histograms, node - batchStart, nextLevel);
+                    if (pending.parent == null) {
+                        root[0] = treeNode;
+                    } else {
+                        pending.parent.setChild(pending.childIndex, treeNode);
+                    }
+                }
+            }
+            log.debug("Level of {} nodes is grown in {} scans", level.size(), (level.size() + batchSize - 1) / batchSize);
+            if (!nextLevel.isEmpty()) {
+                moveRows(level);
+            }
+            level = nextLevel;
+        }
+        return root[0];
+    }
+
+    /**
+     * @return Number of nodes whose histograms fit into memory budget and into arrays of maximum length.
+     */
+    static int getNodesPerScan(long memoryBudget, int nbOfFeatures, int nbOfLabels) {
+        // histograms of a node: label counts of node, of "true" branch of each feature and their row counts
+        long nodeBytes = Math.addExact(Math.multiplyExact(8L * nbOfLabels, nbOfFeatures + 1L), 4L * (nbOfFeatures + 1) + (nbOfFeatures + 7) / 8);
+        long nodesPerScan = memoryBudget / nodeBytes;
+        Preconditions.checkArgument(nodesPerScan > 0, "Memory budget is smaller than histograms of one node (%s bytes)", nodeBytes);
+        // histograms of a batch are flat arrays, the longest of them must fit into an array
+        long nodeLength = Math.max(Math.max(nbOfLabels, nbOfFeatures), Math.multiplyExact((long) nbOfFeatures, nbOfLabels));
+        nodesPerScan = Math.min(nodesPerScan, MAX_ARRAY_LENGTH / Math.max(nodeLength, 1));
+        Preconditions.checkArgument(nodesPerScan > 0, "Histograms of one node are longer than an array can be (%s values)", nodeLength);
+        return (int) nodesPerScan;
+    }
+
+    /**
+     * Builds histograms of nodes [batchStart, batchEnd) of the level.
+     */
+    private void scan(Histograms histograms, int batchStart, int batchEnd) throws IOException {
+        int nbOfLabels = histograms.nbOfLabels;
+        int nbOfFeatures = histograms.nbOfFeatures;
+        int bitBytes = (nbOfFeatures + 7) / 8;
+        for (int chunkStart = 0; chunkStart < nbOfRows; chunkStart += rowsPerChunk) {
+            int chunkEnd = Math.min(nbOfRows, chunkStart + rowsPerChunk);
+            ByteBuffer chunk = mapChunk(chunkStart, chunkEnd);
+            for (int record = 0; record < (chunkEnd - chunkStart) * recordSize; record += recordSize) {
+                int node = chunk.getInt(record + NODE_OFFSET);
+                if (node < batchStart || node >= batchEnd) {
+                    continue;
+                }
+                int n = node - batchStart;
+                int labelId = chunk.getInt(record + LABEL_OFFSET);
+                double weight = chunk.getDouble(record + WEIGHT_OFFSET);
+                histograms.nodeCounts[n * nbOfLabels + labelId] += weight;
+                if (histograms.nodeRows[n]++ == 0) {
+                    for (int b = 0; b < bitBytes; b++) {
+                        histograms.firstRowBits[n * bitBytes + b] = chunk.get(record + FEATURES_OFFSET + b);
+                    }
+                }
+                for (int b = 0; b < bitBytes; b++) {
+                    for (int bits = chunk.get(record + FEATURES_OFFSET + b) & 0xFF; bits != 0; bits &= bits - 1) {
+                        int f = (b << 3) + Integer.numberOfTrailingZeros(bits);
+                        histograms.trueCounts[(n * nbOfFeatures + f) * nbOfLabels + labelId] += weight;
+                        histograms.trueRows[n * nbOfFeatures + f]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates tree node from histograms - the same steps as in memory growth. Children which will be split are added
+     * to the next level.
+     */
+    private Node expand(PendingNode pending, Histograms histograms, int n, List<PendingNode> nextLevel) {
+        int nbOfLabels = histograms.nbOfLabels;
+        double[] counts = Arrays.copyOfRange(histograms.nodeCounts, n * nbOfLabels, (n + 1) * nbOfLabels);
+        int labelId = tree.getLabelId(counts);
+        if (labelId != LabelDictionary.UNKNOWN_ID) {
+            return Node.newLeafNode(labelId, pending.branch, counts, nodeStatistics);
+        }
+        int majorityLabel = LabelDictionary.getMajorityId(counts);
+        List<Feature> available = Lists.newArrayList();
+        for (int f = 0; f < features.size(); f++) {
+            if (!pending.usedFeatures.get(f)) {
+                available.add(features.get(f));
+            }
+        }
+        if (available.isEmpty() || pending.depth >= settings.getMaxDepth() || tree.isPureEnough(counts)) {
+            return Node.newLeafNode(majorityLabel, pending.branch, counts, nodeStatistics);
+        }
+
+        List<Feature> candidates = tree.drawCandidateFeatures(available);
+        double[] impurities = new double[candidates.size()];
+        double[] firstCounts = new double[nbOfLabels];
+        double[] lastCounts = new double[nbOfLabels];
+        for (int i = 0; i < candidates.size(); i++) {
+            int f = featureIndexes.get(candidates.get(i));
+            int trueRows = histograms.getTrueCounts(n, f, counts, firstCounts, lastCounts);
+            int nbOfFirst = histograms.isTrueForFirstRow(n, f) ? histograms.nodeRows[n] - trueRows : trueRows;
+            impurities[i] = settings.getBestSplitFinder().calculateBinarySplitImpurity(firstCounts, nbOfFirst, sum(firstCounts), lastCounts, sum(lastCounts));
+        }
+        BestSplitFinder splitFinder = settings.getBestSplitFinder();
+        Feature bestSplit = splitFinder.selectBestFeature(candidates, impurities, counts);
+        if (bestSplit == null) {
+            return Node.newLeafNode(majorityLabel, pending.branch, counts, nodeStatistics);
+        }
+        int f = featureIndexes.get(bestSplit);
+        int trueRows = histograms.trueRows[n * histograms.nbOfFeatures + f];
+        boolean lastBranch = histograms.isTrueForFirstRow(n, f);
+        int nbOfBranches = trueRows > 0 && trueRows < histograms.nodeRows[n] ? 2 : 1;
+        if (nbOfBranches < settings.getMinimumNumberOfSplits()) {
+            return Node.newLeafNode(majorityLabel, pending.branch, counts, nodeStatistics);
+        }
+
+        Node node = Node.newNode(bestSplit, pending.branch, counts, nodeStatistics);
+        BitSet usedFeatures = (BitSet) pending.usedFeatures.clone();
+        for (int other = 0; other < features.size(); other++) {
+            if (features.get(other).equals(bestSplit)) {
+                usedFeatures.set(other);
+            }
+        }
+        pending.splitFeature = f;
+        // branch of the first row goes last, the same order as in memory growth
+        boolean[] branches = nbOfBranches == 2 ? new boolean[] { !lastBranch, lastBranch } : new boolean[] { lastBranch };
+        for (boolean branch : branches) {
+            PendingNode child = new PendingNode(pending.depth + 1, String.valueOf(branch), usedFeatures, node, node.getChildren().size());
+            if (branch) {
+                pending.trueChild = nextLevel.size();
+            } else {
+                pending.falseChild = nextLevel.size();
+            }
+            nextLevel.add(child);
+            node.addChild(null);
+        }
+        return node;
+    }
+
+    /**
+     * Moves rows of split nodes to their children on the next level, rows of leaves are done.
+     */
+    private void moveRows(List<PendingNode> level) throws IOException {
+        for (int chunkStart = 0; chunkStart < nbOfRows; chunkStart += rowsPerChunk) {
+            int chunkEnd = Math.min(nbOfRows, chunkStart + rowsPerChunk);
+            ByteBuffer chunk = mapChunk(chunkStart, chunkEnd);
+            for (int record = 0; record < (chunkEnd - chunkStart) * recordSize; record += recordSize) {
+                int node = chunk.getInt(record + NODE_OFFSET);
+                if (node < 0) {
+                    continue;
+                }
+                PendingNode pending = level.get(node);
+                int child = -1;
+                if (pending.splitFeature >= 0) {
+                    int f = pending.splitFeature;
+                    boolean value = (chunk.get(record + FEATURES_OFFSET + (f >>> 3)) & (1 << (f & 7))) != 0;
+                    child = value ? pending.trueChild : pending.falseChild;
+                }
+                chunk.putInt(record + NODE_OFFSET, child);
+            }
+        }
+    }
+
+    private ByteBuffer mapChunk(int chunkStart, int chunkEnd) throws IOException {
+        return scratch.map(MapMode.READ_WRITE, (long) chunkStart * recordSize, (long) (chunkEnd - chunkStart) * recordSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static double sum(double[] counts) {
+        double sum = 0;
+        for (double count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    LabelDictionary getLabelDictionary() {
+        return labels;
+    }
+
+    NodeStatistics getNodeStatistics() {
+        return nodeStatistics;
+    }
+
+    /**
+     * Node of current level which is not grown yet.
+     */
+    private static class PendingNode {
+
+        private final int depth;
+
+        private final Object branch;
+
+        /** Features used by splits of ancestors. */
+        private final BitSet usedFeatures;
+
+        /** Parent node or null for root. */
+        private final Node parent;
+
+        /** Index of the node in children of parent. */
+        private final int childIndex;
+
+        /** Index of split feature or -1 if node is a leaf. */
+        private int splitFeature = -1;
+
+        /** Index of "true" child in the next level or -1. */
+        private int trueChild = -1;
+
+        /** Index of "false" child in the next level or -1. */
+        private int falseChild = -1;
+
+        PendingNode(int depth, Object branch, BitSet usedFeatures, Node parent, int childIndex) {
+            this.depth = depth;
+            this.branch = branch;
+            this.usedFeatures = usedFeatures;
+            this.parent = parent;
+            this.childIndex = childIndex;
+        }
+    }
+
+    /**
+     * Histograms of a batch of nodes in flat arrays, allocated once per level.
+     */
+    private static class Histograms {
+
+        private final int nbOfLabels;
+
+        private final int nbOfFeatures;
+
+        /** Label counts of each node. */
+        private final double[] nodeCounts;
+
+        /** Number of rows of each node. */
+        private final int[] nodeRows;
+
+        /** Label counts of rows which have each feature, per node. */
+        private final double[] trueCounts;
+
+        /** Number of rows which have each feature, per node. */
+        private final int[] trueRows;
+
+        /** Feature bits of the first row of each node. */
+        private final byte[] firstRowBits;
+
+        Histograms(int nbOfNodes, int nbOfLabels, int nbOfFeatures) {
+            this.nbOfLabels = nbOfLabels;
+            this.nbOfFeatures = nbOfFeatures;
+            this.nodeCounts = new double[length(nbOfNodes, nbOfLabels)];
+            this.nodeRows = new int[nbOfNodes];
+            this.trueCounts = new double[length(nbOfNodes, Math.multiplyExact((long) nbOfFeatures, nbOfLabels))];
+            this.trueRows = new int[length(nbOfNodes, nbOfFeatures)];
+            this.firstRowBits = new byte[length(nbOfNodes, (nbOfFeatures + 7) / 8)];
+        }
+
+        /**
+         * @return Length of array of values of each node.
+         * @throws ArithmeticException If array would be longer than an int index allows.
+         */
+        private static int length(int nbOfNodes, long nodeLength) {
+            return Math.toIntExact(Math.multiplyExact((long) nbOfNodes, nodeLength));
+        }
+
+        void clear() {
+            Arrays.fill(nodeCounts, 0.0);
+            Arrays.fill(nodeRows, 0);
+            Arrays.fill(trueCounts, 0.0);
+            Arrays.fill(trueRows, 0);
+        }
+
+        boolean isTrueForFirstRow(int node, int feature) {
+            return (firstRowBits[node * ((nbOfFeatures + 7) / 8) + (feature >>> 3)] & (1 << (feature & 7))) != 0;
+        }
+
+        /**
+         * Fills label counts of split branches - first is the branch without the first row of the node.
+         *
+         * @return Number of rows which have the feature.
+         */
+        int getTrueCounts(int node, int feature, double[] counts, double[] firstCounts, double[] lastCounts) {
+            boolean lastBranch = isTrueForFirstRow(node, feature);
+            double[] trueBranch = lastBranch ? lastCounts : firstCounts;
+            double[] falseBranch = lastBranch ? firstCounts : lastCounts;
+            int offset = (node * nbOfFeatures + feature) * nbOfLabels;
+            for (int labelId = 0; labelId < nbOfLabels; labelId++) {
+                trueBranch[labelId] = trueCounts[offset + labelId];
+                falseBranch[labelId] = counts[labelId] - trueCounts[offset + labelId];
+            }
+            return trueRows[node * nbOfFeatures + feature];
+        }
+    }
+
+}
@@ -1,21 +1,25 @@
 package org.oak3ml.decisiontree;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
 import org.oak3ml.decisiontree.feature.Feature;
 import org.oak3ml.decisiontree.label.Label;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+import org.oak3ml.ensemble.MajorityVote;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
-import com.google.common.collect.Multisets;
+import com.google.common.collect.Lists;
 
 /**
  * Random forest implementation.
@@ -25,10 +29,19 @@ import com.google.common.collect.Multisets;
  */
 public class RandomForest {
 
+    /** Logger. */
+    private Logger log = LoggerFactory.getLogger(RandomForest.class);
+
     /** Random number generator. */ // TODO replace?
     private Random random = new Random(System.nanoTime());
 
     private RandomForestSettings settings;
+
+    /** Majority voting of trees. If forest was not trained it is created from label dictionaries of its trees. */
+    private MajorityVote majorityVote;
+
+    /** Out-of-bag error estimate collected during training. */
+    private OutOfBagEstimate outOfBagEstimate;
     
     /**
      * Private constructor.
@@ -36,14 +49,55 @@ public class RandomForest {
     private RandomForest(Builder builder) {
         super();
         settings = new RandomForestSettings();
-        if (builder.trees != null)
-            settings.setTrees(builder.trees);
         if (builder.bootstrapingPercentage != null)
             settings.setBootstrapingPercentage(builder.bootstrapingPercentage);
         if (builder.randomFeaturesPercentage != null)
             settings.setRandomFeaturesPercentage(builder.randomFeaturesPercentage);
         if (builder.numberOfTrees != null)
             settings.setNumberOfTrees(builder.numberOfTrees);
+        if (builder.randomFeaturesPerSplit != null)
+            settings.setRandomFeaturesPerSplit(builder.randomFeaturesPerSplit);
+        if (builder.randomFeaturesPerSplitPercentage != null)
+            settings.setRandomFeaturesPerSplitPercentage(builder.randomFeaturesPerSplitPercentage);
+        if (builder.trackOutOfBagError != null)
+            settings.setTrackOutOfBagError(builder.trackOutOfBagError);
+        if (builder.extraTrees != null)
+            settings.setExtraTrees(builder.extraTrees);
+        if (builder.maxNumberOfTrees != null)
+            settings.setMaxNumberOfTrees(builder.maxNumberOfTrees);
+        if (builder.convergenceWindow != null)
+            settings.setConvergenceWindow(builder.convergenceWindow);
+        if (builder.convergenceTolerance != null)
+            settings.setConvergenceTolerance(builder.convergenceTolerance);
+        if (builder.targetColumn != null)
+            settings.setTargetColumn(builder.targetColumn);
+        if (builder.trees != null)
+            settings.setTrees(builder.trees);
+    }
+
+    /**
+     * @return Trees of the forest. Default trees are created on first use, so they are not created if trees are set
+     *         manually or forest chooses its size automatically.
+     */
+    private List<DecisionTree> getTrees() {
+        if (settings.getTrees() == null) {
+            settings.setTrees(IntStream.range(0, settings.getNumberOfTrees()).mapToObj(i -> newTree()).collect(toList()));
+        }
+        return settings.getTrees();
+    }
+
+    /**
+     * Creates new tree for the forest.
+     */
+    private DecisionTree newTree() {
+        DecisionTree.Builder treeBuilder = new DecisionTree.Builder();
+        if (settings.getRandomFeaturesPerSplit() != null)
+            treeBuilder.withRandomFeaturesPerSplit(settings.getRandomFeaturesPerSplit());
+        if (settings.getRandomFeaturesPerSplitPercentage() != null)
+            treeBuilder.withRandomFeaturesPerSplitPercentage(settings.getRandomFeaturesPerSplitPercentage());
+        if (settings.isRegression())
+            treeBuilder.withRegressionTarget(settings.getTargetColumn());
+        return treeBuilder.withExtraTrees(settings.isExtraTrees()).build();
     }
 
     /**
@@ -54,20 +108,97 @@ public class RandomForest {
      */
     public void train(List<DataSample> trainingData, List<Feature> features) {
         
-        checkArgument(settings.getBootstrapingPercentage() < 1.0 && settings.getBootstrapingPercentage() > 0);
-        checkArgument(settings.getRandomFeaturesPercentage() < 1.0 && settings.getRandomFeaturesPercentage() > 0);
-        checkNotNull(settings.getTrees());
-        checkArgument(settings.getTrees().size() >= 2);
+        checkArgument(settings.getBootstrapingPercentage() <= 1.0 && settings.getBootstrapingPercentage() > 0);
+        checkArgument(settings.isRandomFeaturesPerSplit() || settings.getRandomFeaturesPercentage() < 1.0 && settings.getRandomFeaturesPercentage() > 0);
+        checkArgument(settings.isAutomaticNumberOfTrees() || getTrees().size() >= 2);
+        
+        if (settings.isRegression()) {
+            // regression trees are averaged, there are no labels to vote for and out-of-bag error is not tracked
+            checkArgument(!settings.isAutomaticNumberOfTrees(), "Automatic number of trees needs out-of-bag error which is not available for regression");
+            outOfBagEstimate = null;
+            DataView data = DataView.newDataView(trainingData);
+            for (DecisionTree tree : getTrees()) {
+                trainTree(tree, data, features);
+            }
+            return;
+        }
+        
+        // labels are encoded once, bootstrap samples of all trees share them
+        DataView data = DataView.newDataView(trainingData);
+        majorityVote = new MajorityVote(data.getLabelDictionary());
+        if (settings.isAutomaticNumberOfTrees()) {
+            trainUntilConverged(data, features);
+            return;
+        }
+        
+        // without bootstrap there are no out-of-bag data samples
+        outOfBagEstimate = settings.isTrackOutOfBagError() && !settings.isExtraTrees() ? new OutOfBagEstimate(data) : null;
+        for (DecisionTree tree : getTrees()) {
+            trainTree(tree, data, features);
+        }
+        
+    }
+
+    /**
+     * Keeps adding trees to the forest until out-of-bag error stops improving (see
+     * {@link OutOfBagEstimate#hasConverged(int, double)}) or maximum number of trees is reached. Forest ends up with as
+     * few trees as accuracy allows.
+     * 
+     * @param trainingData Training data.
+     * @param features Features.
+     */
+    protected void trainUntilConverged(DataView trainingData, List<Feature> features) {
+        checkArgument(settings.getMaxNumberOfTrees() >= 2);
+        checkArgument(!settings.isExtraTrees(), "Automatic number of trees needs out-of-bag error which is not available without bootstrap");
+        checkArgument(settings.getConvergenceWindow() >= 1);
         
-        for (DecisionTree tree : settings.getTrees()) {
-            // filter datasamples randomly (using approximately bootstrapingPercentage amount of samples)
-            List<DataSample> bootstrapSamples = trainingData.stream().filter(d -> random.nextInt(100) < 100 * settings.getBootstrapingPercentage()).collect(toList());
-            Set<String> randomColumnsToUse = features.stream().map(f -> f.getColumn()).filter(f -> random.nextInt(100) < 100 * settings.getRandomFeaturesPercentage()).collect(toSet());
-            List<Feature> randomFeatures = features.stream().filter(f -> randomColumnsToUse.contains(f.getColumn())).collect(toList());
-            
-            tree.train(bootstrapSamples, randomFeatures);
+        outOfBagEstimate = new OutOfBagEstimate(trainingData);
+        List<DecisionTree> trees = Lists.newArrayList();
+        while (trees.size() < settings.getMaxNumberOfTrees()) {
+            DecisionTree tree = newTree();
+            trainTree(tree, trainingData, features);
+            trees.add(tree);
+            if (trees.size() >= 2 && outOfBagEstimate.hasConverged(settings.getConvergenceWindow(), settings.getConvergenceTolerance())) {
+                log.debug("Out-of-bag error converged with {} trees: {}", trees.size(), outOfBagEstimate.getError());
+                break;
+            }
         }
+        settings.setTrees(trees);
+        settings.setNumberOfTrees(trees.size());
+    }
+
+    /**
+     * Trains single tree on its own bootstrap sample and adds its out-of-bag votes.
+     */
+    private void trainTree(DecisionTree tree, DataView trainingData, List<Feature> features) {
+        // draw bootstrap sample with replacement - only multiplicities are kept per tree, data samples are shared
+        // extremely randomized trees use full training data
+        DataView bootstrapSample = settings.isExtraTrees() ? trainingData
+                : trainingData.drawBootstrapSample(settings.getBootstrapingPercentage(), random);
+        // if trees pick random features at each split they get all features, otherwise columns are picked once per tree
+        List<Feature> treeFeatures = settings.isRandomFeaturesPerSplit() ? features : drawRandomFeatures(features);
+        
+        tree.train(bootstrapSample, treeFeatures);
         
+        // data samples left out of bootstrap sample vote for out-of-bag error
+        if (outOfBagEstimate != null) {
+            outOfBagEstimate.addTree(tree, bootstrapSample);
+        }
+    }
+
+    /**
+     * @return Out-of-bag error estimate collected during last training or null if it was not tracked.
+     */
+    public OutOfBagEstimate getOutOfBagEstimate() {
+        return outOfBagEstimate;
+    }
+
+    /**
+     * Picks features of random columns (using approximately randomFeaturesPercentage of columns).
+     */
+    protected List<Feature> drawRandomFeatures(List<Feature> features) {
+        Set<String> randomColumnsToUse = features.stream().map(f -> f.getColumn()).filter(f -> random.nextInt(100) < 100 * settings.getRandomFeaturesPercentage()).collect(toSet());
+        return features.stream().filter(f -> randomColumnsToUse.contains(f.getColumn())).collect(toList());
     }
 
     /**
@@ -77,17 +208,72 @@ public class RandomForest {
      * @return Classification label.
      */
     public Label classify(DataSample dataSample) {
+        return getMajorityVote().classify(getTrees(), dataSample);
+    }
 
-        Multiset<Label> countedLabels = HashMultiset.create();
-
-        // check classification of each tree and count labels
-        for (DecisionTree tree : settings.getTrees()) {
-            Label label = tree.classify(dataSample);
-            countedLabels.add(label);
+    /**
+     * Classify all data samples in parallel by using all DecisionTrees in ensemble. Votes are counted without allocating
+     * counting structures for each data sample.
+     * 
+     * @param data Data samples to classify.
+     * @return Classification label of each data sample.
+     */
+    public Label[] classify(List<DataSample> data) {
+        return getMajorityVote().classify(getTrees(), data);
+    }
+    
+    /**
+     * Majority voting of trees. Trees set by {@link Builder#withTrees(List)} can be trained separately, then labels of
+     * all their dictionaries are voted for. If all trees share one dictionary they vote with label ids directly.
+     */
+    private MajorityVote getMajorityVote() {
+        if (majorityVote == null) {
+            LabelDictionary labels = null;
+            for (DecisionTree tree : getTrees()) {
+                LabelDictionary treeLabels = tree.getLabelDictionary();
+                if (treeLabels == null || treeLabels == labels) {
+                    continue;
+                }
+                if (labels == null) {
+                    labels = treeLabels;
+                } else {
+                    LabelDictionary mergedLabels = LabelDictionary.newLabelDictionary();
+                    labels.getLabels().forEach(mergedLabels::add);
+                    treeLabels.getLabels().forEach(mergedLabels::add);
+                    labels = mergedLabels;
+                }
+            }
+            checkState(labels != null, "Forest is not trained");
+            majorityVote = new MajorityVote(labels);
+        }
+        return majorityVote;
+    }
+    
+    /**
+     * Predict target value of data sample by regression forest - mean of predictions of all trees.
+     * 
+     * @param dataSample Data sample.
+     * @return Predicted target value.
+     */
+    public double predict(DataSample dataSample) {
+        checkState(settings.isRegression(), "Only regression forest predicts values, use classify()");
+        List<DecisionTree> trees = getTrees();
+        double sum = 0;
+        for (DecisionTree tree : trees) {
+            sum += tree.predict(dataSample);
         }
+        return sum / trees.size();
+    }
 
-        // return most common label
-        return Multisets.copyHighestCountFirst(countedLabels).iterator().next();
+    /**
+     * Predict target values of all data samples in parallel by regression forest.
+     * 
+     * @param data Data samples.
+     * @return Predicted target value of each data sample.
+     */
+    public double[] predict(List<DataSample> data) {
+        checkState(settings.isRegression(), "Only regression forest predicts values, use classify()");
+        return IntStream.range(0, data.size()).parallel().mapToDouble(i -> predict(data.get(i))).toArray();
     }
     
     /* Builder */
@@ -100,6 +286,22 @@ public class RandomForest {
         private Double bootstrapingPercentage;
 
         private Integer numberOfTrees;
+
+        private Integer randomFeaturesPerSplit;
+
+        private Double randomFeaturesPerSplitPercentage;
+
+        private Boolean trackOutOfBagError;
+
+        private Integer maxNumberOfTrees;
+
+        private Boolean extraTrees;
+
+        private Integer convergenceWindow;
+
+        private Double convergenceTolerance;
+
+        private String targetColumn;
         
         public Builder withTrees(List<DecisionTree> trees) {
             this.trees = trees;
@@ -116,6 +318,61 @@ public class RandomForest {
             return this;
         }
 
+        /**
+         * Trees evaluate this number of random features at each split (mtry) instead of using random columns per tree.
+         */
+        public Builder withRandomFeaturesPerSplit(int randomFeaturesPerSplit) {
+            this.randomFeaturesPerSplit = randomFeaturesPerSplit;
+            return this;
+        }
+
+        /**
+         * Trees evaluate this part of random features at each split (mtry as a fraction) instead of using random columns per tree.
+         */
+        public Builder withRandomFeaturesPerSplitPercentage(double randomFeaturesPerSplitPercentage) {
+            this.randomFeaturesPerSplitPercentage = randomFeaturesPerSplitPercentage;
+            return this;
+        }
+
+        /**
+         * Instead of fixed number of trees keep adding trees until out-of-bag error converges, but no more than maxNumberOfTrees.
+         */
+        public Builder withAutomaticNumberOfTrees(int maxNumberOfTrees) {
+            this.maxNumberOfTrees = maxNumberOfTrees;
+            return this;
+        }
+
+        /**
+         * Extremely randomized trees mode - random thresholds for numeric columns and no bootstrap.
+         */
+        public Builder withExtraTrees(boolean extraTrees) {
+            this.extraTrees = extraTrees;
+            return this;
+        }
+
+        public Builder withConvergenceWindow(int convergenceWindow) {
+            this.convergenceWindow = convergenceWindow;
+            return this;
+        }
+
+        public Builder withConvergenceTolerance(double convergenceTolerance) {
+            this.convergenceTolerance = convergenceTolerance;
+            return this;
+        }
+
+        public Builder withOutOfBagError(boolean trackOutOfBagError) {
+            this.trackOutOfBagError = trackOutOfBagError;
+            return this;
+        }
+
+        /**
+         * Build regression forest which predicts numeric value of target column.
+         */
+        public Builder withRegressionTarget(String targetColumn) {
+            this.targetColumn = targetColumn;
+            return this;
+        }
+
         public Builder withBootstrapingPercentage(double bootstrapingPercentage) {
             this.bootstrapingPercentage = bootstrapingPercentage;
             return this;
@@ -1,9 +1,6 @@
 package org.oak3ml.decisiontree;
 
 import java.util.List;
-import java.util.stream.IntStream;
-
-import com.google.common.collect.Lists;
 
 /**
  * This class holds all the settings for a decision tree.
@@ -19,21 +16,67 @@ public class RandomForestSettings {
      */
     private double randomFeaturesPercentage = 0.2;
 
-    /** What part of original training data to use for building boostrap sample. */
+    /**
+     * If set trees pick random features at each split (mtry) instead of once per tree using {@link #randomFeaturesPercentage}.
+     * Number of candidate features evaluated at each split.
+     */
+    private Integer randomFeaturesPerSplit = null;
+
+    /**
+     * Same as {@link #randomFeaturesPerSplit} but set as a part of available features.
+     */
+    private Double randomFeaturesPerSplitPercentage = null;
+
+    /** 
+     * What part of original training data to use for building boostrap sample. Sample is drawn with replacement so 
+     * some data samples can be used more than once (1.0 is classical bootstrap).
+     */
     private double bootstrapingPercentage = 0.8;
     
     /** Number of trees in the random forest. */
     private int numberOfTrees = 20;
 
-    /** Trees in the forest. */
-    private List<DecisionTree> trees = Lists.newArrayList();
+    /**
+     * Collect out-of-bag votes while training so out-of-bag error estimate is available right after training. It
+     * costs classification of data samples left out of each bootstrap sample by that tree.
+     */
+    private boolean trackOutOfBagError = true;
+
+    /**
+     * If set forest size is chosen automatically - trees are added until out-of-bag error stops improving, but no more
+     * than this number of trees are trained. {@link #numberOfTrees} is ignored then.
+     */
+    private Integer maxNumberOfTrees = null;
+
+    /** Number of last added trees which must improve out-of-bag error to continue adding trees. */
+    private int convergenceWindow = 10;
+
+    /** Minimum out-of-bag error improvement over {@link #convergenceWindow} trees to continue adding trees. */
+    private double convergenceTolerance = 0.001;
 
     /**
-     * Constructor. Creates default number of trees for the forest. It can be overriden by setting trees manually.
+     * Extremely randomized trees (ExtraTrees) mode. Trees split numeric columns on random thresholds and are trained on
+     * full training data without bootstrap sampling, so out-of-bag error is not available.
+     */
+    private boolean extraTrees = false;
+
+    /**
+     * Column with numeric target value. If it is set forest is a regression forest - its trees are regression trees and
+     * forest predicts mean of their predictions. Out-of-bag error is not tracked for regression forest.
+     */
+    private String targetColumn = null;
+
+    /**
+     * Trees in the forest. If trees are not set manually forest creates {@link #numberOfTrees} default trees when it
+     * needs them.
+     */
+    private List<DecisionTree> trees = null;
+
+    /**
+     * Constructor.
      */
     public RandomForestSettings() {
         super();
-        IntStream.range(0, numberOfTrees).forEach(i -> trees.add(new DecisionTree.Builder().build()));
     }
 
     public double getRandomFeaturesPercentage() {
@@ -44,6 +87,29 @@ public class RandomForestSettings {
         this.randomFeaturesPercentage = randomFeaturesPercentage;
     }
 
+    public Integer getRandomFeaturesPerSplit() {
+        return randomFeaturesPerSplit;
+    }
+
+    public void setRandomFeaturesPerSplit(Integer randomFeaturesPerSplit) {
+        this.randomFeaturesPerSplit = randomFeaturesPerSplit;
+    }
+
+    public Double getRandomFeaturesPerSplitPercentage() {
+        return randomFeaturesPerSplitPercentage;
+    }
+
+    public void setRandomFeaturesPerSplitPercentage(Double randomFeaturesPerSplitPercentage) {
+        this.randomFeaturesPerSplitPercentage = randomFeaturesPerSplitPercentage;
+    }
+
+    /**
+     * @return True if random features are picked at each split instead of once per tree.
+     */
+    public boolean isRandomFeaturesPerSplit() {
+        return randomFeaturesPerSplit != null || randomFeaturesPerSplitPercentage != null;
+    }
+
     public double getBootstrapingPercentage() {
         return bootstrapingPercentage;
     }
@@ -60,6 +126,65 @@ public class RandomForestSettings {
         this.numberOfTrees = numberOfTrees;
     }
 
+    public boolean isTrackOutOfBagError() {
+        return trackOutOfBagError;
+    }
+
+    public void setTrackOutOfBagError(boolean trackOutOfBagError) {
+        this.trackOutOfBagError = trackOutOfBagError;
+    }
+
+    public Integer getMaxNumberOfTrees() {
+        return maxNumberOfTrees;
+    }
+
+    public void setMaxNumberOfTrees(Integer maxNumberOfTrees) {
+        this.maxNumberOfTrees = maxNumberOfTrees;
+    }
+
+    /**
+     * @return True if forest size is chosen by out-of-bag error convergence.
+     */
+    public boolean isAutomaticNumberOfTrees() {
+        return maxNumberOfTrees != null;
+    }
+
+    public int getConvergenceWindow() {
+        return convergenceWindow;
+    }
+
+    public void setConvergenceWindow(int convergenceWindow) {
+        this.convergenceWindow = convergenceWindow;
+    }
+
+    public double getConvergenceTolerance() {
+        return convergenceTolerance;
+    }
+
+    public void setConvergenceTolerance(double convergenceTolerance) {
+        this.convergenceTolerance = convergenceTolerance;
+    }
+
+    public boolean isExtraTrees() {
+        return extraTrees;
+    }
+
+    public void setExtraTrees(boolean extraTrees) {
+        this.extraTrees = extraTrees;
+    }
+
+    public String getTargetColumn() {
+        return targetColumn;
+    }
+
+    public void setTargetColumn(String targetColumn) {
+        this.targetColumn = targetColumn;
+    }
+
+    public boolean isRegression() {
+        return targetColumn != null;
+    }
+
     public List<DecisionTree> getTrees() {
         return trees;
     }
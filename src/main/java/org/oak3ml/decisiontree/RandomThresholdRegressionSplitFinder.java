@@ -0,0 +1,66 @@
+package org.oak3ml.decisiontree;
+
+import java.util.Random;
+
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+import org.oak3ml.decisiontree.impurity.TargetStatistics;
+
+/**
+ * Split finder of extremely randomized regression trees (ExtraTrees). Instead of sweeping all thresholds of a numeric
+ * column it draws one random threshold between minimum and maximum value of that column in the node and scores only
+ * that, so numeric columns are not sorted. Features of non numeric columns are evaluated the same way as in
+ * {@link RegressionSplitFinder}. Classification counterpart is {@link RandomThresholdSplitFinder}.
+ *
+ * @author Ignas
+ *
+ */
+public class RandomThresholdRegressionSplitFinder extends RegressionSplitFinder {
+
+    /** Random number generator used to draw thresholds. */
+    private Random random = new Random(System.nanoTime());
+
+    /**
+     * Constructor of split finder which accepts branches of any size.
+     */
+    public RandomThresholdRegressionSplitFinder() {
+        super();
+    }
+
+    /**
+     * @see RegressionSplitFinder#RegressionSplitFinder(long)
+     */
+    public RandomThresholdRegressionSplitFinder(long minimumNumberOfInstancesPerLeaf) {
+        super(minimumNumberOfInstancesPerLeaf);
+    }
+
+    /**
+     * Scores single random threshold of the column.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected double splitNumericColumn(DataView data, double[] targets, int[] rows, int from, int to, String column, TargetStatistics total,
+            double totalInstances, TrainingArena arena, Feature[] split) {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            Object value = data.get(rows[i]).getValueOrNull(column);
+            if (value != null) {
+                double numericValue = ((Number) value).doubleValue();
+                min = Math.min(min, numericValue);
+                max = Math.max(max, numericValue);
+            }
+        }
+        // column with single value (or no values) in this node has no threshold
+        if (!(min < max)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double threshold = min + random.nextDouble() * (max - min);
+        split[0] = PredicateFeature.newFeature(column, P.lessThanOrEqualNumber(threshold));
+        return calculateSplitError(data, targets, rows, from, to, split[0]);
+    }
+
+}
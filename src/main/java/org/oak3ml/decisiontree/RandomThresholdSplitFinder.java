@@ -0,0 +1,92 @@
+package org.oak3ml.decisiontree;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+import org.oak3ml.decisiontree.impurity.ImpurityCalculationMethod;
+import org.oak3ml.features.discretisation.FeatureDiscretiser.MinMax;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Split finder of extremely randomized trees (ExtraTrees). Instead of evaluating every candidate feature of a numeric
+ * column it draws one random threshold between minimum and maximum value of that column in the node and evaluates only
+ * that. Features of non numeric columns are evaluated the same way as in {@link BestSplitFinder}. Split search is
+ * much cheaper and in a forest usually is as accurate as exhaustive search.
+ * 
+ * @author Ignas
+ *
+ */
+public class RandomThresholdSplitFinder extends BestSplitFinder {
+
+    /** Random number generator used to draw thresholds. */
+    private Random random = new Random(System.nanoTime());
+
+    /**
+     * @param impurityCalculationMethod
+     */
+    public RandomThresholdSplitFinder(ImpurityCalculationMethod impurityCalculationMethod) {
+        super(impurityCalculationMethod);
+    }
+
+    /**
+     * @see BestSplitFinder#BestSplitFinder(ImpurityCalculationMethod, long, double)
+     */
+    public RandomThresholdSplitFinder(ImpurityCalculationMethod impurityCalculationMethod, long minimumNumberOfInstancesPerLeaf, double minimumImpurityDecrease) {
+        super(impurityCalculationMethod, minimumNumberOfInstancesPerLeaf, minimumImpurityDecrease);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Feature findBestSplitFeature(DataView data, int[] rows, int from, int to, List<Feature> features, TrainingArenas arenas, boolean parallel) {
+        Map<String, Boolean> numericColumns = Maps.newHashMap();
+        List<Feature> candidateFeatures = Lists.newArrayList();
+        for (Feature feature : features) {
+            String column = feature.getColumn();
+            if (!numericColumns.containsKey(column)) {
+                MinMax minMax = getMinMax(data, rows, from, to, column);
+                numericColumns.put(column, minMax != null);
+                // one random threshold feature per numeric column (none if column has single value in this node)
+                if (minMax != null && minMax.getMin() < minMax.getMax()) {
+                    double threshold = minMax.getMin() + random.nextDouble() * (minMax.getMax() - minMax.getMin());
+                    candidateFeatures.add(PredicateFeature.newFeature(column, P.lessThanOrEqualNumber(threshold)));
+                }
+            }
+            if (!numericColumns.get(column)) {
+                candidateFeatures.add(feature);
+            }
+        }
+        return selectBestFeature(data, rows, from, to, candidateFeatures, arenas, parallel);
+    }
+
+    /**
+     * Return minimum and maximum values of column in rows in range [from, to) of index buffer.
+     * 
+     * @return Min and max values or null if column is not numeric.
+     */
+    protected MinMax getMinMax(DataView data, int[] rows, int from, int to, String column) {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            Object value = data.get(rows[i]).getValueOrNull(column);
+            if (value != null) {
+                if (!(value instanceof Number)) {
+                    return null;
+                }
+                double numericValue = ((Number) value).doubleValue();
+                min = Math.min(min, numericValue);
+                max = Math.max(max, numericValue);
+            }
+        }
+        return new MinMax(min, max);
+    }
+
+}
@@ -0,0 +1,337 @@
+package org.oak3ml.decisiontree;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+import org.oak3ml.decisiontree.impurity.TargetStatistics;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Split finder of regression trees. Split is chosen by the lowest total sum of squared errors of target in its
+ * branches (variance reduction).
+ *
+ * Numeric columns are not limited to thresholds of provided features - rows of a node are sorted by column value once
+ * and all thresholds between neighbour values are scored in a single sweep. Running sums of the left side are updated
+ * by one row at a time and right side sums are totals minus left sums, so each threshold is scored in O(1). Best
+ * threshold becomes new feature "column &lt;= threshold". Features of non numeric columns are evaluated one by one.
+ *
+ * Thresholds and features which would create a branch with less than minimumNumberOfInstancesPerLeaf data samples are
+ * skipped during the search.
+ *
+ * @author Ignas
+ *
+ */
+public class RegressionSplitFinder {
+
+    /** Minimum decrease of sum of squared errors for a split to be accepted. */
+    private static final double MIN_ERROR_DECREASE = 1e-10;
+
+    /** Minimum number of data samples of each non empty branch of accepted split. */
+    private final long minimumNumberOfInstancesPerLeaf;
+
+    /**
+     * Constructor of split finder which accepts branches of any size.
+     */
+    public RegressionSplitFinder() {
+        this(0);
+    }
+
+    /**
+     * @param minimumNumberOfInstancesPerLeaf Minimum number of data samples (see {@link DataView#getCount(int)}) of
+     *            each non empty branch. Splits with smaller branches are rejected.
+     */
+    public RegressionSplitFinder(long minimumNumberOfInstancesPerLeaf) {
+        super();
+        this.minimumNumberOfInstancesPerLeaf = minimumNumberOfInstancesPerLeaf;
+    }
+
+    /**
+     * Finds best split of rows.
+     *
+     * @param data Shared data. Rows are weighted by their weight in the view.
+     * @param targets Target value of each row of shared data.
+     * @param rows Rows of the node.
+     * @param features Candidate features.
+     * @return Best split feature or null if no split decreases error.
+     */
+    public Feature findBestSplitFeature(DataView data, double[] targets, int[] rows, List<Feature> features) {
+        return findBestSplitFeature(data, targets, rows, features, false);
+    }
+
+    /**
+     * Same as {@link #findBestSplitFeature(DataView, double[], int[], List)} but candidates (numeric columns and non
+     * numeric features) can be evaluated in parallel (used for large nodes). Result is the same as of sequential search.
+     */
+    public Feature findBestSplitFeature(DataView data, double[] targets, int[] rows, List<Feature> features, boolean parallel) {
+        TrainingArenas arenas = TrainingArenas.newTrainingArenas(rows.length, 0);
+        return findBestSplitFeature(data, targets, rows, 0, rows.length, features, arenas, parallel);
+    }
+
+    /**
+     * Same as {@link #findBestSplitFeature(DataView, double[], int[], List, boolean)} but for rows in range of shared
+     * index buffer. Numeric columns are sorted in sort buffers of thread arenas, so no memory proportional to number of
+     * rows is allocated.
+     *
+     * @param data Shared data. Rows are weighted by their weight in the view.
+     * @param targets Target value of each row of shared data.
+     * @param rows Index buffer.
+     * @param from First position of rows of the node.
+     * @param to Position after last row of the node.
+     * @param features Candidate features.
+     * @param arenas Working memory of training threads.
+     * @param parallel If true candidates are evaluated in parallel.
+     * @return Best split feature or null if no split decreases error.
+     */
+    public Feature findBestSplitFeature(DataView data, double[] targets, int[] rows, int from, int to, List<Feature> features,
+            TrainingArenas arenas, boolean parallel) {
+        TargetStatistics total = new TargetStatistics();
+        double nbOfInstances = 0;
+        for (int i = from; i < to; i++) {
+            total.add(targets[rows[i]], data.getWeight(rows[i]));
+            nbOfInstances += data.getCount(rows[i]);
+        }
+        double totalInstances = nbOfInstances;
+
+        // each numeric column is swept once, other features are evaluated one by one
+        Map<String, Boolean> numericColumns = Maps.newHashMap();
+        List<Feature> candidates = Lists.newArrayList();
+        for (Feature feature : features) {
+            String column = feature.getColumn();
+            Boolean numeric = numericColumns.get(column);
+            if (numeric == null) {
+                numeric = isNumeric(data, rows, from, to, column);
+                numericColumns.put(column, numeric);
+                candidates.add(feature);
+            } else if (!numeric) {
+                candidates.add(feature);
+            }
+        }
+
+        double[] errors = new double[candidates.size()];
+        Feature[] splits = new Feature[candidates.size()];
+        IntStream indexes = IntStream.range(0, candidates.size());
+        (parallel ? indexes.parallel() : indexes).forEach(i -> {
+            Feature feature = candidates.get(i);
+            if (numericColumns.get(feature.getColumn())) {
+                Feature[] split = new Feature[1];
+                errors[i] = splitNumericColumn(data, targets, rows, from, to, feature.getColumn(), total, totalInstances, arenas.get(), split);
+                splits[i] = split[0];
+            } else {
+                errors[i] = calculateSplitError(data, targets, rows, from, to, feature);
+                splits[i] = feature;
+            }
+        });
+
+        double bestError = total.getSumOfSquaredErrors() - MIN_ERROR_DECREASE;
+        Feature bestSplitFeature = null;
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] < bestError) {
+                bestError = errors[i];
+                bestSplitFeature = splits[i];
+            }
+        }
+        return bestSplitFeature;
+    }
+
+    /**
+     * Finds split "column &lt;= threshold" of numeric column. All thresholds are scored by
+     * {@link #sweepThresholds(DataView, double[], int[], int, int, String, TargetStatistics, double, TrainingArena, double[])}.
+     *
+     * @param split Output - split feature of the column.
+     * @return Sum of squared errors of the split or infinity if column can not be split.
+     */
+    protected double splitNumericColumn(DataView data, double[] targets, int[] rows, int from, int to, String column, TargetStatistics total,
+            double totalInstances, TrainingArena arena, Feature[] split) {
+        double[] threshold = new double[1];
+        double error = sweepThresholds(data, targets, rows, from, to, column, total, totalInstances, arena, threshold);
+        split[0] = PredicateFeature.newFeature(column, P.lessThanOrEqualNumber(threshold[0]));
+        return error;
+    }
+
+    /**
+     * Scores all thresholds of numeric column in one sweep over rows sorted by column value. Rows with missing value
+     * always go to the right side (as {@link PredicateFeature} does not accept missing values).
+     *
+     * @param threshold Output - best threshold.
+     * @return Lowest sum of squared errors or infinity if column has single value (or no threshold leaves enough data
+     *         samples on both sides).
+     */
+    private double sweepThresholds(DataView data, double[] targets, int[] rows, int from, int to, String column, TargetStatistics total,
+            double totalInstances, TrainingArena arena, double[] threshold) {
+        // rows with present value and their values, then sorted by value (and row, so order of equal values is fixed)
+        int nbOfPresent = 0;
+        int[] presentRows = arena.getSortedRows();
+        double[] values = arena.getSortedValues();
+        for (int i = from; i < to; i++) {
+            Object value = data.get(rows[i]).getValueOrNull(column);
+            if (value != null) {
+                values[nbOfPresent] = ((Number) value).doubleValue();
+                presentRows[nbOfPresent++] = rows[i];
+            }
+        }
+        sort(values, presentRows, 0, nbOfPresent - 1);
+
+        double leftWeight = 0;
+        double leftSum = 0;
+        double leftSumOfSquares = 0;
+        double leftInstances = 0;
+        double bestError = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < nbOfPresent - 1; i++) {
+            int row = presentRows[i];
+            double weight = data.getWeight(row);
+            leftWeight += weight;
+            leftSum += weight * targets[row];
+            leftSumOfSquares += weight * targets[row] * targets[row];
+            leftInstances += data.getCount(row);
+            double value = values[i];
+            double nextValue = values[i + 1];
+            // threshold only between different values, rows with missing value are on the right side
+            if (value < nextValue && !isUndersized(leftInstances) && !isUndersized(totalInstances - leftInstances)) {
+                double error = TargetStatistics.sumOfSquaredErrors(leftWeight, leftSum, leftSumOfSquares)
+                        + TargetStatistics.sumOfSquaredErrors(total.getWeight() - leftWeight, total.getSum() - leftSum,
+                                total.getSumOfSquares() - leftSumOfSquares);
+                if (error < bestError) {
+                    bestError = error;
+                    threshold[0] = (value + nextValue) / 2.0;
+                }
+            }
+        }
+        return bestError;
+    }
+
+    /**
+     * Sorts values and their rows together by value, equal values by row (quicksort on primitive arrays, so no boxed
+     * positions are created).
+     */
+    private static void sort(double[] values, int[] rows, int low, int high) {
+        while (low < high) {
+            if (high - low < 16) {
+                insertionSort(values, rows, low, high);
+                return;
+            }
+            int middle = (low + high) >>> 1;
+            double pivotValue = values[middle];
+            int pivotRow = rows[middle];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(values[i], rows[i], pivotValue, pivotRow) < 0) {
+                    i++;
+                }
+                while (compare(values[j], rows[j], pivotValue, pivotRow) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, rows, i++, j--);
+                }
+            }
+            // recursion only into smaller part, so stack depth is logarithmic
+            if (j - low < high - i) {
+                sort(values, rows, low, j);
+                low = i;
+            } else {
+                sort(values, rows, i, high);
+                high = j;
+            }
+        }
+    }
+
+    private static void insertionSort(double[] values, int[] rows, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(values[j - 1], rows[j - 1], values[j], rows[j]) > 0; j--) {
+                swap(values, rows, j - 1, j);
+            }
+        }
+    }
+
+    private static int compare(double value, int row, double otherValue, int otherRow) {
+        int result = Double.compare(value, otherValue);
+        return result != 0 ? result : Integer.compare(row, otherRow);
+    }
+
+    private static void swap(double[] values, int[] rows, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        int row = rows[i];
+        rows[i] = rows[j];
+        rows[j] = row;
+    }
+
+    /**
+     * Total sum of squared errors of all branches. Binary feature is evaluated with running sums of its two branches,
+     * other features are split.
+     */
+    protected double calculateSplitError(DataView data, double[] targets, int[] rows, int from, int to, Feature feature) {
+        if (!feature.isBinary()) {
+            return calculateSplitError(data, targets, feature.split(data, Arrays.copyOfRange(rows, from, to)));
+        }
+        TargetStatistics belonging = new TargetStatistics();
+        TargetStatistics other = new TargetStatistics();
+        double belongingInstances = 0;
+        double otherInstances = 0;
+        for (int i = from; i < to; i++) {
+            int row = rows[i];
+            if (feature.belongsTo(data.get(row))) {
+                belonging.add(targets[row], data.getWeight(row));
+                belongingInstances += data.getCount(row);
+            } else {
+                other.add(targets[row], data.getWeight(row));
+                otherInstances += data.getCount(row);
+            }
+        }
+        if (belongingInstances > 0 && isUndersized(belongingInstances) || otherInstances > 0 && isUndersized(otherInstances)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return belonging.getSumOfSquaredErrors() + other.getSumOfSquaredErrors();
+    }
+
+    /**
+     * Total sum of squared errors of all branches.
+     */
+    private double calculateSplitError(DataView data, double[] targets, Map<String, int[]> splitRows) {
+        double error = 0;
+        for (int[] rows : splitRows.values()) {
+            TargetStatistics statistics = new TargetStatistics();
+            double nbOfInstances = 0;
+            for (int row : rows) {
+                statistics.add(targets[row], data.getWeight(row));
+                nbOfInstances += data.getCount(row);
+            }
+            if (rows.length > 0 && isUndersized(nbOfInstances)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            error += statistics.getSumOfSquaredErrors();
+        }
+        return error;
+    }
+
+    /**
+     * Checks if branch with this number of data samples is too small to be a child.
+     */
+    private boolean isUndersized(double nbOfInstances) {
+        return nbOfInstances < minimumNumberOfInstancesPerLeaf;
+    }
+
+    /**
+     * Checks if all present values of column in rows are numbers.
+     */
+    private boolean isNumeric(DataView data, int[] rows, int from, int to, String column) {
+        for (int i = from; i < to; i++) {
+            Object value = data.get(rows[i]).getValueOrNull(column);
+            if (value != null && !(value instanceof Number)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.oak3ml.decisiontree;
+
+import static java.util.Comparator.comparingInt;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.data.SparseDataset;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.SparseFeature;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Column ids and thresholds of {@link SparseFeature}s of a {@link SparseDataset}, ordered by column id. Index is made
+ * once per training, so split search of a node finds position of each candidate feature by its identity instead of
+ * looking up and sorting column ids by name (see
+ * {@link BestSplitFinder#calculateSparseSplitImpurities(DataView, int[], int, int, List, double[], TrainingArena)}).
+ *
+ * @author Ignas
+ *
+ */
+final class SparseFeatureIndex {
+
+    /** Data samples the column ids are resolved for. */
+    private final List<?> data;
+
+    /** Column id of each indexed feature. */
+    private final int[] columnIds;
+
+    /** Threshold of each indexed feature. */
+    private final double[] thresholds;
+
+    /** Position of each indexed feature. */
+    private final Map<Feature, Integer> positions = new IdentityHashMap<>();
+
+    /**
+     * Private constructor.
+     */
+    private SparseFeatureIndex(List<?> data, List<SparseFeature> features, int[] columnIds) {
+        super();
+        this.data = data;
+        this.columnIds = columnIds;
+        this.thresholds = new double[features.size()];
+        for (int position = 0; position < features.size(); position++) {
+            thresholds[position] = features.get(position).getThreshold();
+            positions.put(features.get(position), position);
+        }
+    }
+
+    /**
+     * Indexes sparse features of data.
+     *
+     * @param data Training data.
+     * @param features Features to index. Features which are not sparse or whose column is not in data are left out.
+     * @return Index of sparse features - empty if data is not sparse.
+     */
+    static SparseFeatureIndex newSparseFeatureIndex(DataView data, List<Feature> features) {
+        List<SparseFeature> sparseFeatures = Lists.newArrayList();
+        Map<Feature, Integer> featureColumnIds = new IdentityHashMap<>();
+        if (data.getData() instanceof SparseDataset) {
+            SparseDataset sparseData = (SparseDataset) data.getData();
+            for (Feature feature : features) {
+                int columnId = feature instanceof SparseFeature ? sparseData.getColumnId(feature.getColumn()) : -1;
+                if (columnId >= 0 && featureColumnIds.putIfAbsent(feature, columnId) == null) {
+                    sparseFeatures.add((SparseFeature) feature);
+                }
+            }
+        }
+        // stable sort keeps feature order for equal column ids
+        sparseFeatures.sort(comparingInt(featureColumnIds::get));
+        int[] columnIds = new int[sparseFeatures.size()];
+        for (int position = 0; position < columnIds.length; position++) {
+            columnIds[position] = featureColumnIds.get(sparseFeatures.get(position));
+        }
+        return new SparseFeatureIndex(data.getData(), sparseFeatures, columnIds);
+    }
+
+    /**
+     * @return true if column ids are resolved for this data.
+     */
+    boolean isFor(DataView data) {
+        return this.data == data.getData();
+    }
+
+    /**
+     * @return Position of feature in order of column ids or -1 if feature is not indexed.
+     */
+    int getPosition(Feature feature) {
+        Integer position = positions.get(feature);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * @return Column id of feature at position.
+     */
+    int getColumnId(int position) {
+        return columnIds[position];
+    }
+
+    /**
+     * @return Threshold of feature at position.
+     */
+    double getThreshold(int position) {
+        return thresholds[position];
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.oak3ml.decisiontree;
+
+import java.util.Arrays;
+
+/**
+ * Working memory of one training thread. Buffers are sized once at training start (by number of training rows and
+ * number of labels) and reused by every node the thread grows, so growing a node allocates only a few objects which do
+ * not depend on number of rows - no boxed row numbers, grouping maps or count arrays per node and per candidate feature.
+ *
+ * Arena is used only by its own thread (see {@link TrainingArenas}) and only within a single step of node growth.
+ * Node counts are kept while split is searched, so split search uses only split histograms and sort buffers.
+ *
+ * @author Ignas
+ *
+ */
+public class TrainingArena {
+
+    /** Maximum number of rows of a node. */
+    private final int nbOfRows;
+
+    /** Buffer used to partition rows of a node into branches. */
+    private final int[] partitionBuffer;
+
+    /** Label counts of the node being grown. */
+    private final double[] nodeCounts;
+
+    /** Label counts of first branch of evaluated split. */
+    private final double[] firstBranchCounts;
+
+    /** Label counts of second branch of evaluated split. */
+    private final double[] secondBranchCounts;
+
+    /** Rows sorted by value of numeric column. Created on first use, as only regression trees sort rows. */
+    private int[] sortedRows;
+
+    /** Values of sorted rows. */
+    private double[] sortedValues;
+
+    /** Label counts of "true" branch of each feature evaluated together. Grown on first use, as only sparse data has them. */
+    private double[] featureCounts = new double[0];
+
+    /** Number of rows of "true" branch of each feature evaluated together. */
+    private int[] featureRows = new int[0];
+
+    /** Number of data samples of "true" branch of each feature evaluated together. */
+    private double[] featureInstances = new double[0];
+
+    /**
+     * Constructor.
+     *
+     * @param nbOfRows Maximum number of rows of a node.
+     * @param nbOfLabels Number of labels of training data (0 for regression trees).
+     */
+    TrainingArena(int nbOfRows, int nbOfLabels) {
+        super();
+        this.nbOfRows = nbOfRows;
+        this.partitionBuffer = new int[nbOfRows];
+        this.nodeCounts = new double[nbOfLabels];
+        this.firstBranchCounts = new double[nbOfLabels];
+        this.secondBranchCounts = new double[nbOfLabels];
+    }
+
+    public int[] getPartitionBuffer() {
+        return partitionBuffer;
+    }
+
+    public double[] getNodeCounts() {
+        return nodeCounts;
+    }
+
+    public double[] getFirstBranchCounts() {
+        return firstBranchCounts;
+    }
+
+    public double[] getSecondBranchCounts() {
+        return secondBranchCounts;
+    }
+
+    public int[] getSortedRows() {
+        if (sortedRows == null) {
+            sortedRows = new int[nbOfRows];
+        }
+        return sortedRows;
+    }
+
+    public double[] getSortedValues() {
+        if (sortedValues == null) {
+            sortedValues = new double[nbOfRows];
+        }
+        return sortedValues;
+    }
+
+    /**
+     * @return Buffer of at least length with zeros in the first length values.
+     */
+    public double[] getFeatureCounts(int length) {
+        if (featureCounts.length < length) {
+            featureCounts = new double[length];
+        } else {
+            Arrays.fill(featureCounts, 0, length, 0.0);
+        }
+        return featureCounts;
+    }
+
+    /**
+     * @return Buffer of at least length with zeros in the first length values.
+     */
+    public int[] getFeatureRows(int length) {
+        if (featureRows.length < length) {
+            featureRows = new int[length];
+        } else {
+            Arrays.fill(featureRows, 0, length, 0);
+        }
+        return featureRows;
+    }
+
+    /**
+     * @return Buffer of at least length with zeros in the first length values.
+     */
+    public double[] getFeatureInstances(int length) {
+        if (featureInstances.length < length) {
+            featureInstances = new double[length];
+        } else {
+            Arrays.fill(featureInstances, 0, length, 0.0);
+        }
+        return featureInstances;
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.oak3ml.decisiontree;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Arenas of all threads which grow one tree. Each thread (caller or worker of {@link WorkStealingScheduler} or of
+ * parallel split search) gets its own {@link TrainingArena} when it grows its first node. Arenas are created for each
+ * training and are kept by this object, not by the threads (no {@link ThreadLocal}), so their buffers become garbage
+ * together with this object once tree is grown - long-lived pool threads (for example of
+ * {@link java.util.concurrent.ForkJoinPool#commonPool()}) do not keep them.
+ *
+ * @author Ignas
+ *
+ */
+public class TrainingArenas {
+
+    /** Maximum number of rows of a node. */
+    private final int nbOfRows;
+
+    /** Number of labels of training data. */
+    private final int nbOfLabels;
+
+    /** Arena of each thread. */
+    private final Map<Thread, TrainingArena> arenas = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor.
+     */
+    private TrainingArenas(int nbOfRows, int nbOfLabels) {
+        super();
+        this.nbOfRows = nbOfRows;
+        this.nbOfLabels = nbOfLabels;
+    }
+
+    /**
+     * Static factory method.
+     *
+     * @param nbOfRows Number of rows of root node.
+     * @param nbOfLabels Number of labels of training data (0 for regression trees).
+     * @return Arenas sized for training.
+     */
+    public static TrainingArenas newTrainingArenas(int nbOfRows, int nbOfLabels) {
+        Preconditions.checkArgument(nbOfRows >= 0 && nbOfLabels >= 0);
+        return new TrainingArenas(nbOfRows, nbOfLabels);
+    }
+
+    /**
+     * @return Arena of current thread.
+     */
+    public TrainingArena get() {
+        return arenas.computeIfAbsent(Thread.currentThread(), thread -> new TrainingArena(nbOfRows, nbOfLabels));
+    }
+
+}
@@ -0,0 +1,282 @@
+package org.oak3ml.decisiontree;
+
+import static java.util.Comparator.comparingInt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Grows tree in parallel on a work stealing {@link ForkJoinPool}. Work is split by node size, so one huge branch and
+ * many tiny ones are not scheduled the same way:
+ * <ul>
+ * <li>large nodes (at least largeNodeSize rows) evaluate candidate features in parallel - at the top of the tree there
+ * are few nodes but lots of work in each of them;</li>
+ * <li>medium nodes are grown one per task and each child becomes a new task;</li>
+ * <li>small nodes (less than smallNodeSize rows) grow their whole subtree in one task, as scheduling overhead would be
+ * larger than the work.</li>
+ * </ul>
+ * Children are forked from the largest to the smallest. Worker keeps the most recently forked (smallest) tasks for
+ * itself, while idle workers steal the oldest (largest) ones, so big branches are spread over workers first.
+ *
+ * Each worker counts time spent growing nodes and number of grown nodes and subtrees, so utilisation of workers can be
+ * checked after training. Trees are expected to be grown one after another - utilisation is busy time divided by time
+ * spent in {@link #grow(NodeTask, NodeExpander)}.
+ *
+ * @author Ignas
+ *
+ */
+public class WorkStealingScheduler {
+
+    /** Pool of workers. */
+    private final ForkJoinPool pool;
+
+    /** Nodes with less rows grow their whole subtree in single task. */
+    private int smallNodeSize = 1024;
+
+    /** Nodes with at least this number of rows evaluate features in parallel. */
+    private int largeNodeSize = 65536;
+
+    /** Counters of each worker by its pool index. */
+    private final ConcurrentMap<Integer, WorkerCounters> counters = new ConcurrentHashMap<>();
+
+    /** Total time spent growing trees. */
+    private final AtomicLong growNanos = new AtomicLong();
+
+    /**
+     * Private constructor.
+     */
+    private WorkStealingScheduler(Builder builder) {
+        super();
+        if (builder.pool != null) {
+            pool = builder.pool;
+        } else if (builder.parallelism != null) {
+            Preconditions.checkArgument(builder.parallelism >= 1);
+            pool = new ForkJoinPool(builder.parallelism);
+        } else {
+            pool = ForkJoinPool.commonPool();
+        }
+        if (builder.smallNodeSize != null) {
+            Preconditions.checkArgument(builder.smallNodeSize >= 0);
+            smallNodeSize = builder.smallNodeSize;
+        }
+        if (builder.largeNodeSize != null) {
+            Preconditions.checkArgument(builder.largeNodeSize >= smallNodeSize);
+            largeNodeSize = builder.largeNodeSize;
+        }
+    }
+
+    /**
+     * Grows tree from a root task and waits until it is grown.
+     *
+     * @param rootTask Task of root node.
+     * @param expander Creates nodes of tasks.
+     * @return Root node.
+     */
+    Node grow(NodeTask rootTask, NodeExpander expander) {
+        long start = System.nanoTime();
+        NodeGrowth rootGrowth = new NodeGrowth(rootTask, expander);
+        pool.invoke(rootGrowth);
+        growNanos.addAndGet(System.nanoTime() - start);
+        return rootGrowth.node;
+    }
+
+    /**
+     * @return Counters of each worker which grew at least one node, ordered by worker index.
+     */
+    public List<WorkerCounters> getWorkerCounters() {
+        List<WorkerCounters> result = new ArrayList<>(counters.values());
+        result.sort(comparingInt(WorkerCounters::getWorkerIndex));
+        return result;
+    }
+
+    /**
+     * @return Part of available worker time (time spent growing trees multiplied by parallelism) which was spent growing
+     *         nodes. 1.0 means all workers were busy all the time.
+     */
+    public double getUtilisation() {
+        long totalNanos = growNanos.get() * pool.getParallelism();
+        long busyNanos = counters.values().stream().mapToLong(WorkerCounters::getBusyNanos).sum();
+        return totalNanos == 0 ? 0.0 : Math.min(1.0, (double) busyNanos / totalNanos);
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public void resetCounters() {
+        counters.clear();
+        growNanos.set(0);
+    }
+
+    /**
+     * @return Number of workers.
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Counters of current worker. Thread which is not a worker of the pool (for example caller which helps to complete
+     * tasks) has index -1.
+     */
+    private WorkerCounters currentWorkerCounters() {
+        Thread thread = Thread.currentThread();
+        int workerIndex = thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == pool
+                ? ((ForkJoinWorkerThread) thread).getPoolIndex() : -1;
+        return counters.computeIfAbsent(workerIndex, WorkerCounters::new);
+    }
+
+    /**
+     * Task which grows one node (or whole subtree of a small node) and then forks tasks of its children.
+     */
+    private class NodeGrowth extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final NodeTask task;
+
+        private final NodeExpander expander;
+
+        /** Grown node. */
+        private Node node;
+
+        NodeGrowth(NodeTask task, NodeExpander expander) {
+            super();
+            this.task = task;
+            this.expander = expander;
+        }
+
+        @Override
+        protected void compute() {
+            long start = System.nanoTime();
+            WorkerCounters workerCounters = currentWorkerCounters();
+            List<NodeTask> children = new ArrayList<>();
+            if (task.size() < smallNodeSize) {
+                node = expander.growSubtree(task, NodeScheduler.depthFirst());
+                workerCounters.nbOfSubtrees.incrementAndGet();
+            } else {
+                node = expander.expand(task, children, task.size() >= largeNodeSize);
+                workerCounters.nbOfNodes.incrementAndGet();
+            }
+            if (task.getParent() != null) {
+                // each task sets its own position, so children list is not modified structurally
+                task.getParent().setChild(task.getChildIndex(), node);
+            }
+            workerCounters.busyNanos.addAndGet(System.nanoTime() - start);
+            if (children.isEmpty()) {
+                return;
+            }
+
+            // largest children are forked first - they are stolen first, smallest one is grown by this worker
+            children.sort(comparingInt(NodeTask::size).reversed());
+            List<NodeGrowth> forked = new ArrayList<>(children.size() - 1);
+            for (int i = 0; i < children.size() - 1; i++) {
+                NodeGrowth growth = new NodeGrowth(children.get(i), expander);
+                growth.fork();
+                forked.add(growth);
+            }
+            new NodeGrowth(children.get(children.size() - 1), expander).compute();
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                forked.get(i).join();
+            }
+        }
+    }
+
+    /**
+     * Utilisation counters of one worker.
+     */
+    public static class WorkerCounters {
+
+        /** Pool index of worker. */
+        private final int workerIndex;
+
+        /** Time spent growing nodes. */
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        /** Number of nodes grown one per task. */
+        private final AtomicLong nbOfNodes = new AtomicLong();
+
+        /** Number of small subtrees grown in one task. */
+        private final AtomicLong nbOfSubtrees = new AtomicLong();
+
+        WorkerCounters(int workerIndex) {
+            super();
+            this.workerIndex = workerIndex;
+        }
+
+        public int getWorkerIndex() {
+            return workerIndex;
+        }
+
+        public long getBusyNanos() {
+            return busyNanos.get();
+        }
+
+        public long getNbOfNodes() {
+            return nbOfNodes.get();
+        }
+
+        public long getNbOfSubtrees() {
+            return nbOfSubtrees.get();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "WorkerCounters [workerIndex=" + workerIndex + ", busyNanos=" + busyNanos + ", nbOfNodes=" + nbOfNodes
+                    + ", nbOfSubtrees=" + nbOfSubtrees + "]";
+        }
+    }
+
+    /* Builder */
+    public static class Builder {
+
+        private ForkJoinPool pool;
+
+        private Integer parallelism;
+
+        private Integer smallNodeSize;
+
+        private Integer largeNodeSize;
+
+        /**
+         * Use existing pool. By default common pool is used.
+         */
+        public Builder withPool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Create new pool with this number of workers.
+         */
+        public Builder withParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder withSmallNodeSize(int smallNodeSize) {
+            this.smallNodeSize = smallNodeSize;
+            return this;
+        }
+
+        public Builder withLargeNodeSize(int largeNodeSize) {
+            this.largeNodeSize = largeNodeSize;
+            return this;
+        }
+
+        public WorkStealingScheduler build() {
+            return new WorkStealingScheduler(this);
+        }
+    }
+
+}
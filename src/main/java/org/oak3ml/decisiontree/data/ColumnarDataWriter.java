@@ -0,0 +1,272 @@
+package org.oak3ml.decisiontree.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import org.oak3ml.decisiontree.data.MappedColumn.Type;
+import org.oak3ml.decisiontree.label.BooleanLabel;
+import org.oak3ml.decisiontree.label.IntLabel;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Writes data samples to binary columnar file which is read by {@link MappedDataset}. File starts with magic bytes,
+ * then each column follows as a section of little endian values (ints, doubles or dictionary codes), aligned to 8
+ * bytes, with optional bit set of missing values. Weights of data samples are written as one more double section if
+ * any weight is not 1. Directory of columns with section offsets and dictionaries is written last, followed by its
+ * offset and magic bytes, so columns are written in one pass each without knowing sizes in advance.
+ *
+ * Integer columns stay integer, other numbers are written as doubles. String and label columns are dictionary
+ * encoded, labels must be {@link BooleanLabel} or {@link IntLabel}.
+ *
+ * @author Ignas
+ *
+ */
+public final class ColumnarDataWriter {
+
+    /** Size of write buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Kind of boolean label in dictionary. */
+    static final byte BOOLEAN_LABEL = 0;
+
+    /** Kind of int label in dictionary. */
+    static final byte INT_LABEL = 1;
+
+    /** File being written. */
+    private final FileChannel channel;
+
+    /** Write buffer. */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    /** Bytes written before buffer. */
+    private long position;
+
+    private ColumnarDataWriter(FileChannel channel) {
+        super();
+        this.channel = channel;
+    }
+
+    /**
+     * Writes data samples to a file.
+     *
+     * @param data
+     *            Data samples.
+     * @param header
+     *            Columns to write.
+     * @param labelColumn
+     *            Column of labels (it must be one of header columns) or null if data samples are not labeled.
+     * @param file
+     *            File to write, it is replaced if it exists.
+     * @throws IOException
+     *             If file can not be written.
+     */
+    public static void write(List<DataSample> data, String[] header, String labelColumn, Path file) throws IOException {
+        Preconditions.checkArgument(labelColumn == null || Lists.newArrayList(header).contains(labelColumn),
+                "Label column must be one of header columns");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            new ColumnarDataWriter(channel).write(data, header, labelColumn);
+        }
+    }
+
+    private void write(List<DataSample> data, String[] header, String labelColumn) throws IOException {
+        buffer.putLong(MappedDataset.MAGIC);
+        List<ColumnSection> sections = Lists.newArrayList();
+        for (String column : header) {
+            sections.add(writeColumn(data, column, column.equals(labelColumn)));
+        }
+        long weightsOffset = writeWeights(data);
+
+        long directoryOffset = position + buffer.position();
+        putInt(data.size());
+        putInt(header.length);
+        putString(labelColumn == null ? "" : labelColumn);
+        putLong(weightsOffset);
+        for (ColumnSection section : sections) {
+            putString(section.name);
+            putInt(section.type.ordinal());
+            putLong(section.valuesOffset);
+            putLong(section.missingOffset);
+            putInt(section.dictionary.size());
+            for (Object value : section.dictionary) {
+                if (section.type == Type.STRING) {
+                    putString((String) value);
+                } else {
+                    putLabel((Label) value);
+                }
+            }
+        }
+        putLong(directoryOffset);
+        putLong(MappedDataset.MAGIC);
+        flush();
+    }
+
+    private ColumnSection writeColumn(List<DataSample> data, String column, boolean label) throws IOException {
+        Type type = label ? Type.LABEL : getType(data, column);
+        align();
+        long valuesOffset = position + buffer.position();
+        byte[] missing = new byte[(data.size() + 7) >>> 3];
+        boolean hasMissing = false;
+        Map<Object, Integer> codes = Maps.newLinkedHashMap();
+        for (int row = 0; row < data.size(); row++) {
+            Object value = label ? data.get(row).getLabel() : data.get(row).getValueOrNull(column);
+            if (value == null) {
+                missing[row >>> 3] |= 1 << (row & 7);
+                hasMissing = true;
+            }
+            switch (type) {
+            case INT:
+                putInt(value == null ? 0 : (Integer) value);
+                break;
+            case DOUBLE:
+                putDouble(value == null ? 0.0 : ((Number) value).doubleValue());
+                break;
+            default:
+                putInt(value == null ? 0 : codes.computeIfAbsent(value, v -> codes.size()));
+            }
+        }
+        long missingOffset = -1;
+        if (hasMissing) {
+            align();
+            missingOffset = position + buffer.position();
+            putBytes(missing);
+        }
+        return new ColumnSection(column, type, valuesOffset, missingOffset, Lists.newArrayList(codes.keySet()));
+    }
+
+    /**
+     * Integer if all values are integers, double if all are numbers, string if all are strings.
+     */
+    private static Type getType(List<DataSample> data, String column) {
+        boolean integers = true;
+        boolean numbers = true;
+        boolean strings = true;
+        for (DataSample dataSample : data) {
+            Object value = dataSample.getValueOrNull(column);
+            if (value != null) {
+                integers &= value instanceof Integer;
+                numbers &= value instanceof Number;
+                strings &= value instanceof String;
+            }
+        }
+        Preconditions.checkArgument(numbers || strings, "Column %s has values which are not numbers or strings", column);
+        return integers && numbers ? Type.INT : numbers ? Type.DOUBLE : Type.STRING;
+    }
+
+    /**
+     * @return Offset of weights or -1 if all weights are 1.
+     */
+    private long writeWeights(List<DataSample> data) throws IOException {
+        if (data.stream().allMatch(dataSample -> dataSample.getWeight() == 1.0)) {
+            return -1;
+        }
+        align();
+        long weightsOffset = position + buffer.position();
+        for (DataSample dataSample : data) {
+            putDouble(dataSample.getWeight());
+        }
+        return weightsOffset;
+    }
+
+    private void putLabel(Label label) throws IOException {
+        if (label instanceof BooleanLabel) {
+            ensureRemaining(1);
+            buffer.put(BOOLEAN_LABEL);
+            putInt(label.equals(BooleanLabel.TRUE_LABEL) ? 1 : 0);
+        } else {
+            Preconditions.checkArgument(label instanceof IntLabel, "Label %s can not be written", label);
+            ensureRemaining(1);
+            buffer.put(INT_LABEL);
+            putInt(Integer.parseInt(label.getName()));
+        }
+    }
+
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        putBytes(bytes);
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        for (int i = 0; i < bytes.length; i += BUFFER_SIZE) {
+            int length = Math.min(BUFFER_SIZE, bytes.length - i);
+            ensureRemaining(length);
+            buffer.put(bytes, i, length);
+        }
+    }
+
+    private void putInt(int value) throws IOException {
+        ensureRemaining(4);
+        buffer.putInt(value);
+    }
+
+    private void putLong(long value) throws IOException {
+        ensureRemaining(8);
+        buffer.putLong(value);
+    }
+
+    private void putDouble(double value) throws IOException {
+        ensureRemaining(8);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Pads sections to 8 bytes, so values are aligned in mapped memory.
+     */
+    private void align() throws IOException {
+        while ((position + buffer.position()) % 8 != 0) {
+            ensureRemaining(1);
+            buffer.put((byte) 0);
+        }
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Written column.
+     */
+    private static class ColumnSection {
+
+        private final String name;
+
+        private final Type type;
+
+        private final long valuesOffset;
+
+        private final long missingOffset;
+
+        private final List<Object> dictionary;
+
+        ColumnSection(String name, Type type, long valuesOffset, long missingOffset, List<Object> dictionary) {
+            this.name = name;
+            this.type = type;
+            this.valuesOffset = valuesOffset;
+            this.missingOffset = missingOffset;
+            this.dictionary = dictionary;
+        }
+    }
+
+}
@@ -0,0 +1,513 @@
+package org.oak3ml.decisiontree.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.oak3ml.decisiontree.data.MappedColumn.Type;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Parallel CSV loader. File is split into byte ranges at line ends, each range is memory mapped and parsed on its own
+ * thread straight into primitive columns (direct buffers of {@link MappedColumn}), so no objects are created per row
+ * except strings of string and label columns. Only columns of {@link CsvSchema} are parsed, other values are skipped.
+ *
+ * Ranges are parsed twice: first pass counts rows of each range, so second pass knows where in the columns its rows
+ * go. Strings and labels are encoded with dictionary of each range, dictionaries are merged in range order after
+ * parsing, so codes are the same as if file was parsed sequentially.
+ *
+ * First line is a header. Values may be quoted (quotes inside quoted values are doubled), but must not contain line
+ * breaks. Blank lines are skipped.
+ *
+ * @author Ignas
+ *
+ */
+public final class CsvLoader {
+
+    /** Default size of byte range parsed by one task. */
+    static final long DEFAULT_RANGE_SIZE = 64L << 20;
+
+    /** Maximum number of rows of a load - column of 8 byte values must fit into one direct buffer. */
+    public static final int MAX_ROWS = Integer.MAX_VALUE / 8;
+
+    /** Size of buffer used to find line ends. */
+    private static final int LINE_BUFFER_SIZE = 1 << 16;
+
+    /** Powers of 10 which are exact doubles. */
+    private static final double[] POWERS_OF_10 = new double[23];
+
+    /** Maximum number of digits parsed without rounding error. */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /** Marker of weight column in column slots. */
+    private static final int WEIGHT_SLOT = -2;
+
+    /** Marker of skipped column in column slots. */
+    private static final int SKIPPED_SLOT = -1;
+
+    static {
+        POWERS_OF_10[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_10.length; i++) {
+            POWERS_OF_10[i] = POWERS_OF_10[i - 1] * 10;
+        }
+    }
+
+    /** Schema of loaded data. */
+    private final CsvSchema schema;
+
+    /** Loaded columns in schema order. */
+    private final String[] columns;
+
+    /** Types of loaded columns. */
+    private final Type[] types;
+
+    /** Slot of each file column - index of loaded column, {@link #SKIPPED_SLOT} or {@link #WEIGHT_SLOT}. */
+    private int[] slots;
+
+    /** File column of each loaded column. */
+    private int[] fields;
+
+    /** File column of weights or -1. */
+    private int weightField = -1;
+
+    /** Values of each loaded column. */
+    private ByteBuffer[] values;
+
+    /** Weights or null if schema has no weight column. */
+    private ByteBuffer weights;
+
+    private CsvLoader(CsvSchema schema) {
+        super();
+        this.schema = schema;
+        this.columns = schema.getColumns().keySet().toArray(new String[0]);
+        this.types = schema.getColumns().values().toArray(new Type[0]);
+    }
+
+    /**
+     * Loads CSV file. Each loaded column is a single direct buffer, so a load holds at most {@value #MAX_ROWS} rows
+     * (2 GB of doubles per column) however few columns are projected. Files with more rows must be split or sampled
+     * before loading.
+     *
+     * @param file
+     *            CSV file with header.
+     * @param schema
+     *            Columns to load. Use {@link CsvSchema#project(List)} to load only columns of features.
+     * @return Dataset of loaded columns.
+     * @throws IOException
+     *             If file can not be read.
+     * @throws IllegalArgumentException
+     *             If file has more than {@value #MAX_ROWS} rows.
+     */
+    public static MappedDataset load(Path file, CsvSchema schema) throws IOException {
+        return load(file, schema, DEFAULT_RANGE_SIZE);
+    }
+
+    static MappedDataset load(Path file, CsvSchema schema, long rangeSize) throws IOException {
+        Preconditions.checkArgument(rangeSize > 0 && rangeSize <= Integer.MAX_VALUE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CsvLoader(schema).load(channel, rangeSize);
+        }
+    }
+
+    private MappedDataset load(FileChannel channel, long rangeSize) throws IOException {
+        long fileSize = channel.size();
+        long dataStart = findLineEnd(channel, 0, fileSize);
+        readHeader(channel.map(MapMode.READ_ONLY, 0, dataStart));
+
+        List<Range> ranges = Lists.newArrayList();
+        for (long start = dataStart; start < fileSize;) {
+            long end = Math.min(fileSize, start + rangeSize);
+            if (end < fileSize) {
+                end = findLineEnd(channel, end - 1, fileSize);
+            }
+            Preconditions.checkArgument(end - start <= Integer.MAX_VALUE, "Line is too long");
+            ranges.add(new Range(channel.map(MapMode.READ_ONLY, start, end - start), columns.length));
+            start = end;
+        }
+
+        ranges.parallelStream().forEach(Range::countRows);
+        long totalRows = 0;
+        for (Range range : ranges) {
+            range.firstRow = (int) Math.min(totalRows, Integer.MAX_VALUE);
+            totalRows += range.nbOfRows;
+        }
+        Preconditions.checkArgument(totalRows <= MAX_ROWS, "File has %s rows, at most %s rows can be loaded", totalRows, MAX_ROWS);
+        int nbOfRows = (int) totalRows;
+        values = new ByteBuffer[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            values[c] = ByteBuffer.allocateDirect(nbOfRows * types[c].getWidth()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        weights = schema.getWeightColumn() == null ? null
+                : ByteBuffer.allocateDirect(nbOfRows * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+        ranges.parallelStream().forEach(this::parse);
+
+        Map<String, MappedColumn> mappedColumns = Maps.newLinkedHashMap();
+        for (int c = 0; c < columns.length; c++) {
+            Object[] dictionary = types[c] == Type.INT || types[c] == Type.DOUBLE ? null : mergeDictionaries(ranges, c);
+            mappedColumns.put(columns[c], new MappedColumn(columns[c], types[c], values[c],
+                    mergeMissing(ranges, c, nbOfRows), dictionary));
+        }
+        String labelColumn = schema.getLabelColumn();
+        return new MappedDataset(nbOfRows, mappedColumns, labelColumn == null ? null : mappedColumns.get(labelColumn),
+                weights);
+    }
+
+    /**
+     * Maps file columns to loaded columns.
+     */
+    private void readHeader(ByteBuffer bytes) {
+        int start = bytes.limit() >= 3 && bytes.get(0) == (byte) 0xEF && bytes.get(1) == (byte) 0xBB
+                && bytes.get(2) == (byte) 0xBF ? 3 : 0; // byte order mark
+        List<String> header = Lists.newArrayList();
+        int end = trimLineEnd(bytes, start, bytes.limit());
+        for (int position = start; position <= end;) {
+            int fieldEnd = findFieldEnd(bytes, position, end);
+            header.add(getString(bytes, position, fieldEnd));
+            position = fieldEnd + 1;
+        }
+        slots = new int[header.size()];
+        fields = new int[columns.length];
+        for (int field = 0; field < slots.length; field++) {
+            String column = header.get(field);
+            slots[field] = column.equals(schema.getWeightColumn()) ? WEIGHT_SLOT : Lists.newArrayList(columns).indexOf(column);
+        }
+        for (int c = 0; c < columns.length; c++) {
+            fields[c] = header.indexOf(columns[c]);
+            Preconditions.checkArgument(fields[c] >= 0, "Column %s is not in the file", columns[c]);
+        }
+        if (schema.getWeightColumn() != null) {
+            weightField = header.indexOf(schema.getWeightColumn());
+            Preconditions.checkArgument(weightField >= 0, "Column %s is not in the file", schema.getWeightColumn());
+        }
+    }
+
+    /**
+     * Parses rows of the range into columns.
+     */
+    private void parse(Range range) {
+        ByteBuffer bytes = range.bytes;
+        int row = range.firstRow;
+        int lineStart = 0;
+        while (lineStart < bytes.limit()) {
+            int lineEnd = lineStart;
+            while (lineEnd < bytes.limit() && bytes.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int end = trimLineEnd(bytes, lineStart, lineEnd);
+            if (end > lineStart) {
+                parseLine(range, row++, bytes, lineStart, end);
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private void parseLine(Range range, int row, ByteBuffer bytes, int start, int end) {
+        int field = 0;
+        for (int position = start; position <= end; field++) {
+            int fieldEnd = findFieldEnd(bytes, position, end);
+            int slot = field < slots.length ? slots[field] : SKIPPED_SLOT;
+            if (slot != SKIPPED_SLOT) {
+                try {
+                    setValue(range, row, slot, bytes, position, fieldEnd);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(String.format("Invalid value of column %s in data row %s",
+                            slot == WEIGHT_SLOT ? schema.getWeightColumn() : columns[slot], row), e);
+                }
+            }
+            position = fieldEnd + 1;
+        }
+        // short lines have missing values
+        for (int c = 0; c < columns.length; c++) {
+            if (fields[c] >= field) {
+                range.setMissing(c, row - range.firstRow);
+            }
+        }
+        if (weights != null && weightField >= field) {
+            weights.putDouble(row << 3, 1.0);
+        }
+    }
+
+    private void setValue(Range range, int row, int slot, ByteBuffer bytes, int start, int end) {
+        boolean quoted = end > start && bytes.get(start) == '"';
+        int valueStart = quoted ? start + 1 : start;
+        int valueEnd = quoted ? Math.max(valueStart, end - 1) : end;
+        if (valueEnd == valueStart) {
+            if (slot == WEIGHT_SLOT) {
+                weights.putDouble(row << 3, 1.0);
+            } else {
+                range.setMissing(slot, row - range.firstRow);
+            }
+            return;
+        }
+        if (slot == WEIGHT_SLOT) {
+            weights.putDouble(row << 3, parseDouble(bytes, valueStart, valueEnd));
+            return;
+        }
+        switch (types[slot]) {
+        case INT:
+            values[slot].putInt(row << 2, parseInt(bytes, valueStart, valueEnd));
+            break;
+        case DOUBLE:
+            values[slot].putDouble(row << 3, parseDouble(bytes, valueStart, valueEnd));
+            break;
+        default:
+            String value = getString(bytes, start, end);
+            Map<String, Integer> dictionary = range.dictionaries.get(slot);
+            values[slot].putInt(row << 2, dictionary.computeIfAbsent(value, v -> dictionary.size()));
+        }
+    }
+
+    /**
+     * Merges dictionaries of ranges in range order and replaces codes of each range with merged codes.
+     */
+    private Object[] mergeDictionaries(List<Range> ranges, int column) {
+        Map<String, Integer> merged = Maps.newLinkedHashMap();
+        List<int[]> codes = Lists.newArrayList();
+        for (Range range : ranges) {
+            int[] rangeCodes = new int[range.dictionaries.get(column).size()];
+            for (Map.Entry<String, Integer> entry : range.dictionaries.get(column).entrySet()) {
+                rangeCodes[entry.getValue()] = merged.computeIfAbsent(entry.getKey(), v -> merged.size());
+            }
+            codes.add(rangeCodes);
+        }
+        ByteBuffer columnValues = values[column];
+        IntStream.range(0, ranges.size()).parallel().forEach(r -> {
+            Range range = ranges.get(r);
+            int[] rangeCodes = codes.get(r);
+            for (int row = 0; row < range.nbOfRows; row++) {
+                if (!range.isMissing(column, row)) {
+                    int index = (range.firstRow + row) << 2;
+                    columnValues.putInt(index, rangeCodes[columnValues.getInt(index)]);
+                }
+            }
+        });
+        if (types[column] == Type.STRING) {
+            return merged.keySet().toArray();
+        }
+        Label[] labels = new Label[merged.size()];
+        int code = 0;
+        for (String value : merged.keySet()) {
+            labels[code++] = schema.getLabelParser().apply(value);
+        }
+        return labels;
+    }
+
+    /**
+     * @return Bit set of missing values of column or null if it has none.
+     */
+    private static ByteBuffer mergeMissing(List<Range> ranges, int column, int nbOfRows) {
+        ByteBuffer missing = null;
+        for (Range range : ranges) {
+            long[] words = range.missing[column];
+            for (int word = 0; words != null && word < words.length; word++) {
+                for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                    if (missing == null) {
+                        missing = ByteBuffer.allocateDirect((nbOfRows + 7) >>> 3);
+                    }
+                    int row = range.firstRow + (word << 6) + Long.numberOfTrailingZeros(bits);
+                    missing.put(row >>> 3, (byte) (missing.get(row >>> 3) | (1 << (row & 7))));
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @return Position after the first line break at or after provided position or file size.
+     */
+    private static long findLineEnd(FileChannel channel, long from, long fileSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LINE_BUFFER_SIZE);
+        for (long position = from; position < fileSize;) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += Math.max(read, 0);
+        }
+        return fileSize;
+    }
+
+    /**
+     * @return End of line without line break characters.
+     */
+    private static int trimLineEnd(ByteBuffer bytes, int start, int end) {
+        while (end > start && (bytes.get(end - 1) == '\n' || bytes.get(end - 1) == '\r')) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * @return Position of separator after field which starts at provided position or line end.
+     */
+    private int findFieldEnd(ByteBuffer bytes, int start, int end) {
+        char separator = schema.getSeparator();
+        int position = start;
+        if (position < end && bytes.get(position) == '"') {
+            position++;
+            while (position < end) {
+                if (bytes.get(position) == '"') {
+                    if (position + 1 < end && bytes.get(position + 1) == '"') {
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                position++;
+            }
+        }
+        while (position < end && bytes.get(position) != separator) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * @return String of field, quotes of quoted field are removed.
+     */
+    private static String getString(ByteBuffer bytes, int start, int end) {
+        boolean quoted = end > start && bytes.get(start) == '"';
+        byte[] value = new byte[end - start];
+        int length = 0;
+        int position = quoted ? start + 1 : start;
+        while (position < end) {
+            byte b = bytes.get(position++);
+            if (quoted && b == '"') {
+                if (position < end && bytes.get(position) == '"') {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            value[length++] = b;
+        }
+        return new String(value, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int parseInt(ByteBuffer bytes, int start, int end) {
+        boolean negative = bytes.get(start) == '-';
+        int position = negative || bytes.get(start) == '+' ? start + 1 : start;
+        if (position == end) {
+            throw new NumberFormatException();
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = bytes.get(position) - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException(getString(bytes, start, end));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException(getString(bytes, start, end));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Plain decimals with up to 15 digits are parsed without creating strings: digits are an exact long and division
+     * by exact power of 10 is correctly rounded. Other numbers (exponents, more digits) are parsed by
+     * {@link Double#parseDouble(String)}.
+     */
+    private static double parseDouble(ByteBuffer bytes, int start, int end) {
+        boolean negative = bytes.get(start) == '-';
+        int position = negative || bytes.get(start) == '+' ? start + 1 : start;
+        long digits = 0;
+        int nbOfDigits = 0;
+        int nbOfDecimals = -1;
+        for (; position < end; position++) {
+            byte b = bytes.get(position);
+            if (b == '.' && nbOfDecimals < 0) {
+                nbOfDecimals = 0;
+            } else if (b >= '0' && b <= '9' && nbOfDigits < MAX_EXACT_DIGITS) {
+                digits = digits * 10 + (b - '0');
+                nbOfDigits++;
+                nbOfDecimals += nbOfDecimals >= 0 ? 1 : 0;
+            } else {
+                return Double.parseDouble(getString(bytes, start, end));
+            }
+        }
+        if (nbOfDigits == 0) {
+            throw new NumberFormatException(getString(bytes, start, end));
+        }
+        double value = nbOfDecimals > 0 ? digits / POWERS_OF_10[nbOfDecimals] : digits;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Byte range of file parsed by one task.
+     */
+    private static class Range {
+
+        /** Mapped bytes of whole lines. */
+        private final ByteBuffer bytes;
+
+        /** Dictionary of string and label values of each column. */
+        private final List<Map<String, Integer>> dictionaries;
+
+        /** Bit set of missing values of each column, allocated when first value is missing. */
+        private final long[][] missing;
+
+        /** Row of the first line of range. */
+        private int firstRow;
+
+        /** Number of rows. */
+        private int nbOfRows;
+
+        Range(ByteBuffer bytes, int nbOfColumns) {
+            this.bytes = bytes;
+            this.dictionaries = Lists.newArrayList();
+            for (int c = 0; c < nbOfColumns; c++) {
+                dictionaries.add(Maps.newLinkedHashMap());
+            }
+            this.missing = new long[nbOfColumns][];
+        }
+
+        /**
+         * Counts lines which are not blank.
+         */
+        void countRows() {
+            boolean blank = true;
+            for (int position = 0; position < bytes.limit(); position++) {
+                byte b = bytes.get(position);
+                if (b == '\n') {
+                    nbOfRows += blank ? 0 : 1;
+                    blank = true;
+                } else if (b != '\r') {
+                    blank = false;
+                }
+            }
+            nbOfRows += blank ? 0 : 1;
+        }
+
+        void setMissing(int column, int row) {
+            if (missing[column] == null) {
+                missing[column] = new long[(nbOfRows + 63) >>> 6];
+            }
+            missing[column][row >>> 6] |= 1L << row;
+        }
+
+        boolean isMissing(int column, int row) {
+            return missing[column] != null && (missing[column][row >>> 6] & (1L << row)) != 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.oak3ml.decisiontree.data;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.oak3ml.decisiontree.data.MappedColumn.Type;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Declarative schema of CSV file loaded by {@link CsvLoader}. It names columns to load and their types, columns of
+ * the file which are not in the schema are skipped without parsing. Empty values are missing values.
+ *
+ * @author Ignas
+ *
+ */
+public class CsvSchema {
+
+    /** Types of loaded columns in order of declaration. */
+    private final Map<String, Type> columns;
+
+    /** Column of labels or null if data is not labeled. */
+    private final String labelColumn;
+
+    /** Parser of labels. */
+    private final Function<String, Label> labelParser;
+
+    /** Column of data sample weights or null if data is not weighted. */
+    private final String weightColumn;
+
+    /** Separator of values. */
+    private final char separator;
+
+    /**
+     * Private constructor.
+     */
+    private CsvSchema(Builder builder) {
+        super();
+        this.columns = Collections.unmodifiableMap(Maps.newLinkedHashMap(builder.columns));
+        this.labelColumn = builder.labelColumn;
+        this.labelParser = builder.labelParser;
+        this.weightColumn = builder.weightColumn;
+        this.separator = builder.separator != null ? builder.separator : ',';
+    }
+
+    /**
+     * Schema with only columns used by features, label column and weight column.
+     *
+     * @param features
+     *            Features which will be trained on loaded data.
+     * @return Projected schema.
+     */
+    public CsvSchema project(List<Feature> features) {
+        Set<String> used = Sets.newHashSet();
+        features.forEach(feature -> used.add(feature.getColumn()));
+        Builder builder = new Builder();
+        builder.columns.putAll(Maps.filterKeys(columns, column -> used.contains(column) || column.equals(labelColumn)));
+        builder.labelColumn = labelColumn;
+        builder.labelParser = labelParser;
+        builder.weightColumn = weightColumn;
+        builder.separator = separator;
+        return builder.build();
+    }
+
+    /**
+     * @return Types of loaded columns in order of declaration, including label column.
+     */
+    public Map<String, Type> getColumns() {
+        return columns;
+    }
+
+    public String getLabelColumn() {
+        return labelColumn;
+    }
+
+    public Function<String, Label> getLabelParser() {
+        return labelParser;
+    }
+
+    public String getWeightColumn() {
+        return weightColumn;
+    }
+
+    public char getSeparator() {
+        return separator;
+    }
+
+    /**
+     * Builder of schema.
+     */
+    public static class Builder {
+
+        private final Map<String, Type> columns = Maps.newLinkedHashMap();
+
+        private String labelColumn;
+
+        private Function<String, Label> labelParser;
+
+        private String weightColumn;
+
+        private Character separator;
+
+        /**
+         * Column of integers.
+         */
+        public Builder withIntColumn(String column) {
+            return withColumn(column, Type.INT);
+        }
+
+        /**
+         * Column of numbers.
+         */
+        public Builder withDoubleColumn(String column) {
+            return withColumn(column, Type.DOUBLE);
+        }
+
+        /**
+         * Column of strings.
+         */
+        public Builder withStringColumn(String column) {
+            return withColumn(column, Type.STRING);
+        }
+
+        /**
+         * Column of labels. Each distinct value is parsed once.
+         */
+        public Builder withLabelColumn(String column, Function<String, Label> labelParser) {
+            Preconditions.checkState(this.labelColumn == null, "Label column is already set");
+            this.labelColumn = column;
+            this.labelParser = Preconditions.checkNotNull(labelParser);
+            return withColumn(column, Type.LABEL);
+        }
+
+        /**
+         * Column of numeric weights. Data samples with missing weight have weight 1. Weight column is not one of data
+         * sample columns.
+         */
+        public Builder withWeightColumn(String column) {
+            Preconditions.checkArgument(!columns.containsKey(column), "Column %s is already declared", column);
+            this.weightColumn = column;
+            return this;
+        }
+
+        public Builder withSeparator(char separator) {
+            Preconditions.checkArgument(separator != '"' && separator != '\n' && separator != '\r');
+            this.separator = separator;
+            return this;
+        }
+
+        private Builder withColumn(String column, Type type) {
+            Preconditions.checkArgument(!columns.containsKey(column) && !column.equals(weightColumn),
+                    "Column %s is already declared", column);
+            columns.put(column, type);
+            return this;
+        }
+
+        public CsvSchema build() {
+            return new CsvSchema(this);
+        }
+
+    }
+
+}
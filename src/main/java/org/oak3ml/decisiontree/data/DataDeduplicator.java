@@ -0,0 +1,79 @@
+package org.oak3ml.decisiontree.data;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.stream.IntStream;
+
+import org.oak3ml.decisiontree.feature.Feature;
+
+/**
+ * Compacts training data by collapsing identical data samples into single weighted data sample. Data samples are
+ * identical if they have the same label and the same values in all columns used by features - other columns can not
+ * change training, so tree trained on compacted data is the same as tree trained on original data while every node
+ * scans fewer data samples.
+ *
+ * @author Ignas
+ *
+ */
+public final class DataDeduplicator {
+
+    private DataDeduplicator() {
+    }
+
+    /**
+     * Collapses identical data samples into one weighted data sample. Data samples are aggregated in parallel into
+     * concurrent map - first data sample with a key creates its group and weights are summed with {@link DoubleAdder}
+     * without locking. Compacted data keeps order of first occurrence of each group, so result does not depend on
+     * thread scheduling.
+     *
+     * @param data Data samples.
+     * @param features Features which will be used for training. Only their columns are compared.
+     * @return Compacted data samples. Weight of each is total weight of identical data samples it represents.
+     */
+    public static List<DataSample> deduplicate(List<DataSample> data, List<Feature> features) {
+        String[] columns = features.stream().map(Feature::getColumn).distinct().toArray(String[]::new);
+        ConcurrentMap<List<Object>, Group> groups = new ConcurrentHashMap<>();
+        IntStream.range(0, data.size()).parallel().forEach(row -> {
+            DataSample dataSample = data.get(row);
+            Group group = groups.computeIfAbsent(getKey(dataSample, columns), key -> new Group());
+            group.weight.add(dataSample.getWeight());
+            group.firstRow.accumulate(row);
+        });
+        return groups.values().stream()
+                .sorted(Comparator.comparingLong(group -> group.firstRow.get()))
+                .map(group -> WeightedDataSample.newWeightedDataSample(data.get((int) group.firstRow.get()), group.weight.sum()))
+                .collect(toList());
+    }
+
+    /**
+     * Key of data sample - label and values of columns.
+     */
+    private static List<Object> getKey(DataSample dataSample, String[] columns) {
+        Object[] key = new Object[columns.length + 1];
+        key[0] = dataSample.getLabel();
+        for (int i = 0; i < columns.length; i++) {
+            key[i + 1] = dataSample.getValue(columns[i]).orElse(null);
+        }
+        return Arrays.asList(key);
+    }
+
+    /**
+     * Identical data samples.
+     */
+    private static class Group {
+
+        /** Total weight of data samples in a group. */
+        private final DoubleAdder weight = new DoubleAdder();
+
+        /** Row of the first data sample in a group. */
+        private final LongAccumulator firstRow = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    }
+
+}
@@ -19,6 +19,16 @@ public interface DataSample {
      * @return Data value.
      */
     Optional<Object> getValue(String column);
+
+    /**
+     * Same as {@link #getValue(String)} but returns null if value is missing. Used in training loops which read values
+     * of every row many times, so no {@link Optional} is created per read.
+     * 
+     * @return Data value or null.
+     */
+    default Object getValueOrNull(String column) {
+        return getValue(column).orElse(null);
+    }
     
     /**
      * Assigned label of training data.
@@ -26,6 +36,16 @@ public interface DataSample {
      * @return Label.
      */
     Label getLabel();
+
+    /**
+     * Weight of data sample. Data sample with weight 2 is counted in training the same way as two identical data
+     * samples, so repeated data samples can be kept as single weighted one.
+     * 
+     * @return Non negative weight. Default is 1.
+     */
+    default double getWeight() {
+        return 1.0;
+    }
     
     /**
      * Syntactic sugar to check if data has feature.
@@ -0,0 +1,271 @@
+package org.oak3ml.decisiontree.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.oak3ml.decisiontree.label.Label;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Read only view over shared training data where each data sample (row) has a multiplicity - number of times it was
+ * drawn into the view. Rows with multiplicity 0 are not part of the view. It allows to train many models (for example
+ * trees of a random forest) on different bootstrap samples while keeping a single copy of the data - each model only
+ * needs its own compact multiplicity array. Each row also has a real valued weight - by default it is weight of the
+ * data sample ({@link DataSample#getWeight()}), but view can override it (for example sample weights of boosting).
+ * Weight of a row in the view is its multiplicity multiplied by its weight.
+ *
+ * Labels are encoded to dense ids ({@link LabelDictionary}) once when view over data is created. Views derived from it
+ * (see {@link #withMultiplicities(byte[])}) share the same dictionary and label ids, so trees of an ensemble count
+ * labels in primitive arrays without hashing {@link Label} objects.
+ *
+ * @author Ignas
+ *
+ */
+public class DataView {
+
+    /** Shared data samples. */
+    private final List<DataSample> data;
+
+    /** Number of times each data sample is drawn into the view. If null every data sample is used exactly once. */
+    private final byte[] multiplicities;
+
+    /** Weight of each data sample. If null data samples own weights are used. */
+    private final double[] weights;
+
+    /** Dictionary of labels of data samples. */
+    private final LabelDictionary labelDictionary;
+
+    /** Label id of each data sample. */
+    private final int[] labelIds;
+
+    /**
+     * Private constructor. Encodes labels of data.
+     */
+    private DataView(List<DataSample> data, byte[] multiplicities, double[] weights) {
+        super();
+        this.data = data;
+        this.multiplicities = multiplicities;
+        this.weights = weights;
+        this.labelDictionary = LabelDictionary.newLabelDictionary();
+        this.labelIds = new int[data.size()];
+        for (int row = 0; row < labelIds.length; row++) {
+            labelIds[row] = labelDictionary.add(data.get(row).getLabel());
+        }
+    }
+
+    /**
+     * Private constructor of derived view which shares encoded labels.
+     */
+    private DataView(DataView view, byte[] multiplicities) {
+        super();
+        this.data = view.data;
+        this.multiplicities = multiplicities;
+        this.weights = view.weights;
+        this.labelDictionary = view.labelDictionary;
+        this.labelIds = view.labelIds;
+    }
+
+    /**
+     * Static factory method to create a view where every data sample is used once.
+     *
+     * @param data Data samples.
+     * @return New data view.
+     */
+    public static DataView newDataView(List<DataSample> data) {
+        Preconditions.checkNotNull(data);
+        return new DataView(data, null, null);
+    }
+
+    /**
+     * Static factory method to create a weighted view (for example bootstrap sample drawn with replacement).
+     *
+     * @param data Data samples.
+     * @param multiplicities Number of times each data sample is drawn into the view. Must be the same size as data.
+     * @return New data view.
+     */
+    public static DataView newDataView(List<DataSample> data, byte[] multiplicities) {
+        Preconditions.checkNotNull(data);
+        Preconditions.checkArgument(multiplicities == null || multiplicities.length == data.size());
+        return new DataView(data, multiplicities, null);
+    }
+
+    /**
+     * Static factory method to create a view where every data sample is used once with a given weight. Weights array is
+     * not copied, so the same view can be reused after weights are updated in place (as boosting does between rounds).
+     *
+     * @param data Data samples.
+     * @param weights Non negative weight of each data sample which replaces data sample own weight. Must be the same
+     *            size as data.
+     * @return New data view.
+     */
+    public static DataView newWeightedDataView(List<DataSample> data, double[] weights) {
+        Preconditions.checkNotNull(data);
+        Preconditions.checkArgument(weights == null || weights.length == data.size());
+        return new DataView(data, null, weights);
+    }
+
+    /**
+     * Static factory method to create a bootstrap sample - percentage * size of data samples drawn with replacement.
+     *
+     * @param data Data samples.
+     * @param percentage What part of data to draw. 1.0 is classical bootstrap.
+     * @param random Random number generator.
+     * @return New data view.
+     */
+    public static DataView newBootstrapSample(List<DataSample> data, double percentage, Random random) {
+        Preconditions.checkNotNull(data);
+        return new DataView(data, drawMultiplicities(data.size(), percentage, random), null);
+    }
+
+    /**
+     * Creates view over the same data with different multiplicities. Labels are not encoded again.
+     *
+     * @param multiplicities Number of times each data sample is drawn into the view. Must be the same size as data.
+     * @return New data view.
+     */
+    public DataView withMultiplicities(byte[] multiplicities) {
+        Preconditions.checkArgument(multiplicities == null || multiplicities.length == data.size());
+        return new DataView(this, multiplicities);
+    }
+
+    /**
+     * Draws bootstrap sample from the same data (see {@link #newBootstrapSample(List, double, Random)}). Labels are not
+     * encoded again.
+     *
+     * @param percentage What part of data to draw. 1.0 is classical bootstrap.
+     * @param random Random number generator.
+     * @return New data view.
+     */
+    public DataView drawBootstrapSample(double percentage, Random random) {
+        return withMultiplicities(drawMultiplicities(data.size(), percentage, random));
+    }
+
+    /**
+     * Draws percentage * size rows with replacement.
+     */
+    private static byte[] drawMultiplicities(int size, double percentage, Random random) {
+        byte[] multiplicities = new byte[size];
+        long nbOfDraws = Math.round(size * percentage);
+        for (long i = 0; i < nbOfDraws; i++) {
+            int row = random.nextInt(size);
+            if (multiplicities[row] < Byte.MAX_VALUE) { // practically never happens, but byte must not overflow
+                multiplicities[row]++;
+            }
+        }
+        return multiplicities;
+    }
+
+    /**
+     * @return Number of rows in underlying shared data (including the ones not drawn into this view).
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Get data sample in a row.
+     */
+    public DataSample get(int row) {
+        return data.get(row);
+    }
+
+    /**
+     * @return Shared data samples.
+     */
+    public List<DataSample> getData() {
+        return data;
+    }
+
+    /**
+     * Number of times data sample in a row is drawn into the view.
+     */
+    public int getMultiplicity(int row) {
+        return multiplicities == null ? 1 : multiplicities[row];
+    }
+
+    /**
+     * Weight of data sample in a row - its multiplicity multiplied by its weight.
+     */
+    public double getWeight(int row) {
+        return getMultiplicity(row) * (weights == null ? data.get(row).getWeight() : weights[row]);
+    }
+
+    /**
+     * Number of data samples a row stands for - its multiplicity multiplied by data sample own weight (deduplicated data
+     * sample keeps number of its copies as weight). Unlike {@link #getWeight(int)} weights of the view (for example
+     * sample weights of boosting) are ignored, so it can be compared with minimum number of data samples of a leaf.
+     */
+    public double getCount(int row) {
+        return getMultiplicity(row) * data.get(row).getWeight();
+    }
+
+    /**
+     * @return Rows which are part of this view (has weight more than 0).
+     */
+    public int[] getRows() {
+        return IntStream.range(0, data.size()).filter(row -> getWeight(row) > 0).toArray();
+    }
+
+    /**
+     * @return Dictionary of labels of data samples.
+     */
+    public LabelDictionary getLabelDictionary() {
+        return labelDictionary;
+    }
+
+    /**
+     * Label id of data sample in a row.
+     */
+    public int getLabelId(int row) {
+        return labelIds[row];
+    }
+
+    /**
+     * Count number of data samples for each label id in provided rows. Each row is counted with its weight (as many
+     * times as it was drawn into the view if view has no weights).
+     *
+     * @param rows Rows to count.
+     * @return Weighted count of each label id.
+     */
+    public double[] countLabels(int[] rows) {
+        double[] labelCounts = new double[labelDictionary.size()];
+        for (int row : rows) {
+            labelCounts[labelIds[row]] += getWeight(row);
+        }
+        return labelCounts;
+    }
+
+    /**
+     * Same as {@link #countLabels(int[])} but counts rows in range of index buffer into provided array, so nothing is
+     * allocated.
+     *
+     * @param rows Index buffer.
+     * @param from First position of rows to count.
+     * @param to Position after last row to count.
+     * @param labelCounts Output - weighted count of each label id. Array is cleared first.
+     * @return labelCounts.
+     */
+    public double[] countLabels(int[] rows, int from, int to, double[] labelCounts) {
+        Arrays.fill(labelCounts, 0.0);
+        for (int i = from; i < to; i++) {
+            labelCounts[labelIds[rows[i]]] += getWeight(rows[i]);
+        }
+        return labelCounts;
+    }
+
+    /**
+     * Same as {@link #countLabels(int[])} but counts are returned as a map of labels.
+     *
+     * @param rows Rows to count.
+     * @return Map of label and weighted count.
+     */
+    public Map<Label, Double> countNbOfSamples(int[] rows) {
+        return labelDictionary.toLabelCounts(countLabels(rows));
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.oak3ml.decisiontree.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * Loader of libsvm (svmlight) text files into {@link SparseDataset}. Each line is a data sample:
+ *
+ * label [qid:n] index:value index:value ... [# comment]
+ *
+ * Indexes are positive integers and become column names ("1", "2", ...). Column ids are assigned in ascending index
+ * order, so only indexes which occur in the file get a column. Zero values are not stored, query ids and comments are
+ * skipped, blank lines are skipped.
+ *
+ * @author Ignas
+ *
+ */
+public final class LibSvmLoader {
+
+    /** Initial capacity of non zero value arrays. */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private LibSvmLoader() {
+        super();
+    }
+
+    /**
+     * Loads libsvm file.
+     *
+     * @param file
+     *            Text file in libsvm format.
+     * @param labelParser
+     *            Converts label text (for example "+1" or "-1") to label.
+     * @return Sparse dataset.
+     * @throws IOException
+     *             If file can not be read.
+     */
+    public static SparseDataset load(Path file, Function<String, Label> labelParser) throws IOException {
+        List<Label> labels = Lists.newArrayList();
+        int[] rowOffsets = new int[INITIAL_CAPACITY + 1];
+        int[] indexes = new int[INITIAL_CAPACITY];
+        double[] values = new double[INITIAL_CAPACITY];
+        int nbOfNonZeros = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                String[] tokens = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+                if (tokens[0].isEmpty()) {
+                    continue;
+                }
+                labels.add(labelParser.apply(tokens[0]));
+                int rowStart = nbOfNonZeros;
+                for (int i = 1; i < tokens.length; i++) {
+                    int separator = tokens[i].indexOf(':');
+                    Preconditions.checkArgument(separator > 0, "Line %s: value %s is not index:value", lineNumber, tokens[i]);
+                    if (tokens[i].startsWith("qid:")) {
+                        continue;
+                    }
+                    int index = parseIndex(tokens[i].substring(0, separator), lineNumber);
+                    double value = Double.parseDouble(tokens[i].substring(separator + 1));
+                    if (value == 0.0) {
+                        continue;
+                    }
+                    if (nbOfNonZeros == indexes.length) {
+                        indexes = Arrays.copyOf(indexes, indexes.length * 2);
+                        values = Arrays.copyOf(values, values.length * 2);
+                    }
+                    indexes[nbOfNonZeros] = index;
+                    values[nbOfNonZeros++] = value;
+                }
+                sortRow(indexes, values, rowStart, nbOfNonZeros, lineNumber);
+                if (labels.size() == rowOffsets.length) {
+                    rowOffsets = Arrays.copyOf(rowOffsets, rowOffsets.length * 2);
+                }
+                rowOffsets[labels.size()] = nbOfNonZeros;
+            }
+        }
+
+        // indexes are replaced by column ids of distinct indexes in ascending order, rows stay sorted
+        int[] columnIndexes = Arrays.copyOf(indexes, nbOfNonZeros);
+        Arrays.sort(columnIndexes);
+        int nbOfColumns = 0;
+        for (int index : columnIndexes) {
+            if (nbOfColumns == 0 || columnIndexes[nbOfColumns - 1] != index) {
+                columnIndexes[nbOfColumns++] = index;
+            }
+        }
+        columnIndexes = Arrays.copyOf(columnIndexes, nbOfColumns);
+        for (int position = 0; position < nbOfNonZeros; position++) {
+            indexes[position] = Arrays.binarySearch(columnIndexes, indexes[position]);
+        }
+        String[] columnNames = Arrays.stream(columnIndexes).mapToObj(String::valueOf).toArray(String[]::new);
+        return SparseDataset.newSparseDataset(columnNames, Arrays.copyOf(rowOffsets, labels.size() + 1), Arrays.copyOf(indexes, nbOfNonZeros),
+                Arrays.copyOf(values, nbOfNonZeros), labels.toArray(new Label[labels.size()]), null);
+    }
+
+    private static int parseIndex(String index, int lineNumber) {
+        try {
+            int parsed = Integer.parseInt(index);
+            Preconditions.checkArgument(parsed > 0, "Line %s: index %s is not positive", lineNumber, index);
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Line %s: index %s is not a number", lineNumber, index), e);
+        }
+    }
+
+    /**
+     * Sorts values of a row by index. Rows of libsvm files are usually sorted already, so insertion sort does one pass.
+     */
+    private static void sortRow(int[] indexes, double[] values, int from, int to, int lineNumber) {
+        for (int i = from + 1; i < to; i++) {
+            int index = indexes[i];
+            double value = values[i];
+            int j = i - 1;
+            while (j >= from && indexes[j] > index) {
+                indexes[j + 1] = indexes[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            Preconditions.checkArgument(j < from || indexes[j] != index, "Line %s: index %s is repeated", lineNumber, index);
+            indexes[j + 1] = index;
+            values[j + 1] = value;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.oak3ml.decisiontree.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Column of {@link MappedDataset}. Values are read directly from memory mapped file, so column does not take heap
+ * memory except dictionary of string and label columns. Primitive getters do not create objects and should be used by
+ * code which reads values of every row many times, {@link #getValue(int)} boxes values for {@link DataSample} API.
+ *
+ * @author Ignas
+ *
+ */
+public class MappedColumn {
+
+    /**
+     * Type of column values.
+     */
+    public enum Type {
+
+        /** Integer values stored as 4 byte ints. */
+        INT(4),
+
+        /** Numbers stored as 8 byte doubles. */
+        DOUBLE(8),
+
+        /** Strings stored as 4 byte codes of dictionary. */
+        STRING(4),
+
+        /** Labels stored as 4 byte codes of dictionary. */
+        LABEL(4);
+
+        /** Bytes of each value. */
+        private final int width;
+
+        private Type(int width) {
+            this.width = width;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+    }
+
+    /** Column name. */
+    private final String name;
+
+    /** Type of values. */
+    private final Type type;
+
+    /** Mapped values, one per row. */
+    private final ByteBuffer values;
+
+    /** Mapped bit set of missing values or null if column has no missing values. */
+    private final ByteBuffer missing;
+
+    /** Values of codes of string and label columns, null for numeric columns. */
+    private final Object[] dictionary;
+
+    /**
+     * Package private constructor, columns are created by {@link MappedDataset}.
+     */
+    MappedColumn(String name, Type type, ByteBuffer values, ByteBuffer missing, Object[] dictionary) {
+        super();
+        this.name = name;
+        this.type = type;
+        this.values = values;
+        this.missing = missing;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @return True if value of the row is missing. Primitive getters return 0 for missing values.
+     */
+    public boolean isMissing(int row) {
+        return missing != null && (missing.get(row >>> 3) & (1 << (row & 7))) != 0;
+    }
+
+    /**
+     * @return Value of numeric column as double.
+     */
+    public double getDouble(int row) {
+        return type == Type.DOUBLE ? values.getDouble(row << 3) : getInt(row);
+    }
+
+    /**
+     * @return Value of int column or code of string and label column.
+     */
+    public int getInt(int row) {
+        return values.getInt(row << 2);
+    }
+
+    /**
+     * @return Boxed value or null if it is missing.
+     */
+    public Object getValue(int row) {
+        if (isMissing(row)) {
+            return null;
+        }
+        switch (type) {
+        case INT:
+            return values.getInt(row << 2);
+        case DOUBLE:
+            return values.getDouble(row << 3);
+        default:
+            return dictionary[values.getInt(row << 2)];
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return Values of codes of string and label column.
+     */
+    public Object[] getDictionary() {
+        return dictionary == null ? null : dictionary.clone();
+    }
+
+}
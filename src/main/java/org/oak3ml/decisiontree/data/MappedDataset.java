@@ -0,0 +1,207 @@
+package org.oak3ml.decisiontree.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+import org.oak3ml.decisiontree.data.MappedColumn.Type;
+import org.oak3ml.decisiontree.label.BooleanLabel;
+import org.oak3ml.decisiontree.label.IntLabel;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Data samples of binary columnar file written by {@link ColumnarDataWriter}. Columns are memory mapped with
+ * {@link FileChannel#map(MapMode, long, long)}, so opening a file only reads its directory and values are paged in by
+ * operating system when they are read. Data larger than heap can be used as long as it fits in address space. Datasets
+ * loaded by {@link CsvLoader} keep the same columns in direct buffers.
+ *
+ * Dataset is a list of data samples, so it is used everywhere data samples are (for example
+ * {@link DataView#newDataView(List)}). Data samples are created on each {@link #get(int)} and read values from
+ * columns, primitive values are available from {@link #getColumn(String)}.
+ *
+ * @author Ignas
+ *
+ */
+public class MappedDataset extends AbstractList<DataSample> implements RandomAccess {
+
+    /** Magic bytes at the start and at the end of the file ("OAK3COLS"). */
+    static final long MAGIC = 0x534c4f43334b414fL;
+
+    /** Number of rows. */
+    private final int size;
+
+    /** Columns by name in file order. */
+    private final Map<String, MappedColumn> columns;
+
+    /** Column of labels or null if data samples are not labeled. */
+    private final MappedColumn labelColumn;
+
+    /** Weights of data samples or null if all weights are 1. */
+    private final ByteBuffer weights;
+
+    /**
+     * Package private constructor, datasets are opened from columnar files or loaded by {@link CsvLoader}.
+     */
+    MappedDataset(int size, Map<String, MappedColumn> columns, MappedColumn labelColumn, ByteBuffer weights) {
+        super();
+        this.size = size;
+        this.columns = columns;
+        this.labelColumn = labelColumn;
+        this.weights = weights;
+    }
+
+    /**
+     * Maps columnar file. Mapping stays valid after file is closed, so no resources are kept open.
+     *
+     * @param file
+     *            File written by {@link ColumnarDataWriter}.
+     * @return Dataset.
+     * @throws IOException
+     *             If file can not be read.
+     */
+    public static MappedDataset open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            Preconditions.checkArgument(fileSize >= 24, "File %s is not a columnar data file", file);
+            ByteBuffer trailer = map(channel, fileSize - 16, 16);
+            Preconditions.checkArgument(trailer.getLong(8) == MAGIC, "File %s is not a columnar data file", file);
+            long directoryOffset = trailer.getLong(0);
+            ByteBuffer directory = map(channel, directoryOffset, fileSize - 16 - directoryOffset);
+
+            int size = directory.getInt();
+            int nbOfColumns = directory.getInt();
+            String labelColumnName = getString(directory);
+            long weightsOffset = directory.getLong();
+            Map<String, MappedColumn> columns = Maps.newLinkedHashMap();
+            for (int i = 0; i < nbOfColumns; i++) {
+                String name = getString(directory);
+                Type type = Type.values()[directory.getInt()];
+                long valuesOffset = directory.getLong();
+                long missingOffset = directory.getLong();
+                Object[] dictionary = new Object[directory.getInt()];
+                for (int code = 0; code < dictionary.length; code++) {
+                    dictionary[code] = type == Type.STRING ? getString(directory) : getLabel(directory);
+                }
+                ByteBuffer values = map(channel, valuesOffset, (long) size * type.getWidth());
+                ByteBuffer missing = missingOffset < 0 ? null : map(channel, missingOffset, (size + 7) >>> 3);
+                columns.put(name, new MappedColumn(name, type, values, missing,
+                        type == Type.INT || type == Type.DOUBLE ? null : dictionary));
+            }
+            ByteBuffer weights = weightsOffset < 0 ? null : map(channel, weightsOffset, (long) size * 8);
+            return new MappedDataset(size, columns, columns.get(labelColumnName), weights);
+        }
+    }
+
+    /**
+     * Maps read only section of the file.
+     */
+    private static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        Preconditions.checkArgument(length <= Integer.MAX_VALUE, "Column section of %s bytes is too large to map", length);
+        return channel.map(MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Label getLabel(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        int value = buffer.getInt();
+        return kind == ColumnarDataWriter.BOOLEAN_LABEL ? BooleanLabel.newLabel(value == 1) : IntLabel.newLabel(value);
+    }
+
+    /**
+     * @return Data sample of the row. It reads values from mapped columns.
+     */
+    @Override
+    public DataSample get(int row) {
+        Preconditions.checkElementIndex(row, size);
+        return new MappedDataSample(this, row);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Column or null if dataset has no such column.
+     */
+    public MappedColumn getColumn(String column) {
+        return columns.get(column);
+    }
+
+    /**
+     * @return Column names in file order.
+     */
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(Lists.newArrayList(columns.keySet()));
+    }
+
+    /**
+     * @return Weight of data sample of the row.
+     */
+    public double getWeight(int row) {
+        return weights == null ? 1.0 : weights.getDouble(row << 3);
+    }
+
+    /**
+     * Data sample which reads values of one row of mapped columns.
+     */
+    private static class MappedDataSample implements DataSample {
+
+        private final MappedDataset dataset;
+
+        private final int row;
+
+        MappedDataSample(MappedDataset dataset, int row) {
+            this.dataset = dataset;
+            this.row = row;
+        }
+
+        @Override
+        public Optional<Object> getValue(String column) {
+            return Optional.ofNullable(getValueOrNull(column));
+        }
+
+        @Override
+        public Object getValueOrNull(String column) {
+            MappedColumn mappedColumn = dataset.columns.get(column);
+            return mappedColumn == null ? null : mappedColumn.getValue(row);
+        }
+
+        @Override
+        public Label getLabel() {
+            return dataset.labelColumn == null ? null : (Label) dataset.labelColumn.getValue(row);
+        }
+
+        @Override
+        public double getWeight() {
+            return dataset.getWeight(row);
+        }
+
+        @Override
+        public String toString() {
+            return "MappedDataSample [row=" + row + "]";
+        }
+
+    }
+
+}
@@ -22,9 +22,13 @@ public class SimpleDataSample implements DataSample {
     /** Column name which contains data labels. */
     private String labelColumn;
     
-    private SimpleDataSample(String labelColumn, String[] header, Object... dataValues) {
+    /** Column name which contains data sample weight or null if data sample is not weighted. */
+    private String weightColumn;
+    
+    private SimpleDataSample(String labelColumn, String weightColumn, String[] header, Object... dataValues) {
         super();
         this.labelColumn = labelColumn;
+        this.weightColumn = weightColumn;
         for (int i = 0; i < header.length; i++) {
             this.values.put(header[i], dataValues[i]);
         }
@@ -34,18 +38,29 @@ public class SimpleDataSample implements DataSample {
     public Optional<Object> getValue(String column) {
         return Optional.ofNullable(values.get(column));
     }
+
+    @Override
+    public Object getValueOrNull(String column) {
+        return values.get(column);
+    }
     
     @Override
     public Label getLabel() {
         return (Label)values.get(labelColumn);
     }
+    
+    @Override
+    public double getWeight() {
+        Object weight = weightColumn == null ? null : values.get(weightColumn);
+        return weight == null ? 1.0 : ((Number)weight).doubleValue();
+    }
 
     /**
      * Create data sample without labels which is used on trained tree.
      */
     public static SimpleDataSample newClassificationDataSample(String[] header, Object... values) {
         Preconditions.checkArgument(header.length == values.length);
-        return new SimpleDataSample(null, header, values);
+        return new SimpleDataSample(null, null, header, values);
     }
 
     /**
@@ -56,7 +71,21 @@ public class SimpleDataSample implements DataSample {
      */
     public static SimpleDataSample newSimpleDataSample(String labelColumn, String[] header, Object... values) {
         Preconditions.checkArgument(header.length == values.length);
-        return new SimpleDataSample(labelColumn, header, values);
+        return new SimpleDataSample(labelColumn, null, header, values);
+    }
+
+    /**
+     * Create labeled data sample which has weight in one of the columns.
+     * 
+     * @param labelColumn Column which contains label.
+     * @param weightColumn Column which contains numeric weight. If value is missing weight is 1.
+     * @param header Column names.
+     * @param values Values of columns.
+     * @return Data sample.
+     */
+    public static SimpleDataSample newWeightedDataSample(String labelColumn, String weightColumn, String[] header, Object... values) {
+        Preconditions.checkArgument(header.length == values.length);
+        return new SimpleDataSample(labelColumn, weightColumn, header, values);
     }
 
     /**
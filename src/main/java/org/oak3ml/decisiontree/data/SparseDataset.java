@@ -0,0 +1,236 @@
+package org.oak3ml.decisiontree.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+/**
+ * Data samples of sparse numeric data in compressed sparse row (CSR) form. Only non zero values are stored - values of
+ * row r are at positions [getRowStart(r), getRowEnd(r)) of column id and value arrays, ordered by column id. Every
+ * other value of a known column is 0. Memory grows with number of non zero values, not with rows * columns, so wide
+ * one-hot or bag-of-words data fits where {@link SimpleDataSample}s do not.
+ *
+ * Dataset is a list of data samples, so it is used everywhere data samples are. Data samples are created on each
+ * {@link #get(int)} and find values by binary search in their row. Split finder evaluates
+ * {@link org.oak3ml.decisiontree.feature.SparseFeature}s of a sparse dataset from non zero values of node rows only.
+ *
+ * @author Ignas
+ *
+ */
+public class SparseDataset extends AbstractList<DataSample> implements RandomAccess {
+
+    /** Value of implicit zero. */
+    private static final Double ZERO = 0.0;
+
+    /** Name of each column id. */
+    private final String[] columnNames;
+
+    /** Column id of each name. */
+    private final Map<String, Integer> columnIds;
+
+    /** Position of the first non zero value of each row, and number of non zero values at the end. */
+    private final int[] rowOffsets;
+
+    /** Column id of each non zero value. */
+    private final int[] columns;
+
+    /** Non zero values. */
+    private final double[] values;
+
+    /** Label of each row or null if data samples are not labeled. */
+    private final Label[] labels;
+
+    /** Weight of each row or null if all weights are 1. */
+    private final double[] weights;
+
+    /**
+     * Private constructor.
+     */
+    private SparseDataset(String[] columnNames, int[] rowOffsets, int[] columns, double[] values, Label[] labels, double[] weights) {
+        super();
+        this.columnNames = columnNames;
+        this.columnIds = Maps.newHashMapWithExpectedSize(columnNames.length);
+        for (int column = 0; column < columnNames.length; column++) {
+            Preconditions.checkArgument(columnIds.put(columnNames[column], column) == null, "Duplicate column %s", columnNames[column]);
+        }
+        this.rowOffsets = rowOffsets;
+        this.columns = columns;
+        this.values = values;
+        this.labels = labels;
+        this.weights = weights;
+    }
+
+    /**
+     * Static factory method to create sparse dataset from CSR arrays. Arrays are not copied.
+     *
+     * @param columnNames Name of each column id.
+     * @param rowOffsets Position of the first non zero value of each row followed by number of non zero values
+     *            (size + 1 ascending offsets starting with 0).
+     * @param columns Column id of each non zero value, ascending within a row.
+     * @param values Non zero values.
+     * @param labels Label of each row or null.
+     * @param weights Weight of each row or null if all weights are 1.
+     * @return New sparse dataset.
+     */
+    public static SparseDataset newSparseDataset(String[] columnNames, int[] rowOffsets, int[] columns, double[] values, Label[] labels, double[] weights) {
+        Preconditions.checkArgument(rowOffsets.length > 0 && rowOffsets[0] == 0, "Row offsets must start with 0");
+        int size = rowOffsets.length - 1;
+        int nbOfNonZeros = rowOffsets[size];
+        Preconditions.checkArgument(columns.length == nbOfNonZeros && values.length == nbOfNonZeros, "There must be %s column ids and values", nbOfNonZeros);
+        Preconditions.checkArgument(labels == null || labels.length == size);
+        Preconditions.checkArgument(weights == null || weights.length == size);
+        for (int row = 0; row < size; row++) {
+            Preconditions.checkArgument(rowOffsets[row] <= rowOffsets[row + 1], "Row offsets must be ascending");
+            for (int position = rowOffsets[row]; position < rowOffsets[row + 1]; position++) {
+                Preconditions.checkElementIndex(columns[position], columnNames.length);
+                Preconditions.checkArgument(position == rowOffsets[row] || columns[position - 1] < columns[position],
+                        "Column ids of row %s must be ascending", row);
+            }
+        }
+        return new SparseDataset(columnNames, rowOffsets, columns, values, labels, weights);
+    }
+
+    /**
+     * @return Data sample of the row. It reads values from CSR arrays.
+     */
+    @Override
+    public DataSample get(int row) {
+        Preconditions.checkElementIndex(row, size());
+        return new SparseDataSample(this, row);
+    }
+
+    @Override
+    public int size() {
+        return rowOffsets.length - 1;
+    }
+
+    /**
+     * @return Column names by column id.
+     */
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(Arrays.asList(columnNames));
+    }
+
+    /**
+     * @return Id of column or -1 if dataset has no such column.
+     */
+    public int getColumnId(String column) {
+        Integer columnId = columnIds.get(column);
+        return columnId == null ? -1 : columnId;
+    }
+
+    /**
+     * @return Total number of non zero values.
+     */
+    public int getNbOfNonZeros() {
+        return rowOffsets[size()];
+    }
+
+    /**
+     * @return Position of the first non zero value of the row.
+     */
+    public int getRowStart(int row) {
+        return rowOffsets[row];
+    }
+
+    /**
+     * @return Position after the last non zero value of the row.
+     */
+    public int getRowEnd(int row) {
+        return rowOffsets[row + 1];
+    }
+
+    /**
+     * @return Column id of non zero value at position.
+     */
+    public int getColumnAt(int position) {
+        return columns[position];
+    }
+
+    /**
+     * @return Non zero value at position.
+     */
+    public double getValueAt(int position) {
+        return values[position];
+    }
+
+    /**
+     * Value of a column in a row.
+     *
+     * @return Stored value or 0 if row has no non zero value of the column.
+     */
+    public double getValue(int row, int columnId) {
+        int position = Arrays.binarySearch(columns, rowOffsets[row], rowOffsets[row + 1], columnId);
+        return position >= 0 ? values[position] : 0.0;
+    }
+
+    /**
+     * @return Label of data sample of the row.
+     */
+    public Label getLabel(int row) {
+        return labels == null ? null : labels[row];
+    }
+
+    /**
+     * @return Weight of data sample of the row.
+     */
+    public double getWeight(int row) {
+        return weights == null ? 1.0 : weights[row];
+    }
+
+    /**
+     * Data sample which reads values of one row of CSR arrays. Values of known columns are never missing.
+     */
+    private static class SparseDataSample implements DataSample {
+
+        private final SparseDataset dataset;
+
+        private final int row;
+
+        SparseDataSample(SparseDataset dataset, int row) {
+            this.dataset = dataset;
+            this.row = row;
+        }
+
+        @Override
+        public Optional<Object> getValue(String column) {
+            return Optional.ofNullable(getValueOrNull(column));
+        }
+
+        @Override
+        public Object getValueOrNull(String column) {
+            int columnId = dataset.getColumnId(column);
+            if (columnId < 0) {
+                return null;
+            }
+            double value = dataset.getValue(row, columnId);
+            return value == 0.0 ? ZERO : value;
+        }
+
+        @Override
+        public Label getLabel() {
+            return dataset.getLabel(row);
+        }
+
+        @Override
+        public double getWeight() {
+            return dataset.getWeight(row);
+        }
+
+        @Override
+        public String toString() {
+            return "SparseDataSample [row=" + row + "]";
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.oak3ml.decisiontree.data;
+
+import java.util.Optional;
+
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@link DataSample} which wraps another data sample and overrides its weight. For example single data sample which
+ * represents several identical data samples after deduplication (see {@link DataDeduplicator}).
+ *
+ * @author Ignas
+ *
+ */
+public class WeightedDataSample implements DataSample {
+
+    /** Wrapped data sample. */
+    private final DataSample dataSample;
+
+    /** Weight of data sample. */
+    private final double weight;
+
+    /**
+     * Private constructor.
+     */
+    private WeightedDataSample(DataSample dataSample, double weight) {
+        super();
+        this.dataSample = dataSample;
+        this.weight = weight;
+    }
+
+    /**
+     * Static factory method.
+     *
+     * @param dataSample Data sample to wrap.
+     * @param weight Non negative weight.
+     * @return Weighted data sample.
+     */
+    public static WeightedDataSample newWeightedDataSample(DataSample dataSample, double weight) {
+        Preconditions.checkNotNull(dataSample);
+        Preconditions.checkArgument(weight >= 0);
+        return new WeightedDataSample(dataSample, weight);
+    }
+
+    @Override
+    public Optional<Object> getValue(String column) {
+        return dataSample.getValue(column);
+    }
+
+    @Override
+    public Object getValueOrNull(String column) {
+        return dataSample.getValueOrNull(column);
+    }
+
+    @Override
+    public Label getLabel() {
+        return dataSample.getLabel();
+    }
+
+    @Override
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "WeightedDataSample [dataSample=" + dataSample + ", weight=" + weight + "]";
+    }
+
+}
@@ -3,12 +3,14 @@ package org.oak3ml.decisiontree.feature;
 import static java.util.stream.Collectors.groupingBy;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
 
 /**
  * Categorical feature can split data into multiple sublists each with separate category.
@@ -75,6 +77,55 @@ public class CategoricalFeature<T> implements Feature {
         return groupedMap;
     }
 
+    /**
+     * Splits into a branch per category, not by {@link #belongsTo(DataSample)}.
+     * 
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isBinary() {
+        return false;
+    }
+
+    /**
+     * More than 2 branches per split.
+     * 
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, int[]> split(DataView data, int[] rows) {
+        Map<String, Integer> groups = new HashMap<>();
+        List<String> groupNames = new ArrayList<>();
+        int[] rowGroups = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            Object value = data.get(rows[i]).getValueOrNull(column);
+            if (value != null && categories.contains(value)) {
+                Integer group = groups.get(value.toString());
+                if (group == null) {
+                    group = groupNames.size();
+                    groups.put(value.toString(), group);
+                    groupNames.add(value.toString());
+                }
+                rowGroups[i] = group;
+            } else {
+                rowGroups[i] = -1;
+            }
+        }
+        int[][] groupRows = RowGroups.group(rows, rowGroups, groupNames.size());
+        Map<String, int[]> groupedMap = new HashMap<>();
+        for (int group = 0; group < groupRows.length; group++) {
+            groupedMap.put(groupNames.get(group), groupRows[group]);
+        }
+        
+        for (T category : categories) { // keep empty branches the same way as split of data samples does
+            if (groupedMap.get(category.toString()) == null) {
+                groupedMap.put(category.toString(), new int[0]);
+            }
+        }
+        
+        return groupedMap;
+    }
+
     /**
      * Factory method to create new categorical feature with fixed set of categories.
      * 
@@ -2,10 +2,12 @@ package org.oak3ml.decisiontree.feature;
 
 import static java.util.stream.Collectors.groupingBy;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
 
 /**
  * Feature interface. Each data sample either have or does not have a feature and it can be split based on that.
@@ -41,4 +43,39 @@ public interface Feature {
         return data.parallelStream().collect(groupingBy(dataSample -> String.valueOf(belongsTo(dataSample))));
     }
 
+    /**
+     * Same as {@link #split(List)} but splits row numbers of shared data instead of copying data samples into sublists.
+     * 
+     * @param data
+     *            Shared data.
+     * @param rows
+     *            Rows of shared data to be split by this feature.
+     * @return Rows of each branch. Map key is name of branch (or edge).
+     */
+    default Map<String, int[]> split(DataView data, int[] rows) {
+        int[] rowGroups = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rowGroups[i] = belongsTo(data.get(rows[i])) ? 1 : 0;
+        }
+        int[][] groupRows = RowGroups.group(rows, rowGroups, 2);
+        Map<String, int[]> split = new HashMap<>();
+        for (int group = 0; group < 2; group++) {
+            if (groupRows[group].length > 0) {
+                split.put(String.valueOf(group == 1), groupRows[group]);
+            }
+        }
+        return split;
+    }
+
+    /**
+     * Binary feature splits into "true" and "false" branches by {@link #belongsTo(DataSample)} (default split). Trees
+     * evaluate and partition rows of binary features in place without calling split. Features which override split
+     * into other branches must return false.
+     * 
+     * @return true if feature splits by {@link #belongsTo(DataSample)}.
+     */
+    default boolean isBinary() {
+        return true;
+    }
+
 }
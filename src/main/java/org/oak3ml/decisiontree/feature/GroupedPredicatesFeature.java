@@ -2,12 +2,15 @@ package org.oak3ml.decisiontree.feature;
 
 import static java.util.stream.Collectors.groupingBy;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
 
 import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
 
 /**
  * This type of feature is similar to {@link CategoricalFeature} and can have multiple splits however its categories are a group of 
@@ -74,6 +77,37 @@ public class GroupedPredicatesFeature implements Feature {
     public Map<String, List<DataSample>> split(List<DataSample> data) {
         return data.parallelStream().filter(dataSample -> belongsTo(dataSample)).collect(groupingBy(dataSample -> findPredicateFeatureForDataSample(dataSample).toString()));
     }
+
+    /**
+     * Splits into a branch per predicate of the group, not by {@link #belongsTo(DataSample)}.
+     * 
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isBinary() {
+        return false;
+    }
+
+    /**
+     * More than 2 branches per split.
+     * 
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, int[]> split(DataView data, int[] rows) {
+        int[] rowGroups = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rowGroups[i] = findPredicateIndex(data.get(rows[i]));
+        }
+        int[][] groupRows = RowGroups.group(rows, rowGroups, predicateFeatures.size());
+        Map<String, int[]> split = new HashMap<>();
+        for (int group = 0; group < groupRows.length; group++) {
+            if (groupRows[group].length > 0) {
+                split.merge(predicateFeatures.get(group).toString(), groupRows[group], Ints::concat);
+            }
+        }
+        return split;
+    }
     
     /**
      * Find predicate (or bin) to which datasample belongs. Used when grouping in a split.
@@ -83,12 +117,20 @@ public class GroupedPredicatesFeature implements Feature {
      * @return String representation of Predicate to which data sample belongs.
      */
     public Feature findPredicateFeatureForDataSample(DataSample dataSample) {
-        for (Feature predicateFeature : predicateFeatures) {
-            if (predicateFeature.belongsTo(dataSample)) {
-                return predicateFeature;
+        int index = findPredicateIndex(dataSample);
+        return index >= 0 ? predicateFeatures.get(index) : null;
+    }
+
+    /**
+     * @return Index of first predicate to which data sample belongs or -1 if it belongs to none.
+     */
+    private int findPredicateIndex(DataSample dataSample) {
+        for (int i = 0; i < predicateFeatures.size(); i++) {
+            if (predicateFeatures.get(i).belongsTo(dataSample)) {
+                return i;
             }
         }
-        return null;
+        return -1;
     }
 
     /**
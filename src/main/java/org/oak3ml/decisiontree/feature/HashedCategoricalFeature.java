@@ -0,0 +1,350 @@
+package org.oak3ml.decisiontree.feature;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Categorical feature of a column with unbounded number of values (user agents, URLs). Instead of a branch per
+ * category (see {@link CategoricalFeature}) values are hashed into a fixed number of buckets and data is split into a
+ * branch per bucket, so neither training memory nor tree depends on number of distinct values. Values are hashed by
+ * their string form with 32 bit MurmurHash3 (fast, not cryptographic) and a seed, different seeds give different
+ * collisions.
+ *
+ * Only buckets which have data samples become branches. Data sample with missing value or with value of a bucket
+ * which had no training data samples stops at the node (see
+ * {@link org.oak3ml.decisiontree.Node#findChild(DataSample)}), the same as it would end in an empty leaf labeled with
+ * majority label of the node.
+ *
+ * How many values share a bucket is reported by {@link #getCollisionStatistics(List)}.
+ *
+ * @author Ignas
+ *
+ */
+public class HashedCategoricalFeature implements Feature {
+
+    /** Data column used by feature. */
+    private final String column;
+
+    /** Number of buckets. */
+    private final int nbOfBuckets;
+
+    /** Hash seed. */
+    private final int seed;
+
+    /** Hash function of values. */
+    private final HashFunction hashFunction;
+
+    /**
+     * Constructor.
+     */
+    private HashedCategoricalFeature(String column, int nbOfBuckets, int seed) {
+        super();
+        this.column = column;
+        this.nbOfBuckets = nbOfBuckets;
+        this.seed = seed;
+        this.hashFunction = Hashing.murmur3_32(seed);
+    }
+
+    /**
+     * Factory method to create hashed categorical feature with seed 0.
+     *
+     * @param column Data column.
+     * @param nbOfBuckets Number of buckets values are hashed into.
+     * @return New HashedCategoricalFeature.
+     */
+    public static HashedCategoricalFeature newFeature(String column, int nbOfBuckets) {
+        return newFeature(column, nbOfBuckets, 0);
+    }
+
+    /**
+     * Factory method to create hashed categorical feature.
+     *
+     * @param column Data column.
+     * @param nbOfBuckets Number of buckets values are hashed into.
+     * @param seed Hash seed.
+     * @return New HashedCategoricalFeature.
+     */
+    public static HashedCategoricalFeature newFeature(String column, int nbOfBuckets, int seed) {
+        Preconditions.checkArgument(nbOfBuckets >= 2, "There must be at least 2 buckets");
+        return new HashedCategoricalFeature(column, nbOfBuckets, seed);
+    }
+
+    /**
+     * Data sample has feature if its value is not missing.
+     */
+    @Override
+    public boolean belongsTo(DataSample dataSample) {
+        return dataSample.getValueOrNull(column) != null;
+    }
+
+    /**
+     * @return Bucket of value of data sample or -1 if value is missing.
+     */
+    public int getBucket(DataSample dataSample) {
+        Object value = dataSample.getValueOrNull(column);
+        return value != null ? getBucket(value) : -1;
+    }
+
+    /**
+     * @return Bucket of value.
+     */
+    public int getBucket(Object value) {
+        return Math.floorMod(hashFunction.hashUnencodedChars(value.toString()).asInt(), nbOfBuckets);
+    }
+
+    /**
+     * Branch per bucket which has data samples, in bucket order.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, List<DataSample>> split(List<DataSample> data) {
+        Map<Integer, List<DataSample>> buckets = new TreeMap<>();
+        for (DataSample dataSample : data) {
+            int bucket = getBucket(dataSample);
+            if (bucket >= 0) {
+                buckets.computeIfAbsent(bucket, b -> Lists.newArrayList()).add(dataSample);
+            }
+        }
+        Map<String, List<DataSample>> split = new LinkedHashMap<>();
+        buckets.forEach((bucket, bucketData) -> split.put(String.valueOf(bucket), bucketData));
+        return split;
+    }
+
+    /**
+     * Branch per bucket which has rows, in bucket order. Bucket and position of each row are packed into one long and
+     * sorted, so no row is boxed and split cost depends only on number of rows, not on number of buckets.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, int[]> split(DataView data, int[] rows) {
+        long[] bucketPositions = new long[rows.length];
+        int nbOfPresent = 0;
+        for (int i = 0; i < rows.length; i++) {
+            int bucket = getBucket(data.get(rows[i]));
+            if (bucket >= 0) {
+                bucketPositions[nbOfPresent++] = (long) bucket << 32 | i;
+            }
+        }
+        Arrays.sort(bucketPositions, 0, nbOfPresent);
+        Map<String, int[]> split = new LinkedHashMap<>();
+        for (int start = 0; start < nbOfPresent;) {
+            int bucket = (int) (bucketPositions[start] >>> 32);
+            int end = start + 1;
+            while (end < nbOfPresent && (int) (bucketPositions[end] >>> 32) == bucket) {
+                end++;
+            }
+            int[] bucketRows = new int[end - start];
+            for (int i = start; i < end; i++) {
+                bucketRows[i - start] = rows[(int) bucketPositions[i]];
+            }
+            split.put(String.valueOf(bucket), bucketRows);
+            start = end;
+        }
+        return split;
+    }
+
+    /**
+     * Splits into a branch per bucket, not by {@link #belongsTo(DataSample)}.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isBinary() {
+        return false;
+    }
+
+    /**
+     * Counts how distinct values of data share buckets. Values are told apart by 64 bit fingerprints (128 bit
+     * MurmurHash3) kept in a sorted primitive array of at most 4 slots of 8 bytes per distinct value, instead of the
+     * values or boxed fingerprints, plus a count per bucket. Data is read twice: first pass collects
+     * distinct fingerprints, second pass counts each of them once in its bucket. It is meant for reporting - training
+     * does not need it.
+     *
+     * @param data Data samples.
+     * @return Collision statistics.
+     */
+    public CollisionStatistics getCollisionStatistics(List<DataSample> data) {
+        HashFunction fingerprintFunction = Hashing.murmur3_128(seed);
+        long[] fingerprints = new long[16];
+        int nbOfFingerprints = 0;
+        for (DataSample dataSample : data) {
+            Object value = dataSample.getValueOrNull(column);
+            if (value != null) {
+                if (nbOfFingerprints == fingerprints.length) {
+                    // repeated values are removed before array grows, so it grows only with distinct values
+                    nbOfFingerprints = sortDistinct(fingerprints, nbOfFingerprints);
+                    if (nbOfFingerprints > fingerprints.length / 2) {
+                        fingerprints = Arrays.copyOf(fingerprints, fingerprints.length * 2);
+                    }
+                }
+                fingerprints[nbOfFingerprints++] = fingerprintFunction.hashUnencodedChars(value.toString()).asLong();
+            }
+        }
+        nbOfFingerprints = sortDistinct(fingerprints, nbOfFingerprints);
+
+        BitSet counted = new BitSet(nbOfFingerprints);
+        int[] valuesPerBucket = new int[nbOfBuckets];
+        for (DataSample dataSample : data) {
+            Object value = dataSample.getValueOrNull(column);
+            if (value != null) {
+                int index = Arrays.binarySearch(fingerprints, 0, nbOfFingerprints, fingerprintFunction.hashUnencodedChars(value.toString()).asLong());
+                if (!counted.get(index)) {
+                    counted.set(index);
+                    valuesPerBucket[getBucket(value)]++;
+                }
+            }
+        }
+        return new CollisionStatistics(nbOfBuckets, valuesPerBucket);
+    }
+
+    /**
+     * Sorts first values of array and removes repeated ones.
+     *
+     * @return Number of distinct values at the start of array.
+     */
+    private static int sortDistinct(long[] values, int size) {
+        Arrays.sort(values, 0, size);
+        int nbOfDistinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (nbOfDistinct == 0 || values[i] != values[nbOfDistinct - 1]) {
+                values[nbOfDistinct++] = values[i];
+            }
+        }
+        return nbOfDistinct;
+    }
+
+    /**
+     * @return Number of buckets.
+     */
+    public int getNbOfBuckets() {
+        return nbOfBuckets;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("%s hashed into %s buckets", column, nbOfBuckets);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return (31 * column.hashCode() + nbOfBuckets) * 31 + seed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        HashedCategoricalFeature other = (HashedCategoricalFeature) obj;
+        return column.equals(other.column) && nbOfBuckets == other.nbOfBuckets && seed == other.seed;
+    }
+
+    /**
+     * How distinct values are spread over buckets.
+     */
+    public static class CollisionStatistics {
+
+        private final int nbOfBuckets;
+
+        private final int nbOfValues;
+
+        private final int nbOfUsedBuckets;
+
+        private final int nbOfCollidingValues;
+
+        private final int maxValuesPerBucket;
+
+        CollisionStatistics(int nbOfBuckets, int[] valuesPerBucket) {
+            this.nbOfBuckets = nbOfBuckets;
+            this.nbOfValues = Arrays.stream(valuesPerBucket).sum();
+            this.nbOfUsedBuckets = (int) Arrays.stream(valuesPerBucket).filter(values -> values > 0).count();
+            this.nbOfCollidingValues = Arrays.stream(valuesPerBucket).filter(values -> values > 1).sum();
+            this.maxValuesPerBucket = Arrays.stream(valuesPerBucket).max().orElse(0);
+        }
+
+        public int getNbOfBuckets() {
+            return nbOfBuckets;
+        }
+
+        /**
+         * @return Number of distinct values.
+         */
+        public int getNbOfValues() {
+            return nbOfValues;
+        }
+
+        /**
+         * @return Number of buckets which have at least one value.
+         */
+        public int getNbOfUsedBuckets() {
+            return nbOfUsedBuckets;
+        }
+
+        /**
+         * @return Number of values which share their bucket with another value.
+         */
+        public int getNbOfCollidingValues() {
+            return nbOfCollidingValues;
+        }
+
+        /**
+         * @return Largest number of values of one bucket.
+         */
+        public int getMaxValuesPerBucket() {
+            return maxValuesPerBucket;
+        }
+
+        /**
+         * @return Part of values which share their bucket with another value.
+         */
+        public double getCollisionRate() {
+            return nbOfValues > 0 ? (double) nbOfCollidingValues / nbOfValues : 0.0;
+        }
+
+        /**
+         * @return Number of colliding values expected with uniform hashing of this number of values.
+         */
+        public double getExpectedCollidingValues() {
+            return nbOfValues - nbOfValues * Math.pow(1 - 1.0 / nbOfBuckets, nbOfValues - 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s values in %s of %s buckets, %s values collide (%.1f%%, %.1f expected), at most %s values per bucket", nbOfValues,
+                    nbOfUsedBuckets, nbOfBuckets, nbOfCollidingValues, 100 * getCollisionRate(), getExpectedCollidingValues(), maxValuesPerBucket);
+        }
+    }
+
+}
@@ -30,6 +30,13 @@ public class P {
         return new PredicateWithName<Double>(p -> p <= value, String.format("<= %s", value));
     }
 
+    /**
+     * Works on any numeric type (Integer, Double, Long...) data.
+     */
+    public static PredicateWithName<Number> lessThanOrEqualNumber(double value) {
+        return new PredicateWithName<Number>(p -> p.doubleValue() <= value, String.format("<= %s", value));
+    }
+
     public static PredicateWithName<Integer> moreThan(int value) {
         return new PredicateWithName<Integer>(p -> p > value, String.format("> %s", value));
     }
@@ -1,6 +1,5 @@
 package org.oak3ml.decisiontree.feature;
 
-import java.util.Optional;
 import java.util.function.Predicate;
 
 import org.oak3ml.decisiontree.data.DataSample;
@@ -48,8 +47,8 @@ public class PredicateFeature<T> implements Feature {
     @SuppressWarnings("unchecked")
     @Override
     public boolean belongsTo(DataSample dataSample) { // TODO implement other splits (in different type of feature)
-        Optional<Object> optionalValue = dataSample.getValue(column);
-        return optionalValue.isPresent() ? predicate.test((T)optionalValue.get()) : false;
+        Object value = dataSample.getValueOrNull(column);
+        return value != null ? predicate.test((T)value) : false;
     }
 
     /**
@@ -0,0 +1,45 @@
+package org.oak3ml.decisiontree.feature;
+
+/**
+ * Groups rows of a split by counting sort, so splitting rows does not box a row or allocate per row.
+ *
+ * @author Ignas
+ *
+ */
+final class RowGroups {
+
+    private RowGroups() {
+        super();
+    }
+
+    /**
+     * @param rows
+     *            Rows to group.
+     * @param rowGroups
+     *            Group of each row in [0, nbOfGroups) or -1 if row belongs to no group.
+     * @param nbOfGroups
+     *            Number of groups.
+     * @return Rows of each group in their original order, empty array for a group without rows.
+     */
+    static int[][] group(int[] rows, int[] rowGroups, int nbOfGroups) {
+        int[] groupSizes = new int[nbOfGroups];
+        for (int group : rowGroups) {
+            if (group >= 0) {
+                groupSizes[group]++;
+            }
+        }
+        int[][] groupRows = new int[nbOfGroups][];
+        for (int group = 0; group < nbOfGroups; group++) {
+            groupRows[group] = new int[groupSizes[group]];
+        }
+        int[] positions = new int[nbOfGroups];
+        for (int i = 0; i < rows.length; i++) {
+            int group = rowGroups[i];
+            if (group >= 0) {
+                groupRows[group][positions[group]++] = rows[i];
+            }
+        }
+        return groupRows;
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.oak3ml.decisiontree.feature;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.SparseDataset;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Binary feature of sparse numeric column - data sample has it if column value is more than a non negative threshold.
+ * Implicit zeros never have it, so on {@link SparseDataset} split histogram of the feature is counted from non zero
+ * values only and the "false" branch is node minus "true" branch. Indicator (one-hot, bag-of-words) feature has
+ * threshold 0.
+ *
+ * Feature works on any data samples, missing and non numeric values do not have it.
+ *
+ * @author Ignas
+ *
+ */
+public class SparseFeature implements Feature {
+
+    /** Data column used by feature. */
+    private final String column;
+
+    /** Values more than threshold have feature. */
+    private final double threshold;
+
+    /**
+     * Constructor.
+     */
+    private SparseFeature(String column, double threshold) {
+        super();
+        this.column = column;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Static factory method to create a feature of values more than threshold.
+     *
+     * @param column Column to use in data.
+     * @param threshold Non negative threshold.
+     * @return New feature.
+     */
+    public static SparseFeature newFeature(String column, double threshold) {
+        Preconditions.checkArgument(threshold >= 0, "Threshold of sparse feature must not be negative so zeros do not have it");
+        return new SparseFeature(column, threshold);
+    }
+
+    /**
+     * Static factory method to create an indicator feature - positive values have it.
+     *
+     * @param column Column to use in data.
+     * @return New feature.
+     */
+    public static SparseFeature newFeature(String column) {
+        return newFeature(column, 0.0);
+    }
+
+    /**
+     * Creates indicator feature of each column of sparse dataset.
+     *
+     * @param data Sparse dataset.
+     * @return Features in column id order.
+     */
+    public static List<Feature> newFeatures(SparseDataset data) {
+        return data.getColumnNames().stream().map(SparseFeature::newFeature).collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean belongsTo(DataSample dataSample) {
+        Object value = dataSample.getValueOrNull(column);
+        return value instanceof Number && ((Number) value).doubleValue() > threshold;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return Values more than threshold have feature.
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("%s > %s", column, threshold);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return 31 * column.hashCode() + Double.hashCode(threshold);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        SparseFeature other = (SparseFeature) obj;
+        return column.equals(other.column) && Double.compare(threshold, other.threshold) == 0;
+    }
+
+}
@@ -2,11 +2,7 @@ package org.oak3ml.decisiontree.impurity;
 
 import static com.google.common.math.DoubleMath.log2;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
-import org.oak3ml.decisiontree.data.DataSample;
-import org.oak3ml.decisiontree.label.Label;
+import java.util.Arrays;
 
 /**
  * Entropy calculator. -p log2 p - (1 - p)log2(1 - p) - this is the expected information, in bits, conveyed by somebody
@@ -22,16 +18,19 @@ public class EntropyCalculationMethod implements ImpurityCalculationMethod {
      * {@inheritDoc}
      */
     @Override
-    public double calculateImpurity(List<DataSample> splitData) {
-        List<Label> labels = splitData.parallelStream().map(data -> data.getLabel()).distinct().collect(Collectors.toList());
-        if (labels.size() > 1) {
+    public double calculateImpurity(double[] labelCounts) {
+        int nbOfLabels = getNbOfLabels(labelCounts);
+        if (nbOfLabels > 1) {
+            double totalCount = Arrays.stream(labelCounts).sum();
             double multiLabelImpurity = 0.0;
-            for (int i = 0; i < labels.size(); i++) {
-                double p = getEmpiricalProbability(splitData, labels.get(i));
-                multiLabelImpurity += -1.0 * p * log2(p);
+            for (double labelCount : labelCounts) {
+                if (labelCount > 0) {
+                    double p = labelCount / totalCount;
+                    multiLabelImpurity += -1.0 * p * log2(p);
+                }
             }
             return multiLabelImpurity;
-        } else if (labels.size() == 1) {
+        } else if (nbOfLabels == 1) {
             return 0.0; // if only one label data is pure
         } else {
             throw new IllegalStateException("Split sublist is empty. This should never happen. Probably a bug.");
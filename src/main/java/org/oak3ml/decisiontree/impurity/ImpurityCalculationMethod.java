@@ -1,5 +1,9 @@
 package org.oak3ml.decisiontree.impurity;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.summingDouble;
+
+import java.util.Arrays;
 import java.util.List;
 
 import org.oak3ml.decisiontree.data.DataSample;
@@ -19,26 +23,49 @@ import org.oak3ml.decisiontree.label.Label;
 @FunctionalInterface
 public interface ImpurityCalculationMethod {
 
+    /**
+     * Calculates impurity value from counted labels. High impurity implies low information gain and more random labels
+     * of data which in turn means that split is not very good. Counts can be weighted (for example by number of times
+     * data sample is drawn into a bootstrap sample) so data samples do not have to be copied to be counted several times.
+     * 
+     * @param labelCounts
+     *            Number (or total weight) of data samples of each label in data subset. Order of labels does not matter.
+     * 
+     * @return Impurity measure. 0 means it is pure and higher means it is impure. With entropy 1.0 and with Gini index 0.5 means data is totally random.
+     */
+    double calculateImpurity(double[] labelCounts);
+
     /**
      * Calculates impurity value. High impurity implies low information gain and more random labels of data which in
-     * turn means that split is not very good.
+     * turn means that split is not very good. Data samples are counted with their weights.
      * 
      * @param splitData
      *            Data subset on which impurity is calculated.
      * 
      * @return Impurity measure. 0 means it is pure and higher means it is impure. With entropy 1.0 and with Gini index 0.5 means data is totally random.
      */
-    double calculateImpurity(List<DataSample> splitData);
+    default double calculateImpurity(List<DataSample> splitData) {
+        return calculateImpurity(splitData.stream().collect(groupingBy(DataSample::getLabel, summingDouble(DataSample::getWeight))).values().stream().mapToDouble(Double::doubleValue).toArray());
+    }
 
     
     /**
-     * Calculate and return empirical probability. For formula is: empiricalProbability = # of labels = Label / # of total samples.
+     * Calculate and return empirical probability. For formula is: empiricalProbability = weight of labels = Label / weight of total samples.
+     * Unweighted data samples have weight 1, so it is the same as counting them.
      * 
      * @param splitData Data on which positive label probability is calculated.
      * @return Empirical probability.
      */
     default double getEmpiricalProbability(List<DataSample> splitData, Label label) {
         // TODO Performance cache calculated counts
-        return (double)splitData.parallelStream().filter(d -> d.getLabel().equals(label)).count() / splitData.size();
+        double labelWeight = splitData.parallelStream().filter(d -> d.getLabel().equals(label)).mapToDouble(DataSample::getWeight).sum();
+        return labelWeight / splitData.parallelStream().mapToDouble(DataSample::getWeight).sum();
+    }
+
+    /**
+     * Number of labels which has at least one data sample.
+     */
+    default int getNbOfLabels(double[] labelCounts) {
+        return (int) Arrays.stream(labelCounts).filter(count -> count > 0).count();
     }
 }
@@ -1,10 +1,6 @@
 package org.oak3ml.decisiontree.impurity;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
-import org.oak3ml.decisiontree.data.DataSample;
-import org.oak3ml.decisiontree.label.Label;
+import java.util.Arrays;
 
 /**
  * Entropy calculator. -p log2 p - (1 - p)log2(1 - p) - this is the expected information, in bits, conveyed by somebody
@@ -22,12 +18,13 @@ public class MinorityClassCalculationMethod implements ImpurityCalculationMethod
      * {@inheritDoc}
      */
     @Override
-    public double calculateImpurity(List<DataSample> splitData) {
-        List<Label> labels = splitData.parallelStream().map(data -> data.getLabel()).distinct().collect(Collectors.toList());
-        if (labels.size() > 1) {
-            double p = getEmpiricalProbability(splitData, labels.get(0)); // TODO fix to multiple labels
+    public double calculateImpurity(double[] labelCounts) {
+        int nbOfLabels = getNbOfLabels(labelCounts);
+        if (nbOfLabels > 1) {
+            double totalCount = Arrays.stream(labelCounts).sum();
+            double p = Arrays.stream(labelCounts).filter(count -> count > 0).findFirst().getAsDouble() / totalCount; // TODO fix to multiple labels
             return Math.min(p, 1.0 - p);
-        } else if (labels.size() == 1) {
+        } else if (nbOfLabels == 1) {
             return 0.0; // if only one label data is pure
         } else {
             throw new IllegalStateException("Split sublist is empty. This should never happen. Probably a bug.");
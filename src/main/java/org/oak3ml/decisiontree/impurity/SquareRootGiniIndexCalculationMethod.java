@@ -2,11 +2,7 @@ package org.oak3ml.decisiontree.impurity;
 
 import static java.lang.Math.sqrt;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
-import org.oak3ml.decisiontree.data.DataSample;
-import org.oak3ml.decisiontree.label.Label;
+import java.util.Arrays;
 
 /**
  * Gini index impurity calculation. Formula 2p(1 - p) - this is the expected error if we label examples in the leaf
@@ -22,16 +18,17 @@ public class SquareRootGiniIndexCalculationMethod implements ImpurityCalculation
      * {@inheritDoc}
      */
     @Override
-    public double calculateImpurity(List<DataSample> splitData) {
-        List<Label> labels = splitData.parallelStream().map(data -> data.getLabel()).distinct().collect(Collectors.toList()); // TODO possible performance optimization
-        if (labels.size() > 1) {
+    public double calculateImpurity(double[] labelCounts) {
+        int nbOfLabels = getNbOfLabels(labelCounts);
+        if (nbOfLabels > 1) {
+            double totalCount = Arrays.stream(labelCounts).sum();
             double multiLabelImpurity = 0.0;
-            for (int i = 0; i < labels.size(); i++) {
-                double p = getEmpiricalProbability(splitData, labels.get(i));
+            for (double labelCount : labelCounts) {
+                double p = labelCount / totalCount;
                 multiLabelImpurity += p * (1 - p);
             }
             return sqrt(multiLabelImpurity);
-        } else if (labels.size() == 1) {
+        } else if (nbOfLabels == 1) {
             return 0.0; // if only one label data is pure
         } else {
             throw new IllegalStateException("Split sublist is empty. This should never happen. Probably a bug.");
@@ -0,0 +1,83 @@
+package org.oak3ml.decisiontree.impurity;
+
+/**
+ * Running statistics of numeric target used by regression trees - total weight, weighted sum and weighted sum of
+ * squares. Impurity of regression node is sum of squared errors (weighted variance multiplied by total weight) which can
+ * be calculated from these three sums in O(1), so statistics of one side of a split can be updated by adding single
+ * data sample and statistics of the other side found by subtracting from totals.
+ *
+ * @author Ignas
+ *
+ */
+public class TargetStatistics {
+
+    /** Total weight. */
+    private double weight;
+
+    /** Weighted sum of target values. */
+    private double sum;
+
+    /** Weighted sum of squared target values. */
+    private double sumOfSquares;
+
+    /**
+     * Adds target value of data sample.
+     *
+     * @param target Target value.
+     * @param sampleWeight Weight of data sample.
+     */
+    public void add(double target, double sampleWeight) {
+        weight += sampleWeight;
+        sum += sampleWeight * target;
+        sumOfSquares += sampleWeight * target * target;
+    }
+
+    /**
+     * @return Total weight.
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return Weighted sum of target values.
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return Weighted sum of squared target values.
+     */
+    public double getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    /**
+     * @return Weighted mean of target values or 0 if there are no data samples.
+     */
+    public double getMean() {
+        return weight > 0 ? sum / weight : 0.0;
+    }
+
+    /**
+     * @return Sum of squared errors from mean.
+     */
+    public double getSumOfSquaredErrors() {
+        return sumOfSquaredErrors(weight, sum, sumOfSquares);
+    }
+
+    /**
+     * Sum of squared errors from mean calculated from running sums.
+     *
+     * @param weight Total weight.
+     * @param sum Weighted sum of target values.
+     * @param sumOfSquares Weighted sum of squared target values.
+     * @return Sum of squared errors. 0 if there are no data samples.
+     */
+    public static double sumOfSquaredErrors(double weight, double sum, double sumOfSquares) {
+        // rounding can make it slightly negative for constant targets
+        return weight > 0 ? Math.max(0.0, sumOfSquares - sum * sum / weight) : 0.0;
+    }
+
+}
@@ -8,9 +8,9 @@ package org.oak3ml.decisiontree.label;
  */
 public class BooleanLabel extends Label {
 
-    public static final Label TRUE_LABEL = BooleanLabel.newLabel(true);
+    public static final Label TRUE_LABEL = new BooleanLabel(true);
 
-    public static final Label FALSE_LABEL = BooleanLabel.newLabel(false);
+    public static final Label FALSE_LABEL = new BooleanLabel(false);
 
     /** Label. */
     private boolean label;
@@ -40,10 +40,10 @@ public class BooleanLabel extends Label {
     }
 
     /**
-     * Static factory method.
+     * Static factory method. There are only two boolean labels, so shared instances are returned.
      */
     public static Label newLabel(Boolean label) {
-        return new BooleanLabel(label);
+        return label ? TRUE_LABEL : FALSE_LABEL;
     }
 
     /**
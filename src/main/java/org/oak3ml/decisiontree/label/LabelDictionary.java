@@ -0,0 +1,126 @@
+package org.oak3ml.decisiontree.label;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Maps each distinct {@link Label} to a dense int id (0, 1, 2, ... in order labels were first added). Labels are hashed
+ * only once when data is loaded - training, impurity calculation and voting work with ids and primitive count arrays
+ * indexed by id, and ids are converted back to labels only when result is returned to the user.
+ *
+ * Dictionary is filled once and then only read, so it can be shared by all models trained on the same data.
+ *
+ * @author Ignas
+ *
+ */
+public class LabelDictionary {
+
+    /** Id of label which is not in the dictionary. */
+    public static final int UNKNOWN_ID = -1;
+
+    /** Label ids. */
+    private final Map<Label, Integer> ids = Maps.newHashMap();
+
+    /** Labels by id. */
+    private final List<Label> labels = Lists.newArrayList();
+
+    /**
+     * Private constructor.
+     */
+    private LabelDictionary() {
+        super();
+    }
+
+    /**
+     * Static factory method.
+     *
+     * @return Empty dictionary.
+     */
+    public static LabelDictionary newLabelDictionary() {
+        return new LabelDictionary();
+    }
+
+    /**
+     * Adds label to the dictionary if it is not there yet.
+     *
+     * @param label Label.
+     * @return Id of label.
+     */
+    public int add(Label label) {
+        Integer id = ids.get(label);
+        if (id == null) {
+            id = labels.size();
+            ids.put(label, id);
+            labels.add(label);
+        }
+        return id;
+    }
+
+    /**
+     * @param label Label.
+     * @return Id of label or {@link #UNKNOWN_ID} if label is not in the dictionary.
+     */
+    public int getId(Label label) {
+        Integer id = ids.get(label);
+        return id == null ? UNKNOWN_ID : id;
+    }
+
+    /**
+     * @param id Label id.
+     * @return Label with id.
+     */
+    public Label getLabel(int id) {
+        return labels.get(id);
+    }
+
+    /**
+     * @return Labels ordered by id.
+     */
+    public List<Label> getLabels() {
+        return Collections.unmodifiableList(labels);
+    }
+
+    /**
+     * @return Number of labels.
+     */
+    public int size() {
+        return labels.size();
+    }
+
+    /**
+     * Converts count array indexed by label id to a map. Labels with zero count are left out.
+     *
+     * @param labelCounts Count (or total weight) of each label id.
+     * @return Map of label and count.
+     */
+    public Map<Label, Double> toLabelCounts(double[] labelCounts) {
+        Map<Label, Double> countedSamples = Maps.newHashMap();
+        for (int id = 0; id < labelCounts.length; id++) {
+            if (labelCounts[id] > 0) {
+                countedSamples.put(labels.get(id), labelCounts[id]);
+            }
+        }
+        return countedSamples;
+    }
+
+    /**
+     * Id of label with the largest count. If there is a tie label with lower id (seen first) wins.
+     *
+     * @param labelCounts Count (or total weight) of each label id.
+     * @return Label id or {@link #UNKNOWN_ID} if there are no counts.
+     */
+    public static int getMajorityId(double[] labelCounts) {
+        int majorityId = UNKNOWN_ID;
+        for (int id = 0; id < labelCounts.length; id++) {
+            if (labelCounts[id] > 0 && (majorityId == UNKNOWN_ID || labelCounts[id] > labelCounts[majorityId])) {
+                majorityId = id;
+            }
+        }
+        return majorityId;
+    }
+
+}
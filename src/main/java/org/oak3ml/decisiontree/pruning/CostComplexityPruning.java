@@ -0,0 +1,260 @@
+package org.oak3ml.decisiontree.pruning;
+
+import static java.util.Comparator.comparingDouble;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.DoubleStream;
+
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.Node;
+import org.oak3ml.decisiontree.data.DataSample;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * Minimal cost-complexity pruning (CART). Cost of a tree is its training error plus alpha for each leaf:
+ *
+ * R_alpha(T) = R(T) + alpha * |leaves(T)|
+ *
+ * For each alpha there is the smallest subtree with minimal cost and subtrees of growing alpha are nested. Instead of
+ * pruning weakest links one at a time, alpha at which each node is pruned to a leaf is found in one bottom-up pass:
+ * cost of a subtree is a piecewise linear function of alpha which changes slope whenever one of its descendants
+ * collapses, so each node merges collapses of its children (ordered by alpha) and finds where its subtree becomes
+ * more expensive than the node alone. Training error of each node is read from its label counts, it is a part of all
+ * training data samples, so alpha is a part of data samples per leaf.
+ *
+ * Alpha is either fixed or chosen from the alpha path by the lowest error on validation data (if errors are equal
+ * larger alpha, so smaller tree, wins).
+ *
+ * @author Ignas
+ *
+ */
+public class CostComplexityPruning implements PruningMethod {
+
+    /** Fixed alpha or null if it is chosen by validation error. */
+    private final Double alpha;
+
+    /**
+     * Constructor of pruning which chooses alpha by validation error.
+     */
+    public CostComplexityPruning() {
+        super();
+        this.alpha = null;
+    }
+
+    /**
+     * Constructor of pruning with fixed alpha. Validation data is not needed.
+     *
+     * @param alpha Cost of a leaf (part of training data samples).
+     */
+    public CostComplexityPruning(double alpha) {
+        super();
+        Preconditions.checkArgument(alpha >= 0);
+        this.alpha = alpha;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prune(DecisionTree tree, List<DataSample> validationData) {
+        Preconditions.checkArgument(!tree.isRegression(), "Only classification trees can be pruned");
+        double[] alphas = computeAlphaPath(tree.getRoot());
+        pruneAt(tree.getRoot(), alpha != null ? alpha : selectAlpha(tree.getRoot(), alphas, validationData));
+    }
+
+    /**
+     * Finds alpha at which each node of the tree is pruned to a leaf and stores it in the node (see
+     * {@link Node#getPruningAlpha()}). Alpha of a node is never larger than alpha of its parent.
+     *
+     * @param root Root of classification tree.
+     * @return Alpha path - distinct alphas at which tree changes in ascending order, starting with 0.
+     */
+    public static double[] computeAlphaPath(Node root) {
+        List<Node> nodes = Nodes.preOrder(root);
+        double total = 0;
+        for (double count : root.getLabelCounts()) {
+            total += count;
+        }
+        double errorUnit = total > 0 ? total : 1.0;
+
+        // children before parents
+        Map<Node, Subtree> subtrees = new IdentityHashMap<>();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node node = nodes.get(i);
+            double errors = Nodes.getErrors(node) / errorUnit;
+            if (node.isLeaf()) {
+                node.setPruningAlpha(Double.POSITIVE_INFINITY);
+                subtrees.put(node, new Subtree(1, errors, Lists.newArrayList()));
+                continue;
+            }
+            int nbOfLeaves = 0;
+            double subtreeErrors = 0;
+            List<Collapse> collapses = Lists.newArrayList();
+            for (Node child : node.getChildren()) {
+                Subtree childSubtree = subtrees.remove(child);
+                nbOfLeaves += childSubtree.nbOfLeaves;
+                subtreeErrors += childSubtree.errors;
+                collapses.addAll(childSubtree.collapses);
+            }
+            collapses.sort(comparingDouble(collapse -> collapse.alpha));
+
+            // walk segments between collapses until subtree cost is not lower than cost of node as a leaf
+            int currentLeaves = nbOfLeaves;
+            double currentErrors = subtreeErrors;
+            double segmentStart = 0;
+            int nbOfApplied = 0;
+            double nodeAlpha;
+            while (true) {
+                double crossing = currentLeaves > 1 ? (errors - currentErrors) / (currentLeaves - 1) : segmentStart;
+                nodeAlpha = Math.max(crossing, segmentStart);
+                if (nbOfApplied == collapses.size() || nodeAlpha < collapses.get(nbOfApplied).alpha) {
+                    break;
+                }
+                Collapse collapse = collapses.get(nbOfApplied++);
+                currentLeaves += collapse.deltaLeaves;
+                currentErrors += collapse.deltaErrors;
+                segmentStart = collapse.alpha;
+            }
+            node.setPruningAlpha(nodeAlpha);
+
+            // collapses after node alpha happen inside pruned subtree, so they are dropped
+            List<Collapse> nodeCollapses = Lists.newArrayList(collapses.subList(0, nbOfApplied));
+            nodeCollapses.add(new Collapse(nodeAlpha, 1 - currentLeaves, errors - currentErrors));
+            subtrees.put(node, new Subtree(nbOfLeaves, subtreeErrors, nodeCollapses));
+        }
+
+        // node is pruned together with its parent at the latest
+        for (Node node : nodes) {
+            for (Node child : node.getChildren()) {
+                if (!child.isLeaf()) {
+                    child.setPruningAlpha(Math.min(child.getPruningAlpha(), node.getPruningAlpha()));
+                }
+            }
+        }
+        // unpruned tree is the first tree of the path
+        return DoubleStream.concat(DoubleStream.of(0.0), nodes.stream().filter(node -> !node.isLeaf())
+                .mapToDouble(Node::getPruningAlpha).map(nodeAlpha -> Math.max(nodeAlpha, 0.0))).sorted().distinct()
+                .toArray();
+    }
+
+    /**
+     * Chooses alpha with the lowest validation error. Alpha path must be computed first.
+     *
+     * @param root Root of classification tree.
+     * @param alphas Alpha path.
+     * @param validationData Data samples which were not used to train the tree.
+     * @return Alpha of alpha path.
+     */
+    public static double selectAlpha(Node root, double[] alphas, List<DataSample> validationData) {
+        Preconditions.checkArgument(alphas.length > 0);
+        double[] errors = getValidationErrors(root, alphas, validationData);
+        int best = 0;
+        for (int i = 1; i < alphas.length; i++) {
+            if (errors[i] <= errors[best]) {
+                best = i;
+            }
+        }
+        return alphas[best];
+    }
+
+    /**
+     * Weighted validation error of tree pruned at each alpha of alpha path. Each data sample goes through the tree
+     * once - node where it stops in tree pruned at alpha is the highest node of its path pruned at that alpha, so each
+     * node of the path classifies data sample for a range of alphas.
+     *
+     * @param root Root of classification tree with computed alpha path.
+     * @param alphas Alpha path in ascending order.
+     * @param validationData Data samples which were not used to train the tree.
+     * @return Error of each alpha.
+     */
+    public static double[] getValidationErrors(Node root, double[] alphas, List<DataSample> validationData) {
+        double[] errorChanges = new double[alphas.length + 1];
+        for (DataSample dataSample : validationData) {
+            List<Node> path = Nodes.findPath(root, dataSample);
+            double upperAlpha = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < path.size(); i++) {
+                Node node = path.get(i);
+                // node classifies data sample for alphas in [lowerAlpha, upperAlpha)
+                double lowerAlpha = i == path.size() - 1 ? Double.NEGATIVE_INFINITY : node.getPruningAlpha();
+                if (Nodes.isWrong(node, dataSample)) {
+                    errorChanges[Nodes.lowerBound(alphas, lowerAlpha)] += dataSample.getWeight();
+                    errorChanges[Nodes.lowerBound(alphas, upperAlpha)] -= dataSample.getWeight();
+                }
+                upperAlpha = Math.min(upperAlpha, node.getPruningAlpha());
+            }
+        }
+        double[] errors = new double[alphas.length];
+        double error = 0;
+        for (int i = 0; i < alphas.length; i++) {
+            error += errorChanges[i];
+            errors[i] = error;
+        }
+        return errors;
+    }
+
+    /**
+     * Prunes tree in place - every node whose alpha is not larger than provided alpha becomes a leaf. Alpha path
+     * must be computed first.
+     *
+     * @param root Root of classification tree.
+     * @param alpha Cost of a leaf.
+     */
+    public static void pruneAt(Node root, double alpha) {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.isLeaf()) {
+                continue;
+            }
+            if (node.getPruningAlpha() <= alpha) {
+                node.prune();
+            } else {
+                node.getChildren().forEach(stack::push);
+            }
+        }
+    }
+
+    /**
+     * Change of a subtree when one of its nodes is pruned to a leaf.
+     */
+    private static class Collapse {
+
+        private final double alpha;
+
+        private final int deltaLeaves;
+
+        private final double deltaErrors;
+
+        Collapse(double alpha, int deltaLeaves, double deltaErrors) {
+            this.alpha = alpha;
+            this.deltaLeaves = deltaLeaves;
+            this.deltaErrors = deltaErrors;
+        }
+    }
+
+    /**
+     * Unpruned subtree and collapses which happen in it as alpha grows.
+     */
+    private static class Subtree {
+
+        private final int nbOfLeaves;
+
+        private final double errors;
+
+        private final List<Collapse> collapses;
+
+        Subtree(int nbOfLeaves, double errors, List<Collapse> collapses) {
+            this.nbOfLeaves = nbOfLeaves;
+            this.errors = errors;
+            this.collapses = collapses;
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.oak3ml.decisiontree.pruning;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import org.oak3ml.decisiontree.Node;
+import org.oak3ml.decisiontree.data.DataSample;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tree walks shared by pruning methods. Trees can be very deep, so nodes are walked without recursion.
+ *
+ * @author Ignas
+ *
+ */
+final class Nodes {
+
+    private Nodes() {
+        super();
+    }
+
+    /**
+     * @return Nodes of a tree, each node before its children. In reverse order each node comes after its children.
+     */
+    static List<Node> preOrder(Node root) {
+        List<Node> nodes = Lists.newArrayList();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            nodes.add(node);
+            for (int i = node.getChildren().size() - 1; i >= 0; i--) {
+                stack.push(node.getChildren().get(i));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return Nodes from root to the last node data sample reaches (leaf or node none of whose branches it matches).
+     */
+    static List<Node> findPath(Node root, DataSample dataSample) {
+        List<Node> path = Lists.newArrayList();
+        Node node = root;
+        while (node != null) {
+            path.add(node);
+            node = node.isLeaf() ? null : node.findChild(dataSample);
+        }
+        return path;
+    }
+
+    /**
+     * Misclassified weight of training data samples if node was a leaf labeled with its majority label.
+     */
+    static double getErrors(Node node) {
+        double total = 0;
+        double majority = 0;
+        for (double count : node.getLabelCounts()) {
+            total += count;
+            majority = Math.max(majority, count);
+        }
+        return total - majority;
+    }
+
+    /**
+     * Checks if node classifies data sample wrongly when it is (or is pruned to) a leaf.
+     */
+    static boolean isWrong(Node node, DataSample dataSample) {
+        return !dataSample.getLabel().equals(node.getMajorityLabel());
+    }
+
+    /**
+     * Index of the first alpha which is not smaller than provided value.
+     */
+    static int lowerBound(double[] alphas, double value) {
+        int low = 0;
+        int high = alphas.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (alphas[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.oak3ml.decisiontree.pruning;
+
+import org.oak3ml.decisiontree.Node;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.label.Label;
+
+/**
+ * Classification tree pruned at alpha of {@link PruningPath}. It does not copy nodes - it walks nodes of the fully
+ * grown tree and stops at nodes which are pruned at its alpha, so any number of pruned trees share the same nodes.
+ *
+ * @author Ignas
+ *
+ */
+public class PrunedTree {
+
+    /** Root of fully grown tree. */
+    private final Node root;
+
+    /** Cost of a leaf, nodes whose pruning alpha is not larger than it are leaves. */
+    private final double alpha;
+
+    /** Number of leaves. */
+    private final int nbOfLeaves;
+
+    /**
+     * Package private constructor, pruned trees are created by {@link PruningPath}.
+     */
+    PrunedTree(Node root, double alpha, int nbOfLeaves) {
+        super();
+        this.root = root;
+        this.alpha = alpha;
+        this.nbOfLeaves = nbOfLeaves;
+    }
+
+    /**
+     * Classify data sample.
+     *
+     * @param dataSample
+     *            Data sample.
+     * @return Majority label of the last node reached by data sample.
+     */
+    public Label classify(DataSample dataSample) {
+        return findNode(dataSample).getMajorityLabel();
+    }
+
+    /**
+     * Go through tree until leaf or pruned node is reached or data sample does not match any branch of a node.
+     */
+    private Node findNode(DataSample dataSample) {
+        Node node = root;
+        Node child;
+        while (!isLeaf(node) && (child = node.findChild(dataSample)) != null) {
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * @return True if node is a leaf of this pruned tree.
+     */
+    public boolean isLeaf(Node node) {
+        return node.isLeaf() || node.getPruningAlpha() <= alpha;
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public int getNbOfLeaves() {
+        return nbOfLeaves;
+    }
+
+}
@@ -1,5 +1,10 @@
 package org.oak3ml.decisiontree.pruning;
 
+import java.util.List;
+
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.data.DataSample;
+
 /**
  * Pruning method interface. To limit the growth of decision tree and avoid over fitting various pruning methods can be
  * employed. This is abstract interface representing them.
@@ -9,4 +14,12 @@ package org.oak3ml.decisiontree.pruning;
  */
 public interface PruningMethod {
 
+    /**
+     * Prunes grown tree in place - subtrees which do not generalise are replaced by leaves.
+     * 
+     * @param tree Trained classification tree.
+     * @param validationData Data samples which were not used to train the tree.
+     */
+    void prune(DecisionTree tree, List<DataSample> validationData);
+
 }
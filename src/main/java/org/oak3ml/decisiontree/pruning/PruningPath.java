@@ -0,0 +1,140 @@
+package org.oak3ml.decisiontree.pruning;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.Node;
+import org.oak3ml.decisiontree.data.DataSample;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Nested pruned trees of one fully grown classification tree - the cost-complexity pruning path (see
+ * {@link CostComplexityPruning}). Alpha at which each node is pruned is computed once and kept in nodes, so trees of
+ * any size are derived without retraining and without copying nodes (see {@link PrunedTree}). The grown tree must not
+ * be pruned in place or retrained while its pruned trees are used.
+ *
+ * @author Ignas
+ *
+ */
+public class PruningPath {
+
+    /** Root of fully grown tree. */
+    private final Node root;
+
+    /** Alphas at which tree changes in ascending order, starting with 0. */
+    private final double[] alphas;
+
+    /** Number of leaves of tree pruned at each alpha. */
+    private final int[] nbOfLeaves;
+
+    /**
+     * Private constructor.
+     */
+    private PruningPath(Node root, double[] alphas, int[] nbOfLeaves) {
+        super();
+        this.root = root;
+        this.alphas = alphas;
+        this.nbOfLeaves = nbOfLeaves;
+    }
+
+    /**
+     * Static factory method. Computes alpha path of the tree in one pass over its nodes.
+     *
+     * @param tree
+     *            Trained classification tree.
+     * @return Pruning path of the tree.
+     */
+    public static PruningPath newPruningPath(DecisionTree tree) {
+        Preconditions.checkState(tree.getRoot() != null, "Tree must be trained before pruning");
+        Preconditions.checkArgument(!tree.isRegression(), "Only classification trees can be pruned");
+        double[] alphas = CostComplexityPruning.computeAlphaPath(tree.getRoot());
+        return new PruningPath(tree.getRoot(), alphas, countLeaves(tree.getRoot(), alphas));
+    }
+
+    /**
+     * Node is visible until its parent is pruned and it is a leaf of pruned tree from its own pruning alpha, so each
+     * node adds a leaf to a range of alphas.
+     */
+    private static int[] countLeaves(Node root, double[] alphas) {
+        int[] leafChanges = new int[alphas.length + 1];
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Double> parentAlphas = new ArrayDeque<>();
+        nodes.push(root);
+        parentAlphas.push(Double.POSITIVE_INFINITY);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            double parentAlpha = parentAlphas.pop();
+            double leafAlpha = node.isLeaf() ? Double.NEGATIVE_INFINITY : node.getPruningAlpha();
+            leafChanges[Nodes.lowerBound(alphas, leafAlpha)]++;
+            leafChanges[Nodes.lowerBound(alphas, parentAlpha)]--;
+            for (Node child : node.getChildren()) {
+                nodes.push(child);
+                parentAlphas.push(node.getPruningAlpha());
+            }
+        }
+        int[] nbOfLeaves = new int[alphas.length];
+        int leaves = 0;
+        for (int i = 0; i < alphas.length; i++) {
+            leaves += leafChanges[i];
+            nbOfLeaves[i] = leaves;
+        }
+        return nbOfLeaves;
+    }
+
+    /**
+     * @param alpha
+     *            Cost of a leaf (part of training data samples).
+     * @return Tree pruned at alpha.
+     */
+    public PrunedTree atAlpha(double alpha) {
+        Preconditions.checkArgument(alpha >= 0);
+        int index = Nodes.lowerBound(alphas, alpha);
+        // tree does not change until next alpha of the path
+        int pathIndex = index < alphas.length && alphas[index] == alpha ? index : index - 1;
+        return new PrunedTree(root, alpha, nbOfLeaves[pathIndex]);
+    }
+
+    /**
+     * @param maxLeaves
+     *            Maximum number of leaves.
+     * @return The largest tree of the path with at most maxLeaves leaves.
+     */
+    public PrunedTree withMaxLeaves(int maxLeaves) {
+        Preconditions.checkArgument(maxLeaves >= 1);
+        int index = 0;
+        while (nbOfLeaves[index] > maxLeaves) { // tree of the last alpha is a single leaf
+            index++;
+        }
+        return new PrunedTree(root, alphas[index], nbOfLeaves[index]);
+    }
+
+    /**
+     * @param validationData
+     *            Data samples which were not used to train the tree.
+     * @return Tree of the path with the lowest validation error, the smallest one if errors are equal.
+     */
+    public PrunedTree withLowestError(List<DataSample> validationData) {
+        return atAlpha(CostComplexityPruning.selectAlpha(root, alphas, validationData));
+    }
+
+    /**
+     * @param validationData
+     *            Data samples which were not used to train the tree.
+     * @return Weighted validation error of tree pruned at each alpha of the path.
+     */
+    public double[] getValidationErrors(List<DataSample> validationData) {
+        return CostComplexityPruning.getValidationErrors(root, alphas, validationData);
+    }
+
+    public double[] getAlphas() {
+        return alphas.clone();
+    }
+
+    public int[] getNbOfLeaves() {
+        return nbOfLeaves.clone();
+    }
+
+}
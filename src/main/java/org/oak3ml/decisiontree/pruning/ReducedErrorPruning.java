@@ -0,0 +1,82 @@
+package org.oak3ml.decisiontree.pruning;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.Node;
+import org.oak3ml.decisiontree.data.DataSample;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Reduced-error pruning. Each internal node is replaced by a leaf labeled with its majority training label if it
+ * does not misclassify more validation data samples than its (already pruned) subtree. Validation data goes through
+ * the tree once, errors of each node are collected on the way and nodes are then visited bottom-up.
+ *
+ * @author Ignas
+ *
+ */
+public class ReducedErrorPruning implements PruningMethod {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prune(DecisionTree tree, List<DataSample> validationData) {
+        Preconditions.checkArgument(!tree.isRegression(), "Only classification trees can be pruned");
+        Map<Node, Errors> errors = new IdentityHashMap<>();
+        for (DataSample dataSample : validationData) {
+            List<Node> path = Nodes.findPath(tree.getRoot(), dataSample);
+            for (int i = 0; i < path.size(); i++) {
+                Node node = path.get(i);
+                if (Nodes.isWrong(node, dataSample)) {
+                    Errors nodeErrors = errors.computeIfAbsent(node, n -> new Errors());
+                    nodeErrors.leafErrors += dataSample.getWeight();
+                    if (i == path.size() - 1) {
+                        // data sample stops at this node whether it is pruned or not
+                        nodeErrors.subtreeErrors += dataSample.getWeight();
+                    }
+                }
+            }
+        }
+
+        List<Node> nodes = Nodes.preOrder(tree.getRoot());
+        Map<Node, Double> prunedErrors = new IdentityHashMap<>();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node node = nodes.get(i);
+            Errors nodeErrors = errors.getOrDefault(node, Errors.NONE);
+            if (node.isLeaf()) {
+                prunedErrors.put(node, nodeErrors.leafErrors);
+                continue;
+            }
+            double subtreeErrors = nodeErrors.subtreeErrors;
+            for (Node child : node.getChildren()) {
+                subtreeErrors += prunedErrors.remove(child);
+            }
+            if (nodeErrors.leafErrors <= subtreeErrors) {
+                node.prune();
+                prunedErrors.put(node, nodeErrors.leafErrors);
+            } else {
+                prunedErrors.put(node, subtreeErrors);
+            }
+        }
+    }
+
+    /**
+     * Misclassified weight of validation data samples which reach a node.
+     */
+    private static class Errors {
+
+        private static final Errors NONE = new Errors();
+
+        /** Errors if node was a leaf. */
+        private double leafErrors;
+
+        /** Errors of data samples which stop at internal node because none of its branches match them. */
+        private double subtreeErrors;
+
+    }
+
+}
@@ -1,6 +1,136 @@
 package org.oak3ml.ensemble;
 
-// same as random forest with randomFeaturesPercentage = 1.0
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Bootstrap aggregating (bagging) ensemble. Each member is trained on its own bootstrap sample which is a
+ * {@link DataView} over the same shared training data (only multiplicity array is kept per member) and prediction is a
+ * majority vote of all members. With {@link DecisionTree} members it is the same as random forest which uses all
+ * features.
+ * 
+ * @author Ignas
+ *
+ */
 public class Bagging {
-    
+
+    /** Creates untrained ensemble members. Default - decision trees with default settings. */
+    private Supplier<? extends BaseLearner> baseLearnerFactory = () -> new DecisionTree.Builder().build();
+
+    /** Number of ensemble members. */
+    private int numberOfModels = 20;
+
+    /** What part of original training data to draw (with replacement) for each bootstrap sample. */
+    private double bootstrapingPercentage = 1.0;
+
+    /** Trained ensemble members. */
+    private List<BaseLearner> models;
+
+    /** Majority voting of members. */
+    private MajorityVote majorityVote;
+
+    /**
+     * Private constructor.
+     */
+    private Bagging(Builder builder) {
+        super();
+        if (builder.baseLearnerFactory != null) {
+            baseLearnerFactory = builder.baseLearnerFactory;
+        }
+        if (builder.numberOfModels != null) {
+            Preconditions.checkArgument(builder.numberOfModels >= 1);
+            numberOfModels = builder.numberOfModels;
+        }
+        if (builder.bootstrapingPercentage != null) {
+            Preconditions.checkArgument(0 < builder.bootstrapingPercentage && builder.bootstrapingPercentage <= 1.0);
+            bootstrapingPercentage = builder.bootstrapingPercentage;
+        }
+    }
+
+    /**
+     * Trains all ensemble members in parallel. Each member gets its own bootstrap sample of shared training data.
+     * 
+     * @param trainingData Training data.
+     * @param features Features.
+     */
+    public void train(List<DataSample> trainingData, List<Feature> features) {
+        // labels are encoded once, bootstrap samples of all members share them
+        DataView data = DataView.newDataView(trainingData);
+        models = IntStream.range(0, numberOfModels).parallel().mapToObj(i -> {
+            BaseLearner model = baseLearnerFactory.get();
+            model.train(data.drawBootstrapSample(bootstrapingPercentage, ThreadLocalRandom.current()), features);
+            return model;
+        }).collect(toList());
+        majorityVote = new MajorityVote(data.getLabelDictionary());
+    }
+
+    /**
+     * Classify data sample by majority vote of all ensemble members.
+     * 
+     * @param dataSample Data sample to classify.
+     * @return Classification label.
+     */
+    public Label classify(DataSample dataSample) {
+        Preconditions.checkState(majorityVote != null, "Ensemble is not trained");
+        return majorityVote.classify(models, dataSample);
+    }
+
+    /**
+     * Classify all data samples in parallel by majority vote of all ensemble members.
+     * 
+     * @param data Data samples to classify.
+     * @return Classification label of each data sample.
+     */
+    public Label[] classify(List<DataSample> data) {
+        Preconditions.checkState(majorityVote != null, "Ensemble is not trained");
+        return majorityVote.classify(models, data);
+    }
+
+    /**
+     * @return Trained ensemble members.
+     */
+    public List<BaseLearner> getModels() {
+        return models;
+    }
+
+    /* Builder */
+    public static class Builder {
+
+        private Supplier<? extends BaseLearner> baseLearnerFactory;
+
+        private Integer numberOfModels;
+
+        private Double bootstrapingPercentage;
+
+        public Builder withBaseLearnerFactory(Supplier<? extends BaseLearner> baseLearnerFactory) {
+            this.baseLearnerFactory = baseLearnerFactory;
+            return this;
+        }
+
+        public Builder withNumberOfModels(int numberOfModels) {
+            this.numberOfModels = numberOfModels;
+            return this;
+        }
+
+        public Builder withBootstrapingPercentage(double bootstrapingPercentage) {
+            this.bootstrapingPercentage = bootstrapingPercentage;
+            return this;
+        }
+
+        public Bagging build() {
+            return new Bagging(this);
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package org.oak3ml.ensemble;
+
+import java.util.List;
+
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.label.Label;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+
+/**
+ * Model which can be used as a member of an ensemble (for example {@link Bagging}). It is trained on a view of shared
+ * training data so ensemble members do not need their own copies of data.
+ * 
+ * @author Ignas
+ *
+ */
+public interface BaseLearner {
+
+    /**
+     * Trains model on a view of shared training data.
+     * 
+     * @param trainingData
+     *            View of training data. Data samples are weighted by their multiplicity in the view.
+     * @param features
+     *            List of possible features.
+     */
+    void train(DataView trainingData, List<Feature> features);
+
+    /**
+     * Classify data sample.
+     * 
+     * @param dataSample
+     *            Data sample.
+     * @return Label of class.
+     */
+    Label classify(DataSample dataSample);
+
+    /**
+     * Classify data sample and return id of label in a dictionary. Models which keep label ids of the same dictionary
+     * can override it to skip label lookup.
+     * 
+     * @param dataSample
+     *            Data sample.
+     * @param labels
+     *            Dictionary of labels.
+     * @return Label id or {@link LabelDictionary#UNKNOWN_ID} if label is not in the dictionary.
+     */
+    default int classifyId(DataSample dataSample, LabelDictionary labels) {
+        return labels.getId(classify(dataSample));
+    }
+
+}
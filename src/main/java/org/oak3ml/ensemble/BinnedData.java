@@ -0,0 +1,209 @@
+package org.oak3ml.ensemble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.oak3ml.decisiontree.data.DataSample;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+/**
+ * Training data columns discretised once into small number of bins. Each value is replaced by its bin code which is
+ * kept in a byte array per column, so histogram based learners (for example {@link GradientBoosting}) can scan columns
+ * without looking at data samples again.
+ *
+ * Numeric columns (all present values are numbers) are split into bins by quantiles - if column has less distinct
+ * values than maximum number of bins each distinct value gets its own bin. Other columns are categorical - each distinct
+ * value gets its own bin. Missing values (and categories not seen in training data) go to bin {@link #MISSING_BIN}.
+ *
+ * @author Ignas
+ *
+ */
+public class BinnedData {
+
+    /** Bin of missing values. */
+    public static final int MISSING_BIN = 0;
+
+    /** Maximum number of bins (excluding missing values bin) which fits into byte codes. */
+    public static final int MAX_BINS = 255;
+
+    /** Binned columns. */
+    private final String[] columns;
+
+    /** Inclusive upper bound of each bin (starting from bin 1) of numeric column or null for categorical column. */
+    private final double[][] upperBounds;
+
+    /** Bin of each category of categorical column or null for numeric column. */
+    private final List<Map<Object, Integer>> categories;
+
+    /** Bin code of each row for each column. Codes are unsigned bytes. */
+    private final byte[][] bins;
+
+    /** Number of rows. */
+    private final int nbOfRows;
+
+    /**
+     * Private constructor.
+     */
+    private BinnedData(String[] columns, double[][] upperBounds, List<Map<Object, Integer>> categories, byte[][] bins, int nbOfRows) {
+        super();
+        this.columns = columns;
+        this.upperBounds = upperBounds;
+        this.categories = categories;
+        this.bins = bins;
+        this.nbOfRows = nbOfRows;
+    }
+
+    /**
+     * Static factory method to discretise columns of data. Columns are discretised in parallel.
+     *
+     * @param data Data samples.
+     * @param columns Columns to discretise.
+     * @param maxBins Maximum number of bins of each column (excluding missing values bin). Not more than {@value #MAX_BINS}.
+     * @return Binned data.
+     */
+    public static BinnedData newBinnedData(List<DataSample> data, List<String> columns, int maxBins) {
+        Preconditions.checkArgument(2 <= maxBins && maxBins <= MAX_BINS);
+        double[][] upperBounds = new double[columns.size()][];
+        List<Map<Object, Integer>> categories = new ArrayList<>(Collections.nCopies(columns.size(), (Map<Object, Integer>) null));
+        byte[][] bins = new byte[columns.size()][];
+        IntStream.range(0, columns.size()).parallel().forEach(c -> {
+            String column = columns.get(c);
+            boolean numeric = data.stream().map(d -> d.getValue(column)).filter(Optional::isPresent).allMatch(v -> v.get() instanceof Number);
+            if (numeric) {
+                upperBounds[c] = calculateUpperBounds(data, column, maxBins);
+            } else {
+                categories.set(c, collectCategories(data, column, maxBins));
+            }
+            bins[c] = new byte[data.size()];
+            for (int row = 0; row < data.size(); row++) {
+                bins[c][row] = (byte) bin(data.get(row).getValue(column), upperBounds[c], categories.get(c));
+            }
+        });
+        return new BinnedData(columns.toArray(new String[columns.size()]), upperBounds, categories, bins, data.size());
+    }
+
+    /**
+     * Quantile bin bounds of numeric column. Last bound is positive infinity so every value fits into some bin.
+     */
+    private static double[] calculateUpperBounds(List<DataSample> data, String column, int maxBins) {
+        double[] values = data.stream().map(d -> d.getValue(column)).filter(Optional::isPresent)
+                .mapToDouble(v -> ((Number) v.get()).doubleValue()).sorted().toArray();
+        double[] distinct = Arrays.stream(values).distinct().toArray();
+        double[] bounds;
+        if (distinct.length <= maxBins) {
+            // bin per distinct value, bound is in the middle between neighbour values
+            bounds = new double[Math.max(distinct.length, 1)];
+            for (int i = 0; i < distinct.length - 1; i++) {
+                bounds[i] = (distinct[i] + distinct[i + 1]) / 2.0;
+            }
+        } else {
+            bounds = IntStream.range(1, maxBins).mapToDouble(i -> values[(int) ((long) i * values.length / maxBins)]).distinct().toArray();
+            bounds = Arrays.copyOf(bounds, bounds.length + 1);
+        }
+        bounds[bounds.length - 1] = Double.POSITIVE_INFINITY;
+        return bounds;
+    }
+
+    /**
+     * Bins of categorical column. Categories which do not fit into maximum number of bins are treated as missing.
+     */
+    private static Map<Object, Integer> collectCategories(List<DataSample> data, String column, int maxBins) {
+        Map<Object, Integer> categories = Maps.newHashMap();
+        for (DataSample dataSample : data) {
+            Optional<Object> value = dataSample.getValue(column);
+            if (value.isPresent() && categories.size() < maxBins && !categories.containsKey(value.get())) {
+                categories.put(value.get(), categories.size() + 1);
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Bin of a value.
+     */
+    private static int bin(Optional<Object> value, double[] upperBounds, Map<Object, Integer> categories) {
+        if (!value.isPresent()) {
+            return MISSING_BIN;
+        }
+        if (upperBounds != null) {
+            if (!(value.get() instanceof Number)) {
+                return MISSING_BIN;
+            }
+            int index = Arrays.binarySearch(upperBounds, ((Number) value.get()).doubleValue());
+            return 1 + (index >= 0 ? index : -index - 1);
+        }
+        return categories.getOrDefault(value.get(), MISSING_BIN);
+    }
+
+    /**
+     * Bin codes of data sample which was not part of binned data (for example data sample to classify). Bins are found
+     * using bounds and categories of training data.
+     *
+     * @param dataSample Data sample.
+     * @return Bin of each column.
+     */
+    public int[] bin(DataSample dataSample) {
+        int[] sampleBins = new int[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            sampleBins[c] = bin(dataSample.getValue(columns[c]), upperBounds[c], categories.get(c));
+        }
+        return sampleBins;
+    }
+
+    /**
+     * Bin code of a row in a column.
+     */
+    public int getBin(int column, int row) {
+        return bins[column][row] & 0xFF;
+    }
+
+    /**
+     * @return Bin codes (unsigned bytes) of all rows in a column.
+     */
+    public byte[] getBins(int column) {
+        return bins[column];
+    }
+
+    /**
+     * @return Number of bins of a column including missing values bin.
+     */
+    public int getNbOfBins(int column) {
+        return 1 + (upperBounds[column] != null ? upperBounds[column].length : categories.get(column).size());
+    }
+
+    /**
+     * @return True if column is categorical (bins have no order).
+     */
+    public boolean isCategorical(int column) {
+        return upperBounds[column] == null;
+    }
+
+    /**
+     * @return Column name.
+     */
+    public String getColumn(int column) {
+        return columns[column];
+    }
+
+    /**
+     * @return Number of binned columns.
+     */
+    public int getNbOfColumns() {
+        return columns.length;
+    }
+
+    /**
+     * @return Number of binned rows.
+     */
+    public int getNbOfRows() {
+        return nbOfRows;
+    }
+
+}
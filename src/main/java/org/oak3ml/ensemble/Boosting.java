@@ -1,14 +1,207 @@
 package org.oak3ml.ensemble;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
+import org.oak3ml.decisiontree.DecisionTree;
 import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
 import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.label.Label;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * AdaBoost ensemble (SAMME variant which also works for more than two labels). Members are shallow decision trees
+ * trained one after another on the same shared training data - instead of resampling, each round trains on a weighted
+ * {@link DataView} and sample weights (kept in single primitive array) are used directly in split finding and impurity
+ * calculation. After each round weights of misclassified data samples are increased, so next member concentrates on
+ * them. Prediction is a vote of all members weighted by their accuracy.
+ *
+ * <p>
+ * Algorithm (K - number of labels, n - number of data samples):
+ *
+ * <pre>
+ *    w = normalised weight of data sample (1/n if data samples are not weighted)
+ *    for each round
+ *       train member on data weighted by w
+ *       err = sum of w of misclassified data samples
+ *       stop if err &gt;= 1 - 1/K (member is not better than random guessing)
+ *       alpha = log((1 - err) / err) + log(K - 1)
+ *       w = w * exp(alpha) for misclassified data samples, normalise w to sum to 1
+ * </pre>
+ *
+ * @author Ignas
+ *
+ */
 public class Boosting {
-    
+
+    /** Logger. */
+    private Logger log = LoggerFactory.getLogger(Boosting.class);
+
+    /** Smallest error used to calculate member weight, so perfect member gets large but finite weight. */
+    private static final double MIN_ERROR = 1e-10;
+
+    /** Maximum number of boosting rounds (ensemble members). */
+    private int numberOfRounds = 50;
+
+    /** Number of splits from root to leaf of default members. 1 - decision stumps. */
+    private int maxTreeDepth = 1;
+
+    /** Creates untrained ensemble members. Default - decision trees limited to maxTreeDepth. */
+    private Supplier<? extends BaseLearner> baseLearnerFactory;
+
+    /** Trained ensemble members. */
+    private List<BaseLearner> models;
+
+    /** Vote weight (alpha) of each member. */
+    private double[] modelWeights;
+
+    /** Weighted voting of members. */
+    private MajorityVote majorityVote;
+
+    /**
+     * Private constructor.
+     */
+    private Boosting(Builder builder) {
+        super();
+        if (builder.numberOfRounds != null) {
+            Preconditions.checkArgument(builder.numberOfRounds >= 1);
+            numberOfRounds = builder.numberOfRounds;
+        }
+        if (builder.maxTreeDepth != null) {
+            Preconditions.checkArgument(builder.maxTreeDepth >= 1);
+            maxTreeDepth = builder.maxTreeDepth;
+        }
+        if (builder.baseLearnerFactory != null) {
+            baseLearnerFactory = builder.baseLearnerFactory;
+        } else {
+            // decision tree depth counts levels of nodes, so leaves of maxTreeDepth splits are one level deeper
+            baseLearnerFactory = () -> new DecisionTree.Builder().withMaxDepth(maxTreeDepth + 1).build();
+        }
+    }
+
+    /**
+     * Trains ensemble members one by one. Training stops after numberOfRounds or when member is not better than random
+     * guessing on weighted data. Weight update of each round runs in parallel over data samples.
+     *
+     * @param trainingData Training data.
+     * @param features Features.
+     */
     public void train(List<DataSample> trainingData, List<Feature> features) {
-        
+        int n = trainingData.size();
+        double[] weights = trainingData.stream().mapToDouble(DataSample::getWeight).toArray();
+        double totalSampleWeight = Arrays.stream(weights).sum();
+        IntStream.range(0, n).forEach(row -> weights[row] /= totalSampleWeight);
+        // same view is used in all rounds, weights are updated in place
+        DataView weightedData = DataView.newWeightedDataView(trainingData, weights);
+        LabelDictionary labels = weightedData.getLabelDictionary();
+        majorityVote = new MajorityVote(labels);
+        int nbOfLabels = majorityVote.getNbOfLabels();
+        Preconditions.checkArgument(nbOfLabels >= 2, "Training data must have at least two labels");
+        boolean[] misclassified = new boolean[n];
+
+        models = Lists.newArrayList();
+        modelWeights = new double[numberOfRounds];
+        for (int round = 0; round < numberOfRounds; round++) {
+            BaseLearner model = baseLearnerFactory.get();
+            model.train(weightedData, features);
+
+            IntStream.range(0, n).parallel().forEach(row -> 
+                misclassified[row] = weightedData.getLabelId(row) != model.classifyId(trainingData.get(row), labels));
+            // weights are normalised so total weight is 1
+            double error = IntStream.range(0, n).parallel().filter(row -> misclassified[row]).mapToDouble(row -> weights[row]).sum();
+            if (error >= 1.0 - 1.0 / nbOfLabels) {
+                log.debug("Boosting stopped after {} rounds because error {} is not better than random guessing", round, error);
+                break;
+            }
+
+            double alpha = Math.log((1.0 - error) / Math.max(error, MIN_ERROR)) + Math.log(nbOfLabels - 1);
+            modelWeights[models.size()] = alpha;
+            models.add(model);
+            if (error <= 0.0) {
+                log.debug("Boosting stopped after {} rounds because all data samples are classified correctly", round + 1);
+                break;
+            }
+
+            double factor = Math.exp(alpha);
+            IntStream.range(0, n).parallel().forEach(row -> weights[row] *= misclassified[row] ? factor : 1.0);
+            double totalWeight = Arrays.stream(weights).parallel().sum();
+            IntStream.range(0, n).parallel().forEach(row -> weights[row] /= totalWeight);
+        }
+        modelWeights = Arrays.copyOf(modelWeights, models.size());
+        Preconditions.checkState(!models.isEmpty(), "First ensemble member is not better than random guessing");
+    }
+
+    /**
+     * Classify data sample by weighted vote of all ensemble members.
+     *
+     * @param dataSample Data sample to classify.
+     * @return Classification label.
+     */
+    public Label classify(DataSample dataSample) {
+        Preconditions.checkState(majorityVote != null, "Ensemble is not trained");
+        return majorityVote.classify(models, modelWeights, dataSample);
+    }
+
+    /**
+     * Classify all data samples in parallel by weighted vote of all ensemble members.
+     *
+     * @param data Data samples to classify.
+     * @return Classification label of each data sample.
+     */
+    public Label[] classify(List<DataSample> data) {
+        Preconditions.checkState(majorityVote != null, "Ensemble is not trained");
+        return majorityVote.classify(models, modelWeights, data);
+    }
+
+    /**
+     * @return Trained ensemble members.
+     */
+    public List<BaseLearner> getModels() {
+        return models;
+    }
+
+    /**
+     * @return Vote weight of each trained ensemble member.
+     */
+    public double[] getModelWeights() {
+        return modelWeights;
+    }
+
+    /* Builder */
+    public static class Builder {
+
+        private Integer numberOfRounds;
+
+        private Integer maxTreeDepth;
+
+        private Supplier<? extends BaseLearner> baseLearnerFactory;
+
+        public Builder withNumberOfRounds(int numberOfRounds) {
+            this.numberOfRounds = numberOfRounds;
+            return this;
+        }
+
+        public Builder withMaxTreeDepth(int maxTreeDepth) {
+            this.maxTreeDepth = maxTreeDepth;
+            return this;
+        }
+
+        public Builder withBaseLearnerFactory(Supplier<? extends BaseLearner> baseLearnerFactory) {
+            this.baseLearnerFactory = baseLearnerFactory;
+            return this;
+        }
+
+        public Boosting build() {
+            return new Boosting(this);
+        }
     }
 
 }
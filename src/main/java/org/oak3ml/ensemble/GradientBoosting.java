@@ -0,0 +1,365 @@
+package org.oak3ml.ensemble;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.label.Label;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * Gradient boosted trees on histograms. Columns used by features are discretised once into {@link BinnedData} and each
+ * round grows {@link HistogramTree} on gradients and hessians of the loss (see {@link HistogramTreeGrower}). Two labels
+ * are learned with logistic loss (one tree per round) and more labels with softmax loss (one tree per label per round).
+ * Raw predictions of training rows are kept in primitive arrays and updated by leaf values of each new tree, so training
+ * never traverses trees.
+ *
+ * @author Ignas
+ *
+ */
+public class GradientBoosting implements BaseLearner {
+
+    /** Logger. */
+    private Logger log = LoggerFactory.getLogger(GradientBoosting.class);
+
+    /** Smallest hessian of a row, keeps leaf values finite when predictions are very confident. */
+    private static final double MIN_HESSIAN = 1e-16;
+
+    /** Number of boosting rounds. */
+    private int numberOfRounds = 100;
+
+    /** Shrinkage of each tree. */
+    private double learningRate = 0.1;
+
+    /** Maximum number of leaves of each tree. */
+    private int maxLeaves = 31;
+
+    /** Maximum number of bins of each column. */
+    private int maxBins = BinnedData.MAX_BINS;
+
+    /** Minimum number of training rows in a leaf. */
+    private int minSamplesPerLeaf = 20;
+
+    /** Minimum sum of hessians in a leaf. */
+    private double minHessianPerLeaf = 1e-3;
+
+    /** L2 regularisation of leaf values. */
+    private double l2Regularization = 1.0;
+
+    /** Label ids of training data. */
+    private LabelDictionary labels;
+
+    /** Binning of training data used to bin data samples to classify. */
+    private BinnedData binnedData;
+
+    /** Initial raw prediction of each tree sequence (one for logistic loss, one per label for softmax loss). */
+    private double[] initialPredictions;
+
+    /** Trees of each round - one for logistic loss, one per label for softmax loss. */
+    private List<HistogramTree[]> trees;
+
+    /** Training loss before each round. */
+    private double[] losses;
+
+    /**
+     * Private constructor.
+     */
+    private GradientBoosting(Builder builder) {
+        super();
+        if (builder.numberOfRounds != null) {
+            Preconditions.checkArgument(builder.numberOfRounds >= 1);
+            numberOfRounds = builder.numberOfRounds;
+        }
+        if (builder.learningRate != null) {
+            Preconditions.checkArgument(builder.learningRate > 0);
+            learningRate = builder.learningRate;
+        }
+        if (builder.maxLeaves != null) {
+            Preconditions.checkArgument(builder.maxLeaves >= 2);
+            maxLeaves = builder.maxLeaves;
+        }
+        if (builder.maxBins != null) {
+            maxBins = builder.maxBins;
+        }
+        if (builder.minSamplesPerLeaf != null) {
+            Preconditions.checkArgument(builder.minSamplesPerLeaf >= 1);
+            minSamplesPerLeaf = builder.minSamplesPerLeaf;
+        }
+        if (builder.minHessianPerLeaf != null) {
+            minHessianPerLeaf = builder.minHessianPerLeaf;
+        }
+        if (builder.l2Regularization != null) {
+            Preconditions.checkArgument(builder.l2Regularization >= 0);
+            l2Regularization = builder.l2Regularization;
+        }
+    }
+
+    /**
+     * Trains gradient boosted trees.
+     *
+     * @param trainingData Training data.
+     * @param features Features. Only their columns are used - trees learn their own thresholds on binned columns.
+     */
+    public void train(List<DataSample> trainingData, List<Feature> features) {
+        train(DataView.newDataView(trainingData), features);
+    }
+
+    /**
+     * Trains gradient boosted trees on a view of shared training data. Gradients and hessians of each row are weighted by
+     * its weight in the view.
+     *
+     * @param trainingData View of training data.
+     * @param features Features. Only their columns are used - trees learn their own thresholds on binned columns.
+     */
+    @Override
+    public void train(DataView trainingData, List<Feature> features) {
+        int[] rows = trainingData.getRows();
+        labels = trainingData.getLabelDictionary();
+        int[] y = collectLabels(trainingData);
+        Preconditions.checkArgument(labels.size() >= 2, "Training data must have at least two labels");
+
+        List<String> columns = features.stream().map(Feature::getColumn).distinct().collect(toList());
+        binnedData = BinnedData.newBinnedData(trainingData.getData(), columns, maxBins);
+        HistogramTreeGrower grower = new HistogramTreeGrower(binnedData, maxLeaves, minSamplesPerLeaf, minHessianPerLeaf,
+                l2Regularization, learningRate);
+
+        int nbOfSequences = labels.size() == 2 ? 1 : labels.size();
+        initialPredictions = calculateInitialPredictions(trainingData, rows, y, nbOfSequences);
+        int n = trainingData.size();
+        double[][] predictions = new double[nbOfSequences][n];
+        double[][] gradients = new double[nbOfSequences][n];
+        double[][] hessians = new double[nbOfSequences][n];
+        for (int k = 0; k < nbOfSequences; k++) {
+            Arrays.fill(predictions[k], initialPredictions[k]);
+        }
+
+        trees = Lists.newArrayList();
+        losses = new double[numberOfRounds];
+        for (int round = 0; round < numberOfRounds; round++) {
+            losses[round] = calculateGradients(trainingData, rows, y, predictions, gradients, hessians);
+            HistogramTree[] roundTrees = new HistogramTree[nbOfSequences];
+            for (int k = 0; k < nbOfSequences; k++) {
+                roundTrees[k] = grower.grow(rows, gradients[k], hessians[k], predictions[k]);
+            }
+            trees.add(roundTrees);
+            log.debug("Boosting round {} finished, training loss before round {}", round, losses[round]);
+        }
+    }
+
+    /**
+     * Returns label id of each row.
+     */
+    private int[] collectLabels(DataView trainingData) {
+        int[] y = new int[trainingData.size()];
+        for (int row = 0; row < y.length; row++) {
+            y[row] = trainingData.getLabelId(row);
+        }
+        return y;
+    }
+
+    /**
+     * Initial predictions are log odds (logistic loss) or log probabilities (softmax loss) of labels in training data.
+     */
+    private double[] calculateInitialPredictions(DataView trainingData, int[] rows, int[] y, int nbOfSequences) {
+        double[] labelWeights = new double[labels.size()];
+        for (int row : rows) {
+            labelWeights[y[row]] += trainingData.getWeight(row);
+        }
+        // label which is not in the view gets very small weight instead of infinite log
+        if (nbOfSequences == 1) {
+            return new double[] {Math.log(Math.max(labelWeights[1], MIN_HESSIAN) / Math.max(labelWeights[0], MIN_HESSIAN))};
+        }
+        double totalWeight = Arrays.stream(labelWeights).sum();
+        return Arrays.stream(labelWeights).map(w -> Math.log(Math.max(w, MIN_HESSIAN) / totalWeight)).toArray();
+    }
+
+    /**
+     * Calculates gradients and hessians of loss for current predictions. Rows are processed in parallel.
+     *
+     * @return Weighted average loss for current predictions.
+     */
+    private double calculateGradients(DataView trainingData, int[] rows, int[] y, double[][] predictions, double[][] gradients,
+            double[][] hessians) {
+        int nbOfSequences = predictions.length;
+        double totalLoss = IntStream.of(rows).parallel().mapToDouble(row -> {
+            double weight = trainingData.getWeight(row);
+            if (nbOfSequences == 1) { // logistic loss, label with id 1 is positive
+                double p = sigmoid(predictions[0][row]);
+                gradients[0][row] = weight * (p - y[row]);
+                hessians[0][row] = weight * Math.max(p * (1.0 - p), MIN_HESSIAN);
+                return -weight * Math.log(Math.max(y[row] == 1 ? p : 1.0 - p, MIN_HESSIAN));
+            }
+            double max = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < nbOfSequences; k++) {
+                max = Math.max(max, predictions[k][row]);
+            }
+            double sum = 0;
+            for (int k = 0; k < nbOfSequences; k++) {
+                sum += Math.exp(predictions[k][row] - max);
+            }
+            double loss = 0;
+            for (int k = 0; k < nbOfSequences; k++) {
+                double p = Math.exp(predictions[k][row] - max) / sum;
+                gradients[k][row] = weight * (p - (y[row] == k ? 1.0 : 0.0));
+                hessians[k][row] = weight * Math.max(p * (1.0 - p), MIN_HESSIAN);
+                if (y[row] == k) {
+                    loss = -weight * Math.log(Math.max(p, MIN_HESSIAN));
+                }
+            }
+            return loss;
+        }).sum();
+        double totalWeight = IntStream.of(rows).mapToDouble(trainingData::getWeight).sum();
+        return totalLoss / totalWeight;
+    }
+
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    /**
+     * Probability of each label for data sample.
+     *
+     * @param dataSample Data sample.
+     * @return Probability of each label. Index is label position in {@link #getLabels()}.
+     */
+    public double[] getProbabilities(DataSample dataSample) {
+        Preconditions.checkState(trees != null, "Model is not trained");
+        int[] sampleBins = binnedData.bin(dataSample);
+        double[] scores = Arrays.copyOf(initialPredictions, initialPredictions.length);
+        for (HistogramTree[] roundTrees : trees) {
+            for (int k = 0; k < roundTrees.length; k++) {
+                scores[k] += roundTrees[k].predict(sampleBins);
+            }
+        }
+        if (scores.length == 1) {
+            double p = sigmoid(scores[0]);
+            return new double[] {1.0 - p, p};
+        }
+        double max = Arrays.stream(scores).max().getAsDouble();
+        double[] probabilities = Arrays.stream(scores).map(s -> Math.exp(s - max)).toArray();
+        double sum = Arrays.stream(probabilities).sum();
+        return Arrays.stream(probabilities).map(p -> p / sum).toArray();
+    }
+
+    /**
+     * Classify data sample - returns label with the highest probability.
+     *
+     * @param dataSample Data sample.
+     * @return Label of class.
+     */
+    @Override
+    public Label classify(DataSample dataSample) {
+        return labels.getLabel(classifyId(dataSample));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int classifyId(DataSample dataSample, LabelDictionary labelDictionary) {
+        return labelDictionary == labels ? classifyId(dataSample) : BaseLearner.super.classifyId(dataSample, labelDictionary);
+    }
+
+    /**
+     * Id of label with the highest probability.
+     */
+    private int classifyId(DataSample dataSample) {
+        double[] probabilities = getProbabilities(dataSample);
+        int best = 0;
+        for (int labelId = 1; labelId < probabilities.length; labelId++) {
+            if (probabilities[labelId] > probabilities[best]) {
+                best = labelId;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return Labels seen in training data, in order of their probabilities.
+     */
+    public List<Label> getLabels() {
+        return labels.getLabels();
+    }
+
+    /**
+     * @return Trees of each round.
+     */
+    public List<HistogramTree[]> getTrees() {
+        return trees;
+    }
+
+    /**
+     * @return Weighted average training loss before each round.
+     */
+    public double[] getLossCurve() {
+        return losses;
+    }
+
+    /* Builder */
+    public static class Builder {
+
+        private Integer numberOfRounds;
+
+        private Double learningRate;
+
+        private Integer maxLeaves;
+
+        private Integer maxBins;
+
+        private Integer minSamplesPerLeaf;
+
+        private Double minHessianPerLeaf;
+
+        private Double l2Regularization;
+
+        public Builder withNumberOfRounds(int numberOfRounds) {
+            this.numberOfRounds = numberOfRounds;
+            return this;
+        }
+
+        public Builder withLearningRate(double learningRate) {
+            this.learningRate = learningRate;
+            return this;
+        }
+
+        public Builder withMaxLeaves(int maxLeaves) {
+            this.maxLeaves = maxLeaves;
+            return this;
+        }
+
+        public Builder withMaxBins(int maxBins) {
+            this.maxBins = maxBins;
+            return this;
+        }
+
+        public Builder withMinSamplesPerLeaf(int minSamplesPerLeaf) {
+            this.minSamplesPerLeaf = minSamplesPerLeaf;
+            return this;
+        }
+
+        public Builder withMinHessianPerLeaf(double minHessianPerLeaf) {
+            this.minHessianPerLeaf = minHessianPerLeaf;
+            return this;
+        }
+
+        public Builder withL2Regularization(double l2Regularization) {
+            this.l2Regularization = l2Regularization;
+            return this;
+        }
+
+        public GradientBoosting build() {
+            return new GradientBoosting(this);
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.oak3ml.ensemble;
+
+import java.util.Arrays;
+
+/**
+ * Regression tree over {@link BinnedData} grown by {@link HistogramTreeGrower}. Nodes are kept in primitive arrays
+ * indexed by node id (root is 0). Numeric split sends bins lower or equal to split bin to the left child and categorical
+ * split sends only split bin to the left child.
+ *
+ * @author Ignas
+ *
+ */
+public class HistogramTree {
+
+    /** Split column of each node. */
+    private int[] splitColumns = new int[16];
+
+    /** Split bin of each node. */
+    private int[] splitBins = new int[16];
+
+    /** True if split of node is categorical. */
+    private boolean[] categoricalSplits = new boolean[16];
+
+    /** Left child of each node or -1 for leaf. */
+    private int[] leftChildren = new int[16];
+
+    /** Right child of each node or -1 for leaf. */
+    private int[] rightChildren = new int[16];
+
+    /** Value of each leaf. */
+    private double[] values = new double[16];
+
+    /** Number of nodes. */
+    private int nbOfNodes;
+
+    /**
+     * Constructor. Creates tree with single leaf (root).
+     */
+    public HistogramTree() {
+        super();
+        addNode();
+    }
+
+    /**
+     * Adds new leaf.
+     *
+     * @return Node id.
+     */
+    private int addNode() {
+        if (nbOfNodes == leftChildren.length) {
+            int capacity = nbOfNodes * 2;
+            splitColumns = Arrays.copyOf(splitColumns, capacity);
+            splitBins = Arrays.copyOf(splitBins, capacity);
+            categoricalSplits = Arrays.copyOf(categoricalSplits, capacity);
+            leftChildren = Arrays.copyOf(leftChildren, capacity);
+            rightChildren = Arrays.copyOf(rightChildren, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        leftChildren[nbOfNodes] = -1;
+        rightChildren[nbOfNodes] = -1;
+        return nbOfNodes++;
+    }
+
+    /**
+     * Turns leaf into split node with two new leaves.
+     *
+     * @param node Leaf to split.
+     * @param column Split column.
+     * @param bin Split bin.
+     * @param categorical True if split is categorical.
+     * @return Id of left child. Id of right child is next number.
+     */
+    int split(int node, int column, int bin, boolean categorical) {
+        splitColumns[node] = column;
+        splitBins[node] = bin;
+        categoricalSplits[node] = categorical;
+        leftChildren[node] = addNode();
+        rightChildren[node] = addNode();
+        return leftChildren[node];
+    }
+
+    /**
+     * Sets value of a leaf.
+     */
+    void setValue(int node, double value) {
+        values[node] = value;
+    }
+
+    /**
+     * Checks if bin goes to the left child of split.
+     */
+    static boolean goesLeft(int bin, int splitBin, boolean categorical) {
+        return categorical ? bin == splitBin : bin <= splitBin;
+    }
+
+    /**
+     * Predict value of binned data sample.
+     *
+     * @param sampleBins Bin of each column (see {@link BinnedData#bin}).
+     * @return Value of leaf reached by data sample.
+     */
+    public double predict(int[] sampleBins) {
+        int node = 0;
+        while (leftChildren[node] != -1) {
+            node = goesLeft(sampleBins[splitColumns[node]], splitBins[node], categoricalSplits[node]) ? leftChildren[node] : rightChildren[node];
+        }
+        return values[node];
+    }
+
+    /**
+     * @return Number of nodes.
+     */
+    public int getNbOfNodes() {
+        return nbOfNodes;
+    }
+
+    /**
+     * @return Number of leaves.
+     */
+    public int getNbOfLeaves() {
+        return (nbOfNodes + 1) / 2;
+    }
+
+}
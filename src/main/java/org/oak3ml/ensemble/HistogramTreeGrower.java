@@ -0,0 +1,278 @@
+package org.oak3ml.ensemble;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Grows {@link HistogramTree} on gradients and hessians of a loss (second order boosting). Growth is leaf-wise - leaf
+ * with the best split gain is split first until maximum number of leaves is reached. Each leaf keeps histograms of
+ * gradient, hessian and row counts per bin of every column, so split finding only looks at bins. Only the smaller child
+ * histograms are built by scanning rows - larger child histograms are calculated by subtracting smaller child
+ * histograms from the parent ones.
+ *
+ * @author Ignas
+ *
+ */
+class HistogramTreeGrower {
+
+    /** Histograms of leaves with less rows * columns than this are built by a single thread. */
+    private static final int PARALLEL_HISTOGRAM_THRESHOLD = 1 << 16;
+
+    /** Binned training data. */
+    private final BinnedData data;
+
+    /** Offset of each column in flattened histogram. */
+    private final int[] offsets;
+
+    /** Total number of bins of all columns. */
+    private final int nbOfBins;
+
+    /** Maximum number of leaves. */
+    private final int maxLeaves;
+
+    /** Minimum number of rows in a leaf. */
+    private final int minSamplesPerLeaf;
+
+    /** Minimum sum of hessians in a leaf. */
+    private final double minHessianPerLeaf;
+
+    /** L2 regularisation of leaf values. */
+    private final double l2Regularization;
+
+    /** Shrinkage of leaf values. */
+    private final double learningRate;
+
+    /**
+     * Constructor.
+     */
+    HistogramTreeGrower(BinnedData data, int maxLeaves, int minSamplesPerLeaf, double minHessianPerLeaf, double l2Regularization,
+            double learningRate) {
+        super();
+        this.data = data;
+        this.maxLeaves = maxLeaves;
+        this.minSamplesPerLeaf = minSamplesPerLeaf;
+        this.minHessianPerLeaf = minHessianPerLeaf;
+        this.l2Regularization = l2Regularization;
+        this.learningRate = learningRate;
+        offsets = new int[data.getNbOfColumns() + 1];
+        for (int c = 0; c < data.getNbOfColumns(); c++) {
+            offsets[c + 1] = offsets[c] + data.getNbOfBins(c);
+        }
+        nbOfBins = offsets[data.getNbOfColumns()];
+    }
+
+    /**
+     * Grows a tree and adds its (shrunk) leaf values to predictions of training rows.
+     *
+     * @param rows Rows used to grow the tree. Array is reordered so rows of each leaf are next to each other.
+     * @param gradients Gradient of loss of each row.
+     * @param hessians Hessian of loss of each row.
+     * @param predictions Current predictions of each row. Leaf values are added to them.
+     * @return Grown tree.
+     */
+    HistogramTree grow(int[] rows, double[] gradients, double[] hessians, double[] predictions) {
+        HistogramTree tree = new HistogramTree();
+        Leaf root = new Leaf(0, 0, rows.length);
+        buildHistogram(root, rows, gradients, hessians);
+        findBestSplit(root);
+
+        List<Leaf> leaves = Lists.newArrayList();
+        PriorityQueue<Leaf> splittable = new PriorityQueue<>((a, b) -> Double.compare(b.gain, a.gain));
+        addLeaf(root, leaves, splittable);
+        int nbOfLeaves = 1;
+        while (nbOfLeaves < maxLeaves && !splittable.isEmpty()) {
+            Leaf parent = splittable.poll();
+            int leftNode = tree.split(parent.node, parent.splitColumn, parent.splitBin, data.isCategorical(parent.splitColumn));
+            int middle = partition(rows, parent);
+            Leaf left = new Leaf(leftNode, parent.begin, middle);
+            Leaf right = new Leaf(leftNode + 1, middle, parent.end);
+
+            // histogram subtraction - only smaller child is scanned, larger child reuses parent histograms
+            Leaf smaller = left.size() <= right.size() ? left : right;
+            Leaf larger = smaller == left ? right : left;
+            buildHistogram(smaller, rows, gradients, hessians);
+            larger.gradientHistogram = parent.gradientHistogram;
+            larger.hessianHistogram = parent.hessianHistogram;
+            larger.countHistogram = parent.countHistogram;
+            for (int bin = 0; bin < nbOfBins; bin++) {
+                larger.gradientHistogram[bin] -= smaller.gradientHistogram[bin];
+                larger.hessianHistogram[bin] -= smaller.hessianHistogram[bin];
+                larger.countHistogram[bin] -= smaller.countHistogram[bin];
+            }
+            larger.gradient = parent.gradient - smaller.gradient;
+            larger.hessian = parent.hessian - smaller.hessian;
+
+            findBestSplit(left);
+            findBestSplit(right);
+            addLeaf(left, leaves, splittable);
+            addLeaf(right, leaves, splittable);
+            nbOfLeaves++;
+        }
+        leaves.addAll(splittable);
+
+        for (Leaf leaf : leaves) {
+            double value = -learningRate * leaf.gradient / (leaf.hessian + l2Regularization);
+            tree.setValue(leaf.node, value);
+            for (int i = leaf.begin; i < leaf.end; i++) {
+                predictions[rows[i]] += value;
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Adds leaf to the queue of splittable leaves if it has a split with positive gain.
+     */
+    private void addLeaf(Leaf leaf, List<Leaf> leaves, PriorityQueue<Leaf> splittable) {
+        if (leaf.splitColumn != -1 && leaf.gain > 0) {
+            splittable.add(leaf);
+        } else {
+            leaves.add(leaf);
+            // histograms of leaves which will not be split are not needed anymore
+            leaf.gradientHistogram = null;
+            leaf.hessianHistogram = null;
+            leaf.countHistogram = null;
+        }
+    }
+
+    /**
+     * Reorders rows of leaf so rows which go to the left child are first.
+     *
+     * @return Index of first row which goes to the right child.
+     */
+    private int partition(int[] rows, Leaf leaf) {
+        byte[] bins = data.getBins(leaf.splitColumn);
+        boolean categorical = data.isCategorical(leaf.splitColumn);
+        int left = leaf.begin;
+        int right = leaf.end - 1;
+        while (left <= right) {
+            if (HistogramTree.goesLeft(bins[rows[left]] & 0xFF, leaf.splitBin, categorical)) {
+                left++;
+            } else {
+                int row = rows[left];
+                rows[left] = rows[right];
+                rows[right--] = row;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Builds histograms of leaf by scanning its rows. Columns are independent so large leaves are scanned in parallel by
+     * column.
+     */
+    private void buildHistogram(Leaf leaf, int[] rows, double[] gradients, double[] hessians) {
+        leaf.gradientHistogram = new double[nbOfBins];
+        leaf.hessianHistogram = new double[nbOfBins];
+        leaf.countHistogram = new int[nbOfBins];
+        IntStream columns = IntStream.range(0, data.getNbOfColumns());
+        if ((long) leaf.size() * data.getNbOfColumns() >= PARALLEL_HISTOGRAM_THRESHOLD) {
+            columns = columns.parallel();
+        }
+        columns.forEach(c -> {
+            byte[] bins = data.getBins(c);
+            int offset = offsets[c];
+            for (int i = leaf.begin; i < leaf.end; i++) {
+                int row = rows[i];
+                int bin = offset + (bins[row] & 0xFF);
+                leaf.gradientHistogram[bin] += gradients[row];
+                leaf.hessianHistogram[bin] += hessians[row];
+                leaf.countHistogram[bin]++;
+            }
+        });
+        for (int i = leaf.begin; i < leaf.end; i++) {
+            leaf.gradient += gradients[rows[i]];
+            leaf.hessian += hessians[rows[i]];
+        }
+    }
+
+    /**
+     * Finds split of leaf with the biggest gain from its histograms.
+     */
+    private void findBestSplit(Leaf leaf) {
+        leaf.splitColumn = -1;
+        if (leaf.size() < 2 * minSamplesPerLeaf) {
+            return;
+        }
+        double parentScore = score(leaf.gradient, leaf.hessian);
+        for (int c = 0; c < data.getNbOfColumns(); c++) {
+            boolean categorical = data.isCategorical(c);
+            double leftGradient = 0;
+            double leftHessian = 0;
+            int leftCount = 0;
+            for (int bin = 0; bin < data.getNbOfBins(c); bin++) {
+                int index = offsets[c] + bin;
+                if (categorical) { // one category versus the rest
+                    leftGradient = leaf.gradientHistogram[index];
+                    leftHessian = leaf.hessianHistogram[index];
+                    leftCount = leaf.countHistogram[index];
+                } else { // all bins up to current one
+                    leftGradient += leaf.gradientHistogram[index];
+                    leftHessian += leaf.hessianHistogram[index];
+                    leftCount += leaf.countHistogram[index];
+                }
+                int rightCount = leaf.size() - leftCount;
+                double rightHessian = leaf.hessian - leftHessian;
+                if (leftCount < minSamplesPerLeaf || rightCount < minSamplesPerLeaf || leftHessian < minHessianPerLeaf
+                        || rightHessian < minHessianPerLeaf) {
+                    continue;
+                }
+                double gain = score(leftGradient, leftHessian) + score(leaf.gradient - leftGradient, rightHessian) - parentScore;
+                if (gain > leaf.gain || leaf.splitColumn == -1) {
+                    leaf.gain = gain;
+                    leaf.splitColumn = c;
+                    leaf.splitBin = bin;
+                }
+            }
+        }
+    }
+
+    /**
+     * Loss reduction score of a leaf with given sums of gradients and hessians.
+     */
+    private double score(double gradient, double hessian) {
+        return gradient * gradient / (hessian + l2Regularization);
+    }
+
+    /**
+     * Leaf being grown. Its rows are rows[begin, end).
+     */
+    private static class Leaf {
+
+        private final int node;
+
+        private final int begin;
+
+        private final int end;
+
+        private double gradient;
+
+        private double hessian;
+
+        private double[] gradientHistogram;
+
+        private double[] hessianHistogram;
+
+        private int[] countHistogram;
+
+        private int splitColumn = -1;
+
+        private int splitBin;
+
+        private double gain;
+
+        private Leaf(int node, int begin, int end) {
+            this.node = node;
+            this.begin = begin;
+            this.end = end;
+        }
+
+        private int size() {
+            return end - begin;
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.oak3ml.ensemble;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.label.Label;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Majority voting of ensemble members. Labels are mapped to ids once when ensemble is trained ({@link LabelDictionary})
+ * and votes are counted in primitive arrays which are reused for every data sample, so classification does not allocate
+ * any vote counting structures. Members trained on data with the same dictionary vote with label ids directly (see
+ * {@link BaseLearner#classifyId(DataSample, LabelDictionary)}). Votes of members can be weighted (for example by
+ * {@link Boosting}).
+ * 
+ * @author Ignas
+ *
+ */
+public class MajorityVote {
+
+    /** Number of data samples classified by single thread in batch classification. */
+    private static final int BATCH_CHUNK_SIZE = 1024;
+
+    /** Label ids. */
+    private final LabelDictionary labels;
+
+    /** Vote counts reused by each thread. */
+    private final ThreadLocal<double[]> votes;
+
+    /**
+     * Constructor.
+     * 
+     * @param trainingData Training data used to collect all possible labels.
+     */
+    public MajorityVote(List<DataSample> trainingData) {
+        this(DataView.newDataView(trainingData).getLabelDictionary());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param labels Dictionary of all possible labels (for example of shared training data view).
+     */
+    public MajorityVote(LabelDictionary labels) {
+        super();
+        this.labels = labels;
+        votes = ThreadLocal.withInitial(() -> new double[labels.size()]);
+    }
+
+    /**
+     * Classify data sample by all models. Most voted label is returned.
+     * 
+     * @param models Ensemble members.
+     * @param dataSample Data sample to classify.
+     * @return Most voted label.
+     */
+    public Label classify(List<? extends BaseLearner> models, DataSample dataSample) {
+        return classify(models, null, dataSample);
+    }
+
+    /**
+     * Classify data sample by all models where vote of each model has a weight. Label with highest total weight is
+     * returned.
+     * 
+     * @param models Ensemble members.
+     * @param modelWeights Vote weight of each member. If null every member has weight 1.
+     * @param dataSample Data sample to classify.
+     * @return Most voted label.
+     */
+    public Label classify(List<? extends BaseLearner> models, double[] modelWeights, DataSample dataSample) {
+        return classify(models, modelWeights, dataSample, votes.get());
+    }
+
+    /**
+     * @return Number of labels seen in training data.
+     */
+    public int getNbOfLabels() {
+        return labels.size();
+    }
+
+    /**
+     * Classify all data samples by all models. Data samples are classified in parallel, each thread reuses its vote counts.
+     * 
+     * @param models Ensemble members.
+     * @param data Data samples to classify.
+     * @return Most voted label of each data sample.
+     */
+    public Label[] classify(List<? extends BaseLearner> models, List<DataSample> data) {
+        return classify(models, null, data);
+    }
+
+    /**
+     * Classify all data samples by all models with weighted votes. Data samples are classified in parallel, each thread
+     * reuses its vote counts.
+     * 
+     * @param models Ensemble members.
+     * @param modelWeights Vote weight of each member. If null every member has weight 1.
+     * @param data Data samples to classify.
+     * @return Most voted label of each data sample.
+     */
+    public Label[] classify(List<? extends BaseLearner> models, double[] modelWeights, List<DataSample> data) {
+        Label[] result = new Label[data.size()];
+        int nbOfChunks = (data.size() + BATCH_CHUNK_SIZE - 1) / BATCH_CHUNK_SIZE;
+        IntStream.range(0, nbOfChunks).parallel().forEach(chunk -> {
+            double[] chunkVotes = votes.get();
+            int end = Math.min(data.size(), (chunk + 1) * BATCH_CHUNK_SIZE);
+            for (int i = chunk * BATCH_CHUNK_SIZE; i < end; i++) {
+                result[i] = classify(models, modelWeights, data.get(i), chunkVotes);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Count votes and return most voted label. If there is a tie label which was seen first in training data wins.
+     */
+    private Label classify(List<? extends BaseLearner> models, double[] modelWeights, DataSample dataSample, double[] votes) {
+        Preconditions.checkState(labels.size() > 0, "Ensemble is not trained");
+        for (int i = 0; i < models.size(); i++) {
+            int labelId = models.get(i).classifyId(dataSample, labels);
+            if (labelId != LabelDictionary.UNKNOWN_ID) {
+                votes[labelId] += modelWeights == null ? 1.0 : modelWeights[i];
+            }
+        }
+        int mostVoted = 0;
+        for (int labelId = 0; labelId < votes.length; labelId++) {
+            if (votes[labelId] > votes[mostVoted]) {
+                mostVoted = labelId;
+            }
+        }
+        Arrays.fill(votes, 0);
+        return labels.getLabel(mostVoted);
+    }
+
+}
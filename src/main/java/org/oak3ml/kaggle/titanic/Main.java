@@ -9,29 +9,25 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.data.CsvLoader;
+import org.oak3ml.decisiontree.data.CsvSchema;
+import org.oak3ml.decisiontree.data.DataDeduplicator;
 import org.oak3ml.decisiontree.data.DataSample;
-import org.oak3ml.decisiontree.data.SimpleDataSample;
 import org.oak3ml.decisiontree.feature.CategoricalFeature;
 import org.oak3ml.decisiontree.feature.Feature;
 import org.oak3ml.decisiontree.feature.GroupedPredicatesFeature;
 import org.oak3ml.decisiontree.impurity.EntropyCalculationMethod;
 import org.oak3ml.decisiontree.label.BooleanLabel;
 import org.oak3ml.features.discretisation.DivisiveDiscretiser;
-import org.supercsv.cellprocessor.Optional;
-import org.supercsv.cellprocessor.ParseBool;
-import org.supercsv.cellprocessor.ParseDouble;
-import org.supercsv.cellprocessor.ParseInt;
-import org.supercsv.cellprocessor.ift.CellProcessor;
-import org.supercsv.io.CsvListReader;
-import org.supercsv.io.ICsvListReader;
-import org.supercsv.prefs.CsvPreference;
-import org.supercsv.util.CsvContext;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -54,7 +50,8 @@ public class Main {
             
             List<Feature> features = getFeatures(trainingData);
             
-            tree.train(trainingData, features);
+            // identical passengers (in feature columns) are trained as single weighted data sample
+            tree.train(DataDeduplicator.deduplicate(trainingData, features), features);
             
             // print tree after training
             String treeJson = tree.exportAsJson();
@@ -116,67 +113,33 @@ public class Main {
     }
     
     private static List<DataSample> readData(boolean training) throws IOException {
-        List<DataSample> data = Lists.newArrayList();
         String filename = training ? "train.csv" : "test.csv";
         
-        InputStreamReader stream = new InputStreamReader(Test.class.getResourceAsStream(filename));
-        try (ICsvListReader listReader = new CsvListReader(stream, CsvPreference.STANDARD_PREFERENCE);) {
-            
-            // the header elements are used to map the values to the bean (names must match)
-            final String[] header = listReader.getHeader(true);
-            
-            List<Object> values;
-            while ((values = listReader.read(getProcessors(training))) != null) {
-//                System.out.println(String.format("lineNo=%s, rowNo=%s, data=%s", listReader.getLineNumber(), listReader.getRowNumber(), values));
-                data.add(SimpleDataSample.newSimpleDataSample("Survived", header, values.toArray()));
-            }
+        // loader maps a file into memory and resource can be packed in a jar, so it is copied to a temporary file
+        Path file = Files.createTempFile("titanic", ".csv");
+        file.toFile().deleteOnExit();
+        try (InputStream stream = Test.class.getResourceAsStream(filename)) {
+            Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
         }
-        return data;
+        return CsvLoader.load(file, getSchema(training));
     }
     
-    private static CellProcessor[] getProcessors(boolean training) {
-        // TODO fix this is ugly
+    private static CsvSchema getSchema(boolean training) {
+        CsvSchema.Builder schema = new CsvSchema.Builder().withIntColumn("PassengerId");
         if (training) {
-            final CellProcessor[] processors = new CellProcessor[] { 
-                    new Optional(new ParseInt()),
-                    new Optional(new ParseBooleanLabel()),
-                    new Optional(new ParseInt()),
-                    new Optional(),
-                    new Optional(),
-                    new Optional(new ParseDouble()),
-                    new Optional(new ParseInt()),
-                    new Optional(new ParseInt()),
-                    new Optional(),
-                    new Optional(new ParseDouble()),
-                    new Optional(),
-                    new Optional()
-            };
-            return processors;
-        } else {
-            final CellProcessor[] processors = new CellProcessor[] { 
-                    new Optional(new ParseInt()),
-                    new Optional(new ParseInt()),
-                    new Optional(),
-                    new Optional(),
-                    new Optional(new ParseDouble()),
-                    new Optional(new ParseInt()),
-                    new Optional(new ParseInt()),
-                    new Optional(),
-                    new Optional(new ParseDouble()),
-                    new Optional(),
-                    new Optional()
-            };
-            return processors;
-        }
-    }
-    
-    private static class ParseBooleanLabel extends ParseBool {
-        
-        public Object execute(final Object value, final CsvContext context) {
-            Boolean parsed = (Boolean)super.execute(value, context);
-            return parsed ? BooleanLabel.TRUE_LABEL : BooleanLabel.FALSE_LABEL;
+            schema.withLabelColumn("Survived", value -> BooleanLabel.newLabel("1".equals(value)));
         }
-        
+        return schema.withIntColumn("Pclass")
+                .withStringColumn("Name")
+                .withStringColumn("Sex")
+                .withDoubleColumn("Age")
+                .withIntColumn("SibSp")
+                .withIntColumn("Parch")
+                .withStringColumn("Ticket")
+                .withDoubleColumn("Fare")
+                .withStringColumn("Cabin")
+                .withStringColumn("Embarked")
+                .build();
     }
     
 }
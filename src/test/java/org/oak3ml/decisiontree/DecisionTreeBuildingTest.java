@@ -1,11 +1,17 @@
 package org.oak3ml.decisiontree;
 
+import static org.oak3ml.decisiontree.feature.PredicateFeature.newFeature;
+
 import java.lang.reflect.Field;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.oak3ml.decisiontree.feature.Feature;
 import org.oak3ml.decisiontree.impurity.MinorityClassCalculationMethod;
 
+import com.google.common.collect.Lists;
+
 public class DecisionTreeBuildingTest {
     
     @Test
@@ -27,4 +33,30 @@ public class DecisionTreeBuildingTest {
         Assert.assertTrue(settings.getImpurityCalculationMethod() instanceof MinorityClassCalculationMethod);;
     }
 
+    @Test
+    public void testBuildTreeWithRandomFeaturesPerSplit() throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException, SecurityException {
+        DecisionTree tree = new DecisionTree.Builder().withRandomFeaturesPerSplit(2).build();
+        
+        Field field = DecisionTree.class.getDeclaredField("settings");
+        field.setAccessible(true);
+        
+        DecisionTreeSettings settings = (DecisionTreeSettings)field.get(tree);
+        Assert.assertEquals(2, settings.getNbOfFeaturesPerSplit(10));
+        Assert.assertEquals(1, settings.getNbOfFeaturesPerSplit(1));
+        
+        List<Feature> features = Lists.newArrayList(newFeature("x1", 1), newFeature("x2", 1), newFeature("x3", 1), newFeature("x4", 1));
+        List<Feature> candidates = tree.drawCandidateFeatures(features);
+        Assert.assertEquals(2, candidates.size());
+        Assert.assertTrue(features.containsAll(candidates));
+        Assert.assertNotEquals(candidates.get(0), candidates.get(1));
+    }
+
+    @Test
+    public void testBuildTreeWithRandomFeaturesPerSplitPercentage() {
+        DecisionTree tree = new DecisionTree.Builder().withRandomFeaturesPerSplitPercentage(0.5).build();
+        List<Feature> features = Lists.newArrayList(newFeature("x1", 1), newFeature("x2", 1), newFeature("x3", 1));
+        Assert.assertEquals(2, tree.drawCandidateFeatures(features).size());
+        Assert.assertEquals(3, new DecisionTree.Builder().build().drawCandidateFeatures(features).size());
+    }
+
 }
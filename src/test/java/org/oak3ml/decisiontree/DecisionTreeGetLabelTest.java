@@ -9,6 +9,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.oak3ml.decisiontree.DecisionTree;
 import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
 
 import com.google.common.collect.Lists;
 
@@ -38,6 +39,16 @@ public class DecisionTreeGetLabelTest {
         Assert.assertNull(tree.getLabel(data));
     }
 
+    @Test
+    public void testGetLabelUsesWeights() {
+        DecisionTree tree = new DecisionTree.Builder().build();
+        String[] header = {"weight", "answer"};
+        List<DataSample> data = Lists.newArrayList();
+        data.add(SimpleDataSample.newWeightedDataSample("answer", "weight", header, 95, TRUE_LABEL));
+        data.add(SimpleDataSample.newWeightedDataSample("answer", "weight", header, 5, FALSE_LABEL));
+        Assert.assertEquals("true", tree.getLabel(data).getName());
+    }
+
     @Test
     public void testGetLabelOn95vs5() {
         DecisionTree tree = new DecisionTree.Builder().build();
@@ -1,16 +1,20 @@
 package org.oak3ml.decisiontree;
 
 import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.data.DataSample;
 import org.oak3ml.decisiontree.data.SimpleDataSample;
 import org.oak3ml.decisiontree.feature.Feature;
 import org.oak3ml.decisiontree.feature.P;
 import org.oak3ml.decisiontree.feature.PredicateFeature;
 import org.oak3ml.decisiontree.label.BooleanLabel;
 
+import com.google.common.collect.Lists;
+
 public class DecisionTreeTrainingTest {
     
     /**
@@ -185,4 +189,35 @@ public class DecisionTreeTrainingTest {
         
     }
 
+    /**
+     * Weighted data sample must be counted the same way as repeated data samples.
+     */
+    @Test
+    public void testWeightedDataSamplesAreSameAsRepeated() {
+        String[] header = {"x1", "weight", "answer"};
+        Feature feature1 = PredicateFeature.newFeature("x1", P.moreThan(1));
+        Feature feature2 = PredicateFeature.newFeature("x1", P.moreThan(2));
+
+        List<DataSample> repeated = Lists.newArrayList();
+        for (int i = 0; i < 3; i++) {
+            repeated.add(SimpleDataSample.newSimpleDataSample("answer", new String[] {"x1", "answer"}, 1, BooleanLabel.FALSE_LABEL));
+        }
+        repeated.add(SimpleDataSample.newSimpleDataSample("answer", new String[] {"x1", "answer"}, 2, BooleanLabel.TRUE_LABEL));
+        repeated.add(SimpleDataSample.newSimpleDataSample("answer", new String[] {"x1", "answer"}, 3, BooleanLabel.TRUE_LABEL));
+        repeated.add(SimpleDataSample.newSimpleDataSample("answer", new String[] {"x1", "answer"}, 3, BooleanLabel.TRUE_LABEL));
+        DecisionTree repeatedTree = new DecisionTree.Builder().build();
+        repeatedTree.train(repeated, Arrays.asList(feature1, feature2));
+
+        List<DataSample> weighted = Arrays.asList(
+                SimpleDataSample.newWeightedDataSample("answer", "weight", header, 1, 3, BooleanLabel.FALSE_LABEL),
+                SimpleDataSample.newWeightedDataSample("answer", "weight", header, 2, 1, BooleanLabel.TRUE_LABEL),
+                SimpleDataSample.newWeightedDataSample("answer", "weight", header, 3, 2, BooleanLabel.TRUE_LABEL));
+        DecisionTree weightedTree = new DecisionTree.Builder().build();
+        weightedTree.train(weighted, Arrays.asList(feature1, feature2));
+
+        Assert.assertEquals(repeatedTree.getRoot().getName(), weightedTree.getRoot().getName());
+        Assert.assertEquals(repeatedTree.getRoot().getCountedSamples(), weightedTree.getRoot().getCountedSamples());
+        Assert.assertEquals(3.0, weightedTree.getRoot().getCountedSamples().get(BooleanLabel.FALSE_LABEL), 0.001);
+    }
+
 }
@@ -0,0 +1,191 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.data.SparseDataset;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+import org.oak3ml.decisiontree.feature.SparseFeature;
+import org.oak3ml.decisiontree.impurity.GiniIndexCalculationMethod;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class FeatureBundlesTest {
+
+    private static final String[] HEADER = { "color", "size", "x", "answer", "weight" };
+
+    private static final String[] COLORS = { "red", "green", "blue", "black", "white" };
+
+    private static final String[] SIZES = { "S", "M", "L", "XL" };
+
+    @Test
+    public void testOneHotFeaturesAreBundled() {
+        FeatureBundles bundles = FeatureBundles.newFeatureBundles(DataView.newDataView(getData()), getFeatures(), 0.0);
+        // one-hot features of each column are exclusive, thresholds of x conflict with each other
+        Assert.assertEquals(2, bundles.getBundles().size());
+        Assert.assertEquals(Sets.newHashSet(COLORS.length, SIZES.length), Sets.newHashSet(bundles.getBundles().get(0).size(), bundles.getBundles().get(1).size()));
+        Assert.assertEquals(COLORS.length + SIZES.length, bundles.getNbOfBundledFeatures());
+
+        Feature blue = PredicateFeature.newFeature("color", "blue");
+        Feature bundledBlue = getFeatures().stream().filter(blue::equals).findFirst().get();
+        Assert.assertEquals(-1, bundles.getBundle(blue)); // bundles know features by identity
+        FeatureBundles sameFeatures = FeatureBundles.newFeatureBundles(DataView.newDataView(getData()), Lists.newArrayList(bundledBlue), 0.0);
+        Assert.assertTrue(sameFeatures.getBundles().isEmpty()); // single feature is not bundled
+    }
+
+    @Test
+    public void testBinsOfRows() {
+        List<DataSample> data = getData();
+        List<Feature> features = getFeatures();
+        FeatureBundles bundles = FeatureBundles.newFeatureBundles(DataView.newDataView(data), features, 0.0);
+        for (Feature feature : features) {
+            int bundle = bundles.getBundle(feature);
+            if (bundle < 0) {
+                continue;
+            }
+            for (int row = 0; row < data.size(); row++) {
+                Assert.assertEquals(feature.belongsTo(data.get(row)), bundles.getBin(bundle, row) == bundles.getPosition(feature) + 1);
+            }
+        }
+    }
+
+    @Test
+    public void testConflictRate() {
+        List<DataSample> data = Lists.newArrayList();
+        String[] header = { "a", "b", "answer" };
+        for (int row = 0; row < 100; row++) {
+            // a and b are both set in 3 rows
+            data.add(SimpleDataSample.newSimpleDataSample("answer", header, row < 40, row >= 37 && row < 80, TRUE_LABEL));
+        }
+        List<Feature> features = Lists.newArrayList(PredicateFeature.newFeature("a", true), PredicateFeature.newFeature("b", true));
+        Assert.assertTrue(FeatureBundles.newFeatureBundles(DataView.newDataView(data), features, 0.02).getBundles().isEmpty());
+        FeatureBundles bundles = FeatureBundles.newFeatureBundles(DataView.newDataView(data), features, 0.03);
+        Assert.assertEquals(1, bundles.getBundles().size());
+        // b has more rows, so it is bundled first and keeps conflicting rows
+        Assert.assertEquals(features.get(1), bundles.getBundles().get(0).get(0));
+        Assert.assertEquals(1, bundles.getBin(0, 38));
+    }
+
+    @Test
+    public void testBinsOfSparseData() {
+        // one-hot columns c0-c3 of category row % 4 with values 1 or 2, c4 is set in every third row
+        int nbOfRows = 60;
+        int[] rowOffsets = new int[nbOfRows + 1];
+        List<Integer> columns = Lists.newArrayList();
+        List<Double> values = Lists.newArrayList();
+        Label[] labels = new Label[nbOfRows];
+        for (int row = 0; row < nbOfRows; row++) {
+            columns.add(row % 4);
+            values.add(1.0 + row % 2);
+            if (row % 3 == 0) {
+                columns.add(4);
+                values.add(1.0);
+            }
+            rowOffsets[row + 1] = columns.size();
+            labels[row] = row % 4 == 0 ? TRUE_LABEL : FALSE_LABEL;
+        }
+        SparseDataset data = SparseDataset.newSparseDataset(new String[] { "c0", "c1", "c2", "c3", "c4" }, rowOffsets,
+                columns.stream().mapToInt(Integer::intValue).toArray(), values.stream().mapToDouble(Double::doubleValue).toArray(), labels, null);
+        List<Feature> features = Lists.newArrayList(SparseFeature.newFeatures(data));
+        // threshold feature of a bundled column, feature of a missing column and feature evaluated row by row
+        features.add(SparseFeature.newFeature("c1", 1.5));
+        features.add(SparseFeature.newFeature("c9"));
+        features.add(PredicateFeature.newFeature("c4", P.lessThanOrEqualNumber(0.5)));
+
+        FeatureBundles bundles = FeatureBundles.newFeatureBundles(DataView.newDataView(data), features, 0.0);
+        // rows without c4 (most rows, bundled first) and with c4 are exclusive, c1 > 1.5 conflicts with c1
+        Assert.assertEquals(2, bundles.getBundles().size());
+        Assert.assertEquals(Lists.newArrayList(features.get(7), features.get(4), features.get(6)), bundles.getBundles().get(0));
+        Assert.assertEquals(features.subList(0, 4), bundles.getBundles().get(1));
+        for (Feature feature : features) {
+            int bundle = bundles.getBundle(feature);
+            if (bundle < 0) {
+                continue;
+            }
+            for (int row = 0; row < data.size(); row++) {
+                Assert.assertEquals(feature.belongsTo(data.get(row)), bundles.getBin(bundle, row) == bundles.getPosition(feature) + 1);
+            }
+        }
+    }
+
+    @Test
+    public void testTreeIsTheSameAsWithoutBundling() {
+        DecisionTree tree = new DecisionTree.Builder().withMinimumNumberOfInstancesPerLeaf(3).build();
+        tree.train(getData(), getFeatures());
+        DecisionTree bundledTree = new DecisionTree.Builder().withMinimumNumberOfInstancesPerLeaf(3).withFeatureBundling(0.0).build();
+        bundledTree.train(getData(), getFeatures());
+
+        Assert.assertFalse(tree.getRoot().isLeaf());
+        Assert.assertEquals(tree.exportAsJson(), bundledTree.exportAsJson());
+    }
+
+    @Test
+    public void testTrainedTreeDoesNotKeepBundles() throws Exception {
+        DecisionTree bundledTree = new DecisionTree.Builder().withFeatureBundling(0.0).build();
+        List<DataSample> data = getData();
+        bundledTree.train(data, getFeatures());
+        Assert.assertFalse(bundledTree.getRoot().isLeaf());
+
+        // bundles keep bins and data they were made for, so they must be gone together with the data
+        WeakReference<List<DataSample>> dataReference = new WeakReference<>(data);
+        data = null;
+        for (int i = 0; i < 20 && dataReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertNull(dataReference.get());
+    }
+
+    @Test
+    public void testSplitFinderOfOtherDataEvaluatesFeaturesOneByOne() {
+        List<Feature> features = getFeatures();
+        FeatureBundles bundles = FeatureBundles.newFeatureBundles(DataView.newDataView(getData()), features, 0.0);
+        BestSplitFinder splitFinder = new BundledSplitFinder(new GiniIndexCalculationMethod(), 0, 0.0, bundles);
+        DataView otherData = DataView.newDataView(getData());
+        Assert.assertFalse(bundles.isFor(otherData));
+        Assert.assertEquals(new BestSplitFinder(new GiniIndexCalculationMethod()).findBestSplitFeature(otherData, otherData.getRows(), features),
+                splitFinder.findBestSplitFeature(otherData, otherData.getRows(), features));
+    }
+
+    /**
+     * Label depends on color and size with some noise, weights are 1 or 2.
+     */
+    private List<DataSample> getData() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int row = 0; row < 120; row++) {
+            String color = COLORS[(row * 7) % COLORS.length];
+            String size = SIZES[(row / 3) % SIZES.length];
+            boolean label = (color.equals("blue") || color.equals("red")) && !size.equals("S") || row % 13 == 0;
+            data.add(SimpleDataSample.newWeightedDataSample("answer", "weight", HEADER, color, size, row % 7, label ? TRUE_LABEL : FALSE_LABEL,
+                    row % 4 == 0 ? 2.0 : 1.0));
+        }
+        return data;
+    }
+
+    private List<Feature> getFeatures() {
+        List<Feature> features = Lists.newArrayList();
+        for (String color : COLORS) {
+            features.add(PredicateFeature.newFeature("color", color));
+        }
+        for (String size : SIZES) {
+            features.add(PredicateFeature.newFeature("size", size));
+        }
+        for (int x = 1; x < 7; x += 2) {
+            features.add(PredicateFeature.newFeature("x", P.lessThanOrEqualNumber(x + 0.5)));
+        }
+        return features;
+    }
+
+}
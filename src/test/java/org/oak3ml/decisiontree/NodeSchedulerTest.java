@@ -0,0 +1,96 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+
+import com.google.common.collect.Lists;
+
+public class NodeSchedulerTest {
+
+    private static final int NB_OF_SAMPLES = 300;
+
+    @Test
+    public void testSchedulersGrowTheSameTree() {
+        String expected = trainDeepTree(NodeScheduler::depthFirst, 20).exportAsJson();
+        Assert.assertEquals(expected, trainDeepTree(NodeScheduler::levelWise, 20).exportAsJson());
+        Assert.assertEquals(expected, trainDeepTree(NodeScheduler::largestFirst, 20).exportAsJson());
+    }
+
+    @Test
+    public void testLevelWiseOrder() {
+        NodeScheduler scheduler = NodeScheduler.levelWise();
+        NodeTask root = new NodeTask(new int[3], null, 1, "root", null, 0);
+        scheduler.addAll(Arrays.asList(root));
+        NodeTask left = new NodeTask(new int[1], null, 2, "left", null, 0);
+        NodeTask right = new NodeTask(new int[2], null, 2, "right", null, 1);
+        Assert.assertSame(root, scheduler.poll());
+        scheduler.addAll(Arrays.asList(left, right));
+        Assert.assertSame(left, scheduler.poll());
+        Assert.assertSame(right, scheduler.poll());
+        Assert.assertNull(scheduler.poll());
+
+        scheduler = NodeScheduler.largestFirst();
+        scheduler.addAll(Arrays.asList(left, right));
+        Assert.assertSame(right, scheduler.poll());
+
+        scheduler = NodeScheduler.depthFirst();
+        scheduler.addAll(Arrays.asList(left, right));
+        Assert.assertSame(left, scheduler.poll());
+    }
+
+    /**
+     * Tree with one node per level is grown on a thread with very small stack.
+     */
+    @Test
+    public void testDeepTreeDoesNotNeedStack() throws InterruptedException {
+        DecisionTree[] tree = new DecisionTree[1];
+        Thread thread = new Thread(null, () -> tree[0] = trainDeepTree(NodeScheduler::depthFirst, NB_OF_SAMPLES), "small-stack", 64 * 1024);
+        thread.start();
+        thread.join();
+
+        int depth = 1;
+        Node node = tree[0].getRoot();
+        while (!node.isLeaf()) {
+            node = node.getChildren().stream().filter(child -> !child.isLeaf()).findFirst().orElse(node.getChildren().get(0));
+            depth++;
+        }
+        // deeper than default max depth
+        Assert.assertTrue(depth > 100);
+    }
+
+    /**
+     * Each data sample has its own column and labels alternate, so each split separates only one data sample.
+     */
+    private DecisionTree trainDeepTree(Supplier<NodeScheduler> scheduler, int nbOfSamples) {
+        String[] header = new String[nbOfSamples + 1];
+        List<Feature> features = Lists.newArrayList();
+        for (int i = 0; i < nbOfSamples; i++) {
+            header[i] = "c" + i;
+            features.add(PredicateFeature.newFeature(header[i], Boolean.TRUE));
+        }
+        header[nbOfSamples] = "label";
+        List<DataSample> data = Lists.newArrayList();
+        for (int i = 0; i < nbOfSamples; i++) {
+            Object[] values = new Object[nbOfSamples + 1];
+            Arrays.fill(values, Boolean.FALSE);
+            values[i] = Boolean.TRUE;
+            values[nbOfSamples] = i % 2 == 0 ? TRUE_LABEL : FALSE_LABEL;
+            data.add(SimpleDataSample.newSimpleDataSample("label", header, values));
+        }
+        DecisionTree tree = new DecisionTree.Builder().withMaxDepth(nbOfSamples + 1).withNodeScheduler(scheduler).build();
+        tree.train(data, features);
+        return tree;
+    }
+
+}
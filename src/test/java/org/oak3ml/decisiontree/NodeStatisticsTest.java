@@ -0,0 +1,37 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.label.LabelDictionary;
+
+public class NodeStatisticsTest {
+
+    @Test
+    public void testNodesShareStatistics() {
+        LabelDictionary labels = LabelDictionary.newLabelDictionary();
+        labels.add(TRUE_LABEL);
+        labels.add(FALSE_LABEL);
+        NodeStatistics statistics = NodeStatistics.newNodeStatistics(labels);
+
+        // more nodes than initial capacity
+        for (int i = 0; i < 100; i++) {
+            Node.newNode(null, "x", new double[] {i, 1.0}, statistics);
+        }
+        Node node = Node.newNode(null, "x", new double[] {1.0, 3.0}, statistics);
+        Node emptyLeaf = Node.newLeafNode(0, "y", null, statistics);
+        statistics.trim();
+
+        Assert.assertEquals(1, node.getMajorityLabelId());
+        Assert.assertEquals(FALSE_LABEL, node.getMajorityLabel());
+        Assert.assertArrayEquals(new double[] {1.0, 3.0}, node.getLabelCounts(), 0.001);
+        Assert.assertEquals(3.0, node.getCountedSamples().get(FALSE_LABEL), 0.001);
+
+        Assert.assertEquals(TRUE_LABEL, emptyLeaf.getLabel());
+        Assert.assertArrayEquals(new double[] {0.0, 0.0}, emptyLeaf.getLabelCounts(), 0.001);
+        Assert.assertTrue(emptyLeaf.getCountedSamples().isEmpty());
+    }
+
+}
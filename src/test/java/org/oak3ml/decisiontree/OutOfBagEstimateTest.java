@@ -0,0 +1,115 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newSimpleDataSample;
+import static org.oak3ml.decisiontree.feature.PredicateFeature.newFeature;
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
+
+import com.google.common.collect.Lists;
+
+public class OutOfBagEstimateTest {
+
+    private static final String[] HEADER = {"x1", "x2", "answer"};
+
+    @Test
+    public void testOnlyLeftOutSamplesVote() {
+        List<DataSample> data = getAndData();
+        DecisionTree tree = new DecisionTree.Builder().build();
+        tree.train(data, getFeatures());
+
+        OutOfBagEstimate estimate = new OutOfBagEstimate(data);
+        estimate.addTree(tree, DataView.newDataView(data, new byte[] {1, 2, 1, 0}));
+
+        Assert.assertEquals(1, estimate.getNbOfVotedSamples());
+        Assert.assertEquals(0.0, estimate.getError(), 0.001);
+        Assert.assertEquals(1, estimate.getErrorCurve().length);
+    }
+
+    @Test
+    public void testWrongVotesIncreaseError() {
+        List<DataSample> data = getAndData();
+        // tree which learned OR function is wrong on AND data for (true, false) and (false, true)
+        DecisionTree orTree = new DecisionTree.Builder().build();
+        orTree.train(Arrays.asList(
+                newSimpleDataSample("answer", HEADER, true, true, TRUE_LABEL),
+                newSimpleDataSample("answer", HEADER, true, false, TRUE_LABEL),
+                newSimpleDataSample("answer", HEADER, false, true, TRUE_LABEL),
+                newSimpleDataSample("answer", HEADER, false, false, FALSE_LABEL)), getFeatures());
+
+        OutOfBagEstimate estimate = new OutOfBagEstimate(data);
+        estimate.addTree(orTree, DataView.newDataView(data, new byte[] {0, 0, 1, 1}));
+        Assert.assertEquals(0.5, estimate.getError(), 0.001);
+
+        // more trees
+        estimate.addTree(orTree, DataView.newDataView(data, new byte[] {1, 1, 0, 0}));
+        Assert.assertEquals(0.5, estimate.getError(), 0.001);
+        Assert.assertEquals(0.5, estimate.getAccuracy(), 0.001);
+        Assert.assertArrayEquals(new double[] {0.5, 0.5}, estimate.getErrorCurve(), 0.001);
+    }
+
+    @Test
+    public void testRandomForestTracksOutOfBagError() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            data.addAll(getAndData());
+        }
+        RandomForest forest = new RandomForest.Builder().withNumberOfTrees(5).withRandomFeaturesPerSplit(2).build();
+        forest.train(data, getFeatures());
+
+        Assert.assertEquals(5, forest.getOutOfBagEstimate().getNbOfTrees());
+        Assert.assertEquals(5, forest.getOutOfBagEstimate().getErrorCurve().length);
+    }
+
+    @Test
+    public void testHasConverged() {
+        List<DataSample> data = getAndData();
+        DecisionTree tree = new DecisionTree.Builder().build();
+        tree.train(data, getFeatures());
+
+        OutOfBagEstimate estimate = new OutOfBagEstimate(data);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertFalse(estimate.hasConverged(3, 0.001));
+            estimate.addTree(tree, DataView.newDataView(data, new byte[] {1, 1, 0, 0}));
+        }
+        Assert.assertFalse(estimate.hasConverged(3, 0.001));
+        estimate.addTree(tree, DataView.newDataView(data, new byte[] {0, 0, 1, 1}));
+        Assert.assertTrue(estimate.hasConverged(3, 0.001));
+    }
+
+    @Test
+    public void testRandomForestStopsAddingTreesWhenConverged() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            data.addAll(getAndData());
+        }
+        RandomForest forest = new RandomForest.Builder().withAutomaticNumberOfTrees(50).withConvergenceWindow(3)
+                .withRandomFeaturesPerSplitPercentage(1.0).build();
+        forest.train(data, getFeatures());
+
+        // AND function is learned by every tree so error can not improve after first trees
+        Assert.assertTrue(forest.getOutOfBagEstimate().getNbOfTrees() < 50);
+        Assert.assertEquals(0.0, forest.getOutOfBagEstimate().getError(), 0.001);
+    }
+
+    private List<DataSample> getAndData() {
+        return Lists.newArrayList(
+                newSimpleDataSample("answer", HEADER, true, true, TRUE_LABEL),
+                newSimpleDataSample("answer", HEADER, true, false, FALSE_LABEL),
+                newSimpleDataSample("answer", HEADER, false, true, FALSE_LABEL),
+                newSimpleDataSample("answer", HEADER, false, false, FALSE_LABEL));
+    }
+
+    private List<Feature> getFeatures() {
+        return Arrays.asList(newFeature("x1", true), newFeature("x2", true));
+    }
+
+}
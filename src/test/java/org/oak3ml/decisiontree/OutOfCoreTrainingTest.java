@@ -0,0 +1,117 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.oak3ml.decisiontree.data.ColumnarDataWriter;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.MappedDataset;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.feature.CategoricalFeature;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class OutOfCoreTrainingTest {
+
+    private static final String[] HEADER = { "x", "y", "answer", "weight" };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTreeIsTheSameAsInMemoryTree() throws IOException {
+        DecisionTree heapTree = new DecisionTree.Builder().build();
+        heapTree.train(getData(), getFeatures());
+
+        Path file = folder.newFile().toPath();
+        ColumnarDataWriter.write(getData(), HEADER, "answer", file);
+        DecisionTree outOfCoreTree = new DecisionTree.Builder().withOutOfCoreTraining(1L << 20).withScratchDirectory(folder.getRoot().toPath()).build();
+        outOfCoreTree.train(MappedDataset.open(file), getFeatures());
+
+        Assert.assertFalse(heapTree.getRoot().isLeaf());
+        Assert.assertEquals(heapTree.exportAsJson(), outOfCoreTree.exportAsJson());
+        for (DataSample dataSample : getData()) {
+            Assert.assertEquals(heapTree.classify(dataSample), outOfCoreTree.classify(dataSample));
+        }
+    }
+
+    @Test
+    public void testNodesPerScanFitIntoArrays() {
+        // histograms of one node take 8 * 2 * 17 + 4 * 17 + 2 = 342 bytes
+        Assert.assertEquals(2, OutOfCoreTreeGrower.getNodesPerScan(700, 16, 2));
+        // 64 GB budget would allow about 80 000 nodes, but their 100 000 label counts per node must fit into one array
+        int nodesPerScan = OutOfCoreTreeGrower.getNodesPerScan(1L << 36, 10000, 10);
+        Assert.assertEquals((Integer.MAX_VALUE - 8) / 100000, nodesPerScan);
+        Assert.assertTrue((long) nodesPerScan * 10000 * 10 <= Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testSmallBudgetScansLevelInSeveralBatches() {
+        DecisionTree heapTree = new DecisionTree.Builder().build();
+        heapTree.train(getData(), getFeatures());
+        // histograms of one node take 8 * 2 * 17 + 4 * 17 + 2 = 342 bytes
+        DecisionTree outOfCoreTree = new DecisionTree.Builder().withOutOfCoreTraining(400).build();
+        outOfCoreTree.train(getData(), getFeatures());
+        Assert.assertEquals(heapTree.exportAsJson(), outOfCoreTree.exportAsJson());
+    }
+
+    @Test
+    public void testStoppingCriteria() {
+        DecisionTree heapTree = new DecisionTree.Builder().withMaxDepth(3).withMinimumNumberOfInstancesPerLeaf(10).build();
+        heapTree.train(getData(), getFeatures());
+        DecisionTree outOfCoreTree = new DecisionTree.Builder().withMaxDepth(3).withMinimumNumberOfInstancesPerLeaf(10).withOutOfCoreTraining(1L << 20).build();
+        outOfCoreTree.train(getData(), getFeatures());
+        Assert.assertEquals(heapTree.exportAsJson(), outOfCoreTree.exportAsJson());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBudgetSmallerThanOneNodeIsRejected() {
+        new DecisionTree.Builder().withOutOfCoreTraining(100).build().train(getData(), getFeatures());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonBinaryFeaturesAreRejected() {
+        List<Feature> features = Lists.newArrayList(CategoricalFeature.newFeature("x", Sets.newHashSet(1, 2, 3)));
+        new DecisionTree.Builder().withOutOfCoreTraining(1L << 20).build().train(getData(), features);
+    }
+
+    /**
+     * Label is true inside a circle with some noise, weights are 1 or 3.
+     */
+    private List<DataSample> getData() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 0; x < 15; x++) {
+            for (int y = 0; y < 15; y++) {
+                boolean inside = (x - 7) * (x - 7) + (y - 7) * (y - 7) < 20;
+                boolean noise = (x * 7 + y * 13) % 17 == 0;
+                data.add(SimpleDataSample.newWeightedDataSample("answer", "weight", HEADER, x, y, inside != noise ? TRUE_LABEL : FALSE_LABEL,
+                        (x + y) % 5 == 0 ? 3.0 : 1.0));
+            }
+        }
+        return data;
+    }
+
+    private List<Feature> getFeatures() {
+        List<Feature> features = Lists.newArrayList();
+        for (int k = 1; k < 15; k += 2) {
+            features.add(PredicateFeature.newFeature("x", P.lessThanOrEqualNumber(k + 0.5)));
+            features.add(PredicateFeature.newFeature("y", P.lessThanOrEqualNumber(k + 0.5)));
+        }
+        features.add(PredicateFeature.newFeature("x", P.moreThan(10)));
+        features.add(PredicateFeature.newFeature("y", P.moreThan(10)));
+        return features;
+    }
+
+}
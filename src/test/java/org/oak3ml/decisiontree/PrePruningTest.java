@@ -0,0 +1,103 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+import org.oak3ml.decisiontree.impurity.GiniIndexCalculationMethod;
+
+import com.google.common.collect.Lists;
+
+public class PrePruningTest {
+
+    @Test
+    public void testSplitFinderRejectsUndersizedChildren() {
+        DataView data = DataView.newDataView(getData());
+        // x <= 0.5 isolates single sample, it is the purest split but its child is too small
+        Assert.assertEquals("x <= 0.5", new BestSplitFinder(new GiniIndexCalculationMethod()).findBestSplitFeature(data, data.getRows(), getFeatures()).toString());
+        BestSplitFinder splitFinder = new BestSplitFinder(new GiniIndexCalculationMethod(), 3, 0.0);
+        Assert.assertEquals("x <= 5.5", splitFinder.findBestSplitFeature(data, data.getRows(), getFeatures()).toString());
+        Assert.assertNull(new BestSplitFinder(new GiniIndexCalculationMethod(), 5, 0.0).findBestSplitFeature(data, data.getRows(), getFeatures()));
+    }
+
+    @Test
+    public void testMinimumNumberOfInstancesPerLeaf() {
+        DecisionTree tree = new DecisionTree.Builder().withMinimumNumberOfInstancesPerLeaf(3).build();
+        tree.train(getData(), getFeatures());
+        assertLeafSizes(tree.getRoot(), 3);
+
+        DecisionTree regressionTree = new DecisionTree.Builder().withRegressionTarget("x").withMinimumNumberOfInstancesPerLeaf(4).build();
+        regressionTree.train(getData(), getFeatures());
+        Assert.assertEquals(2, regressionTree.getRoot().getChildren().size());
+        for (Node child : regressionTree.getRoot().getChildren()) {
+            Assert.assertTrue(child.isLeaf());
+        }
+    }
+
+    @Test
+    public void testImpurityThresholdAndMinimumImpurityDecrease() {
+        DecisionTree fullTree = new DecisionTree.Builder().build();
+        fullTree.train(getData(), getFeatures());
+        Assert.assertFalse(fullTree.getRoot().isLeaf());
+
+        // root impurity is 2 * 1/3 * 2/3 = 0.44
+        DecisionTree thresholdTree = new DecisionTree.Builder().withImpurityThreshold(0.5).build();
+        thresholdTree.train(getData(), getFeatures());
+        Assert.assertTrue(thresholdTree.getRoot().isLeaf());
+        Assert.assertEquals(FALSE_LABEL, thresholdTree.getRoot().getLabel());
+
+        // best split decreases impurity to 0.33
+        DecisionTree decreaseTree = new DecisionTree.Builder().withMinimumImpurityDecrease(0.2).build();
+        decreaseTree.train(getData(), getFeatures());
+        Assert.assertTrue(decreaseTree.getRoot().isLeaf());
+
+        DecisionTree smallDecreaseTree = new DecisionTree.Builder().withMinimumImpurityDecrease(0.1).build();
+        smallDecreaseTree.train(getData(), getFeatures());
+        Assert.assertFalse(smallDecreaseTree.getRoot().isLeaf());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMinimumImpurityDecreaseIsRejected() {
+        new DecisionTree.Builder().withMinimumImpurityDecrease(-0.1).build();
+    }
+
+    private void assertLeafSizes(Node node, double minimumSize) {
+        if (node.isLeaf()) {
+            double size = node.getCountedSamples().values().stream().mapToDouble(Double::doubleValue).sum();
+            Assert.assertTrue(size >= minimumSize);
+        }
+        for (Node child : node.getChildren()) {
+            assertLeafSizes(child, minimumSize);
+        }
+    }
+
+    /**
+     * Label is true for x = 0, 4 and 5.
+     */
+    private List<DataSample> getData() {
+        String[] header = { "x", "answer" };
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 0; x < 9; x++) {
+            data.add(SimpleDataSample.newSimpleDataSample("answer", header, x, x == 0 || x == 4 || x == 5 ? TRUE_LABEL : FALSE_LABEL));
+        }
+        return data;
+    }
+
+    private List<Feature> getFeatures() {
+        List<Feature> features = Lists.newArrayList();
+        for (int x = 0; x < 8; x++) {
+            features.add(PredicateFeature.newFeature("x", P.lessThanOrEqualNumber(x + 0.5)));
+        }
+        return features;
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newSimpleDataSample;
+import static org.oak3ml.decisiontree.feature.PredicateFeature.newFeature;
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.collect.Lists;
+
+public class RandomForestTest {
+
+    private static final String[] HEADER = {"x1", "x2", "answer"};
+
+    @Test
+    public void testClassifyWithPretrainedTrees() {
+        List<DataSample> data = getAndData();
+        List<DecisionTree> trees = Lists.newArrayList();
+        for (int i = 0; i < 3; i++) {
+            DecisionTree tree = new DecisionTree.Builder().build();
+            tree.train(data, getFeatures());
+            trees.add(tree);
+        }
+        RandomForest forest = new RandomForest.Builder().withTrees(trees).build();
+
+        Assert.assertEquals(TRUE_LABEL, forest.classify(data.get(0)));
+        Assert.assertEquals(FALSE_LABEL, forest.classify(data.get(1)));
+        Label[] labels = forest.classify(data);
+        Assert.assertArrayEquals(new Label[] {TRUE_LABEL, FALSE_LABEL, FALSE_LABEL, FALSE_LABEL}, labels);
+    }
+
+    @Test
+    public void testClassifyWithTreesTrainedOnDifferentLabels() {
+        List<DataSample> data = getAndData();
+        DecisionTree andTree = new DecisionTree.Builder().build();
+        andTree.train(data, getFeatures());
+        // trained only on data samples with false label, so its dictionary has no true label
+        DecisionTree falseTree = new DecisionTree.Builder().build();
+        falseTree.train(data.subList(1, 4), getFeatures());
+        RandomForest forest = new RandomForest.Builder().withTrees(Arrays.asList(andTree, andTree, falseTree)).build();
+
+        Assert.assertEquals(TRUE_LABEL, forest.classify(data.get(0)));
+        Assert.assertEquals(FALSE_LABEL, forest.classify(data.get(3)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClassifyWithUntrainedTreesFails() {
+        RandomForest forest = new RandomForest.Builder().build();
+        forest.classify(getAndData().get(0));
+    }
+
+    private List<DataSample> getAndData() {
+        return Lists.newArrayList(
+                newSimpleDataSample("answer", HEADER, true, true, TRUE_LABEL),
+                newSimpleDataSample("answer", HEADER, true, false, FALSE_LABEL),
+                newSimpleDataSample("answer", HEADER, false, true, FALSE_LABEL),
+                newSimpleDataSample("answer", HEADER, false, false, FALSE_LABEL));
+    }
+
+    private List<Feature> getFeatures() {
+        return Arrays.asList(newFeature("x1", true), newFeature("x2", true));
+    }
+
+}
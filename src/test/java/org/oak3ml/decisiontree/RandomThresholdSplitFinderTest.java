@@ -0,0 +1,74 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newClassificationDataSample;
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newSimpleDataSample;
+import static org.oak3ml.decisiontree.feature.PredicateFeature.newFeature;
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.impurity.GiniIndexCalculationMethod;
+
+import com.google.common.collect.Lists;
+
+public class RandomThresholdSplitFinderTest {
+
+    private static final String[] HEADER = {"x", "color", "answer"};
+
+    @Test
+    public void testNumericColumnIsSplitOnRandomThreshold() {
+        RandomThresholdSplitFinder splitFinder = new RandomThresholdSplitFinder(new GiniIndexCalculationMethod());
+        DataView data = DataView.newDataView(getData());
+        List<Feature> features = Arrays.asList(newFeature("x", P.moreThan(5)), newFeature("x", P.moreThan(2)));
+
+        for (int i = 0; i < 10; i++) {
+            Feature split = splitFinder.findBestSplitFeature(data, data.getRows(), features);
+            Assert.assertTrue(split.toString().startsWith("x <= "));
+            double threshold = Double.parseDouble(split.toString().substring("x <= ".length()));
+            Assert.assertTrue(threshold >= 1.0 && threshold < 10.0);
+        }
+    }
+
+    @Test
+    public void testNotNumericColumnFeaturesAreEvaluated() {
+        RandomThresholdSplitFinder splitFinder = new RandomThresholdSplitFinder(new GiniIndexCalculationMethod());
+        DataView data = DataView.newDataView(getData());
+        Feature red = newFeature("color", "red");
+        // only rows with x = 1 have single value so numeric column has no candidate
+        Feature split = splitFinder.findBestSplitFeature(data, new int[] {0, 1}, Arrays.asList(newFeature("x", 1), red));
+        Assert.assertEquals(red, split);
+    }
+
+    @Test
+    public void testExtraTreeLearnsThreshold() {
+        DecisionTree tree = new DecisionTree.Builder().withExtraTrees(true).withHomogenityPercentage(1.0).build();
+        List<DataSample> data = getData();
+        data.remove(1); // without noisy data sample every threshold can be learned
+        tree.train(data, Arrays.asList(newFeature("x", P.moreThan(5))));
+
+        String[] header = {"x"};
+        Assert.assertEquals(FALSE_LABEL, tree.classify(newClassificationDataSample(header, 1)));
+        Assert.assertEquals(FALSE_LABEL, tree.classify(newClassificationDataSample(header, 5)));
+        Assert.assertEquals(TRUE_LABEL, tree.classify(newClassificationDataSample(header, 6)));
+        Assert.assertEquals(TRUE_LABEL, tree.classify(newClassificationDataSample(header, 10)));
+    }
+
+    private List<DataSample> getData() {
+        List<DataSample> data = Lists.newArrayList();
+        data.add(newSimpleDataSample("answer", HEADER, 1, "red", FALSE_LABEL));
+        data.add(newSimpleDataSample("answer", HEADER, 1, "blue", TRUE_LABEL));
+        for (int x = 2; x <= 10; x++) {
+            data.add(newSimpleDataSample("answer", HEADER, x, "blue", x > 5 ? TRUE_LABEL : FALSE_LABEL));
+        }
+        return data;
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.oak3ml.decisiontree;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+
+import com.google.common.collect.Lists;
+
+public class RegressionTreeTest {
+
+    private static final String[] HEADER = { "x", "y" };
+
+    /**
+     * y = 1 if x <= 5, y = 3 if x > 5.
+     */
+    private List<DataSample> getStepData() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 1; x <= 10; x++) {
+            data.add(SimpleDataSample.newClassificationDataSample(HEADER, (double) x, x <= 5 ? 1.0 : 3.0));
+        }
+        return data;
+    }
+
+    private List<Feature> getFeatures() {
+        return Arrays.asList(PredicateFeature.newFeature("x", P.lessThanOrEqualNumber(2.0)));
+    }
+
+    @Test
+    public void testSweepFindsThresholdBetweenValues() {
+        List<DataSample> data = getStepData();
+        DataView view = DataView.newDataView(data);
+        double[] targets = data.stream().mapToDouble(d -> (Double) d.getValue("y").get()).toArray();
+
+        Feature split = new RegressionSplitFinder().findBestSplitFeature(view, targets, view.getRows(), getFeatures());
+        Assert.assertEquals(PredicateFeature.newFeature("x", P.lessThanOrEqualNumber(5.5)), split);
+    }
+
+    @Test
+    public void testNoSplitForConstantTarget() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 1; x <= 4; x++) {
+            data.add(SimpleDataSample.newClassificationDataSample(HEADER, (double) x, 2.0));
+        }
+        DataView view = DataView.newDataView(data);
+        Assert.assertNull(new RegressionSplitFinder().findBestSplitFeature(view, new double[] { 2, 2, 2, 2 }, view.getRows(), getFeatures()));
+    }
+
+    @Test
+    public void testRegressionTreeLearnsStepFunction() {
+        DecisionTree tree = new DecisionTree.Builder().withRegressionTarget("y").build();
+        tree.train(getStepData(), getFeatures());
+
+        Assert.assertEquals("x <= 5.5", tree.getRoot().getName());
+        Assert.assertEquals(2.0, tree.getRoot().getValue(), 0.0001);
+        Assert.assertEquals(1.0, tree.predict(SimpleDataSample.newClassificationDataSample(new String[] { "x" }, 2.0)), 0.0001);
+        Assert.assertEquals(3.0, tree.predict(SimpleDataSample.newClassificationDataSample(new String[] { "x" }, 8.0)), 0.0001);
+    }
+
+    @Test
+    public void testLeafHoldsWeightedMean() {
+        DecisionTree tree = new DecisionTree.Builder().withRegressionTarget("y").withMaxDepth(1).build();
+        List<DataSample> data = getStepData();
+        double[] weights = new double[data.size()];
+        Arrays.fill(weights, 1.0);
+        weights[9] = 6.0; // last data sample counts as 6, mean = (5 * 1 + 10 * 3) / 15
+        tree.train(DataView.newWeightedDataView(data, weights), getFeatures());
+
+        Assert.assertTrue(tree.getRoot().isLeaf());
+        Assert.assertEquals(35.0 / 15.0, tree.predict(data.get(0)), 0.0001);
+    }
+
+    @Test
+    public void testRandomForestRegression() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            data.addAll(getStepData());
+        }
+        RandomForest forest = new RandomForest.Builder().withRegressionTarget("y").withNumberOfTrees(10).withRandomFeaturesPerSplit(1).build();
+        forest.train(data, getFeatures());
+
+        double[] predictions = forest.predict(getStepData());
+        Assert.assertEquals(1.0, predictions[0], 0.0001);
+        Assert.assertEquals(3.0, predictions[9], 0.0001);
+        Assert.assertNull(forest.getOutOfBagEstimate());
+    }
+
+    @Test
+    public void testRandomThresholdIsDrawnBetweenValues() {
+        List<DataSample> data = getStepData();
+        DataView view = DataView.newDataView(data);
+        double[] targets = data.stream().mapToDouble(d -> (Double) d.getValue("y").get()).toArray();
+
+        RegressionSplitFinder splitFinder = new RandomThresholdRegressionSplitFinder();
+        boolean exactThresholdOnly = true;
+        for (int i = 0; i < 20; i++) {
+            Feature split = splitFinder.findBestSplitFeature(view, targets, view.getRows(), getFeatures());
+            Assert.assertTrue(split.toString().startsWith("x <= "));
+            double threshold = Double.parseDouble(split.toString().substring("x <= ".length()));
+            Assert.assertTrue(threshold >= 1.0 && threshold < 10.0);
+            exactThresholdOnly &= threshold == 5.5;
+        }
+        Assert.assertFalse(exactThresholdOnly);
+    }
+
+    @Test
+    public void testExtraTreesRegressionForest() {
+        RandomForest forest = new RandomForest.Builder().withRegressionTarget("y").withNumberOfTrees(10).withRandomFeaturesPerSplit(1)
+                .withExtraTrees(true).build();
+        forest.train(getStepData(), getFeatures());
+
+        // trees are grown on all data samples until leaves are pure, wherever random thresholds are
+        double[] predictions = forest.predict(getStepData());
+        for (int x = 1; x <= 10; x++) {
+            Assert.assertEquals(x <= 5 ? 1.0 : 3.0, predictions[x - 1], 0.0001);
+        }
+    }
+
+}
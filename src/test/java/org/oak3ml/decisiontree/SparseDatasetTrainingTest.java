@@ -0,0 +1,131 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.data.SparseDataset;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+import org.oak3ml.decisiontree.feature.SparseFeature;
+import org.oak3ml.decisiontree.impurity.GiniIndexCalculationMethod;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.collect.Lists;
+
+public class SparseDatasetTrainingTest {
+
+    private static final int NB_OF_ROWS = 200;
+
+    private static final int NB_OF_COLUMNS = 30;
+
+    @Test
+    public void testTreeIsTheSameAsTreeOfDenseData() {
+        SparseDataset sparseData = getSparseData();
+        List<Feature> features = SparseFeature.newFeatures(sparseData);
+        features.add(SparseFeature.newFeature("c3", 1.0));
+
+        DecisionTree denseTree = new DecisionTree.Builder().build();
+        denseTree.train(toDense(sparseData), features);
+        DecisionTree sparseTree = new DecisionTree.Builder().build();
+        sparseTree.train(sparseData, features);
+
+        Assert.assertFalse(sparseTree.getRoot().isLeaf());
+        Assert.assertEquals(denseTree.exportAsJson(), sparseTree.exportAsJson());
+        // data samples go down the splits of sparse features, so most of training data is classified correctly
+        long errors = sparseData.stream().filter(dataSample -> !dataSample.getLabel().equals(sparseTree.classify(dataSample))).count();
+        Assert.assertTrue(errors < 10);
+    }
+
+    @Test
+    public void testSplitFinderOfSparseAndOtherFeatures() {
+        SparseDataset sparseData = getSparseData();
+        List<Feature> features = Lists.newArrayList(SparseFeature.newFeatures(sparseData));
+        // predicate feature on sparse data is evaluated row by row
+        features.add(0, PredicateFeature.newFeature("c0", P.lessThanOrEqualNumber(0.5)));
+        for (long minimumLeaf : new long[] { 0, 20, 60 }) {
+            BestSplitFinder splitFinder = new BestSplitFinder(new GiniIndexCalculationMethod(), minimumLeaf, 0.0);
+            DataView sparseView = DataView.newDataView(sparseData);
+            DataView denseView = DataView.newDataView(toDense(sparseData));
+            int[] rows = Arrays.copyOfRange(sparseView.getRows(), 50, 150);
+            Assert.assertEquals(splitFinder.findBestSplitFeature(denseView, rows, features), splitFinder.findBestSplitFeature(sparseView, rows, features));
+        }
+    }
+
+    @Test
+    public void testTrainingSplitFinderOfCandidatesInAnyOrder() {
+        SparseDataset sparseData = getSparseData();
+        List<Feature> features = Lists.newArrayList(SparseFeature.newFeatures(sparseData));
+        features.add(SparseFeature.newFeature("c3", 1.0));
+        DataView sparseView = DataView.newDataView(sparseData);
+        DataView denseView = DataView.newDataView(toDense(sparseData));
+        // sparse features are resolved once for all features, candidates of each node are a shuffled part of them
+        BestSplitFinder trainingSplitFinder = new DecisionTreeSettings().newTrainingSplitFinder(sparseView, features);
+        BestSplitFinder splitFinder = new BestSplitFinder(new GiniIndexCalculationMethod());
+        Random random = new Random(1);
+        for (int from = 0; from < 150; from += 30) {
+            List<Feature> candidates = Lists.newArrayList(features);
+            Collections.shuffle(candidates, random);
+            candidates = candidates.subList(0, 12);
+            int[] rows = Arrays.copyOfRange(sparseView.getRows(), from, from + 50);
+            Assert.assertEquals(splitFinder.findBestSplitFeature(denseView, rows, candidates), trainingSplitFinder.findBestSplitFeature(sparseView, rows, candidates));
+        }
+    }
+
+    /**
+     * Each row has about 3 non zero counts, label is true if column c1 or c2 is set.
+     */
+    private SparseDataset getSparseData() {
+        int[] rowOffsets = new int[NB_OF_ROWS + 1];
+        List<Integer> columns = Lists.newArrayList();
+        List<Double> values = Lists.newArrayList();
+        Label[] labels = new Label[NB_OF_ROWS];
+        for (int row = 0; row < NB_OF_ROWS; row++) {
+            boolean label = false;
+            for (int column = 0; column < NB_OF_COLUMNS; column++) {
+                if ((row * 31 + column * 17) % 10 == 0) {
+                    columns.add(column);
+                    values.add(1.0 + (row + column) % 3);
+                    label |= column == 1 || column == 2;
+                }
+            }
+            rowOffsets[row + 1] = columns.size();
+            labels[row] = label != (row % 23 == 0) ? TRUE_LABEL : FALSE_LABEL;
+        }
+        String[] columnNames = new String[NB_OF_COLUMNS];
+        for (int column = 0; column < NB_OF_COLUMNS; column++) {
+            columnNames[column] = "c" + column;
+        }
+        return SparseDataset.newSparseDataset(columnNames, rowOffsets, columns.stream().mapToInt(Integer::intValue).toArray(),
+                values.stream().mapToDouble(Double::doubleValue).toArray(), labels, null);
+    }
+
+    private List<DataSample> toDense(SparseDataset sparseData) {
+        String[] header = new String[NB_OF_COLUMNS + 1];
+        for (int column = 0; column < NB_OF_COLUMNS; column++) {
+            header[column] = sparseData.getColumnNames().get(column);
+        }
+        header[NB_OF_COLUMNS] = "answer";
+        List<DataSample> data = Lists.newArrayList();
+        for (int row = 0; row < sparseData.size(); row++) {
+            Object[] values = new Object[NB_OF_COLUMNS + 1];
+            for (int column = 0; column < NB_OF_COLUMNS; column++) {
+                values[column] = sparseData.getValue(row, column);
+            }
+            values[NB_OF_COLUMNS] = sparseData.getLabel(row);
+            data.add(SimpleDataSample.newSimpleDataSample("answer", header, values));
+        }
+        return data;
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+
+import com.google.common.collect.Lists;
+
+public class TrainingArenaTest {
+
+    private static final int NB_OF_VALUES = 64;
+
+    private static final int NB_OF_COPIES = 50;
+
+    /** Allowed allocation per training row - index buffer, partition buffer and rows of the view. */
+    private static final double MAX_BYTES_PER_ROW = 64;
+
+    @Test
+    public void testAllocationPerNodeDoesNotGrowWithRows() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+
+        List<Feature> features = getFeatures();
+        DataView smallData = DataView.newDataView(getData(NB_OF_COPIES));
+        DataView largeData = DataView.newDataView(getData(4 * NB_OF_COPIES));
+        for (int i = 0; i < 3; i++) { // warm up
+            train(smallData, features);
+            train(largeData, features);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long start = allocationBean.getThreadAllocatedBytes(threadId);
+        DecisionTree smallTree = train(smallData, features);
+        long smallBytes = allocationBean.getThreadAllocatedBytes(threadId) - start;
+        start = allocationBean.getThreadAllocatedBytes(threadId);
+        DecisionTree largeTree = train(largeData, features);
+        long largeBytes = allocationBean.getThreadAllocatedBytes(threadId) - start;
+
+        // the same tree is grown from 4 times more rows
+        int nbOfNodes = countNodes(smallTree.getRoot());
+        Assert.assertTrue("Nodes: " + nbOfNodes, nbOfNodes > NB_OF_VALUES / 2);
+        Assert.assertEquals(nbOfNodes, countNodes(largeTree.getRoot()));
+        Assert.assertEquals(smallTree.exportAsJson(), largeTree.exportAsJson());
+
+        // only buffers sized once per training grow with rows, not work of each node
+        double bytesPerExtraRow = (double) (largeBytes - smallBytes) / (largeData.size() - smallData.size());
+        Assert.assertTrue("Bytes per extra row: " + bytesPerExtraRow, bytesPerExtraRow < MAX_BYTES_PER_ROW);
+    }
+
+    @Test
+    public void testPoolThreadsDoNotKeepArenas() throws Exception {
+        TrainingArenas arenas = TrainingArenas.newTrainingArenas(1000, 2);
+        TrainingArena callerArena = arenas.get();
+        Assert.assertSame(callerArena, arenas.get());
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            TrainingArena poolArena = pool.submit(arenas::get).get();
+            Assert.assertNotSame(callerArena, poolArena);
+
+            // once training is done nothing but the still running pool thread could reach its arena
+            WeakReference<TrainingArena> poolArenaReference = new WeakReference<>(poolArena);
+            arenas = null;
+            poolArena = null;
+            for (int i = 0; i < 20 && poolArenaReference.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            Assert.assertNull(poolArenaReference.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private DecisionTree train(DataView data, List<Feature> features) {
+        DecisionTree tree = new DecisionTree.Builder().build();
+        tree.train(data, features);
+        return tree;
+    }
+
+    private int countNodes(Node node) {
+        int nbOfNodes = 1;
+        for (Node child : node.getChildren()) {
+            nbOfNodes += countNodes(child);
+        }
+        return nbOfNodes;
+    }
+
+    /**
+     * Copies of 64 values whose labels change often, so tree needs many nodes.
+     */
+    private List<DataSample> getData(int nbOfCopies) {
+        String[] header = { "x", "answer" };
+        List<DataSample> data = Lists.newArrayList();
+        for (int copy = 0; copy < nbOfCopies; copy++) {
+            for (int value = 0; value < NB_OF_VALUES; value++) {
+                data.add(SimpleDataSample.newSimpleDataSample("answer", header, value, (value * 7) % 13 % 2 == 0 ? TRUE_LABEL : FALSE_LABEL));
+            }
+        }
+        return data;
+    }
+
+    private List<Feature> getFeatures() {
+        List<Feature> features = Lists.newArrayList();
+        for (int value = 0; value < NB_OF_VALUES - 1; value++) {
+            features.add(PredicateFeature.newFeature("x", P.lessThanOrEqualNumber(value + 0.5)));
+        }
+        return features;
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.oak3ml.decisiontree;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+
+import com.google.common.collect.Lists;
+
+public class WorkStealingSchedulerTest {
+
+    private static final String[] HEADER = {"x1", "x2", "y", "label"};
+
+    @Test
+    public void testParallelTreeIsTheSameAsSequential() {
+        List<DataSample> data = getSkewedData();
+        DecisionTree sequentialTree = new DecisionTree.Builder().build();
+        sequentialTree.train(data, getFeatures());
+
+        // small thresholds so all three kinds of tasks are used
+        WorkStealingScheduler scheduler = new WorkStealingScheduler.Builder().withParallelism(4).withSmallNodeSize(20).withLargeNodeSize(200).build();
+        DecisionTree parallelTree = new DecisionTree.Builder().withWorkStealingScheduler(scheduler).build();
+        parallelTree.train(data, getFeatures());
+
+        Assert.assertEquals(sequentialTree.exportAsJson(), parallelTree.exportAsJson());
+        long nbOfNodes = scheduler.getWorkerCounters().stream().mapToLong(WorkStealingScheduler.WorkerCounters::getNbOfNodes).sum();
+        long nbOfSubtrees = scheduler.getWorkerCounters().stream().mapToLong(WorkStealingScheduler.WorkerCounters::getNbOfSubtrees).sum();
+        Assert.assertTrue(nbOfNodes > 0);
+        Assert.assertTrue(nbOfSubtrees > 0);
+        Assert.assertTrue(scheduler.getUtilisation() > 0 && scheduler.getUtilisation() <= 1.0);
+
+        scheduler.resetCounters();
+        Assert.assertTrue(scheduler.getWorkerCounters().isEmpty());
+    }
+
+    @Test
+    public void testParallelRegressionTreeIsTheSameAsSequential() {
+        List<DataSample> data = getSkewedData();
+        DecisionTree sequentialTree = new DecisionTree.Builder().withRegressionTarget("y").build();
+        sequentialTree.train(data, getFeatures());
+
+        WorkStealingScheduler scheduler = new WorkStealingScheduler.Builder().withParallelism(4).withSmallNodeSize(20).withLargeNodeSize(200).build();
+        DecisionTree parallelTree = new DecisionTree.Builder().withRegressionTarget("y").withWorkStealingScheduler(scheduler).build();
+        parallelTree.train(data, getFeatures());
+
+        for (DataSample dataSample : data) {
+            Assert.assertEquals(sequentialTree.predict(dataSample), parallelTree.predict(dataSample), 0.0);
+        }
+    }
+
+    /**
+     * Most data samples are in one corner, so one branch is much larger than others.
+     */
+    private List<DataSample> getSkewedData() {
+        Random random = new Random(1);
+        List<DataSample> data = Lists.newArrayList();
+        for (int i = 0; i < 1000; i++) {
+            double x1 = i < 900 ? random.nextInt(10) : random.nextInt(100);
+            double x2 = random.nextInt(100);
+            boolean label = (x1 + x2) % 3 == 0;
+            data.add(SimpleDataSample.newSimpleDataSample("label", HEADER, x1, x2, x1 * 2 + x2, label ? TRUE_LABEL : FALSE_LABEL));
+        }
+        return data;
+    }
+
+    private List<Feature> getFeatures() {
+        List<Feature> features = Lists.newArrayList();
+        for (int threshold = 5; threshold < 100; threshold += 5) {
+            features.add(PredicateFeature.newFeature("x1", P.lessThanOrEqualNumber(threshold)));
+            features.add(PredicateFeature.newFeature("x2", P.lessThanOrEqualNumber(threshold)));
+        }
+        return features;
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.oak3ml.decisiontree.data;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+import org.oak3ml.decisiontree.label.BooleanLabel;
+
+import com.google.common.collect.Lists;
+
+public class CsvLoaderTest {
+
+    private static final String CSV = "id,name,score,city,answer,weight\r\n"
+            + "1,\"Braund, Mr. Owen\",7.25,Vilnius,1,2\r\n"
+            + "2,\"Say \"\"hi\"\"\",,Kaunas,0,\r\n"
+            + "\r\n"
+            + "3,plain,-2.5e3,Vilnius,1,0.5\n"
+            + "4,short,123456789012345678\n"
+            + "5,,0.1,\"\",0,1";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testValuesAreParsed() throws IOException {
+        Path file = writeCsv(CSV);
+        for (long rangeSize : new long[] { 1, 7, CsvLoader.DEFAULT_RANGE_SIZE }) {
+            MappedDataset data = CsvLoader.load(file, getSchema(), rangeSize);
+            Assert.assertEquals(5, data.size());
+            Assert.assertEquals(Lists.newArrayList("id", "name", "score", "city", "answer"), data.getColumnNames());
+
+            Assert.assertEquals(1, data.get(0).getValueOrNull("id"));
+            Assert.assertEquals("Braund, Mr. Owen", data.get(0).getValueOrNull("name"));
+            Assert.assertEquals(7.25, data.get(0).getValueOrNull("score"));
+            Assert.assertEquals(TRUE_LABEL, data.get(0).getLabel());
+            Assert.assertEquals(2.0, data.get(0).getWeight(), 0.0);
+
+            Assert.assertEquals("Say \"hi\"", data.get(1).getValueOrNull("name"));
+            Assert.assertNull(data.get(1).getValueOrNull("score"));
+            Assert.assertEquals(FALSE_LABEL, data.get(1).getLabel());
+            Assert.assertEquals(1.0, data.get(1).getWeight(), 0.0);
+
+            Assert.assertEquals(-2500.0, data.get(2).getValueOrNull("score"));
+            Assert.assertEquals(0.5, data.get(2).getWeight(), 0.0);
+
+            // short line has missing values
+            Assert.assertEquals(123456789012345678.0, data.get(3).getValueOrNull("score"));
+            Assert.assertNull(data.get(3).getValueOrNull("city"));
+            Assert.assertNull(data.get(3).getLabel());
+            Assert.assertEquals(1.0, data.get(3).getWeight(), 0.0);
+
+            Assert.assertNull(data.get(4).getValueOrNull("name"));
+            Assert.assertNull(data.get(4).getValueOrNull("city"));
+            Assert.assertEquals(0.1, data.get(4).getValueOrNull("score"));
+
+            // dictionary codes are in order of first appearance in the file
+            Assert.assertArrayEquals(new Object[] { "Vilnius", "Kaunas" }, data.getColumn("city").getDictionary());
+        }
+    }
+
+    @Test
+    public void testOnlyColumnsOfFeaturesAreLoaded() throws IOException {
+        List<Feature> features = Lists.newArrayList(PredicateFeature.newFeature("score", P.lessThanOrEqualNumber(1.0)));
+        MappedDataset data = CsvLoader.load(writeCsv(CSV), getSchema().project(features));
+        Assert.assertEquals(Lists.newArrayList("score", "answer"), data.getColumnNames());
+        Assert.assertNull(data.get(0).getValueOrNull("name"));
+        Assert.assertEquals(TRUE_LABEL, data.get(0).getLabel());
+        Assert.assertEquals(2.0, data.get(0).getWeight(), 0.0);
+    }
+
+    @Test
+    public void testTitanicData() throws IOException {
+        CsvSchema schema = new CsvSchema.Builder().withIntColumn("PassengerId")
+                .withLabelColumn("Survived", value -> BooleanLabel.newLabel("1".equals(value))).withIntColumn("Pclass")
+                .withStringColumn("Name").withDoubleColumn("Age").withStringColumn("Cabin").build();
+        MappedDataset data = CsvLoader.load(Paths.get("src/main/java/org/oak3ml/kaggle/titanic/train.csv"), schema);
+        Assert.assertEquals(891, data.size());
+        Assert.assertEquals("Braund, Mr. Owen Harris", data.get(0).getValueOrNull("Name"));
+        Assert.assertEquals(FALSE_LABEL, data.get(0).getLabel());
+        Assert.assertEquals(22.0, data.get(0).getValueOrNull("Age"));
+        Assert.assertNull(data.get(0).getValueOrNull("Cabin"));
+        Assert.assertEquals(891, data.get(890).getValueOrNull("PassengerId"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidIntIsRejected() throws IOException {
+        CsvSchema schema = new CsvSchema.Builder().withIntColumn("score").build();
+        CsvLoader.load(writeCsv(CSV), schema);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumnIsRejected() throws IOException {
+        CsvSchema schema = new CsvSchema.Builder().withIntColumn("unknown").build();
+        CsvLoader.load(writeCsv(CSV), schema);
+    }
+
+    private CsvSchema getSchema() {
+        return new CsvSchema.Builder().withIntColumn("id").withStringColumn("name").withDoubleColumn("score")
+                .withStringColumn("city").withLabelColumn("answer", value -> BooleanLabel.newLabel("1".equals(value)))
+                .withWeightColumn("weight").build();
+    }
+
+    private Path writeCsv(String csv) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.oak3ml.decisiontree.data;
+
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newSimpleDataSample;
+import static org.oak3ml.decisiontree.feature.PredicateFeature.newFeature;
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.Node;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+
+import com.google.common.collect.Lists;
+
+public class DataDeduplicatorTest {
+
+    private static final String[] HEADER = {"x1", "x2", "id", "answer"};
+
+    @Test
+    public void testIdenticalDataSamplesAreCollapsed() {
+        List<DataSample> data = Lists.newArrayList(
+                newSimpleDataSample("answer", HEADER, 1, true, 1, TRUE_LABEL),
+                newSimpleDataSample("answer", HEADER, 2, true, 2, TRUE_LABEL),
+                newSimpleDataSample("answer", HEADER, 1, true, 3, TRUE_LABEL), // same as first except not used column
+                newSimpleDataSample("answer", HEADER, 1, true, 4, FALSE_LABEL)); // different label
+
+        List<DataSample> compacted = DataDeduplicator.deduplicate(data, getFeatures());
+
+        Assert.assertEquals(3, compacted.size());
+        Assert.assertEquals(2.0, compacted.get(0).getWeight(), 0.001);
+        Assert.assertEquals(1, compacted.get(0).getValue("id").get()); // first data sample represents the group
+        Assert.assertEquals(1.0, compacted.get(1).getWeight(), 0.001);
+        Assert.assertEquals(FALSE_LABEL, compacted.get(2).getLabel());
+    }
+
+    @Test
+    public void testWeightsAreSummed() {
+        String[] header = {"x1", "x2", "weight", "answer"};
+        List<DataSample> data = Lists.newArrayList(
+                SimpleDataSample.newWeightedDataSample("answer", "weight", header, 1, true, 2.5, TRUE_LABEL),
+                SimpleDataSample.newWeightedDataSample("answer", "weight", header, 1, true, 0.5, TRUE_LABEL));
+        List<DataSample> compacted = DataDeduplicator.deduplicate(data, getFeatures());
+        Assert.assertEquals(1, compacted.size());
+        Assert.assertEquals(3.0, compacted.get(0).getWeight(), 0.001);
+    }
+
+    @Test
+    public void testTreeTrainedOnCompactedDataIsTheSame() {
+        Random random = new Random(7);
+        List<DataSample> data = Lists.newArrayList();
+        for (int i = 0; i < 2000; i++) {
+            int x1 = random.nextInt(5);
+            boolean x2 = random.nextBoolean();
+            boolean noise = random.nextInt(10) == 0;
+            data.add(newSimpleDataSample("answer", HEADER, x1, x2, i, (x1 > 2 && x2) != noise ? TRUE_LABEL : FALSE_LABEL));
+        }
+        List<DataSample> compacted = DataDeduplicator.deduplicate(data, getFeatures());
+        Assert.assertTrue(compacted.size() <= 20);
+
+        DecisionTree tree = new DecisionTree.Builder().withHomogenityPercentage(1.0).build();
+        tree.train(data, getFeatures());
+        DecisionTree compactedTree = new DecisionTree.Builder().withHomogenityPercentage(1.0).build();
+        compactedTree.train(compacted, getFeatures());
+
+        assertSameNodes(tree.getRoot(), compactedTree.getRoot());
+    }
+
+    private void assertSameNodes(Node expected, Node actual) {
+        Assert.assertEquals(expected.getName(), actual.getName());
+        Assert.assertEquals(expected.getBranchValue(), actual.getBranchValue());
+        Assert.assertEquals(expected.getLabel(), actual.getLabel());
+        Assert.assertEquals(expected.getCountedSamples(), actual.getCountedSamples());
+        Assert.assertEquals(expected.getChildren().size(), actual.getChildren().size());
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertSameNodes(expected.getChildren().get(i), actual.getChildren().get(i));
+        }
+    }
+
+    private List<Feature> getFeatures() {
+        return Arrays.asList(newFeature("x1", P.moreThan(1)), newFeature("x1", P.moreThan(2)), newFeature("x2", true));
+    }
+
+}
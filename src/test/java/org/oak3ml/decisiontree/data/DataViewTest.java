@@ -0,0 +1,98 @@
+package org.oak3ml.decisiontree.data;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.collect.Lists;
+
+public class DataViewTest {
+
+    @Test
+    public void testRowsWithoutMultiplicities() {
+        DataView view = DataView.newDataView(getData());
+        Assert.assertArrayEquals(new int[] {0, 1, 2}, view.getRows());
+        Assert.assertEquals(1, view.getMultiplicity(2));
+    }
+
+    @Test
+    public void testRowsSkipNotDrawnSamples() {
+        DataView view = DataView.newDataView(getData(), new byte[] {2, 0, 1});
+        Assert.assertArrayEquals(new int[] {0, 2}, view.getRows());
+        Assert.assertEquals(3, view.size());
+    }
+
+    @Test
+    public void testCountNbOfSamplesIsWeightedByMultiplicity() {
+        DataView view = DataView.newDataView(getData(), new byte[] {3, 0, 1});
+        Map<Label, Double> counted = view.countNbOfSamples(view.getRows());
+        Assert.assertEquals(3.0, counted.get(TRUE_LABEL), 0.001);
+        Assert.assertEquals(1.0, counted.get(FALSE_LABEL), 0.001);
+    }
+
+    @Test
+    public void testCountNbOfSamplesIsWeightedByWeight() {
+        double[] weights = {0.5, 0.25, 0.0};
+        DataView view = DataView.newWeightedDataView(getData(), weights);
+        Assert.assertArrayEquals(new int[] {0, 1}, view.getRows());
+        Assert.assertEquals(0.75, view.countNbOfSamples(view.getRows()).get(TRUE_LABEL), 0.001);
+
+        // weights are not copied so view sees updated weights
+        weights[2] = 2.0;
+        Assert.assertEquals(2.0, view.countNbOfSamples(view.getRows()).get(FALSE_LABEL), 0.001);
+    }
+
+    @Test
+    public void testDataSampleWeightsAreUsed() {
+        String[] header = {"weight", "label"};
+        List<DataSample> data = Lists.newArrayList(
+                SimpleDataSample.newWeightedDataSample("label", "weight", header, 2.5, TRUE_LABEL),
+                SimpleDataSample.newWeightedDataSample("label", "weight", header, null, TRUE_LABEL));
+        DataView view = DataView.newDataView(data, new byte[] {2, 1});
+        Assert.assertEquals(5.0, view.getWeight(0), 0.001);
+        Assert.assertEquals(6.0, view.countNbOfSamples(view.getRows()).get(TRUE_LABEL), 0.001);
+    }
+
+    @Test
+    public void testBootstrapSampleDrawsWithReplacement() {
+        DataView view = DataView.newBootstrapSample(getData(), 1.0, new Random(1));
+        int totalMultiplicity = 0;
+        for (int row = 0; row < view.size(); row++) {
+            totalMultiplicity += view.getMultiplicity(row);
+        }
+        Assert.assertEquals(3, totalMultiplicity);
+    }
+
+    @Test
+    public void testDerivedViewsShareLabelIds() {
+        DataView view = DataView.newDataView(getData());
+        DataView bootstrapSample = view.drawBootstrapSample(1.0, new Random(1));
+        Assert.assertSame(view.getLabelDictionary(), bootstrapSample.getLabelDictionary());
+        Assert.assertEquals(0, view.getLabelId(1));
+        Assert.assertEquals(1, view.getLabelId(2));
+
+        DataView sample = view.withMultiplicities(new byte[] {2, 0, 1});
+        Assert.assertArrayEquals(new double[] {2.0, 1.0}, sample.countLabels(sample.getRows()), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultiplicitiesMustMatchDataSize() {
+        DataView.newDataView(getData(), new byte[] {1, 1});
+    }
+
+    private List<DataSample> getData() {
+        String[] header = {"x", "label"};
+        return Lists.newArrayList(
+                SimpleDataSample.newSimpleDataSample("label", header, 1, TRUE_LABEL),
+                SimpleDataSample.newSimpleDataSample("label", header, 2, TRUE_LABEL),
+                SimpleDataSample.newSimpleDataSample("label", header, 3, FALSE_LABEL));
+    }
+
+}
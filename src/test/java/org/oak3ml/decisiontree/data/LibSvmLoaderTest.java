@@ -0,0 +1,84 @@
+package org.oak3ml.decisiontree.data;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.oak3ml.decisiontree.label.BooleanLabel;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.collect.Lists;
+
+public class LibSvmLoaderTest {
+
+    private static final String LIBSVM = "+1 3:1 10:0.5 # first\n"
+            + "-1 qid:7 10:2 1:4 3:0\n"
+            + "\n"
+            + "# comment line\n"
+            + "+1\n"
+            + "-1 7:-1.5e2";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testValuesAreParsed() throws IOException {
+        SparseDataset data = LibSvmLoader.load(write(LIBSVM), LibSvmLoaderTest::parseLabel);
+        Assert.assertEquals(4, data.size());
+        Assert.assertEquals(Lists.newArrayList("1", "3", "7", "10"), data.getColumnNames());
+        // zero value is not stored
+        Assert.assertEquals(5, data.getNbOfNonZeros());
+
+        Assert.assertEquals(TRUE_LABEL, data.get(0).getLabel());
+        Assert.assertEquals(1.0, data.get(0).getValueOrNull("3"));
+        Assert.assertEquals(0.5, data.get(0).getValueOrNull("10"));
+        Assert.assertEquals(0.0, data.get(0).getValueOrNull("1"));
+        Assert.assertNull(data.get(0).getValueOrNull("2"));
+
+        // unsorted row is sorted by column id
+        Assert.assertEquals(FALSE_LABEL, data.get(1).getLabel());
+        Assert.assertEquals(2, data.getRowEnd(1) - data.getRowStart(1));
+        Assert.assertEquals(data.getColumnId("1"), data.getColumnAt(data.getRowStart(1)));
+        Assert.assertEquals(4.0, data.getValueAt(data.getRowStart(1)), 0.0);
+        Assert.assertEquals(2.0, data.get(1).getValueOrNull("10"));
+        Assert.assertEquals(0.0, data.get(1).getValueOrNull("3"));
+
+        Assert.assertEquals(data.getRowStart(2), data.getRowEnd(2));
+        Assert.assertEquals(-150.0, data.get(3).getValueOrNull("7"));
+        Assert.assertEquals(1.0, data.get(3).getWeight(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRepeatedIndexIsRejected() throws IOException {
+        LibSvmLoader.load(write("+1 3:1 5:1 3:2"), LibSvmLoaderTest::parseLabel);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidIndexIsRejected() throws IOException {
+        LibSvmLoader.load(write("+1 0:1"), LibSvmLoaderTest::parseLabel);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedColumnIdsAreRejected() {
+        SparseDataset.newSparseDataset(new String[] { "a", "b" }, new int[] { 0, 2 }, new int[] { 1, 0 }, new double[] { 1, 1 }, null, null);
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static Label parseLabel(String label) {
+        return BooleanLabel.newLabel(Double.parseDouble(label) > 0);
+    }
+
+}
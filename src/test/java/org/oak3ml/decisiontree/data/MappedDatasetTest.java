@@ -0,0 +1,116 @@
+package org.oak3ml.decisiontree.data;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.data.MappedColumn.Type;
+import org.oak3ml.decisiontree.feature.CategoricalFeature;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+import org.oak3ml.decisiontree.label.IntLabel;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class MappedDatasetTest {
+
+    private static final String[] HEADER = { "id", "fare", "sex", "answer", "weight" };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testColumnsAreReadFromFile() throws IOException {
+        MappedDataset dataset = writeAndOpen(getData());
+        Assert.assertEquals(100, dataset.size());
+        Assert.assertEquals(Lists.newArrayList(HEADER), dataset.getColumnNames());
+        Assert.assertEquals(Type.INT, dataset.getColumn("id").getType());
+        Assert.assertEquals(Type.DOUBLE, dataset.getColumn("fare").getType());
+        Assert.assertEquals(Type.STRING, dataset.getColumn("sex").getType());
+        Assert.assertEquals(Type.LABEL, dataset.getColumn("answer").getType());
+
+        MappedColumn fare = dataset.getColumn("fare");
+        Assert.assertEquals(7 * 1.5, fare.getDouble(7), 0.0);
+        Assert.assertTrue(fare.isMissing(10));
+        Assert.assertFalse(fare.isMissing(11));
+
+        List<DataSample> data = getData();
+        for (int row = 0; row < data.size(); row++) {
+            for (String column : HEADER) {
+                Assert.assertEquals(data.get(row).getValueOrNull(column), dataset.get(row).getValueOrNull(column));
+            }
+            Assert.assertEquals(data.get(row).getLabel(), dataset.get(row).getLabel());
+            Assert.assertEquals(data.get(row).getWeight(), dataset.get(row).getWeight(), 0.0);
+        }
+        Assert.assertFalse(dataset.get(0).getValue("unknown").isPresent());
+    }
+
+    @Test
+    public void testTreeTrainedOnMappedDataIsTheSame() throws IOException {
+        MappedDataset dataset = writeAndOpen(getData());
+        DecisionTree heapTree = new DecisionTree.Builder().build();
+        heapTree.train(getData(), getFeatures());
+        DecisionTree mappedTree = new DecisionTree.Builder().build();
+        mappedTree.train(dataset, getFeatures());
+        Assert.assertEquals(heapTree.exportAsJson(), mappedTree.exportAsJson());
+    }
+
+    @Test
+    public void testIntLabelsAndUnweightedData() throws IOException {
+        String[] header = { "x", "label" };
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 0; x < 10; x++) {
+            data.add(SimpleDataSample.newSimpleDataSample("label", header, x, IntLabel.newLabel(x % 3)));
+        }
+        Path file = folder.newFile().toPath();
+        ColumnarDataWriter.write(data, header, "label", file);
+        MappedDataset dataset = MappedDataset.open(file);
+        Assert.assertEquals(IntLabel.newLabel(2), dataset.get(5).getLabel());
+        Assert.assertEquals(1.0, dataset.get(5).getWeight(), 0.0);
+        Assert.assertEquals(3, dataset.getColumn("label").getDictionary().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedValuesAreRejected() throws IOException {
+        String[] header = { "x", "answer" };
+        List<DataSample> data = Lists.newArrayList(SimpleDataSample.newSimpleDataSample("answer", header, true, TRUE_LABEL));
+        ColumnarDataWriter.write(data, header, "answer", folder.newFile().toPath());
+    }
+
+    private MappedDataset writeAndOpen(List<DataSample> data) throws IOException {
+        Path file = folder.newFile().toPath();
+        ColumnarDataWriter.write(data, HEADER, "answer", file);
+        return MappedDataset.open(file);
+    }
+
+    /**
+     * Every 10th fare is missing, weights are 1 or 2.
+     */
+    private List<DataSample> getData() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int id = 0; id < 100; id++) {
+            Double fare = id % 10 == 0 ? null : id * 1.5;
+            String sex = id % 3 == 0 ? "female" : "male";
+            data.add(SimpleDataSample.newWeightedDataSample("answer", "weight", HEADER, id, fare, sex,
+                    id % 3 == 0 || id > 70 ? TRUE_LABEL : FALSE_LABEL, id % 4 == 0 ? 2.0 : 1.0));
+        }
+        return data;
+    }
+
+    private List<Feature> getFeatures() {
+        return Lists.newArrayList(CategoricalFeature.newFeature("sex", Sets.newHashSet("male", "female")),
+                PredicateFeature.newFeature("fare", P.lessThanOrEqualNumber(100.0)),
+                PredicateFeature.newFeature("id", P.lessThanOrEqualNumber(50)));
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.oak3ml.decisiontree.feature;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.DataView;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.feature.HashedCategoricalFeature.CollisionStatistics;
+import org.oak3ml.testutils.EqualsTester;
+
+import com.google.common.collect.Lists;
+
+public class HashedCategoricalFeatureTest {
+
+    private static final String[] HEADER = { "url", "answer" };
+
+    @Test
+    public void testSplitIntoBuckets() {
+        List<DataSample> data = getData(1000);
+        data.add(SimpleDataSample.newSimpleDataSample("answer", HEADER, null, TRUE_LABEL));
+        HashedCategoricalFeature feature = HashedCategoricalFeature.newFeature("url", 16);
+
+        Map<String, List<DataSample>> split = feature.split(data);
+        Assert.assertEquals(16, split.size());
+        // data sample with missing value has no bucket
+        Assert.assertEquals(1000, split.values().stream().mapToInt(List::size).sum());
+        for (Map.Entry<String, List<DataSample>> branch : split.entrySet()) {
+            for (DataSample dataSample : branch.getValue()) {
+                Assert.assertEquals(branch.getKey(), String.valueOf(feature.getBucket(dataSample)));
+            }
+        }
+
+        DataView view = DataView.newDataView(data);
+        Map<String, int[]> rowSplit = feature.split(view, view.getRows());
+        Assert.assertEquals(Lists.newArrayList(split.keySet()), Lists.newArrayList(rowSplit.keySet()));
+        for (String bucket : split.keySet()) {
+            Assert.assertEquals(split.get(bucket).size(), rowSplit.get(bucket).length);
+        }
+        Assert.assertEquals(-1, feature.getBucket(data.get(1000)));
+        Assert.assertFalse(feature.belongsTo(data.get(1000)));
+    }
+
+    @Test
+    public void testSplitOfSmallNodeDoesNotDependOnNumberOfBuckets() {
+        List<DataSample> data = getData(10);
+        // a count per bucket would take 4 GB
+        HashedCategoricalFeature feature = HashedCategoricalFeature.newFeature("url", 1 << 30);
+        DataView view = DataView.newDataView(data);
+        int[] rows = { 9, 3, 5, 0 };
+
+        Map<String, int[]> rowSplit = feature.split(view, rows);
+        Map<String, List<DataSample>> split = feature.split(Lists.newArrayList(data.get(9), data.get(3), data.get(5), data.get(0)));
+        Assert.assertEquals(Lists.newArrayList(split.keySet()), Lists.newArrayList(rowSplit.keySet()));
+        for (Map.Entry<String, int[]> branch : rowSplit.entrySet()) {
+            for (int row : branch.getValue()) {
+                Assert.assertEquals(branch.getKey(), String.valueOf(feature.getBucket(data.get(row))));
+            }
+        }
+        Assert.assertEquals(4, rowSplit.values().stream().mapToInt(bucketRows -> bucketRows.length).sum());
+    }
+
+    @Test
+    public void testBucketsDependOnValueAndSeed() {
+        HashedCategoricalFeature feature = HashedCategoricalFeature.newFeature("url", 1 << 20);
+        Assert.assertEquals(feature.getBucket("http://example.com/1"), HashedCategoricalFeature.newFeature("url", 1 << 20).getBucket("http://example.com/1"));
+        Assert.assertNotEquals(feature.getBucket("http://example.com/1"), feature.getBucket("http://example.com/2"));
+        Assert.assertNotEquals(feature.getBucket("http://example.com/1"), HashedCategoricalFeature.newFeature("url", 1 << 20, 7).getBucket("http://example.com/1"));
+        // values are hashed by string form
+        Assert.assertEquals(feature.getBucket(42), feature.getBucket("42"));
+    }
+
+    @Test
+    public void testCollisionStatistics() {
+        List<DataSample> data = getData(1000);
+        data.addAll(getData(1000)); // repeated values are counted once
+        CollisionStatistics statistics = HashedCategoricalFeature.newFeature("url", 10).getCollisionStatistics(data);
+        Assert.assertEquals(1000, statistics.getNbOfValues());
+        Assert.assertEquals(10, statistics.getNbOfUsedBuckets());
+        Assert.assertEquals(1000, statistics.getNbOfCollidingValues());
+        Assert.assertTrue(statistics.getMaxValuesPerBucket() >= 100);
+        Assert.assertEquals(1.0, statistics.getCollisionRate(), 0.0);
+
+        CollisionStatistics sparseStatistics = HashedCategoricalFeature.newFeature("url", 1 << 20).getCollisionStatistics(data);
+        Assert.assertEquals(1000, sparseStatistics.getNbOfValues());
+        // about 1 value of 1000 is expected to collide in 2^20 buckets
+        Assert.assertEquals(0.95, sparseStatistics.getExpectedCollidingValues(), 0.01);
+        Assert.assertTrue(sparseStatistics.getNbOfCollidingValues() <= 6);
+        Assert.assertEquals(sparseStatistics.getNbOfValues() - sparseStatistics.getNbOfCollidingValues() / 2, sparseStatistics.getNbOfUsedBuckets(), 3);
+    }
+
+    @Test
+    public void testTreeWithHashedFeature() {
+        List<DataSample> data = getData(500);
+        DecisionTree tree = new DecisionTree.Builder().build();
+        tree.train(data, Lists.newArrayList(HashedCategoricalFeature.newFeature("url", 64)));
+        Assert.assertFalse(tree.getRoot().isLeaf());
+        Assert.assertTrue(tree.getRoot().getChildren().size() <= 64);
+        // value of a bucket without training data stops at the root
+        Assert.assertNotNull(tree.classify(SimpleDataSample.newSimpleDataSample("answer", HEADER, "http://unseen.org", TRUE_LABEL)));
+        long errors = data.stream().filter(dataSample -> !dataSample.getLabel().equals(tree.classify(dataSample))).count();
+        Assert.assertTrue(errors <= data.size() / 5);
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        EqualsTester<Feature> tester = EqualsTester.newInstance(HashedCategoricalFeature.newFeature("url", 8));
+        tester.assertImplementsEqualsAndHashCode();
+        tester.assertEqual(HashedCategoricalFeature.newFeature("url", 8), HashedCategoricalFeature.newFeature("url", 8, 0));
+        tester.assertNotEqual(HashedCategoricalFeature.newFeature("url", 8), HashedCategoricalFeature.newFeature("url", 16));
+        tester.assertNotEqual(HashedCategoricalFeature.newFeature("url", 8), HashedCategoricalFeature.newFeature("url", 8, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSingleBucketIsRejected() {
+        HashedCategoricalFeature.newFeature("url", 1);
+    }
+
+    /**
+     * Distinct urls, label is true for urls of one site.
+     */
+    private List<DataSample> getData(int size) {
+        List<DataSample> data = Lists.newArrayList();
+        for (int i = 0; i < size; i++) {
+            String url = String.format("http://site%s.com/page/%s", i % 5, i);
+            data.add(SimpleDataSample.newSimpleDataSample("answer", HEADER, url, i % 5 == 0 ? TRUE_LABEL : FALSE_LABEL));
+        }
+        return data;
+    }
+
+}
@@ -18,5 +18,15 @@ public class ImpurityCalculationMethodTest {
         double p = new GiniIndexCalculationMethod().getEmpiricalProbability(Arrays.asList(dataSample1, dataSample2), BooleanLabel.TRUE_LABEL);
         Assert.assertEquals(0.5, p, 0.001);
     }
+
+    @Test
+    public void testGetEmpiricalProbabilityIsWeighted() {
+        String[] header = new String[]{"a", "w"};
+        DataSample dataSample1 = SimpleDataSample.newWeightedDataSample("a", "w", header, BooleanLabel.TRUE_LABEL, 3.0);
+        DataSample dataSample2 = SimpleDataSample.newWeightedDataSample("a", "w", header, BooleanLabel.FALSE_LABEL, 1.0);
+        double p = new GiniIndexCalculationMethod().getEmpiricalProbability(Arrays.asList(dataSample1, dataSample2), BooleanLabel.TRUE_LABEL);
+        Assert.assertEquals(0.75, p, 0.001);
+        Assert.assertEquals(0.375, new GiniIndexCalculationMethod().calculateImpurity(Arrays.asList(dataSample1, dataSample2)), 0.001);
+    }
     
 }
@@ -0,0 +1,40 @@
+package org.oak3ml.decisiontree.label;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LabelDictionaryTest {
+
+    @Test
+    public void testIdsAreDenseInOrderOfFirstOccurrence() {
+        LabelDictionary labels = LabelDictionary.newLabelDictionary();
+        Assert.assertEquals(0, labels.add(FALSE_LABEL));
+        Assert.assertEquals(1, labels.add(TRUE_LABEL));
+        Assert.assertEquals(0, labels.add(BooleanLabel.newLabel(false)));
+        Assert.assertEquals(2, labels.size());
+        Assert.assertEquals(TRUE_LABEL, labels.getLabel(1));
+        Assert.assertEquals(LabelDictionary.UNKNOWN_ID, labels.getId(IntLabel.newLabel(1)));
+    }
+
+    @Test
+    public void testToLabelCountsSkipsZeroCounts() {
+        LabelDictionary labels = LabelDictionary.newLabelDictionary();
+        labels.add(FALSE_LABEL);
+        labels.add(TRUE_LABEL);
+        Map<Label, Double> counts = labels.toLabelCounts(new double[] {0.0, 2.5});
+        Assert.assertEquals(1, counts.size());
+        Assert.assertEquals(2.5, counts.get(TRUE_LABEL), 0.001);
+    }
+
+    @Test
+    public void testMajorityIdPrefersFirstLabelOnTie() {
+        Assert.assertEquals(1, LabelDictionary.getMajorityId(new double[] {1.0, 3.0, 3.0}));
+        Assert.assertEquals(LabelDictionary.UNKNOWN_ID, LabelDictionary.getMajorityId(new double[] {0.0, 0.0}));
+    }
+
+}
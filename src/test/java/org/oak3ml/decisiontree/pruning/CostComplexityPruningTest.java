@@ -0,0 +1,103 @@
+package org.oak3ml.decisiontree.pruning;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.Node;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.data.SimpleDataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.feature.PredicateFeature;
+
+import com.google.common.collect.Lists;
+
+public class CostComplexityPruningTest {
+
+    @Test
+    public void testAlphaPath() {
+        DecisionTree tree = train();
+        double[] alphas = CostComplexityPruning.computeAlphaPath(tree.getRoot());
+        Assert.assertEquals(0.0, alphas[0], 0.0);
+        for (int i = 1; i < alphas.length; i++) {
+            Assert.assertTrue(alphas[i - 1] < alphas[i]);
+        }
+        for (Node node : Nodes.preOrder(tree.getRoot())) {
+            for (Node child : node.getChildren()) {
+                Assert.assertTrue(child.isLeaf() || child.getPruningAlpha() <= node.getPruningAlpha());
+            }
+        }
+
+        // tree is a single leaf at the largest alpha
+        CostComplexityPruning.pruneAt(tree.getRoot(), alphas[alphas.length - 1]);
+        Assert.assertTrue(tree.getRoot().isLeaf());
+    }
+
+    @Test
+    public void testFixedAlpha() {
+        DecisionTree tree = train();
+        int nbOfNodes = Nodes.preOrder(tree.getRoot()).size();
+        new CostComplexityPruning(0.0).prune(tree, Lists.newArrayList());
+        Assert.assertEquals(nbOfNodes, Nodes.preOrder(tree.getRoot()).size());
+
+        // isolating noisy sample costs 2 leaves for 1 of 20 errors
+        new CostComplexityPruning(0.1).prune(tree, Lists.newArrayList());
+        assertSingleSplit(tree);
+    }
+
+    @Test
+    public void testAlphaIsChosenByValidationError() {
+        DecisionTree tree = train();
+        new CostComplexityPruning().prune(tree, getData(false));
+        assertSingleSplit(tree);
+        Assert.assertEquals(FALSE_LABEL, tree.classify(getData(false).get(15)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegressionTreeIsRejected() {
+        DecisionTree tree = new DecisionTree.Builder().withRegressionTarget("x").build();
+        tree.train(getData(true), getFeatures());
+        new CostComplexityPruning().prune(tree, getData(false));
+    }
+
+    static DecisionTree train() {
+        DecisionTree tree = new DecisionTree.Builder().build();
+        tree.train(getData(true), getFeatures());
+        return tree;
+    }
+
+    static void assertSingleSplit(DecisionTree tree) {
+        Assert.assertEquals("x <= 9.5", tree.getRoot().getFeature().toString());
+        Assert.assertEquals(2, tree.getRoot().getChildren().size());
+        for (Node child : tree.getRoot().getChildren()) {
+            Assert.assertTrue(child.isLeaf());
+        }
+    }
+
+    /**
+     * Label is true for x < 10, noisy data labels x = 15 true too.
+     */
+    static List<DataSample> getData(boolean noisy) {
+        String[] header = { "x", "answer" };
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 0; x < 20; x++) {
+            boolean label = x < 10 || (noisy && x == 15);
+            data.add(SimpleDataSample.newSimpleDataSample("answer", header, x, label ? TRUE_LABEL : FALSE_LABEL));
+        }
+        return data;
+    }
+
+    static List<Feature> getFeatures() {
+        List<Feature> features = Lists.newArrayList();
+        for (int x = 0; x < 19; x++) {
+            features.add(PredicateFeature.newFeature("x", P.lessThanOrEqualNumber(x + 0.5)));
+        }
+        return features;
+    }
+
+}
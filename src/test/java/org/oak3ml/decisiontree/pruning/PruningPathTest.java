@@ -0,0 +1,63 @@
+package org.oak3ml.decisiontree.pruning;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.Node;
+import org.oak3ml.decisiontree.data.DataSample;
+
+public class PruningPathTest {
+
+    @Test
+    public void testNestedTreesShareNodes() {
+        DecisionTree tree = CostComplexityPruningTest.train();
+        int nbOfNodes = Nodes.preOrder(tree.getRoot()).size();
+        PruningPath path = PruningPath.newPruningPath(tree);
+
+        int[] nbOfLeaves = path.getNbOfLeaves();
+        Assert.assertEquals(countLeaves(tree.getRoot()), nbOfLeaves[0]);
+        Assert.assertEquals(1, nbOfLeaves[nbOfLeaves.length - 1]);
+        for (int i = 1; i < nbOfLeaves.length; i++) {
+            Assert.assertTrue(nbOfLeaves[i] < nbOfLeaves[i - 1]);
+        }
+
+        List<DataSample> data = CostComplexityPruningTest.getData(false);
+        PrunedTree fullTree = path.atAlpha(0.0);
+        PrunedTree smallTree = path.withMaxLeaves(2);
+        PrunedTree stump = path.withMaxLeaves(1);
+        Assert.assertEquals(TRUE_LABEL, fullTree.classify(data.get(15)));
+        Assert.assertEquals(FALSE_LABEL, smallTree.classify(data.get(15)));
+        Assert.assertEquals(2, smallTree.getNbOfLeaves());
+        Assert.assertEquals(1, stump.getNbOfLeaves());
+        Assert.assertTrue(stump.isLeaf(tree.getRoot()));
+        Assert.assertSame(tree.getRoot(), smallTree.getRoot());
+
+        // grown tree is not changed
+        Assert.assertEquals(nbOfNodes, Nodes.preOrder(tree.getRoot()).size());
+        Assert.assertEquals(TRUE_LABEL, tree.classify(data.get(15)));
+    }
+
+    @Test
+    public void testTreeWithLowestError() {
+        DecisionTree tree = CostComplexityPruningTest.train();
+        PruningPath path = PruningPath.newPruningPath(tree);
+        List<DataSample> data = CostComplexityPruningTest.getData(false);
+        PrunedTree best = path.withLowestError(data);
+        Assert.assertEquals(2, best.getNbOfLeaves());
+        for (DataSample dataSample : data) {
+            Assert.assertEquals(dataSample.getLabel(), best.classify(dataSample));
+        }
+        Assert.assertEquals(0.0, path.getValidationErrors(data)[path.getNbOfLeaves().length - 2], 0.0);
+        Assert.assertEquals(best.getNbOfLeaves(), path.atAlpha(best.getAlpha() + 1e-12).getNbOfLeaves());
+    }
+
+    private int countLeaves(Node node) {
+        return (int) Nodes.preOrder(node).stream().filter(Node::isLeaf).count();
+    }
+
+}
@@ -0,0 +1,28 @@
+package org.oak3ml.decisiontree.pruning;
+
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.DecisionTree;
+
+import com.google.common.collect.Lists;
+
+public class ReducedErrorPruningTest {
+
+    @Test
+    public void testNoisySubtreeIsPruned() {
+        DecisionTree tree = CostComplexityPruningTest.train();
+        new ReducedErrorPruning().prune(tree, CostComplexityPruningTest.getData(false));
+        CostComplexityPruningTest.assertSingleSplit(tree);
+        Assert.assertEquals(FALSE_LABEL, tree.classify(CostComplexityPruningTest.getData(false).get(15)));
+    }
+
+    @Test
+    public void testTreeWithoutValidationDataIsPrunedToLeaf() {
+        DecisionTree tree = CostComplexityPruningTest.train();
+        new ReducedErrorPruning().prune(tree, Lists.newArrayList());
+        Assert.assertTrue(tree.getRoot().isLeaf());
+    }
+
+}
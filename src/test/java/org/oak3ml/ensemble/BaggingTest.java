@@ -0,0 +1,70 @@
+package org.oak3ml.ensemble;
+
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newClassificationDataSample;
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newSimpleDataSample;
+import static org.oak3ml.decisiontree.feature.PredicateFeature.newFeature;
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.DecisionTree;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.collect.Lists;
+
+public class BaggingTest {
+
+    private static final String[] HEADER = {"x1", "x2", "answer"};
+
+    @Test
+    public void testTrainAndClassify() {
+        Bagging bagging = new Bagging.Builder().withNumberOfModels(7)
+                .withBaseLearnerFactory(() -> new DecisionTree.Builder().withMaxDepth(3).build()).build();
+        bagging.train(getAndData(), getFeatures());
+
+        Assert.assertEquals(7, bagging.getModels().size());
+        String[] header = {"x1", "x2"};
+        Assert.assertEquals(TRUE_LABEL, bagging.classify(newClassificationDataSample(header, true, true)));
+        Assert.assertEquals(FALSE_LABEL, bagging.classify(newClassificationDataSample(header, true, false)));
+    }
+
+    @Test
+    public void testBatchClassifyIsSameAsSingle() {
+        Bagging bagging = new Bagging.Builder().withNumberOfModels(5).build();
+        List<DataSample> data = getAndData();
+        bagging.train(data, getFeatures());
+
+        Label[] labels = bagging.classify(data);
+        Assert.assertEquals(data.size(), labels.length);
+        for (int i = 0; i < data.size(); i++) {
+            Assert.assertEquals(bagging.classify(data.get(i)), labels[i]);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClassifyBeforeTraining() {
+        new Bagging.Builder().build().classify(newClassificationDataSample(new String[] {"x1"}, true));
+    }
+
+    private List<DataSample> getAndData() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int i = 0; i < 25; i++) {
+            data.add(newSimpleDataSample("answer", HEADER, true, true, TRUE_LABEL));
+            data.add(newSimpleDataSample("answer", HEADER, true, false, FALSE_LABEL));
+            data.add(newSimpleDataSample("answer", HEADER, false, true, FALSE_LABEL));
+            data.add(newSimpleDataSample("answer", HEADER, false, false, FALSE_LABEL));
+        }
+        return data;
+    }
+
+    private List<Feature> getFeatures() {
+        return Arrays.asList(newFeature("x1", true), newFeature("x2", true));
+    }
+
+}
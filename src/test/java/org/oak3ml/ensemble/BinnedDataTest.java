@@ -0,0 +1,54 @@
+package org.oak3ml.ensemble;
+
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newClassificationDataSample;
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newSimpleDataSample;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+
+import com.google.common.collect.Lists;
+
+public class BinnedDataTest {
+
+    private static final String[] HEADER = {"x", "color", "answer"};
+
+    @Test
+    public void testNumericColumnIsBinnedByQuantiles() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 1; x <= 100; x++) {
+            data.add(newSimpleDataSample("answer", HEADER, x, "red", TRUE_LABEL));
+        }
+        BinnedData binned = BinnedData.newBinnedData(data, Arrays.asList("x", "color"), 4);
+
+        Assert.assertFalse(binned.isCategorical(0));
+        Assert.assertEquals(5, binned.getNbOfBins(0)); // 4 bins + missing values bin
+        Assert.assertEquals(1, binned.getBin(0, 0));
+        Assert.assertEquals(4, binned.getBin(0, 99));
+        for (int row = 1; row < 100; row++) { // bins keep order of values
+            Assert.assertTrue(binned.getBin(0, row - 1) <= binned.getBin(0, row));
+        }
+    }
+
+    @Test
+    public void testEachDistinctValueHasOwnBin() {
+        List<DataSample> data = Lists.newArrayList(
+                newSimpleDataSample("answer", HEADER, 1.0, "red", TRUE_LABEL),
+                newSimpleDataSample("answer", HEADER, 3.0, "blue", TRUE_LABEL),
+                newSimpleDataSample("answer", HEADER, 1.0, "red", TRUE_LABEL));
+        BinnedData binned = BinnedData.newBinnedData(data, Arrays.asList("x", "color"), 255);
+
+        Assert.assertEquals(3, binned.getNbOfBins(0));
+        Assert.assertEquals(binned.getBin(0, 0), binned.getBin(0, 2));
+        Assert.assertTrue(binned.isCategorical(1));
+        Assert.assertArrayEquals(new int[] {2, 1}, binned.bin(newClassificationDataSample(new String[] {"x", "color"}, 3.0, "red")));
+        // not seen category and missing column go to missing values bin
+        Assert.assertArrayEquals(new int[] {BinnedData.MISSING_BIN, BinnedData.MISSING_BIN},
+                binned.bin(newClassificationDataSample(new String[] {"color"}, "green")));
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.oak3ml.ensemble;
+
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newClassificationDataSample;
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newSimpleDataSample;
+import static org.oak3ml.decisiontree.feature.PredicateFeature.newFeature;
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.label.Label;
+
+import com.google.common.collect.Lists;
+
+public class BoostingTest {
+
+    private static final String[] HEADER = {"x", "answer"};
+
+    @Test
+    public void testBoostedStumpsLearnInterval() {
+        // single stump can not learn interval, but weighted sum of stumps can
+        Boosting boosting = new Boosting.Builder().withNumberOfRounds(30).build();
+        List<DataSample> data = getIntervalData();
+        boosting.train(data, getFeatures());
+
+        Label[] labels = boosting.classify(data);
+        for (int i = 0; i < data.size(); i++) {
+            Assert.assertEquals(data.get(i).getLabel(), labels[i]);
+        }
+        Assert.assertTrue(boosting.getModels().size() > 1);
+        Assert.assertEquals(boosting.getModels().size(), boosting.getModelWeights().length);
+    }
+
+    @Test
+    public void testSingleStumpIsNotEnoughForInterval() {
+        Boosting boosting = new Boosting.Builder().withNumberOfRounds(1).build();
+        List<DataSample> data = getIntervalData();
+        boosting.train(data, getFeatures());
+
+        long nbOfErrors = data.stream().filter(d -> !d.getLabel().equals(boosting.classify(d))).count();
+        Assert.assertTrue(nbOfErrors > 0);
+    }
+
+    @Test
+    public void testPerfectMemberStopsBoosting() {
+        Boosting boosting = new Boosting.Builder().withNumberOfRounds(10).withMaxTreeDepth(2).build();
+        boosting.train(getIntervalData(), getFeatures());
+
+        Assert.assertEquals(1, boosting.getModels().size());
+        Assert.assertTrue(boosting.getModelWeights()[0] > 0.0);
+        String[] header = {"x"};
+        Assert.assertEquals(TRUE_LABEL, boosting.classify(newClassificationDataSample(header, 5)));
+        Assert.assertEquals(FALSE_LABEL, boosting.classify(newClassificationDataSample(header, 9)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSingleLabelDataIsRejected() {
+        List<DataSample> data = Lists.newArrayList(newSimpleDataSample("answer", HEADER, 1, TRUE_LABEL));
+        new Boosting.Builder().build().train(data, getFeatures());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClassifyBeforeTraining() {
+        new Boosting.Builder().build().classify(newClassificationDataSample(new String[] {"x"}, 1));
+    }
+
+    /**
+     * Label is true if 4 &lt;= x &lt;= 7.
+     */
+    private List<DataSample> getIntervalData() {
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 1; x <= 10; x++) {
+            data.add(newSimpleDataSample("answer", HEADER, x, x >= 4 && x <= 7 ? TRUE_LABEL : FALSE_LABEL));
+        }
+        return data;
+    }
+
+    private List<Feature> getFeatures() {
+        List<Feature> features = Lists.newArrayList();
+        for (int x = 1; x < 10; x++) {
+            features.add(newFeature("x", P.moreThan(x)));
+        }
+        return features;
+    }
+
+}
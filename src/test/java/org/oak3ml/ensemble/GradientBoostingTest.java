@@ -0,0 +1,89 @@
+package org.oak3ml.ensemble;
+
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newClassificationDataSample;
+import static org.oak3ml.decisiontree.data.SimpleDataSample.newSimpleDataSample;
+import static org.oak3ml.decisiontree.feature.PredicateFeature.newFeature;
+import static org.oak3ml.decisiontree.label.BooleanLabel.FALSE_LABEL;
+import static org.oak3ml.decisiontree.label.BooleanLabel.TRUE_LABEL;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.oak3ml.decisiontree.data.DataSample;
+import org.oak3ml.decisiontree.feature.Feature;
+import org.oak3ml.decisiontree.feature.P;
+import org.oak3ml.decisiontree.label.IntLabel;
+
+import com.google.common.collect.Lists;
+
+public class GradientBoostingTest {
+
+    private static final String[] HEADER = {"x", "color", "answer"};
+
+    @Test
+    public void testLogisticLossLearnsInterval() {
+        GradientBoosting boosting = new GradientBoosting.Builder().withNumberOfRounds(50).withLearningRate(0.3)
+                .withMinSamplesPerLeaf(1).build();
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 1; x <= 20; x++) {
+            data.add(newSimpleDataSample("answer", HEADER, x, "red", x >= 8 && x <= 14 ? TRUE_LABEL : FALSE_LABEL));
+        }
+        boosting.train(data, getFeatures());
+
+        for (DataSample dataSample : data) {
+            Assert.assertEquals(dataSample.getLabel(), boosting.classify(dataSample));
+        }
+        Assert.assertEquals(50, boosting.getTrees().size());
+        Assert.assertEquals(1, boosting.getTrees().get(0).length);
+        double[] losses = boosting.getLossCurve();
+        Assert.assertTrue(losses[losses.length - 1] < losses[0]);
+    }
+
+    @Test
+    public void testSoftmaxLossLearnsThreeLabels() {
+        GradientBoosting boosting = new GradientBoosting.Builder().withNumberOfRounds(30).withLearningRate(0.3)
+                .withMinSamplesPerLeaf(2).build();
+        List<DataSample> data = Lists.newArrayList();
+        for (int x = 1; x <= 30; x++) {
+            data.add(newSimpleDataSample("answer", HEADER, x, "red", IntLabel.newLabel((x - 1) / 10)));
+        }
+        boosting.train(data, getFeatures());
+
+        Assert.assertEquals(3, boosting.getTrees().get(0).length);
+        String[] header = {"x", "color"};
+        Assert.assertEquals(IntLabel.newLabel(0), boosting.classify(newClassificationDataSample(header, 3, "red")));
+        Assert.assertEquals(IntLabel.newLabel(1), boosting.classify(newClassificationDataSample(header, 15, "red")));
+        Assert.assertEquals(IntLabel.newLabel(2), boosting.classify(newClassificationDataSample(header, 25, "red")));
+        double[] probabilities = boosting.getProbabilities(newClassificationDataSample(header, 25, "red"));
+        Assert.assertEquals(1.0, Arrays.stream(probabilities).sum(), 0.0001);
+    }
+
+    @Test
+    public void testCategoricalColumnIsSplitOnCategory() {
+        GradientBoosting boosting = new GradientBoosting.Builder().withNumberOfRounds(20).withMinSamplesPerLeaf(1).build();
+        List<DataSample> data = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            data.add(newSimpleDataSample("answer", HEADER, i, "red", FALSE_LABEL));
+            data.add(newSimpleDataSample("answer", HEADER, i, "blue", TRUE_LABEL));
+            data.add(newSimpleDataSample("answer", HEADER, i, "green", FALSE_LABEL));
+        }
+        boosting.train(data, Arrays.asList(newFeature("color", "blue")));
+
+        String[] header = {"color"};
+        Assert.assertEquals(TRUE_LABEL, boosting.classify(newClassificationDataSample(header, "blue")));
+        Assert.assertEquals(FALSE_LABEL, boosting.classify(newClassificationDataSample(header, "red")));
+        Assert.assertEquals(FALSE_LABEL, boosting.classify(newClassificationDataSample(header, "green")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClassifyBeforeTraining() {
+        new GradientBoosting.Builder().build().classify(newClassificationDataSample(new String[] {"x"}, 1));
+    }
+
+    private List<Feature> getFeatures() {
+        return Arrays.asList(newFeature("x", P.moreThan(5)), newFeature("color", "red"));
+    }
+
+}